@@ -25,12 +25,14 @@ import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.data.envers.repository.config.EnableEnversRepositories;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 /**
  * Classe principale per l'avvio del servizio epas-service.
  */
 @EnableAsync
+@EnableScheduling
 @EntityScan(basePackages = "it.cnr.iit.epas.models")
 @EnableJpaRepositories
 @EnableEnversRepositories
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configurazione delle cache applicative.
+ */
+@Configuration
+public class CacheConfig {
+
+  /**
+   * CacheManager con cache limitate in dimensione e scadenza (vedi CacheProperties).
+   */
+  @Bean
+  public CacheManager cacheManager(CacheProperties cacheProperties,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    return new GuavaCacheManager(cacheProperties,
+        meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+  }
+
+}
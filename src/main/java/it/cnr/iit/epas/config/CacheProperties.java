@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.config;
+
+import com.google.common.collect.Maps;
+import java.time.Duration;
+import java.util.Map;
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Parametri delle cache applicative gestite dal CacheManager (dimensione massima e scadenza
+ * per ogni cache). Le cache non configurate in specs utilizzano i parametri di defaults.
+ */
+@ToString
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "epas.cache")
+public class CacheProperties {
+
+  /**
+   * Parametri delle cache non presenti in specs.
+   */
+  private Spec defaults = new Spec(1_000, Duration.ofHours(1), null);
+
+  /**
+   * Parametri per nome della cache.
+   */
+  private Map<String, Spec> specs = Maps.newHashMap(Map.of(
+      "smt", new Spec(100, Duration.ofDays(1), null),
+      "comp", new Spec(500, Duration.ofDays(1), null),
+      "createMission", new Spec(10_000, Duration.ofMinutes(1), null),
+      "vacationSituation", new Spec(20_000, null, Duration.ofHours(12))));
+
+  /**
+   * I parametri della cache con il nome indicato.
+   */
+  public Spec specOf(String cacheName) {
+    return specs.getOrDefault(cacheName, defaults);
+  }
+
+  /**
+   * Dimensione massima e scadenza di una cache.
+   */
+  @ToString
+  @Data
+  public static class Spec {
+
+    /**
+     * Numero massimo di elementi, oltre il quale sono rimossi i meno usati di recente.
+     */
+    private long maximumSize;
+
+    /**
+     * Scadenza dall'inserimento (nessuna se null).
+     */
+    private Duration expireAfterWrite;
+
+    /**
+     * Scadenza dall'ultimo accesso (nessuna se null).
+     */
+    private Duration expireAfterAccess;
+
+    public Spec() {
+      this(1_000, null, null);
+    }
+
+    /**
+     * Costruisce i parametri di una cache.
+     */
+    public Spec(long maximumSize, Duration expireAfterWrite, Duration expireAfterAccess) {
+      this.maximumSize = maximumSize;
+      this.expireAfterWrite = expireAfterWrite;
+      this.expireAfterAccess = expireAfterAccess;
+    }
+  }
+
+}
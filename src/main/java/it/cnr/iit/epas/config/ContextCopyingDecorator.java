@@ -41,12 +41,15 @@ class ContextCopyingDecorator implements TaskDecorator {
   @Nonnull
   @Override
   public Runnable decorate(@Nonnull Runnable runnable) {
-    RequestAttributes context =
-        RequestContextHolder.currentRequestAttributes();
+    // Il task può essere sottomesso anche fuori da una richiesta http
+    // (per esempio dal motore di ricalcolo), in quel caso non c'è nulla da copiare.
+    RequestAttributes context = RequestContextHolder.getRequestAttributes();
     SecurityContext securityContext = SecurityContextHolder.getContext();
     return () -> {
       try {
-        RequestContextHolder.setRequestAttributes(context);
+        if (context != null) {
+          RequestContextHolder.setRequestAttributes(context);
+        }
         SecurityContextHolder.setContext(securityContext);
         runnable.run();
       } finally {
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.config;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+/**
+ * CacheManager con cache Guava limitate nella dimensione e con scadenza, configurate per nome
+ * tramite CacheProperties. Le cache sono create al primo utilizzo e le loro statistiche
+ * (hit, miss, rimozioni, dimensione) sono esportate nel registry Micrometer con il tag
+ * cache uguale al nome della cache.
+ */
+@Slf4j
+public class GuavaCacheManager implements CacheManager {
+
+  private final CacheProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+  public GuavaCacheManager(CacheProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    return caches.computeIfAbsent(name, this::createCache);
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return Collections.unmodifiableSet(caches.keySet());
+  }
+
+  private Cache createCache(String name) {
+    CacheProperties.Spec spec = properties.specOf(name);
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+        .maximumSize(spec.getMaximumSize())
+        .recordStats();
+    if (spec.getExpireAfterWrite() != null) {
+      builder.expireAfterWrite(spec.getExpireAfterWrite());
+    }
+    if (spec.getExpireAfterAccess() != null) {
+      builder.expireAfterAccess(spec.getExpireAfterAccess());
+    }
+    com.google.common.cache.Cache<Object, Object> cache = builder.build();
+    GuavaCacheMetrics.monitor(meterRegistry, cache, name);
+    log.info("Creata la cache {} con {}", name, spec);
+    return new GuavaCache(name, cache);
+  }
+
+  /**
+   * Adattatore di una cache Guava all'interfaccia Cache di Spring. I valori null non sono
+   * memorizzati: inserire null equivale a rimuovere la chiave.
+   */
+  static class GuavaCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final com.google.common.cache.Cache<Object, Object> cache;
+
+    GuavaCache(String name, com.google.common.cache.Cache<Object, Object> cache) {
+      super(false);
+      this.name = name;
+      this.cache = cache;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+      return cache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+      return cache.getIfPresent(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+      try {
+        return (T) fromStoreValue(cache.get(key, () -> toStoreValue(valueLoader.call())));
+      } catch (ExecutionException | UncheckedExecutionException e) {
+        throw new ValueRetrievalException(key, valueLoader, e.getCause());
+      }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+      if (value == null) {
+        cache.invalidate(key);
+        return;
+      }
+      cache.put(key, toStoreValue(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+      if (value == null) {
+        return get(key);
+      }
+      return toValueWrapper(cache.asMap().putIfAbsent(key, toStoreValue(value)));
+    }
+
+    @Override
+    public void evict(Object key) {
+      cache.invalidate(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+      return cache.asMap().remove(key) != null;
+    }
+
+    @Override
+    public void clear() {
+      cache.invalidateAll();
+    }
+
+    @Override
+    public boolean invalidate() {
+      boolean notEmpty = cache.size() > 0;
+      cache.invalidateAll();
+      return notEmpty;
+    }
+  }
+}
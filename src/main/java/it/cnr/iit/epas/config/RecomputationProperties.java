@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.config;
+
+import java.time.Duration;
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Parametri del motore di ricalcolo parallelo delle situazioni dei dipendenti.
+ * Il numero di worker va dimensionato sulla dimensione del pool di connessioni
+ * al database (spring.datasource.hikari.maximumPoolSize), lasciando almeno una
+ * connessione libera per le richieste REST.
+ */
+@ToString
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "epas.recomputation")
+public class RecomputationProperties {
+
+  /**
+   * Numero di thread che effettuano in parallelo i ricalcoli.
+   */
+  private int workers = 4;
+
+  /**
+   * Numero massimo di ricalcoli in attesa di un worker libero, oltre il quale
+   * chi sottomette i ricalcoli viene bloccato.
+   */
+  private int queueCapacity = 16;
+
+  /**
+   * Numero massimo di persone dello stesso ufficio elaborate in un singolo lotto.
+   */
+  private int batchSize = 50;
+
+  /**
+   * Numero di tentativi aggiuntivi per persona in caso di conflitto di lock ottimistico.
+   */
+  private int maxRetries = 3;
+
+  /**
+   * Attesa tra un tentativo e il successivo (moltiplicata per il numero del tentativo).
+   */
+  private Duration retryBackoff = Duration.ofMillis(500);
+
+}
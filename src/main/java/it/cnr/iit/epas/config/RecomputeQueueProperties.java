@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.config;
+
+import java.time.Duration;
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Parametri della coda persistente dei ricalcoli richiesti dagli inserimenti e dalle
+ * cancellazioni di timbrature ed assenze. I ricalcoli in coda sono eseguiti dai worker del
+ * motore di ricalcolo (vedi RecomputationProperties).
+ */
+@ToString
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "epas.recompute-queue")
+public class RecomputeQueueProperties {
+
+  /**
+   * Se false i ricalcoli sono effettuati in modo sincrono all'interno della richiesta.
+   * Richiede la tabella recompute_requests (migrazione V2).
+   */
+  private boolean enabled = false;
+
+  /**
+   * Intervallo senza nuove richieste per la stessa persona trascorso il quale il ricalcolo
+   * viene avviato.
+   */
+  private Duration debounce = Duration.ofSeconds(2);
+
+  /**
+   * Numero di tentativi oltre il quale una richiesta fallita non viene più ritentata
+   * (fino ad una nuova richiesta per la stessa persona).
+   */
+  private int maxAttempts = 5;
+
+  /**
+   * Durata massima dell'elaborazione di una richiesta da parte di un'istanza, trascorsa la
+   * quale la richiesta può essere elaborata da un'altra istanza.
+   */
+  private Duration lease = Duration.ofMinutes(10);
+
+}
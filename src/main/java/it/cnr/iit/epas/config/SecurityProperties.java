@@ -18,6 +18,7 @@
 package it.cnr.iit.epas.config;
 
 import java.io.Serializable;
+import java.time.Duration;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -39,6 +40,28 @@ public class SecurityProperties implements Serializable {
 
   private Oauth2 oauth2 = new Oauth2();
 
+  /**
+   * Durata dell'associazione tra identificativo autenticato e utente ePAS
+   * (zero per disabilitare la cache).
+   */
+  private Duration principalCacheTtl = Duration.ofSeconds(60);
+
+  /**
+   * Numero massimo di associazioni tra identificativo autenticato e utente ePAS in cache.
+   */
+  private long principalCacheSize = 10_000;
+
+  /**
+   * Durata degli esiti dei controlli delle autorizzazioni in cache (zero per disabilitare la
+   * cache).
+   */
+  private Duration permissionCacheTtl = Duration.ofSeconds(60);
+
+  /**
+   * Numero massimo di esiti dei controlli delle autorizzazioni in cache.
+   */
+  private long permissionCacheSize = 50_000;
+
   /**
    * Bean per le info relative all'oauth2.
    */
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Parametri dei riepiloghi mensili delle timbrature salvati per i mesi chiusi
+ * (vedi PersonStampingRecapSnapshotManager).
+ */
+@ToString
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "epas.stamping-recap-snapshot")
+public class StampingRecapSnapshotProperties {
+
+  /**
+   * Se false i riepiloghi mensili sono sempre ricalcolati. Quando abilitato la prima lettura
+   * di un mese chiuso salva il riepilogo, è necessaria la tabella creata dalla migrazione
+   * V6__person_stamping_recap_snapshots.
+   */
+  private boolean enabled = false;
+
+  /**
+   * Numero di mesi precedenti a quello corrente ancora modificabili, i riepiloghi di questi
+   * mesi sono salvati solo se il mese è già stato inviato agli attestati.
+   */
+  @Min(0)
+  private int openMonths = 1;
+
+}
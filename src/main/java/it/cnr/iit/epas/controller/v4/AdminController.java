@@ -29,10 +29,13 @@ import it.cnr.iit.epas.controller.v4.utils.ApiRoutes;
 import it.cnr.iit.epas.dao.PersonDao;
 import it.cnr.iit.epas.dao.PersonDayInTroubleDao;
 import it.cnr.iit.epas.dto.v4.PersonDayInTroubleDto;
+import it.cnr.iit.epas.dto.v4.RecomputationProgressDto;
 import it.cnr.iit.epas.dto.v4.SecurityPropertiesDto;
 import it.cnr.iit.epas.dto.v4.mapper.PersonDayInTroubleMapper;
+import it.cnr.iit.epas.dto.v4.mapper.RecomputationProgressMapper;
 import it.cnr.iit.epas.dto.v4.mapper.SecurityPropertiesMapper;
 import it.cnr.iit.epas.manager.PersonDayInTroubleManager;
+import it.cnr.iit.epas.manager.RecomputationEngine;
 import it.cnr.iit.epas.models.PersonDayInTrouble;
 import jakarta.persistence.EntityNotFoundException;
 import java.util.List;
@@ -68,19 +71,25 @@ class AdminController {
   private final PersonDayInTroubleMapper personDayInTroubleMapper;
   private final SecurityProperties securityProperties;
   private final SecurityPropertiesMapper securityPropertiesMapper;
+  private final RecomputationEngine recomputationEngine;
+  private final RecomputationProgressMapper recomputationProgressMapper;
 
   @Inject
   AdminController(PersonDao personDao, PersonDayInTroubleManager personDayInTroubleManager,
       PersonDayInTroubleMapper personDayInTroubleMapper,
       PersonDayInTroubleDao personDayInTroubleDao,
       SecurityProperties securityProperties,
-      SecurityPropertiesMapper securityPropertiesMapper) {
+      SecurityPropertiesMapper securityPropertiesMapper,
+      RecomputationEngine recomputationEngine,
+      RecomputationProgressMapper recomputationProgressMapper) {
     this.personDao = personDao;
     this.personDayInTroubleManager = personDayInTroubleManager;
     this.personDayInTroubleMapper = personDayInTroubleMapper;
     this.personDayInTroubleDao = personDayInTroubleDao;
     this.securityProperties = securityProperties;
     this.securityPropertiesMapper = securityPropertiesMapper;
+    this.recomputationEngine = recomputationEngine;
+    this.recomputationProgressMapper = recomputationProgressMapper;
   }
 
   @DeleteMapping(CLEAN_PERSON_DAYS_IN_TROUBLE_API)
@@ -132,4 +141,28 @@ class AdminController {
   ResponseEntity<SecurityPropertiesDto> securityProperties() {
     return ResponseEntity.ok(securityPropertiesMapper.convert(securityProperties));
   } 
-}
\ No newline at end of file
+
+  @Operation(
+      summary = "Mostra l'avanzamento dell'ultimo ricalcolo massivo delle situazioni "
+          + "dei dipendenti.",
+      description = "Questo endpoint è utilizzabile dagli utenti con ruolo "
+          + "di sistema 'Developer' e/o 'Admin'.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", 
+          description = "Restituito l'avanzamento del ricalcolo (elaborati, falliti, "
+              + "rimanenti e stima del tempo residuo)."),
+      @ApiResponse(responseCode = "401", 
+          description = "Autenticazione non presente", content = @Content), 
+      @ApiResponse(responseCode = "403", 
+          description = "Utente che ha effettuato la richiesta non autorizzato",
+            content = @Content),
+      @ApiResponse(responseCode = "404", 
+          description = "Nessun ricalcolo massivo avviato", content = @Content)
+  })
+  @GetMapping("/recomputationProgress")
+  ResponseEntity<RecomputationProgressDto> recomputationProgress() {
+    return recomputationEngine.getLastProgress()
+        .map(progress -> ResponseEntity.ok(recomputationProgressMapper.convert(progress)))
+        .orElse(ResponseEntity.notFound().build());
+  }
+}
@@ -36,6 +36,7 @@ import it.cnr.iit.epas.dto.v4.CompetenceDto;
 import it.cnr.iit.epas.dto.v4.CompetencesDto;
 import it.cnr.iit.epas.dto.v4.mapper.CompetencesMapper;
 import it.cnr.iit.epas.manager.CompetenceManager;
+import it.cnr.iit.epas.manager.recaps.RecapVersions;
 import it.cnr.iit.epas.manager.recaps.competences.PersonMonthCompetenceRecap;
 import it.cnr.iit.epas.manager.recaps.competences.PersonMonthCompetenceRecapFactory;
 import it.cnr.iit.epas.models.Competence;
@@ -47,16 +48,19 @@ import it.cnr.iit.epas.security.SecurityRules;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @SecurityRequirements(
     value = {
@@ -78,6 +82,7 @@ class CompetencesController {
   private final CompetenceCodeDao competenceCodeDao;
   private final PersonMonthCompetenceRecapFactory personMonthCompetenceRecapFactory;
   private final CompetencesMapper competencesMapper;
+  private final RecapVersions recapVersions;
 
   @Operation(
       summary = "Visualizzazione delle competenze.",
@@ -103,7 +108,8 @@ class CompetencesController {
       @RequestParam("personId") Optional<Long> personId,
       @RequestParam("fiscalCode") Optional<String> fiscalCode,
       @NotNull @RequestParam("year") Integer year,
-      @NotNull @RequestParam("month") Integer month) {
+      @NotNull @RequestParam("month") Integer month,
+      WebRequest webRequest) {
     log.debug("REST method {} invoked with parameters year={}, month={}, personId ={}",
         "/rest/v4/competences" + ApiRoutes.LIST, year, month, personId);
 
@@ -128,6 +134,11 @@ class CompetencesController {
     }
     log.debug("contract {}", contract);
 
+    final String etag = recapVersions.monthEtag(person, YearMonth.of(year, month));
+    if (webRequest.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
     List<PersonCompetenceCodes> pccList = competenceCodeDao
         .listByPerson(person,
             Optional.ofNullable(LocalDate.now().withMonth(month).withYear(year)));
@@ -168,7 +179,7 @@ class CompetencesController {
     cptDto.setYear(year);
     cptDto.setPersonId(person.getId());
 
-    return ResponseEntity.ok().body(cptDto);
+    return ResponseEntity.ok().eTag(etag).body(cptDto);
   }
 
 }
\ No newline at end of file
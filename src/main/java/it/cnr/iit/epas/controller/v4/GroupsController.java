@@ -30,8 +30,10 @@ import it.cnr.iit.epas.controller.v4.utils.PersonFinder;
 import it.cnr.iit.epas.dao.RoleDao;
 import it.cnr.iit.epas.dao.UsersRolesOfficesDao;
 import it.cnr.iit.epas.dto.v4.SeatOrganizationChartDto;
+import it.cnr.iit.epas.dto.v4.UserShowDto;
 import it.cnr.iit.epas.dto.v4.mapper.SeatOrganizationChartMapper;
 import it.cnr.iit.epas.manager.GroupManager;
+import it.cnr.iit.epas.manager.cache.OrganizationChartCache;
 import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.Role;
 import it.cnr.iit.epas.models.User;
@@ -40,6 +42,7 @@ import jakarta.persistence.EntityNotFoundException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -61,6 +64,14 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping(ApiRoutes.BASE_PATH + "/groups")
 class GroupsController {
+
+  /**
+   * I ruoli di sede mostrati nell'organigramma, comuni a tutte le persone della sede.
+   */
+  private static final List<String> OFFICE_ROLES = List.of(Role.SEAT_SUPERVISOR,
+      Role.PERSONNEL_ADMIN, Role.TECHNICAL_ADMIN, Role.REGISTRY_MANAGER,
+      Role.MEAL_TICKET_MANAGER, Role.PERSONNEL_ADMIN_MINI);
+
   private final GroupManager groupManager;
   private final SecurityRules rules;
   private final PersonFinder personFinder;
@@ -69,6 +80,7 @@ class GroupsController {
   private final RoleDao roleDao;
 
   private final SeatOrganizationChartMapper seatOrganizationChartMapper;
+  private final OrganizationChartCache organizationChartCache;
 
   @Operation(
       summary = "Visualizzazione le informazioni sui ruoli presenti nella sede di appartenenza "
@@ -103,34 +115,28 @@ class GroupsController {
     rules.checkifPermitted(currentPerson);
 
     log.debug("Person {}", currentPerson);
-    Map<Role, List<User>> seatSupervisors = groupManager
-        .createOrganizationChart(currentPerson, roleDao.getRoleByName(Role.SEAT_SUPERVISOR));
-    Map<Role, List<User>> personnelAdmins = groupManager
-        .createOrganizationChart(currentPerson, roleDao.getRoleByName(Role.PERSONNEL_ADMIN));
-    Map<Role, List<User>> technicalAdmins = groupManager
-        .createOrganizationChart(currentPerson, roleDao.getRoleByName(Role.TECHNICAL_ADMIN));
-    Map<Role, List<User>> registryManagers = groupManager
-        .createOrganizationChart(currentPerson, roleDao.getRoleByName(Role.REGISTRY_MANAGER));
-    Map<Role, List<User>> mealTicketsManagers = groupManager
-        .createOrganizationChart(currentPerson, roleDao.getRoleByName(Role.MEAL_TICKET_MANAGER));
-    Map<Role, List<User>> personnelAdminsMini = groupManager
-        .createOrganizationChart(currentPerson, roleDao.getRoleByName(Role.PERSONNEL_ADMIN_MINI));
+    final Map<String, List<UserShowDto>> officeChart = organizationChartCache.get(
+        currentPerson.getOffice(), () -> seatOrganizationChartMapper.convertByRoleName(
+            groupManager.createOfficeOrganizationChart(currentPerson.getOffice(), OFFICE_ROLES)));
+
+    final Map<String, Role> rolesByName = roleDao.getAll().stream()
+        .collect(Collectors.toMap(Role::getName, Function.identity()));
     Map<Role, List<User>> shiftManagers = groupManager
-        .createOrganizationChart(currentPerson, roleDao.getRoleByName(Role.SHIFT_MANAGER));
+        .createOrganizationChart(currentPerson, rolesByName.get(Role.SHIFT_MANAGER));
     Map<Role, List<User>> reperibilityManagers = groupManager
-        .createOrganizationChart(currentPerson, roleDao.getRoleByName(Role.REPERIBILITY_MANAGER));
+        .createOrganizationChart(currentPerson, rolesByName.get(Role.REPERIBILITY_MANAGER));
 
     SeatOrganizationChartDto dto = new SeatOrganizationChartDto();
 
     List<Role> roles = uroDao.getUsersRolesOfficesByUser(currentPerson.getUser())
         .stream().map(uro -> uro.getRole()).collect(Collectors.toList());
 
-    dto.setSeatSupervisors(seatOrganizationChartMapper.convert(seatSupervisors));
-    dto.setPersonnelAdmins(seatOrganizationChartMapper.convert(personnelAdmins));
-    dto.setTechnicalAdmins(seatOrganizationChartMapper.convert(technicalAdmins));
-    dto.setRegistryManagers(seatOrganizationChartMapper.convert(registryManagers));
-    dto.setMealTicketsManagers(seatOrganizationChartMapper.convert(mealTicketsManagers));
-    dto.setPersonnelAdminsMini(seatOrganizationChartMapper.convert(personnelAdminsMini));
+    dto.setSeatSupervisors(roleChart(officeChart, Role.SEAT_SUPERVISOR));
+    dto.setPersonnelAdmins(roleChart(officeChart, Role.PERSONNEL_ADMIN));
+    dto.setTechnicalAdmins(roleChart(officeChart, Role.TECHNICAL_ADMIN));
+    dto.setRegistryManagers(roleChart(officeChart, Role.REGISTRY_MANAGER));
+    dto.setMealTicketsManagers(roleChart(officeChart, Role.MEAL_TICKET_MANAGER));
+    dto.setPersonnelAdminsMini(roleChart(officeChart, Role.PERSONNEL_ADMIN_MINI));
     dto.setShiftManagers(seatOrganizationChartMapper.convert(shiftManagers));
     dto.setReperibilityManagers(seatOrganizationChartMapper.convert(reperibilityManagers));
 
@@ -139,4 +145,12 @@ class GroupsController {
     return ResponseEntity.ok().body(dto);
   }
 
-}
\ No newline at end of file
+  /**
+   * La parte dell'organigramma della sede relativa ad un solo ruolo.
+   */
+  private static Map<String, List<UserShowDto>> roleChart(
+      Map<String, List<UserShowDto>> officeChart, String roleName) {
+    return Map.of(roleName, officeChart.getOrDefault(roleName, List.of()));
+  }
+
+}
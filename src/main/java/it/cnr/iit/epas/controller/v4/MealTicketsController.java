@@ -43,6 +43,7 @@ import it.cnr.iit.epas.security.SecurityRules;
 import jakarta.persistence.EntityNotFoundException;
 import java.time.LocalDate;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -135,7 +136,7 @@ public class MealTicketsController {
     }
 
     MealTicketRecapShowDto dto = new MealTicketRecapShowDto();
-    MealTicketRecapDto recapDto = mealTicketRecapMapper.convert(recap);
+    MealTicketRecapDto recapDto = convert(recap);
 
     LocalDate deliveryDate = LocalDate.now();
     LocalDate today = LocalDate.now();
@@ -146,7 +147,7 @@ public class MealTicketsController {
     dto.setToday(today);
     dto.setPerson(personShowTerseMapper.convert(person));
     dto.setRecap(recapDto);
-    dto.setRecapPrevious(mealTicketRecapMapper.convert(recapPrevious));
+    dto.setRecapPrevious(convert(recapPrevious));
     dto.setExpireDate(mealTicketDao.getFurtherExpireDateInOffice(person.getOffice()));
     dto.setTicketNumberFrom(ticketNumberFrom);
     dto.setTicketNumberTo(ticketNumberTo);
@@ -154,4 +155,20 @@ public class MealTicketsController {
     return ResponseEntity.ok().body(dto);
   }
 
+  /**
+   * Il DTO del riepilogo con i giorni con buono pasto dell'intero intervallo del contratto,
+   * che il riepilogo non carica più leggendo i mesi conclusi dai movimenti mensili.
+   */
+  @SuppressWarnings("deprecation")
+  private MealTicketRecapDto convert(MealTicketRecap recap) {
+    MealTicketRecapDto recapDto = mealTicketRecapMapper.convert(recap);
+    if (recap == null) {
+      return recapDto;
+    }
+    mealTicketService.getContractMealTicketDateInterval(recap.getContract())
+        .ifPresent(interval -> recapDto.setPersonDaysMealTickets(
+            personDao.getPersonDayIntoInterval(recap.getContract().person, interval, true)
+                .stream().map(mealTicketRecapMapper::convert).collect(Collectors.toList())));
+    return recapDto;
+  }
 }
\ No newline at end of file
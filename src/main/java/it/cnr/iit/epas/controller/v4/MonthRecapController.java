@@ -17,8 +17,10 @@
 
 package it.cnr.iit.epas.controller.v4;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -29,9 +31,11 @@ import it.cnr.iit.epas.controller.v4.utils.ApiRoutes;
 import it.cnr.iit.epas.controller.v4.utils.PersonFinder;
 import it.cnr.iit.epas.dao.wrapper.IWrapperFactory;
 import it.cnr.iit.epas.dto.v4.PersonStampingRecapDto;
-import it.cnr.iit.epas.dto.v4.mapper.PersonStampingRecapMapper;
-import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingRecap;
-import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingRecapFactory;
+import it.cnr.iit.epas.dto.v4.RecomputeStatusDto;
+import it.cnr.iit.epas.dto.v4.mapper.RecomputeStatusMapper;
+import it.cnr.iit.epas.manager.RecomputeQueue;
+import it.cnr.iit.epas.manager.recaps.RecapVersions;
+import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingRecapSnapshotManager;
 import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.security.SecurityRules;
 import jakarta.persistence.EntityNotFoundException;
@@ -41,11 +45,13 @@ import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Controller con i metodi REST relativi ai riepiloghi mensili.
@@ -67,10 +73,12 @@ import org.springframework.web.bind.annotation.RestController;
 public class MonthRecapController {
 
   private final IWrapperFactory wrapperFactory;
-  private final PersonStampingRecapFactory stampingRecapFactory;
-  private final PersonStampingRecapMapper personStampingRecapMapper;
+  private final PersonStampingRecapSnapshotManager stampingRecapSnapshotManager;
   private final SecurityRules rules;
   private final PersonFinder personFinder;
+  private final RecomputeQueue recomputeQueue;
+  private final RecomputeStatusMapper recomputeStatusMapper;
+  private final RecapVersions recapVersions;
 
   @Operation(
       summary = "Visualizzazione dei riepiloghi mensili dei dipendenti.",
@@ -80,7 +88,8 @@ public class MonthRecapController {
           + "utenti con il ruolo di sistema 'Developer' e/o 'Admin'.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200",
-          description = "Restituiti i dati dei riepiloghi mensili"),
+          description = "Restituiti i dati dei riepiloghi mensili",
+          content = @Content(schema = @Schema(implementation = PersonStampingRecapDto.class))),
       @ApiResponse(responseCode = "401",
           description = "Autenticazione non presente", content = @Content),
       @ApiResponse(responseCode = "403",
@@ -92,11 +101,12 @@ public class MonthRecapController {
           content = @Content)
   })
   @GetMapping(ApiRoutes.LIST)
-  ResponseEntity<PersonStampingRecapDto> show(
+  ResponseEntity<JsonNode> show(
       @RequestParam("personId") Optional<Long> personId,
       @RequestParam("fiscalCode") Optional<String> fiscalCode,
       @NotNull @RequestParam("year") Integer year,
-      @NotNull @RequestParam("month") Integer month) {
+      @NotNull @RequestParam("month") Integer month,
+      WebRequest webRequest) {
     log.debug("REST method {} invoked with parameters personId={}, year={}, month={}",
         "/rest/v4/monthrecaps" + ApiRoutes.LIST, personId, year, month);
 
@@ -111,8 +121,53 @@ public class MonthRecapController {
       return ResponseEntity.notFound().build();
     }
 
-    PersonStampingRecap psrDto = stampingRecapFactory.create(person, year, month, true);
-    return ResponseEntity.ok().body(personStampingRecapMapper.convert(psrDto));
+    final String etag = recapVersions.monthEtag(person, YearMonth.of(year, month));
+    if (webRequest.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    return ResponseEntity.ok().eTag(etag)
+        .body(stampingRecapSnapshotManager.recap(person, YearMonth.of(year, month)));
   }
 
-}
\ No newline at end of file
+  @Operation(
+      summary = "Stato di aggiornamento dei dati calcolati di un dipendente.",
+      description = "Indica se ci sono ricalcoli in attesa per il dipendente in seguito a "
+          + "modifiche di timbrature o assenze, e da quale data. Questo endpoint è utilizzabile "
+          + "dagli stessi utenti che possono visualizzare i riepiloghi mensili.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "Restituito lo stato di aggiornamento dei dati calcolati"),
+      @ApiResponse(responseCode = "401",
+          description = "Autenticazione non presente", content = @Content),
+      @ApiResponse(responseCode = "403",
+          description = "Utente che ha effettuato la richiesta non autorizzato a visualizzare"
+              + " i dati del dipendente",
+          content = @Content),
+      @ApiResponse(responseCode = "404",
+          description = "Persona non trovata con l'id fornito",
+          content = @Content)
+  })
+  @GetMapping("/recomputeStatus")
+  ResponseEntity<RecomputeStatusDto> recomputeStatus(
+      @RequestParam("personId") Optional<Long> personId,
+      @RequestParam("fiscalCode") Optional<String> fiscalCode) {
+    log.debug("REST method {} invoked with parameters personId={}",
+        "/rest/v4/monthrecaps/recomputeStatus", personId);
+
+    Person person = 
+        personFinder.getPerson(personId, fiscalCode)
+          .orElseThrow(() -> new EntityNotFoundException("Person not found"));
+
+    rules.checkifPermitted(person);
+
+    return ResponseEntity.ok().body(recomputeQueue.pending(person.getId())
+        .map(recomputeStatusMapper::convert)
+        .orElseGet(() -> {
+          val status = new RecomputeStatusDto();
+          status.setPersonId(person.getId());
+          status.setUpToDate(true);
+          return status;
+        }));
+  }
+}
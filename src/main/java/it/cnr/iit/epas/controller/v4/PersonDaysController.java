@@ -30,6 +30,7 @@ import it.cnr.iit.epas.controller.v4.utils.PersonFinder;
 import it.cnr.iit.epas.dao.PersonDayDao;
 import it.cnr.iit.epas.dto.v4.PersonDayDto;
 import it.cnr.iit.epas.dto.v4.mapper.PersonDayMapper;
+import it.cnr.iit.epas.manager.recaps.RecapVersions;
 import jakarta.persistence.EntityNotFoundException;
 import java.time.YearMonth;
 import java.util.List;
@@ -38,11 +39,13 @@ import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Controller con i metodi REST relativi alla visualizzazione e gestione dei riepilogi
@@ -68,6 +71,7 @@ public class PersonDaysController {
   private final PersonDayDao personDayDao;
   private final PersonDayMapper personDayMapper;
   private final PersonFinder personFinder;
+  private final RecapVersions recapVersions;
 
   @Operation(
       summary = "Visualizzazione delle informazioni giornaliere di un mese di un dipendente.",
@@ -94,15 +98,22 @@ public class PersonDaysController {
       @RequestParam("personId") Optional<Long> personId,
       @RequestParam("fiscalCode") Optional<String> fiscalCode,
       @RequestParam("year") Integer year, 
-      @RequestParam("month") Integer month) {
+      @RequestParam("month") Integer month,
+      WebRequest webRequest) {
     log.debug("REST method {} invoked with parameters personId={}, fiscalCode = {}, year={}, "
         + "month={}", ApiRoutes.LIST, personId, fiscalCode, year, month);
     val person = personFinder.getPerson(personId, fiscalCode)
         .orElseThrow(() -> new EntityNotFoundException("Person not found"));
+
+    final String etag = recapVersions.monthEtag(person, YearMonth.of(year, month));
+    if (webRequest.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
     val personDays = 
-        personDayDao.getPersonDayInMonth(person, YearMonth.of(year, month));
+        personDayDao.getPersonDayInMonthReadOnly(person, YearMonth.of(year, month));
     val personDaysDto = 
         personDays.stream().map(personDayMapper::convert).collect(Collectors.toList());
-    return ResponseEntity.ok().body(personDaysDto);
+    return ResponseEntity.ok().eTag(etag).body(personDaysDto);
   }
 }
\ No newline at end of file
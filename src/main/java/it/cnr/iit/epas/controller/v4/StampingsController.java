@@ -29,6 +29,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirements;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import it.cnr.iit.epas.config.OpenApiConfiguration;
 import it.cnr.iit.epas.controller.v4.utils.ApiRoutes;
+import it.cnr.iit.epas.dao.OfficeDao;
 import it.cnr.iit.epas.dao.PersonDao;
 import it.cnr.iit.epas.dao.StampingDao;
 import it.cnr.iit.epas.dao.UserDao;
@@ -36,6 +37,7 @@ import it.cnr.iit.epas.dao.history.HistoryValue;
 import it.cnr.iit.epas.dao.history.StampingHistoryDao;
 import it.cnr.iit.epas.dao.wrapper.IWrapperPerson;
 import it.cnr.iit.epas.dao.wrapper.WrapperFactory;
+import it.cnr.iit.epas.dto.v4.DailyPresenceRecapDto;
 import it.cnr.iit.epas.dto.v4.HistoryValueDto;
 import it.cnr.iit.epas.dto.v4.StampTypeDto;
 import it.cnr.iit.epas.dto.v4.StampingCreateDto;
@@ -43,11 +45,15 @@ import it.cnr.iit.epas.dto.v4.StampingEditFormDto;
 import it.cnr.iit.epas.dto.v4.StampingFormDto;
 import it.cnr.iit.epas.dto.v4.ZoneDto;
 import it.cnr.iit.epas.dto.v4.mapper.EntityToDtoConverter;
+import it.cnr.iit.epas.dto.v4.mapper.PersonStampingRecapMapper;
 import it.cnr.iit.epas.dto.v4.mapper.StampingFormDtoMapper;
 import it.cnr.iit.epas.manager.PersonDayManager;
 import it.cnr.iit.epas.manager.StampingManager;
 import it.cnr.iit.epas.manager.configurations.EpasParam;
+import it.cnr.iit.epas.manager.recaps.dailypresence.DailyPresenceRecap;
+import it.cnr.iit.epas.manager.recaps.dailypresence.DailyPresenceRecapFactory;
 import it.cnr.iit.epas.models.BadgeReader;
+import it.cnr.iit.epas.models.Office;
 import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.PersonDay;
 import it.cnr.iit.epas.models.Role;
@@ -106,6 +112,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping(ApiRoutes.BASE_PATH + "/stampings")
 public class StampingsController {
 
+  private final OfficeDao officeDao;
   private final PersonDao personDao;
   private final StampingDao stampingDao;
   private final StampingHistoryDao stampingsHistoryDao;
@@ -117,6 +124,8 @@ public class StampingsController {
   private final SecureUtils securityUtils;
   private final WrapperFactory wrapperFactory;
   private final StampingFormDtoMapper stampingFormDtoMapper;
+  private final PersonStampingRecapMapper personStampingRecapMapper;
+  private final DailyPresenceRecapFactory dailyPresenceRecapFactory;
   private final Validator validator;
 
   /**
@@ -241,6 +250,53 @@ public class StampingsController {
     return ResponseEntity.ok(dto);
   }
 
+  /**
+   * Presenza giornaliera dei dipendenti di una sede.
+   */
+  @Operation(
+      summary = "Presenza giornaliera dei dipendenti di una sede.",
+      description = "Questo endpoint è utilizzabile dagli utenti con ruolo "
+          + "'Amministratore Personale' della sede e dagli utenti con il ruolo "
+          + "di sistema 'Developer' e/o 'Admin'.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "Restituisce i giorni dei dipendenti attivi e il riepilogo dei "
+              + "presenti e degli assenti"),
+      @ApiResponse(responseCode = "401",
+          description = "Autenticazione non presente", content = @Content),
+      @ApiResponse(responseCode = "403",
+          description = "Utente che ha effettuato la richiesta non autorizzato a visualizzare "
+              + "la presenza giornaliera della sede",
+          content = @Content),
+      @ApiResponse(responseCode = "404",
+          description = "Sede non trovata con l'id fornito",
+          content = @Content)
+  })
+  @GetMapping("/dailyPresence")
+  public ResponseEntity<DailyPresenceRecapDto> dailyPresence(
+      @RequestParam("officeId") Long officeId,
+      @DateTimeFormat(iso = ISO.DATE)
+      @RequestParam("date") Optional<LocalDate> date) {
+    log.debug("StampingsController::dailyPresence officeId = {}  date = {}", officeId, date);
+    final Office office = officeDao.byId(officeId)
+        .orElseThrow(() -> new EntityNotFoundException("Office not found with id = " + officeId));
+
+    rules.checkifPermitted(office);
+
+    DailyPresenceRecap recap =
+        dailyPresenceRecapFactory.create(office, date.orElse(LocalDate.now()));
+
+    DailyPresenceRecapDto dto = new DailyPresenceRecapDto();
+    dto.setOfficeId(office.getId());
+    dto.setDate(recap.date);
+    dto.setNumberOfInOut(recap.numberOfInOut);
+    dto.setDaysRecap(recap.daysRecap.stream()
+        .map(personStampingRecapMapper::convert).collect(Collectors.toList()));
+    dto.setDailyMap(recap.dailyMap);
+
+    return ResponseEntity.ok(dto);
+  }
+
 
   /**
    * Recupera le informazioni per costruire la form di modifica della timbratura.
@@ -17,6 +17,8 @@
 
 package it.cnr.iit.epas.controller.v4;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -27,11 +29,18 @@ import it.cnr.iit.epas.config.OpenApiConfiguration;
 import it.cnr.iit.epas.controller.v4.utils.ApiRoutes;
 import it.cnr.iit.epas.dto.v4.StampingDto;
 import it.cnr.iit.epas.dto.v4.StampingFromClientDto;
+import it.cnr.iit.epas.dto.v4.StampingFromClientResultDto;
 import it.cnr.iit.epas.dto.v4.mapper.StampingDtoMapper;
 import it.cnr.iit.epas.manager.StampingManager;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.exports.StampingFromClient;
 import it.cnr.iit.epas.security.SecurityRules;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -55,16 +64,23 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 class StampingsFromClient {
 
+  /**
+   * Numero massimo di timbrature accettate in un inserimento in blocco.
+   */
+  static final int MAX_BATCH_SIZE = 1000;
+
   private final StampingManager stampingManager;
   private final StampingDtoMapper stampingDtoMapper;
   private final SecurityRules rules;
+  private final Validator validator;
 
   @Inject
   StampingsFromClient(StampingManager stampingManager, StampingDtoMapper stampingDtoMapper,
-      SecurityRules rules) {
+      SecurityRules rules, Validator validator) {
     this.stampingManager = stampingManager;
     this.stampingDtoMapper = stampingDtoMapper;
     this.rules = rules;
+    this.validator = validator;
   }
 
   /**
@@ -122,6 +138,87 @@ class StampingsFromClient {
     return genericCreate(stampingFromClientDto, true);
   }
 
+  /**
+   * Inserimento in blocco delle timbrature con un solo ricalcolo per dipendente a partire dal
+   * giorno della timbratura più vecchia.
+   */
+  @Operation(
+      summary = "Inserisce una lista di timbrature ricevute nel formato utilizzato dai client "
+          + "di ePAS.",
+      description = "Inserisce in un'unica transazione una lista di timbrature ricevute nel "
+          + "formato utilizzato dai client di ePAS, per esempio quelle accumulate da un lettore "
+          + "rimasto disconnesso. Per ogni dipendente viene effettuato un solo ricalcolo dal "
+          + "giorno della sua timbratura più vecchia fino al giorno corrente. La risposta "
+          + "contiene l'esito di ogni timbratura con la semantica dei codici http "
+          + "dell'inserimento singolo.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "lista elaborata, esito per timbratura"),
+      @ApiResponse(responseCode = "400", description = "lista assente o con più di "
+          + MAX_BATCH_SIZE + " timbrature"),
+      @ApiResponse(responseCode = "403", 
+        description = "autenticazione non presente")
+  })
+  @PutMapping("/createBatch")
+  public ResponseEntity<List<StampingFromClientResultDto>> createBatch(
+      @NotNull @RequestBody List<StampingFromClientDto> stampingFromClientDtos) {
+    log.debug("Ricevuta richiesta creazione di {} timbrature", 
+        stampingFromClientDtos != null ? stampingFromClientDtos.size() : null);
+
+    if (stampingFromClientDtos == null || stampingFromClientDtos.size() > MAX_BATCH_SIZE) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    final List<StampingFromClientResultDto> results = Lists.newArrayList();
+    final Map<Integer, StampingFromClient> converted = Maps.newLinkedHashMap();
+    for (int i = 0; i < stampingFromClientDtos.size(); i++) {
+      final StampingFromClientDto dto = stampingFromClientDtos.get(i);
+      results.add(new StampingFromClientResultDto(i, HttpStatus.BAD_REQUEST.value(), null));
+      if (dto == null || !validator.validate(dto).isEmpty()) {
+        log.info("Ricevuta timbratura con informazioni incomplete o errate: {}", dto);
+        continue;
+      }
+      dto.convert().ifPresent(stamping -> converted.put(results.size() - 1, stamping));
+    }
+
+    // Badge number not present (404)
+    stampingManager.linkToPersons(Lists.newArrayList(converted.values()));
+
+    final List<Integer> acceptedIndexes = Lists.newArrayList();
+    final List<StampingFromClient> accepted = Lists.newArrayList();
+    for (Map.Entry<Integer, StampingFromClient> entry : converted.entrySet()) {
+      final StampingFromClient stamping = entry.getValue();
+      final StampingFromClientResultDto result = results.get(entry.getKey());
+      if (stamping.getPerson() == null) {
+        result.setStatus(HttpStatus.NOT_FOUND.value());
+      } else if (!rules.check(stamping.getPerson().getOffice())) {
+        result.setStatus(HttpStatus.FORBIDDEN.value());
+      } else if (stampingManager.isTooFarInPast(stamping.getDateTime())) {
+        log.info("Ignorata timbratura con data troppo nel passato: {}", stamping);
+      } else {
+        acceptedIndexes.add(entry.getKey());
+        accepted.add(stamping);
+      }
+    }
+
+    final List<Optional<Stamping>> inserted = stampingManager.createStampingsFromClient(accepted);
+    final List<Stamping> toRecompute = Lists.newArrayList();
+    for (int i = 0; i < inserted.size(); i++) {
+      final StampingFromClientResultDto result = results.get(acceptedIndexes.get(i));
+      if (inserted.get(i).isPresent()) {
+        result.setStatus(HttpStatus.OK.value());
+        result.setStamping(stampingDtoMapper.convert(inserted.get(i).get()));
+        toRecompute.add(inserted.get(i).get());
+      } else {
+        // Stamping already present (409)
+        result.setStatus(HttpStatus.CONFLICT.value());
+      }
+    }
+
+    stampingManager.updatePersonSituations(toRecompute);
+
+    return ResponseEntity.ok().body(results);
+  }
+
   /**
    * Effettua l'inserimento di una timbratura applicando i controlli
    * sui parametri ed i permessi.
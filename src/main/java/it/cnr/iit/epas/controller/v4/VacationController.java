@@ -41,6 +41,7 @@ import it.cnr.iit.epas.dto.v4.VacationSummaryDto;
 import it.cnr.iit.epas.dto.v4.mapper.AbsenceGroupsMapper;
 import it.cnr.iit.epas.dto.v4.mapper.PersonVacationMapper;
 import it.cnr.iit.epas.dto.v4.mapper.PersonVacationSummaryMapper;
+import it.cnr.iit.epas.manager.recaps.RecapVersions;
 import it.cnr.iit.epas.manager.recaps.personvacation.PersonVacationRecap;
 import it.cnr.iit.epas.manager.recaps.personvacation.PersonVacationRecapFactory;
 import it.cnr.iit.epas.manager.recaps.personvacation.PersonVacationSummary;
@@ -60,11 +61,13 @@ import java.util.SortedMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @SecurityRequirements(
     value = {
@@ -87,6 +90,7 @@ class VacationController {
   private final PersonVacationSummaryMapper personVacationSummaryMapper;
   private final SecurityRules rules;
   private final PersonFinder personFinder;
+  private final RecapVersions recapVersions;
 
   @Operation(
       summary = "Visualizzazione delle informazioni delle ferie e permessi.",
@@ -112,7 +116,8 @@ class VacationController {
       @RequestParam("personId") Optional<Long> personId,
       @RequestParam("fiscalCode") Optional<String> fiscalCode,
       @NotNull @RequestParam("year") Integer year,
-      @NotNull @RequestParam("month") Integer month) {
+      @NotNull @RequestParam("month") Integer month,
+      WebRequest webRequest) {
     log.debug("REST method {} invoked with parameters year={}, month={}, personId ={}",
         "/rest/v4/vacations" + ApiRoutes.LIST, year, month, personId);
 
@@ -121,6 +126,11 @@ class VacationController {
 
     rules.checkifPermitted(person);
 
+    final String etag = recapVersions.yearEtag(person, year);
+    if (webRequest.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
     PersonVacationRecap personVacation = personvacationFactory.create(person, year);
 
     PersonVacationDto vacationDto = personVacationMapper.convert(personVacation);
@@ -153,7 +163,7 @@ class VacationController {
     newPeriodChain.setPeriods(newPeriodDto);
     vacationDto.setPeriodChain(newPeriodChain);
 
-    return ResponseEntity.ok().body(vacationDto);
+    return ResponseEntity.ok().eTag(etag).body(vacationDto);
   }
 
   @Operation(
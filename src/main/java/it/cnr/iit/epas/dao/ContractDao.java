@@ -19,6 +19,7 @@ package it.cnr.iit.epas.dao;
 
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.querydsl.core.BooleanBuilder;
 import it.cnr.iit.epas.dao.common.DaoBase;
 import it.cnr.iit.epas.models.Contract;
@@ -30,9 +31,13 @@ import it.cnr.iit.epas.models.QContract;
 import it.cnr.iit.epas.models.QContractMandatoryTimeSlot;
 import it.cnr.iit.epas.models.QContractStampProfile;
 import it.cnr.iit.epas.models.QContractWorkingTimeType;
+import it.cnr.iit.epas.models.QPersonalWorkingTime;
+import it.cnr.iit.epas.models.QWorkingTimeType;
+import it.cnr.iit.epas.models.QWorkingTimeTypeDay;
 import it.cnr.iit.epas.models.WorkingTimeType;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import javax.inject.Inject;
@@ -208,6 +213,45 @@ public class ContractDao extends DaoBase<Contract> {
         .where(contract.person.eq(person)).orderBy(contract.beginDate.asc()).fetch();
   }
 
+  /**
+   * La lista dei contratti delle persone con i periodi di tipo orario (e i giorni dei tipi
+   * orario), i profili di timbratura e gli orari personalizzati già caricati. Il numero di query
+   * non dipende dal numero di persone.
+   *
+   * @param people le persone
+   * @return la lista dei contratti delle persone ordinati per data inizio contratto.
+   */
+  public List<Contract> getPeopleContractListFetched(Collection<Person> people) {
+    if (people.isEmpty()) {
+      return Lists.newArrayList();
+    }
+    final QContract contract = QContract.contract;
+    final QContractWorkingTimeType cwtt = QContractWorkingTimeType.contractWorkingTimeType;
+    final QWorkingTimeType wtt = QWorkingTimeType.workingTimeType;
+    final QWorkingTimeTypeDay wttd = QWorkingTimeTypeDay.workingTimeTypeDay;
+    final QPersonalWorkingTime pwt = QPersonalWorkingTime.personalWorkingTime;
+
+    final List<Contract> contracts = getQueryFactory().selectFrom(contract)
+        .leftJoin(contract.contractStampProfile).fetchJoin()
+        .leftJoin(contract.contractWorkingTimeType, cwtt).fetchJoin()
+        .leftJoin(cwtt.workingTimeType, wtt).fetchJoin()
+        .leftJoin(wtt.workingTimeTypeDays, wttd).fetchJoin()
+        .where(contract.person.in(people))
+        .orderBy(contract.beginDate.asc(), wttd.dayOfWeek.asc()).distinct()
+        .fetch();
+    if (contracts.isEmpty()) {
+      return contracts;
+    }
+
+    getQueryFactory().selectFrom(contract)
+        .leftJoin(contract.personalWorkingTimes, pwt).fetchJoin()
+        .leftJoin(pwt.timeSlot).fetchJoin()
+        .where(contract.in(contracts)).distinct()
+        .fetch();
+
+    return contracts;
+  }
+
   /**
    * Il contratto di una persona ad una certa data.
    *
@@ -97,6 +97,19 @@ public class MealTicketDao extends DaoBase<MealTicket> {
     return query.fetch();
   }
 
+  /**
+   * Tutti i MealTickets del contratto, sia disponibili che riconsegnati, senza un ordinamento
+   * particolare.
+   *
+   * @param contract contratto
+   * @return la lista dei buoni pasto del contratto.
+   */
+  public List<MealTicket> contractMealTickets(Contract contract) {
+    final QMealTicket mealTicket = QMealTicket.mealTicket;
+    return getQueryFactory().selectFrom(mealTicket)
+        .where(mealTicket.contract.eq(contract)).fetch();
+  }
+
   /**
    * La scadenza massima precedentemente assegnata ai buoni pasto inseriti per le persone
    * appartenenti all'office passato come argomento.
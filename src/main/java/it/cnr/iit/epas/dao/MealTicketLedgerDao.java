@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.dao;
+
+import it.cnr.iit.epas.dao.common.DaoBase;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.MealTicketLedger;
+import it.cnr.iit.epas.models.QMealTicketLedger;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import javax.inject.Inject;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * DAO per i movimenti mensili dei buoni pasto dei contratti.
+ */
+@Component
+public class MealTicketLedgerDao extends DaoBase<MealTicketLedger> {
+
+  @Inject
+  MealTicketLedgerDao(ObjectProvider<EntityManager> emp) {
+    super(emp);
+  }
+
+  /**
+   * I movimenti mensili del contratto ordinati per mese.
+   *
+   * @param contract il contratto
+   * @return la lista dei movimenti mensili.
+   */
+  public List<MealTicketLedger> byContract(Contract contract) {
+    final QMealTicketLedger ledger = QMealTicketLedger.mealTicketLedger;
+    return getQueryFactory().selectFrom(ledger)
+        .where(ledger.contract.eq(contract))
+        .orderBy(ledger.year.asc(), ledger.month.asc())
+        .fetch();
+  }
+
+  /**
+   * Blocca la riga del contratto fino al termine della transazione corrente, serializzando
+   * gli aggiornamenti dei movimenti mensili dello stesso contratto.
+   *
+   * @param contract il contratto
+   */
+  public void lockContract(Contract contract) {
+    getEntityManager().find(Contract.class, contract.getId(), LockModeType.PESSIMISTIC_WRITE);
+  }
+}
@@ -64,6 +64,7 @@ import it.cnr.iit.epas.utils.DateUtility;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -468,6 +469,25 @@ public class PersonDao extends DaoBase<Person> {
         .where(condition).orderBy(qpd.date.asc()).fetch();
   }
 
+  /**
+   * Il numero dei person day della persona nella finestra temporale specificata che hanno
+   * maturato il buono pasto.
+   *
+   * @param person la persona
+   * @param interval l'intervallo dei personday
+   * @return il numero dei personday con il buono pasto.
+   */
+  public long countPersonDayWithMealTicket(Person person, DateInterval interval) {
+
+    final QPersonDay qpd = QPersonDay.personDay;
+
+    return getQueryFactory()
+        .selectFrom(qpd)
+        .where(qpd.person.eq(person).and(qpd.date.goe(interval.getBegin()))
+            .and(qpd.date.loe(interval.getEnd())).and(qpd.isTicketAvailable.eq(true)))
+        .fetchCount();
+  }
+
   /**
    * Preleva la persona passata per id.
    *
@@ -642,6 +662,33 @@ public class PersonDao extends DaoBase<Person> {
         .fetchOne();
   }
 
+  /**
+   * I proprietari dei badge del badge reader, con un'unica query.
+   *
+   * @param badgeNumbers codici dei badge (eventualmente con zeri iniziali)
+   * @param badgeReader badge reader
+   * @return la mappa codice del badge (come registrato) -> proprietario del badge
+   */
+  public Map<String, Person> getPersonsByBadgeNumbers(Collection<String> badgeNumbers,
+      BadgeReader badgeReader) {
+
+    final QBadge badge = QBadge.badge;
+
+    final Set<String> codes = Sets.newHashSet();
+    for (String badgeNumber : badgeNumbers) {
+      codes.add(badgeNumber);
+      codes.add(badgeNumber.replaceFirst("^0+(?!$)", ""));
+    }
+    if (codes.isEmpty()) {
+      return Map.of();
+    }
+
+    return getQueryFactory().from(badge)
+        .join(badge.person)
+        .where(badge.badgeReader.eq(badgeReader).and(badge.code.in(codes)))
+        .transform(groupBy(badge.code).as(badge.person));
+  }
+
   /**
    * Lista di persone per tipo di reperibilità associata.
    *
@@ -17,15 +17,17 @@
 
 package it.cnr.iit.epas.dao;
 
+import com.google.common.collect.Lists;
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.AbstractJPAQuery;
 import it.cnr.iit.epas.dao.common.DaoBase;
 import it.cnr.iit.epas.models.Office;
 import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.PersonDay;
 import it.cnr.iit.epas.models.QPerson;
 import it.cnr.iit.epas.models.QPersonDay;
-import it.cnr.iit.epas.models.QPersonDayInTrouble;
 import it.cnr.iit.epas.models.QStamping;
 import it.cnr.iit.epas.models.absences.Absence;
 import it.cnr.iit.epas.models.absences.QAbsence;
@@ -35,9 +37,11 @@ import it.cnr.iit.epas.utils.DateUtility;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import javax.inject.Inject;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
@@ -122,43 +126,48 @@ public class PersonDayDao extends DaoBase<PersonDay> {
   }
 
   /**
-   * Supporto alla ricerca dei personday. Default: fetch delle timbrature e ordinamento crescente
-   * per data
+   * Supporto alla ricerca dei personday con timbrature, assenze e relativi codici di assenza.
+   * Ordinamento crescente per data (o decrescente con orderedDesc).
+   *
+   * <p>Le timbrature e le assenze sono liste (bag) e non possono essere prelevate con un'unica
+   * fetch join: la prima query preleva i personday con le timbrature, la seconda (solo se ci
+   * sono personday) inizializza le assenze sugli stessi personday. I problemi dei personday
+   * sono prelevati con una sola query al primo accesso (FetchMode.SUBSELECT) e solo dai
+   * ricalcoli che li utilizzano.</p>
    *
-   * @param fetchAbsences true se fetch di absences anzichè stampings
    * @param orderedDesc true se si vuole ordinamento decrescente
+   * @param readOnly true se i personday sono prelevati in sola lettura (non soggetti al dirty
+   *     checking e mai aggiornati sul db).
    */
   private List<PersonDay> getPersonDaysFetched(Person person,
-      LocalDate begin, Optional<LocalDate> end, boolean fetchAbsences,
-      boolean orderedDesc, boolean onlyIsTicketAvailable) {
+      LocalDate begin, Optional<LocalDate> end, boolean orderedDesc,
+      boolean onlyIsTicketAvailable, boolean readOnly) {
 
     final QPersonDay personDay = QPersonDay.personDay;
     final QStamping stamping = QStamping.stamping;
 
-    JPQLQuery<PersonDay> query = build(person, begin, end, orderedDesc, onlyIsTicketAvailable);
-    query = query.leftJoin(personDay.stampings, stamping).fetchJoin();
-    query.fetch();
-
-    final QPersonDayInTrouble troubles = QPersonDayInTrouble.personDayInTrouble;
-
-    build(person, begin, end, orderedDesc, onlyIsTicketAvailable)
-        .leftJoin(personDay.troubles, troubles).fetchJoin()
+    final List<PersonDay> personDays =
+        build(person, begin, end, orderedDesc, onlyIsTicketAvailable, readOnly)
+        .leftJoin(personDay.stampings, stamping).fetchJoin()
         .fetch();
+    if (personDays.isEmpty()) {
+      return personDays;
+    }
 
     final QAbsence absence = QAbsence.absence;
     final QAbsenceType absenceType = QAbsenceType.absenceType;
 
-    return build(person, begin, end, orderedDesc, onlyIsTicketAvailable)
+    build(person, begin, end, orderedDesc, onlyIsTicketAvailable, readOnly)
         .leftJoin(personDay.absences, absence).fetchJoin()
         .leftJoin(absence.absenceType, absenceType).fetchJoin()
-        .orderBy(personDay.date.asc())
         .fetch();
 
+    return personDays;
   }
 
   private JPQLQuery<PersonDay> build(Person person,
       LocalDate begin, Optional<LocalDate> end,
-      boolean orderedDesc, boolean onlyIsTicketAvailable) {
+      boolean orderedDesc, boolean onlyIsTicketAvailable, boolean readOnly) {
 
     final QPersonDay personDay = QPersonDay.personDay;
 
@@ -179,6 +188,9 @@ public class PersonDayDao extends DaoBase<PersonDay> {
     } else {
       query.orderBy(personDay.date.asc());
     }
+    if (readOnly) {
+      ((AbstractJPAQuery<?, ?>) query).setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
 
     query.distinct();
 
@@ -212,8 +224,7 @@ public class PersonDayDao extends DaoBase<PersonDay> {
   public List<PersonDay> getPersonDayInPeriodDesc(Person person, LocalDate begin,
       Optional<LocalDate> end) {
 
-    return getPersonDaysFetched(person, begin, end,
-        false, true, false);
+    return getPersonDaysFetched(person, begin, end, true, false, false);
   }
 
 
@@ -229,6 +240,18 @@ public class PersonDayDao extends DaoBase<PersonDay> {
         false, false, false);
   }
 
+  /**
+   * La lista dei PersonDay appartenenti al mese anno, ordinati in modo crescente e prelevati in
+   * sola lettura: le modifiche ai personday, alle timbrature e alle assenze prelevate non sono
+   * salvate sul db. Da utilizzare solo per la visualizzazione dei dati.
+   */
+  public List<PersonDay> getPersonDayInMonthReadOnly(Person person, YearMonth yearMonth) {
+
+    LocalDate begin = yearMonth.atDay(1);
+    return getPersonDaysFetched(person, begin, Optional.of(yearMonth.atEndOfMonth()),
+        false, false, true);
+  }
+
   /**
    * I person day della persona festivi e con ore lavorate. Utilizzo:s Nel mese year.present e
    * month.present Nell'anno year.present e month.absent Sempre year.absent e month.absent
@@ -274,6 +297,104 @@ public class PersonDayDao extends DaoBase<PersonDay> {
         .orderBy(personDay.person.surname.asc()).fetch();
   }
 
+  /**
+   * La lista dei personday di un singolo giorno di una lista di persone, con timbrature e
+   * assenze già caricate, ordinata per cognome e nome. Le timbrature sono prelevate con i
+   * personday, le assenze con una seconda query: il numero di query non dipende dal numero
+   * di persone.
+   * I personday sono prelevati in sola lettura: da utilizzare solo per la visualizzazione
+   * dei dati (es. presenza giornaliera).
+   *
+   * @param personList le persone di cui si vogliono i personday
+   * @param date il giorno
+   * @return la lista dei personDay esistenti delle persone nel giorno.
+   */
+  public List<PersonDay> getPersonDayForPeopleInDayReadOnly(Collection<Person> personList,
+      LocalDate date) {
+    if (personList.isEmpty()) {
+      return Lists.newArrayList();
+    }
+    final QPersonDay personDay = QPersonDay.personDay;
+    final QStamping stamping = QStamping.stamping;
+
+    final List<PersonDay> personDays = peopleInDay(personList, date)
+        .leftJoin(personDay.stampings, stamping).fetchJoin()
+        .fetch();
+    if (personDays.isEmpty()) {
+      return personDays;
+    }
+
+    final QAbsence absence = QAbsence.absence;
+    final QAbsenceType absenceType = QAbsenceType.absenceType;
+
+    peopleInDay(personList, date)
+        .leftJoin(personDay.absences, absence).fetchJoin()
+        .leftJoin(absence.absenceType, absenceType).fetchJoin()
+        .leftJoin(absence.justifiedType).fetchJoin()
+        .fetch();
+
+    return personDays;
+  }
+
+  /**
+   * Per ciascuna persona l'ultimo personday del mese precedente al giorno, cioè il candidato
+   * personday precedente per il calcolo del progressivo. Il numero di query non dipende dal
+   * numero di persone.
+   * I personday sono prelevati in sola lettura: da utilizzare solo per la visualizzazione
+   * dei dati (es. presenza giornaliera).
+   *
+   * @param personList le persone
+   * @param date il giorno
+   * @return la lista dei personday precedenti esistenti.
+   */
+  public List<PersonDay> getPreviousPersonDayInMonthForPeopleReadOnly(
+      Collection<Person> personList, LocalDate date) {
+    if (personList.isEmpty() || date.getDayOfMonth() == 1) {
+      return Lists.newArrayList();
+    }
+    final QPersonDay personDay = QPersonDay.personDay;
+    final QPersonDay previous = new QPersonDay("previous");
+
+    final JPQLQuery<PersonDay> query = getQueryFactory().selectFrom(personDay)
+        .where(personDay.person.in(personList).and(personDay.date.eq(
+            JPAExpressions.select(previous.date.max()).from(previous)
+                .where(previous.person.eq(personDay.person)
+                    .and(previous.date.goe(date.withDayOfMonth(1)))
+                    .and(previous.date.lt(date))))));
+    ((AbstractJPAQuery<?, ?>) query).setHint(HibernateHints.HINT_READ_ONLY, true);
+    return query.fetch();
+  }
+
+  private JPQLQuery<PersonDay> peopleInDay(Collection<Person> personList, LocalDate date) {
+    final QPersonDay personDay = QPersonDay.personDay;
+    final QPerson person = QPerson.person;
+
+    final JPQLQuery<PersonDay> query = getQueryFactory().selectFrom(personDay)
+        .join(personDay.person, person).fetchJoin()
+        .where(personDay.date.eq(date).and(person.in(personList)))
+        .orderBy(person.surname.asc(), person.name.asc())
+        .distinct();
+    ((AbstractJPAQuery<?, ?>) query).setHint(HibernateHints.HINT_READ_ONLY, true);
+    return query;
+  }
+
+  /**
+   * La lista dei personday di una lista di persone nel periodo compreso tra from e to.
+   *
+   * @return la lista dei personDay delle persone presenti nella lista nel periodo specificato,
+   *     ordinata per data.
+   */
+  public List<PersonDay> getPersonDayForPeopleInPeriod(Collection<Person> personList,
+      LocalDate from, LocalDate to) {
+    if (personList.isEmpty()) {
+      return Lists.newArrayList();
+    }
+    final QPersonDay personDay = QPersonDay.personDay;
+    return getQueryFactory().selectFrom(personDay)
+        .where(personDay.date.between(from, to).and(personDay.person.in(personList)))
+        .orderBy(personDay.date.asc()).fetch();
+  }
+
   /**
    * Il più vecchio personday presente sul db.
    *
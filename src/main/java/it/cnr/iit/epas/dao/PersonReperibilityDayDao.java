@@ -17,6 +17,7 @@
 
 package it.cnr.iit.epas.dao;
 
+import com.google.common.collect.Sets;
 import com.querydsl.core.BooleanBuilder;
 import it.cnr.iit.epas.dao.common.DaoBase;
 import it.cnr.iit.epas.models.Office;
@@ -31,6 +32,7 @@ import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
@@ -75,6 +77,22 @@ public class PersonReperibilityDayDao extends DaoBase<PersonReperibilityDay> {
 
   }
 
+  /**
+   * I giorni compresi tra from e to in cui la persona è reperibile, con un'unica query.
+   *
+   * @param person la persona
+   * @param from la data di inizio
+   * @param to la data di fine
+   * @return l'insieme delle date di reperibilità della persona nel periodo.
+   */
+  public Set<LocalDate> getReperibilityDates(Person person, LocalDate from, LocalDate to) {
+    QPersonReperibilityDay prd = QPersonReperibilityDay.personReperibilityDay;
+    return Sets.newHashSet(getQueryFactory().select(prd.date).from(prd)
+        .where(prd.personReperibility.person.eq(person)
+            .and(prd.date.goe(from)).and(prd.date.loe(to)))
+        .fetch());
+  }
+
   /**
    * Metodo che ritorna, una lista di personreperibilityday che rispondono ai parametri passati.
    *
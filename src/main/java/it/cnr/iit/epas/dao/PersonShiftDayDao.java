@@ -17,6 +17,8 @@
 
 package it.cnr.iit.epas.dao;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.querydsl.core.BooleanBuilder;
 import it.cnr.iit.epas.dao.common.DaoBase;
 import it.cnr.iit.epas.models.Person;
@@ -30,8 +32,10 @@ import it.cnr.iit.epas.models.ShiftType;
 import it.cnr.iit.epas.models.enumerate.ShiftSlot;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import javax.inject.Inject;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
@@ -99,6 +103,37 @@ public class PersonShiftDayDao extends DaoBase<PersonShiftDay> {
         .where(condition).orderBy(personShiftDay.date.asc()).fetch();
   }
 
+  /**
+   * La lista dei giorni di turno nel periodo compreso tra from e to sulle attività types delle
+   * persone people, con una sola query. Il turno, la persona e i problemi del giorno di turno
+   * sono caricati insieme ai giorni di turno.
+   *
+   * @param from la data da cui cercare i giorni di turno
+   * @param to la data fino a cui cercare i giorni di turno
+   * @param types le attività su cui cercare i turni
+   * @param people le persone per cui cercare i turni
+   * @return la lista dei personShiftDay delle persone people presenti nel periodo compreso tra
+   *     'from' e 'to' su una delle attività types, ordinata per data.
+   */
+  public List<PersonShiftDay> byTypesInPeriod(LocalDate from, LocalDate to,
+      Collection<ShiftType> types, Collection<Person> people) {
+    if (types.isEmpty() || people.isEmpty()) {
+      return Lists.newArrayList();
+    }
+    final QPersonShiftDay personShiftDay = QPersonShiftDay.personShiftDay;
+    final QPersonShift personShift = QPersonShift.personShift;
+
+    return getQueryFactory().selectFrom(personShiftDay).distinct()
+        .join(personShiftDay.personShift, personShift).fetchJoin()
+        .join(personShift.person).fetchJoin()
+        .leftJoin(personShiftDay.troubles).fetchJoin()
+        .where(personShiftDay.date.goe(from)
+            .and(personShiftDay.date.loe(to))
+            .and(personShiftDay.shiftType.in(types))
+            .and(personShift.person.in(people)))
+        .orderBy(personShiftDay.date.asc()).fetch();
+  }
+
 
   /**
    * Cerca il PersonShiftDay per ShiftType, data, ShiftSlot.
@@ -222,6 +257,21 @@ public class PersonShiftDayDao extends DaoBase<PersonShiftDay> {
         .where(shiftDay.date.eq(date).and(shiftDay.shiftType.eq(activity))).fetch();
   }
   
+  /**
+   * I giorni di turno per una persona in un periodo, con un'unica query.
+   *
+   * @param from la data da cui cercare i giorni di turno
+   * @param to la data fino a cui cercare i giorni di turno
+   * @return l'insieme delle date di turno della persona nel periodo.
+   */
+  public Set<LocalDate> getShiftDates(Person person, LocalDate from, LocalDate to) {
+    final QPersonShiftDay shiftDay = QPersonShiftDay.personShiftDay;
+    return Sets.newHashSet(getQueryFactory().select(shiftDay.date).from(shiftDay)
+        .where(shiftDay.personShift.person.eq(person)
+            .and(shiftDay.date.goe(from).and(shiftDay.date.loe(to))))
+        .fetch());
+  }
+
   /**
    * La lista dei giorni di turno per una persona in un periodo.
    *
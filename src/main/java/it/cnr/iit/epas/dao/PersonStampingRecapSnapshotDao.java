@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.dao;
+
+import it.cnr.iit.epas.dao.common.DaoBase;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonStampingRecapSnapshot;
+import it.cnr.iit.epas.models.QPersonStampingRecapSnapshot;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.time.YearMonth;
+import java.util.Optional;
+import javax.inject.Inject;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * DAO per i riepiloghi mensili delle timbrature dei mesi chiusi.
+ */
+@Component
+public class PersonStampingRecapSnapshotDao extends DaoBase<PersonStampingRecapSnapshot> {
+
+  @Inject
+  PersonStampingRecapSnapshotDao(ObjectProvider<EntityManager> emp) {
+    super(emp);
+  }
+
+  /**
+   * Il riepilogo più recente della persona per il mese indicato.
+   *
+   * @param person la persona
+   * @param yearMonth il mese
+   * @return il riepilogo se presente.
+   */
+  public Optional<PersonStampingRecapSnapshot> byPersonAndMonth(Person person,
+      YearMonth yearMonth) {
+    final QPersonStampingRecapSnapshot snapshot =
+        QPersonStampingRecapSnapshot.personStampingRecapSnapshot;
+    return Optional.ofNullable(getQueryFactory().selectFrom(snapshot)
+        .where(snapshot.person.eq(person)
+            .and(snapshot.year.eq(yearMonth.getYear()))
+            .and(snapshot.month.eq(yearMonth.getMonthValue())))
+        .orderBy(snapshot.id.desc())
+        .fetchFirst());
+  }
+
+  /**
+   * Rimuove i riepiloghi della persona per il mese indicato.
+   *
+   * @param personId l'id della persona
+   * @param yearMonth il mese
+   * @return il numero di riepiloghi rimossi.
+   */
+  @Transactional
+  public long deleteMonth(Long personId, YearMonth yearMonth) {
+    final QPersonStampingRecapSnapshot snapshot =
+        QPersonStampingRecapSnapshot.personStampingRecapSnapshot;
+    return getQueryFactory().delete(snapshot)
+        .where(snapshot.person.id.eq(personId)
+            .and(snapshot.year.eq(yearMonth.getYear()))
+            .and(snapshot.month.eq(yearMonth.getMonthValue())))
+        .execute();
+  }
+
+  /**
+   * Rimuove i riepiloghi della persona dal mese from in poi.
+   *
+   * @param personId l'id della persona
+   * @param from il primo mese da rimuovere
+   * @return il numero di riepiloghi rimossi.
+   */
+  @Transactional
+  public long deleteFrom(Long personId, YearMonth from) {
+    final QPersonStampingRecapSnapshot snapshot =
+        QPersonStampingRecapSnapshot.personStampingRecapSnapshot;
+    return getQueryFactory().delete(snapshot)
+        .where(snapshot.person.id.eq(personId)
+            .and(snapshot.year.gt(from.getYear())
+                .or(snapshot.year.eq(from.getYear())
+                    .and(snapshot.month.goe(from.getMonthValue())))))
+        .execute();
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.dao;
+
+import it.cnr.iit.epas.dao.common.DaoBase;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.QPerson;
+import it.cnr.iit.epas.models.QRecapVersion;
+import it.cnr.iit.epas.models.RecapVersion;
+import it.cnr.iit.epas.models.RecapVersion.Scope;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import javax.inject.Inject;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * DAO per i contatori delle modifiche ai dati dei riepiloghi delle persone.
+ */
+@Component
+public class RecapVersionDao extends DaoBase<RecapVersion> {
+
+  @Inject
+  RecapVersionDao(ObjectProvider<EntityManager> emp) {
+    super(emp);
+  }
+
+  /**
+   * Il contatore della persona per anno e mese, zero se non presente.
+   *
+   * @param scope i dati a cui si riferisce il contatore
+   * @param personId l'id della persona
+   * @param year l'anno, zero per la persona
+   * @param month il mese, zero per l'anno o la persona
+   * @return il valore del contatore.
+   */
+  public long counter(Scope scope, Long personId, int year, int month) {
+    final QRecapVersion version = QRecapVersion.recapVersion;
+    final Long counter = getQueryFactory().select(version.counter).from(version)
+        .where(version.person.id.eq(personId).and(version.scope.eq(scope))
+            .and(version.year.eq(year)).and(version.month.eq(month)))
+        .fetchOne();
+    return counter == null ? 0 : counter;
+  }
+
+  /**
+   * Incrementa il contatore della persona per anno e mese, se presente.
+   *
+   * @param scope i dati a cui si riferisce il contatore
+   * @param personId l'id della persona
+   * @param year l'anno, zero per la persona
+   * @param month il mese, zero per l'anno o la persona
+   * @return true se il contatore era presente ed è stato incrementato.
+   */
+  public boolean increment(Scope scope, Long personId, int year, int month) {
+    final QRecapVersion version = QRecapVersion.recapVersion;
+    return getQueryFactory().update(version)
+        .set(version.counter, version.counter.add(1))
+        .where(version.person.id.eq(personId).and(version.scope.eq(scope))
+            .and(version.year.eq(year)).and(version.month.eq(month)))
+        .execute() > 0;
+  }
+
+  /**
+   * Gli id delle persone dell'ufficio.
+   *
+   * @param officeId l'id dell'ufficio
+   * @return gli id delle persone che appartengono all'ufficio.
+   */
+  public List<Long> personIds(Long officeId) {
+    final QPerson person = QPerson.person;
+    return getQueryFactory().select(person.id).from(person)
+        .where(person.office.id.eq(officeId)).fetch();
+  }
+
+  /**
+   * Blocca la riga della persona fino al termine della transazione corrente, serializzando
+   * gli inserimenti del primo contatore per la stessa persona.
+   *
+   * @param personId l'id della persona
+   * @return la persona, null se è stata rimossa.
+   */
+  public Person lockPerson(Long personId) {
+    return getEntityManager().find(Person.class, personId, LockModeType.PESSIMISTIC_WRITE);
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.dao;
+
+import com.querydsl.core.dml.UpdateClause;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import it.cnr.iit.epas.dao.common.DaoBase;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.QRecomputeRequest;
+import it.cnr.iit.epas.models.RecomputeRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import javax.inject.Inject;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * DAO per le richieste di ricalcolo in coda.
+ */
+@Component
+public class RecomputeRequestDao extends DaoBase<RecomputeRequest> {
+
+  @Inject
+  RecomputeRequestDao(ObjectProvider<EntityManager> emp) {
+    super(emp);
+  }
+
+  /**
+   * La richiesta di ricalcolo in coda per la persona.
+   *
+   * @param personId l'id della persona
+   * @return la richiesta se presente.
+   */
+  public Optional<RecomputeRequest> byPersonId(Long personId) {
+    final QRecomputeRequest request = QRecomputeRequest.recomputeRequest;
+    return Optional.ofNullable(getQueryFactory().selectFrom(request)
+        .where(request.person.id.eq(personId)).fetchOne());
+  }
+
+  /**
+   * Blocca la riga della persona fino al termine della transazione corrente, serializzando
+   * gli inserimenti della prima richiesta di ricalcolo per la stessa persona.
+   *
+   * @param personId l'id della persona
+   */
+  public void lockPerson(Long personId) {
+    getEntityManager().find(Person.class, personId, LockModeType.PESSIMISTIC_WRITE);
+  }
+
+  /**
+   * Le richieste la cui ultima modifica è precedente a requestedBefore e non in elaborazione
+   * da parte di altre istanze, a partire dalle meno recenti.
+   *
+   * @param requestedBefore l'istante limite
+   * @param now l'istante corrente
+   * @param maxAttempts numero di tentativi oltre il quale le richieste sono escluse
+   * @param limit numero massimo di richieste
+   * @return la lista delle richieste pronte per il ricalcolo.
+   */
+  public List<RecomputeRequest> due(LocalDateTime requestedBefore, LocalDateTime now,
+      int maxAttempts, int limit) {
+    final QRecomputeRequest request = QRecomputeRequest.recomputeRequest;
+    return getQueryFactory().selectFrom(request)
+        .where(request.requestedAt.loe(requestedBefore).and(request.attempts.lt(maxAttempts))
+            .and(request.claimedUntil.isNull().or(request.claimedUntil.lt(now))))
+        .orderBy(request.requestedAt.asc())
+        .limit(limit)
+        .fetch();
+  }
+
+  /**
+   * Prende in carico la richiesta fino all'istante claimedUntil, solo se non è stata
+   * modificata dopo la lettura e non è già in carico ad un'altra istanza.
+   *
+   * @param id l'id della richiesta
+   * @param version la versione letta
+   * @param now l'istante corrente
+   * @param claimedUntil l'istante fino al quale la richiesta è in carico
+   * @return true se la richiesta è stata presa in carico.
+   */
+  @Transactional
+  public boolean claim(Long id, Integer version, LocalDateTime now,
+      LocalDateTime claimedUntil) {
+    final QRecomputeRequest request = QRecomputeRequest.recomputeRequest;
+    return getQueryFactory().update(request)
+        .set(request.claimedUntil, claimedUntil)
+        .where(request.id.eq(id).and(request.version.eq(version))
+            .and(request.claimedUntil.isNull().or(request.claimedUntil.lt(now))))
+        .execute() > 0;
+  }
+
+  /**
+   * Rilascia la richiesta presa in carico, che potrà essere elaborata nuovamente.
+   *
+   * @param id l'id della richiesta
+   */
+  @Transactional
+  public void release(Long id) {
+    final QRecomputeRequest request = QRecomputeRequest.recomputeRequest;
+    getQueryFactory().update(request)
+        .setNull(request.claimedUntil)
+        .where(request.id.eq(id))
+        .execute();
+  }
+
+  /**
+   * Accorpa una nuova richiesta a quella eventualmente in coda per la persona, portando la
+   * data di inizio alla minore tra le due, l'ultimo giorno modificato al maggiore tra i due
+   * (null se una delle due richiede il ricalcolo completo) e azzerando i tentativi falliti.
+   *
+   * @param personId l'id della persona
+   * @param fromDate la data da cui effettuare il ricalcolo
+   * @param toDate l'ultimo giorno modificato, vuoto per il ricalcolo completo
+   * @param requestedAt l'istante della nuova richiesta
+   * @return true se esisteva una richiesta per la persona, false altrimenti.
+   */
+  @Transactional
+  public boolean coalesce(Long personId, LocalDate fromDate, Optional<LocalDate> toDate,
+      LocalDateTime requestedAt) {
+    final QRecomputeRequest request = QRecomputeRequest.recomputeRequest;
+    final UpdateClause<?> update = getQueryFactory().update(request);
+    if (toDate.isPresent()) {
+      // con to_date null il confronto non è vero e resta null
+      update.set(request.toDate, new CaseBuilder()
+          .when(request.toDate.lt(toDate.get())).then(toDate.get())
+          .otherwise(request.toDate));
+    } else {
+      update.setNull(request.toDate);
+    }
+    return update
+        .set(request.fromDate, new CaseBuilder()
+            .when(request.fromDate.gt(fromDate)).then(fromDate)
+            .otherwise(request.fromDate))
+        .set(request.requestedAt, requestedAt)
+        .set(request.attempts, 0)
+        .setNull(request.lastError)
+        .set(request.version, request.version.add(1))
+        .where(request.person.id.eq(personId))
+        .execute() > 0;
+  }
+
+  /**
+   * Registra il fallimento di un tentativo di ricalcolo e rilascia la richiesta.
+   *
+   * @param id l'id della richiesta
+   * @param error il messaggio d'errore
+   */
+  @Transactional
+  public void recordFailure(Long id, String error) {
+    final QRecomputeRequest request = QRecomputeRequest.recomputeRequest;
+    getQueryFactory().update(request)
+        .set(request.attempts, request.attempts.add(1))
+        .set(request.lastError, error.length() > 255 ? error.substring(0, 255) : error)
+        .setNull(request.claimedUntil)
+        .where(request.id.eq(id))
+        .execute();
+  }
+
+  /**
+   * Rimuove la richiesta solo se non è stata modificata dopo la lettura.
+   *
+   * @param id l'id della richiesta
+   * @param version la versione letta
+   * @return true se la richiesta è stata rimossa.
+   */
+  @Transactional
+  public boolean deleteIfUnchanged(Long id, Integer version) {
+    final QRecomputeRequest request = QRecomputeRequest.recomputeRequest;
+    return getQueryFactory().delete(request)
+        .where(request.id.eq(id).and(request.version.eq(version)))
+        .execute() > 0;
+  }
+}
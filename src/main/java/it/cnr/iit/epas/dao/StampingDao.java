@@ -30,6 +30,7 @@ import it.cnr.iit.epas.utils.DateUtility;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import javax.inject.Inject;
@@ -68,6 +69,26 @@ public class StampingDao extends DaoBase<Stamping> {
     return Optional.ofNullable(result);
   }
 
+  /**
+   * Le timbrature delle persone comprese tra from e to (estremi inclusi), con un'unica query.
+   *
+   * @param people le persone
+   * @param from data e ora iniziale
+   * @param to data e ora finale
+   * @return la lista delle timbrature.
+   */
+  public List<Stamping> getStampings(Collection<Person> people, LocalDateTime from,
+      LocalDateTime to) {
+    if (people.isEmpty()) {
+      return List.of();
+    }
+    final QStamping stamping = QStamping.stamping;
+    return getQueryFactory().selectFrom(stamping)
+        .where(stamping.personDay.person.in(people)
+            .and(stamping.date.goe(from)).and(stamping.date.loe(to)))
+        .fetch();
+  }
+
   /**
    * Preleva una timbratura tramite il suo id.
    *
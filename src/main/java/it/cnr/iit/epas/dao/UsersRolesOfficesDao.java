@@ -25,6 +25,7 @@ import com.querydsl.jpa.JPQLQuery;
 import it.cnr.iit.epas.dao.common.DaoBase;
 import it.cnr.iit.epas.models.Office;
 import it.cnr.iit.epas.models.QBadgeReader;
+import it.cnr.iit.epas.models.QPerson;
 import it.cnr.iit.epas.models.QRole;
 import it.cnr.iit.epas.models.QUser;
 import it.cnr.iit.epas.models.QUsersRolesOffices;
@@ -32,6 +33,7 @@ import it.cnr.iit.epas.models.Role;
 import it.cnr.iit.epas.models.User;
 import it.cnr.iit.epas.models.UsersRolesOffices;
 import jakarta.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -73,6 +75,31 @@ public class UsersRolesOfficesDao extends DaoBase<UsersRolesOffices> {
             .and(uro.office.eq(office))).fetch();
   }
 
+  /**
+   * Gli userRoleOffice dell'ufficio per i ruoli indicati, con utenti, persone e ruoli di
+   * sistema degli utenti prelevati nella stessa query.
+   *
+   * @param office l'ufficio
+   * @param roleNames i nomi dei ruoli
+   * @return la lista degli userRoleOffice dell'ufficio per i ruoli indicati.
+   */
+  public List<UsersRolesOffices> getUsersRolesOfficesOnOffice(Office office,
+      Collection<String> roleNames) {
+    final QUsersRolesOffices uro = QUsersRolesOffices.usersRolesOffices;
+    final QUser user = QUser.user;
+    final QRole role = QRole.role;
+    return getQueryFactory().selectFrom(uro)
+        .join(uro.role, role).fetchJoin()
+        .join(uro.user, user).fetchJoin()
+        .leftJoin(user.person, QPerson.person).fetchJoin()
+        // associazione eager, altrimenti caricata con una query per persona
+        .leftJoin(QPerson.person.personHourForOvertime).fetchJoin()
+        .leftJoin(user.roles).fetchJoin()
+        .where(uro.office.eq(office).and(role.name.in(roleNames)))
+        .orderBy(uro.id.asc())
+        .fetch();
+  }
+
   /**
    * L'userRoleOffice associato ai parametri passati.
    *
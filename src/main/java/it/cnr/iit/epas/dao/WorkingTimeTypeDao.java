@@ -20,7 +20,8 @@ package it.cnr.iit.epas.dao;
 import com.google.common.base.Verify;
 import com.querydsl.core.BooleanBuilder;
 import it.cnr.iit.epas.dao.common.DaoBase;
-import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.dao.wrapper.ContractTimeline;
+import it.cnr.iit.epas.dao.wrapper.ContractTimelines;
 import it.cnr.iit.epas.models.ContractWorkingTimeType;
 import it.cnr.iit.epas.models.Office;
 import it.cnr.iit.epas.models.Person;
@@ -29,11 +30,11 @@ import it.cnr.iit.epas.models.QWorkingTimeType;
 import it.cnr.iit.epas.models.WorkingTimeType;
 import it.cnr.iit.epas.models.WorkingTimeTypeDay;
 import it.cnr.iit.epas.models.dto.HorizontalWorkingTime;
-import it.cnr.iit.epas.utils.DateInterval;
-import it.cnr.iit.epas.utils.DateUtility;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import javax.inject.Inject;
 import lombok.val;
@@ -49,12 +50,12 @@ import org.springframework.stereotype.Component;
 @Component
 public class WorkingTimeTypeDao extends DaoBase<WorkingTimeType> {
 
-  private final ContractDao contractDao;
+  private final ContractTimelines contractTimelines;
 
   @Inject
-  WorkingTimeTypeDao(ObjectProvider<EntityManager> emp, ContractDao contractDao) {
+  WorkingTimeTypeDao(ObjectProvider<EntityManager> emp, ContractTimelines contractTimelines) {
     super(emp);
-    this.contractDao = contractDao;
+    this.contractTimelines = contractTimelines;
   }
 
   public WorkingTimeTypeDay merge(WorkingTimeTypeDay wttd) {
@@ -138,19 +139,16 @@ public class WorkingTimeTypeDao extends DaoBase<WorkingTimeType> {
    * @return il tipo orario se presente
    */
   public Optional<WorkingTimeType> getWorkingTimeType(LocalDate date, Person person) {
+    return getWorkingTimeType(date, contractTimelines.of(person));
+  }
 
-    Contract contract = contractDao.getContract(date, person);
-
-    if (contract != null) {
-      for (ContractWorkingTimeType cwtt : contract.getContractWorkingTimeType()) {
-
-        if (DateUtility.isDateIntoInterval(
-            date, new DateInterval(cwtt.getBeginDate(), cwtt.getEndDate()))) {
-          return Optional.of(cwtt.getWorkingTimeType());
-        }
-      }
-    }
-    return Optional.empty();
+  /**
+   * Il tipo orario attivo nel giorno secondo la linea temporale dei contratti.
+   */
+  private Optional<WorkingTimeType> getWorkingTimeType(LocalDate date,
+      ContractTimeline timeline) {
+    return Optional.ofNullable(timeline.contractWorkingTimeTypeAt(date))
+        .map(ContractWorkingTimeType::getWorkingTimeType);
   }
 
   /**
@@ -161,7 +159,36 @@ public class WorkingTimeTypeDao extends DaoBase<WorkingTimeType> {
    * @return il tipo orario del giorno se presente
    */
   public Optional<WorkingTimeTypeDay> getWorkingTimeTypeDay(LocalDate date, Person person) {
-    Optional<WorkingTimeType> wtt = getWorkingTimeType(date, person);
+    return getWorkingTimeTypeDay(date, getWorkingTimeType(date, person));
+  }
+
+  /**
+   * I tipi orario del giorno per la persona nei giorni compresi tra from e to, risolti sulla
+   * linea temporale dei contratti della persona. Per ogni giorno il valore è quello restituito da
+   * getWorkingTimeTypeDay, i giorni fuori contratto non sono presenti nella mappa.
+   *
+   * @param person persona
+   * @param from data iniziale
+   * @param to data finale
+   * @return la mappa giorno/tipo orario del giorno della persona nel periodo.
+   */
+  public Map<LocalDate, WorkingTimeTypeDay> getWorkingTimeTypeDays(Person person,
+      LocalDate from, LocalDate to) {
+    final ContractTimeline timeline = contractTimelines.of(person);
+    final Map<LocalDate, WorkingTimeTypeDay> days = new HashMap<>();
+    for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+      final LocalDate day = date;
+      getWorkingTimeTypeDay(day, getWorkingTimeType(day, timeline))
+          .ifPresent(wttd -> days.put(day, wttd));
+    }
+    return days;
+  }
+
+  /**
+   * Il tipo orario del giorno del tipo orario (se presente).
+   */
+  private Optional<WorkingTimeTypeDay> getWorkingTimeTypeDay(LocalDate date,
+      Optional<WorkingTimeType> wtt) {
     if (!wtt.isPresent()) {
       return Optional.empty();
     }
@@ -21,6 +21,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.AbstractJPAQuery;
 import it.cnr.iit.epas.dao.common.DaoBase;
 import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.QContract;
@@ -64,6 +65,7 @@ import java.util.stream.Collectors;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
@@ -76,11 +78,29 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class AbsenceComponentDao extends DaoBase<Absence> {
 
+  /**
+   * Regione della cache di secondo livello delle query sul catalogo delle assenze (codici,
+   * gruppi, tipi giustificativi, categorie, tab, comportamenti). Le entity del catalogo sono
+   * nella regione absenceCatalog (vedi ehcache.xml).
+   */
+  public static final String CATALOG_QUERIES = "absenceCatalogQueries";
+
   @Inject
   AbsenceComponentDao(ObjectProvider<EntityManager> emp) {
     super(emp);
   }
 
+  /**
+   * Rende la query sul catalogo delle assenze memorizzabile nella cache delle query: i
+   * risultati sono invalidati da Hibernate ad ogni modifica delle tabelle interrogate e le
+   * entity sono lette dalla cache di secondo livello.
+   */
+  private static <T extends JPQLQuery<?>> T cacheable(T query) {
+    ((AbstractJPAQuery<?, ?>) query).setHint(HibernateHints.HINT_CACHEABLE, true)
+        .setHint(HibernateHints.HINT_CACHE_REGION, CATALOG_QUERIES);
+    return query;
+  }
+
   public Absence merge(Absence absence) {
     return emp.getObject().merge(absence);
   }
@@ -91,10 +111,7 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
    * @return l'absenceType relativo all'id passato come parametro.
    */
   public Optional<AbsenceType> absenceTypeById(Long id) {
-
-    QAbsenceType absenceType = QAbsenceType.absenceType;
-    return Optional.ofNullable((AbsenceType) getQueryFactory().from(absenceType)
-        .where(absenceType.id.eq(id)).fetchOne());
+    return Optional.ofNullable(emp.getObject().find(AbsenceType.class, id));
   }
 
   /**
@@ -105,9 +122,9 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
   public Optional<AbsenceType> absenceTypeByCode(String string) {
 
     QAbsenceType absenceType = QAbsenceType.absenceType;
-    final JPQLQuery<?> query = getQueryFactory()
+    final JPQLQuery<?> query = cacheable(getQueryFactory()
         .from(absenceType)
-        .where(absenceType.code.eq(string).or(absenceType.code.equalsIgnoreCase(string)));
+        .where(absenceType.code.eq(string).or(absenceType.code.equalsIgnoreCase(string))));
     return Optional.ofNullable((AbsenceType) query.fetchOne());
   }
 
@@ -119,10 +136,10 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
   public List<AbsenceType> absenceTypesByCertificationCode(String string) {
 
     QAbsenceType absenceType = QAbsenceType.absenceType;
-    return getQueryFactory()
+    return cacheable(getQueryFactory()
         .selectFrom(absenceType)
         .where(absenceType.certificateCode.eq(string)
-            .or(absenceType.certificateCode.equalsIgnoreCase(string))).fetch();
+            .or(absenceType.certificateCode.equalsIgnoreCase(string)))).fetch();
   }
 
   /**
@@ -153,8 +170,8 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
   public JustifiedType getOrBuildJustifiedType(JustifiedTypeName name) {
 
     QJustifiedType justifiedType = QJustifiedType.justifiedType;
-    JustifiedType obj = (JustifiedType) getQueryFactory().from(justifiedType)
-        .where(justifiedType.name.eq(name))
+    JustifiedType obj = (JustifiedType) cacheable(getQueryFactory().from(justifiedType)
+        .where(justifiedType.name.eq(name)))
         .fetchOne();
     if (obj == null) {
       obj = new JustifiedType();
@@ -233,8 +250,8 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
    */
   public Optional<CategoryGroupAbsenceType> categoryByName(String name) {
     QCategoryGroupAbsenceType category = QCategoryGroupAbsenceType.categoryGroupAbsenceType;
-    return Optional.ofNullable((CategoryGroupAbsenceType) getQueryFactory().selectFrom(category)
-        .where(category.name.eq(name)).fetchOne());
+    return Optional.ofNullable(cacheable(getQueryFactory().selectFrom(category)
+        .where(category.name.eq(name))).fetchOne());
   }
 
   /**
@@ -242,7 +259,8 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
    */
   public List<CategoryGroupAbsenceType> categoriesByPriority() {
     QCategoryGroupAbsenceType category = QCategoryGroupAbsenceType.categoryGroupAbsenceType;
-    return getQueryFactory().selectFrom(category).orderBy(category.priority.asc()).fetch();
+    return cacheable(getQueryFactory().selectFrom(category).orderBy(category.priority.asc()))
+        .fetch();
   }
 
   /**
@@ -250,8 +268,8 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
    */
   public List<CategoryTab> tabsByPriority() {
     QCategoryTab categoryTab = QCategoryTab.categoryTab;
-    return getQueryFactory().selectFrom(categoryTab).orderBy(categoryTab.priority.asc())
-        .fetch();
+    return cacheable(getQueryFactory().selectFrom(categoryTab)
+        .orderBy(categoryTab.priority.asc())).fetch();
   }
 
   /**
@@ -262,8 +280,8 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
    */
   public Optional<CategoryTab> tabByName(String name) {
     QCategoryTab categoryTab = QCategoryTab.categoryTab;
-    return Optional.ofNullable((CategoryTab) getQueryFactory().from(categoryTab)
-        .where(categoryTab.name.eq(name)).fetchOne());
+    return Optional.ofNullable((CategoryTab) cacheable(getQueryFactory().from(categoryTab)
+        .where(categoryTab.name.eq(name))).fetchOne());
   }
 
   /**
@@ -278,8 +296,8 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
         QComplationAbsenceBehaviour.complationAbsenceBehaviour;
 
     return Optional.ofNullable(
-        (ComplationAbsenceBehaviour) getQueryFactory().from(complationAbsenceBehaviour)
-        .where(complationAbsenceBehaviour.name.eq(name)).fetchOne());
+        (ComplationAbsenceBehaviour) cacheable(getQueryFactory().from(complationAbsenceBehaviour)
+        .where(complationAbsenceBehaviour.name.eq(name))).fetchOne());
   }
 
   /**
@@ -294,8 +312,9 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
         QTakableAbsenceBehaviour.takableAbsenceBehaviour;
 
     return Optional
-        .ofNullable((TakableAbsenceBehaviour) getQueryFactory().from(takableAbsenceBehaviour)
-            .where(takableAbsenceBehaviour.name.eq(name)).fetchOne());
+        .ofNullable((TakableAbsenceBehaviour) cacheable(getQueryFactory()
+            .from(takableAbsenceBehaviour)
+            .where(takableAbsenceBehaviour.name.eq(name))).fetchOne());
   }
 
 
@@ -309,8 +328,9 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
 
     QGroupAbsenceType groupAbsenceType = QGroupAbsenceType.groupAbsenceType;
 
-    return Optional.ofNullable((GroupAbsenceType) getQueryFactory().from(groupAbsenceType)
-        .where(groupAbsenceType.name.eq(name)).fetchOne());
+    return Optional.ofNullable((GroupAbsenceType) cacheable(getQueryFactory()
+        .from(groupAbsenceType)
+        .where(groupAbsenceType.name.eq(name))).fetchOne());
   }
 
   /**
@@ -334,11 +354,7 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
    * @return entity
    */
   public GroupAbsenceType groupAbsenceTypeById(Long id) {
-
-    QGroupAbsenceType groupAbsenceType = QGroupAbsenceType.groupAbsenceType;
-
-    return getQueryFactory().selectFrom(groupAbsenceType)
-        .where(groupAbsenceType.id.eq(id)).fetchOne();
+    return emp.getObject().find(GroupAbsenceType.class, id);
   }
 
   /**
@@ -354,10 +370,10 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
     if (!alsoAutomatic) {
       conditions.and(groupAbsenceType.automatic.eq(false));
     }
-    return getQueryFactory().selectFrom(groupAbsenceType)
+    return cacheable(getQueryFactory().selectFrom(groupAbsenceType)
         .leftJoin(groupAbsenceType.category).fetchJoin()
         .leftJoin(groupAbsenceType.previousGroupChecked).fetchJoin()
-        .where(conditions)
+        .where(conditions))
         .fetch();
   }
 
@@ -392,10 +408,10 @@ public class AbsenceComponentDao extends DaoBase<Absence> {
   public List<GroupAbsenceType> groupAbsenceTypeOfPattern(GroupAbsenceTypePattern pattern) {
     QGroupAbsenceType groupAbsenceType = QGroupAbsenceType.groupAbsenceType;
 
-    return getQueryFactory().selectFrom(groupAbsenceType)
+    return cacheable(getQueryFactory().selectFrom(groupAbsenceType)
         .leftJoin(groupAbsenceType.category).fetchJoin()
         .leftJoin(groupAbsenceType.previousGroupChecked).fetchJoin()
-        .where(groupAbsenceType.pattern.eq(pattern))
+        .where(groupAbsenceType.pattern.eq(pattern)))
         .fetch();
   }
 
@@ -24,12 +24,14 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import it.cnr.iit.epas.models.User;
 import it.cnr.iit.epas.models.base.BaseEntity;
 import it.cnr.iit.epas.models.base.QRevision;
+import it.cnr.iit.epas.models.base.QRevisionChange;
 import it.cnr.iit.epas.models.base.Revision;
 import jakarta.persistence.EntityManager;
 import java.util.List;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.hibernate.Hibernate;
 import org.hibernate.envers.AuditReaderFactory;
 import org.hibernate.envers.query.AuditEntity;
 import org.springframework.beans.factory.ObjectProvider;
@@ -44,12 +46,13 @@ public class HistoricalDao {
 
   protected final ObjectProvider<EntityManager> emp;
   private final JPQLQueryFactory queryFactory;
+  private final RevisionChangesTable revisionChangesTable;
 
   @Inject
-  HistoricalDao(ObjectProvider<EntityManager> emp) {
+  HistoricalDao(ObjectProvider<EntityManager> emp, RevisionChangesTable revisionChangesTable) {
     this.emp = emp;
     this.queryFactory = new JPAQueryFactory(emp.getObject());
-
+    this.revisionChangesTable = revisionChangesTable;
   }
 
   /**
@@ -154,10 +157,45 @@ public class HistoricalDao {
   }
 
   /**
-   * L'utente che ha effettuato l'ultima revisione dell'entity passata.
+   * L'utente che ha effettuato l'ultima revisione dell'entity passata. L'ultima revisione è
+   * individuata dalle entità modificate registrate per ogni revisione (revinfo_changes), per le
+   * entity modificate l'ultima volta prima della loro registrazione, o se la tabella non è
+   * ancora presente, è cercata nello storico envers.
+   *
+   * @param entity l'entity persistita
+   * @return l'utente dell'ultima revisione, null se l'entity non ha revisioni o se la revisione
+   *     non ha owner.
    */
   public User lastRevisionOperator(BaseEntity entity) {
-    return lastRevisionOf(entity.getClass(), entity.getId()).revision.getOwner();
+    final Class<? extends BaseEntity> cls = Hibernate.getClass(entity);
+    final QRevision revision = QRevision.revision;
+    final QRevisionChange change = new QRevisionChange("change");
+    Integer lastRevision = null;
+    if (revisionChangesTable.exists()) {
+      lastRevision = queryFactory.select(revision.id.max())
+          .from(revision).join(revision.changes, change)
+          .where(change.entityName.eq(cls.getName()), change.entityId.eq(entity.getId()))
+          .fetchOne();
+    }
+    if (lastRevision == null) {
+      lastRevision = lastRevisionNumberOf(cls, entity.getId());
+    }
+    if (lastRevision == null) {
+      return null;
+    }
+    return queryFactory.selectFrom(revision)
+        .leftJoin(revision.owner).fetchJoin()
+        .where(revision.id.eq(lastRevision))
+        .fetchOne().getOwner();
+  }
+
+  private Integer lastRevisionNumberOf(Class<? extends BaseEntity> cls, long id) {
+    val auditReader = AuditReaderFactory.get(emp.getObject());
+    return (Integer) auditReader.createQuery()
+        .forRevisionsOfEntity(cls, false, true)
+        .add(AuditEntity.id().eq(id))
+        .addProjection(AuditEntity.revisionNumber().max())
+        .getSingleResult();
   }
 
   public Boolean isPersistent(BaseEntity entity) {
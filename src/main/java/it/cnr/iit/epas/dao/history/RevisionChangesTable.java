@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.dao.history;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifica la presenza della tabella revinfo_changes, in cui ExtendedRevisionListener registra
+ * le entità modificate in ogni revisione. Finché la tabella non è creata (migrazione V4) le
+ * entità modificate non sono registrate e l'ultima revisione di un'entità è cercata nello
+ * storico envers.
+ */
+@Slf4j
+@Component
+public class RevisionChangesTable {
+
+  private static final String TABLE_NAME = "revinfo_changes";
+
+  private final DataSource dataSource;
+  private final Supplier<Boolean> exists =
+      Suppliers.memoizeWithExpiration(this::checkExists, 5, TimeUnit.MINUTES);
+
+  @Inject
+  RevisionChangesTable(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * Se la tabella revinfo_changes è presente. Il risultato è riverificato ogni 5 minuti.
+   */
+  public boolean exists() {
+    return exists.get();
+  }
+
+  private Boolean checkExists() {
+    try (Connection connection = dataSource.getConnection()) {
+      for (String name : new String[] {TABLE_NAME, TABLE_NAME.toUpperCase(Locale.ROOT)}) {
+        try (ResultSet tables = connection.getMetaData()
+            .getTables(null, null, name, new String[] {"TABLE"})) {
+          if (tables.next()) {
+            return true;
+          }
+        }
+      }
+      log.info("Tabella {} non presente, le entità modificate nelle revisioni non sono "
+          + "registrate", TABLE_NAME);
+      return false;
+    } catch (SQLException ex) {
+      log.warn("Impossibile verificare la presenza della tabella {}", TABLE_NAME, ex);
+      return false;
+    }
+  }
+}
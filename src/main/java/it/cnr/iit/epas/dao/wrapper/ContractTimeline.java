@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.dao.wrapper;
+
+import com.google.common.collect.ImmutableList;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.ContractWorkingTimeType;
+import it.cnr.iit.epas.models.VacationPeriod;
+import it.cnr.iit.epas.models.WorkingTimeTypeDay;
+import it.cnr.iit.epas.models.base.PeriodModel;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Linea temporale dei contratti di una persona, con i periodi di tipo orario e di piano ferie
+ * di ciascun contratto.
+ *
+ * <p>Inizio e fine di ogni periodo sono memorizzati come epoch-day in array ordinati per data
+ * di inizio: le interrogazioni per giorno usano una ricerca binaria e non allocano oggetti.
+ * L'istanza fotografa i contratti al momento della costruzione, va quindi ricostruita se i
+ * contratti (o i loro periodi) vengono modificati. I periodi di ciascun contratto sono
+ * indicizzati al primo accesso, per cui l'istanza non va condivisa tra thread.</p>
+ */
+public final class ContractTimeline {
+
+  private final Periods<Contract> contracts;
+  private final Periods<ContractWorkingTimeType>[] workingTimeTypes;
+  private final Periods<VacationPeriod>[] vacationPeriods;
+
+  @SuppressWarnings("unchecked")
+  private ContractTimeline(Collection<Contract> contracts) {
+    this.contracts = new Periods<>(contracts);
+    this.workingTimeTypes = new Periods[this.contracts.size()];
+    this.vacationPeriods = new Periods[this.contracts.size()];
+  }
+
+  /**
+   * Costruisce la linea temporale dei contratti passati.
+   *
+   * @param contracts i contratti della persona, in qualsiasi ordine
+   * @return la linea temporale.
+   */
+  public static ContractTimeline of(Collection<Contract> contracts) {
+    return new ContractTimeline(contracts);
+  }
+
+  /**
+   * I contratti ordinati per data di inizio.
+   */
+  public List<Contract> contracts() {
+    return contracts.items;
+  }
+
+  /**
+   * Se la persona ha un contratto attivo nel giorno.
+   */
+  public boolean isActive(LocalDate date) {
+    return contracts.indexAt(date.toEpochDay()) >= 0;
+  }
+
+  /**
+   * Il contratto attivo nel giorno, null se non esiste.
+   */
+  public Contract contractAt(LocalDate date) {
+    int index = contracts.indexAt(date.toEpochDay());
+    return index < 0 ? null : contracts.items.get(index);
+  }
+
+  /**
+   * Il periodo di tipo orario del contratto attivo nel giorno, null se non esiste.
+   */
+  public ContractWorkingTimeType contractWorkingTimeTypeAt(LocalDate date) {
+    long day = date.toEpochDay();
+    int index = contracts.indexAt(day);
+    if (index < 0) {
+      return null;
+    }
+    if (workingTimeTypes[index] == null) {
+      workingTimeTypes[index] =
+          new Periods<>(contracts.items.get(index).getContractWorkingTimeType());
+    }
+    Periods<ContractWorkingTimeType> periods = workingTimeTypes[index];
+    int period = periods.indexAt(day);
+    return period < 0 ? null : periods.items.get(period);
+  }
+
+  /**
+   * Il giorno del tipo orario in vigore nel giorno, null se non esiste.
+   */
+  public WorkingTimeTypeDay workingTimeTypeDayAt(LocalDate date) {
+    ContractWorkingTimeType cwtt = contractWorkingTimeTypeAt(date);
+    if (cwtt == null) {
+      return null;
+    }
+    return cwtt.getWorkingTimeType().getWorkingTimeTypeDays()
+        .get(date.getDayOfWeek().getValue() - 1);
+  }
+
+  /**
+   * Il piano ferie del contratto attivo nel giorno, null se non esiste.
+   */
+  public VacationPeriod vacationPeriodAt(LocalDate date) {
+    long day = date.toEpochDay();
+    int index = contracts.indexAt(day);
+    if (index < 0) {
+      return null;
+    }
+    if (vacationPeriods[index] == null) {
+      vacationPeriods[index] = new Periods<>(contracts.items.get(index).getVacationPeriods());
+    }
+    Periods<VacationPeriod> periods = vacationPeriods[index];
+    int period = periods.indexAt(day);
+    return period < 0 ? null : periods.items.get(period);
+  }
+
+  /**
+   * I contratti, ordinati per data di inizio, che intersecano l'intervallo [from, to].
+   */
+  public List<Contract> contractsIn(LocalDate from, LocalDate to) {
+    return contracts.overlapping(from.toEpochDay(), to.toEpochDay());
+  }
+
+  /**
+   * I contratti, ordinati per data di inizio, attivi in almeno un giorno del mese.
+   */
+  public List<Contract> contractsIn(YearMonth yearMonth) {
+    return contractsIn(yearMonth.atDay(1), yearMonth.atEndOfMonth());
+  }
+
+  /**
+   * I contratti, ordinati per data di inizio, attivi in almeno un giorno dell'anno.
+   */
+  public List<Contract> contractsInYear(int year) {
+    return contractsIn(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+  }
+
+  /**
+   * Se almeno un contratto è attivo nell'intervallo [from, to].
+   */
+  public boolean isActive(LocalDate from, LocalDate to) {
+    return contracts.firstOverlapping(from.toEpochDay(), to.toEpochDay()) >= 0;
+  }
+
+  /**
+   * Periodi ordinati per data di inizio. maxEnds[i] è la fine massima dei periodi da 0 a i e
+   * permette la ricerca binaria anche in presenza di periodi sovrapposti.
+   */
+  private static final class Periods<T extends PeriodModel> {
+
+    private final List<T> items;
+    private final long[] begins;
+    private final long[] ends;
+    private final long[] maxEnds;
+
+    private Periods(Collection<T> periods) {
+      this.items = periods.stream().filter(period -> period.getBeginDate() != null)
+          .sorted(Comparator.comparing(PeriodModel::getBeginDate))
+          .collect(ImmutableList.toImmutableList());
+      this.begins = new long[items.size()];
+      this.ends = new long[items.size()];
+      this.maxEnds = new long[items.size()];
+      long maxEnd = Long.MIN_VALUE;
+      for (int i = 0; i < items.size(); i++) {
+        T period = items.get(i);
+        begins[i] = period.getBeginDate().toEpochDay();
+        LocalDate end = period.calculatedEnd();
+        ends[i] = end == null ? Long.MAX_VALUE : end.toEpochDay();
+        maxEnd = Math.max(maxEnd, ends[i]);
+        maxEnds[i] = maxEnd;
+      }
+    }
+
+    private int size() {
+      return items.size();
+    }
+
+    /**
+     * L'ultimo periodo con inizio non successivo a day, -1 se non esiste.
+     */
+    private int lastBeginningBy(long day) {
+      int low = 0;
+      int high = begins.length - 1;
+      int found = -1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (begins[mid] <= day) {
+          found = mid;
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return found;
+    }
+
+    /**
+     * Il periodo (l'ultimo iniziato, in caso di sovrapposizione) che contiene day, -1 se non
+     * esiste.
+     */
+    private int indexAt(long day) {
+      for (int i = lastBeginningBy(day); i >= 0 && maxEnds[i] >= day; i--) {
+        if (ends[i] >= day) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Il primo periodo che interseca [from, to], -1 se non esiste.
+     */
+    private int firstOverlapping(long from, long to) {
+      int last = lastBeginningBy(to);
+      if (last < 0 || maxEnds[last] < from) {
+        return -1;
+      }
+      // maxEnds è non decrescente: primo indice con maxEnds >= from
+      int low = 0;
+      int high = last;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (maxEnds[mid] >= from) {
+          high = mid;
+        } else {
+          low = mid + 1;
+        }
+      }
+      return low;
+    }
+
+    private List<T> overlapping(long from, long to) {
+      int first = firstOverlapping(from, to);
+      if (first < 0) {
+        return ImmutableList.of();
+      }
+      int last = lastBeginningBy(to);
+      ImmutableList.Builder<T> builder = ImmutableList.builder();
+      for (int i = first; i <= last; i++) {
+        if (ends[i] >= from) {
+          builder.add(items.get(i));
+        }
+      }
+      return builder.build();
+    }
+  }
+}
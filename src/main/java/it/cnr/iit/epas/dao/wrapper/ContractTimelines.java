@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.dao.wrapper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import it.cnr.iit.epas.dao.ContractDao;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.Person;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Linee temporali dei contratti delle persone, costruite con una sola query per persona (o per
+ * un gruppo di persone con prefetch) e riutilizzate per tutta la transazione corrente.
+ *
+ * <p>Le interrogazioni per giorno (contratto attivo, tipo orario, piano ferie) eseguite durante
+ * i ricalcoli e la costruzione dei riepiloghi utilizzano la linea temporale invece di
+ * interrogare il database per ogni giorno. Le modifiche a contratti, periodi di tipo orario e
+ * piani ferie sono segnalate da ContractTimelineListener, che invalida la linea temporale della
+ * persona. Fuori da una transazione la linea temporale è ricostruita ad ogni richiesta.</p>
+ */
+@Component
+public class ContractTimelines {
+
+  private final ContractDao contractDao;
+
+  @Inject
+  ContractTimelines(ContractDao contractDao) {
+    this.contractDao = contractDao;
+  }
+
+  /**
+   * La linea temporale dei contratti della persona.
+   *
+   * @param person la persona
+   * @return la linea temporale dei contratti della persona.
+   */
+  public ContractTimeline of(Person person) {
+    Map<Long, ContractTimeline> timelines = timelines();
+    if (timelines == null || person.getId() == null) {
+      return build(person);
+    }
+    ContractTimeline timeline = timelines.get(person.getId());
+    if (timeline == null) {
+      // La query può provocare un flush e quindi un'invalidazione: la linea temporale è
+      // inserita solo dopo essere stata costruita.
+      timeline = build(person);
+      timelines.put(person.getId(), timeline);
+    }
+    return timeline;
+  }
+
+  /**
+   * Costruisce nella transazione corrente le linee temporali delle persone che non ne hanno
+   * già una, con un numero di query che non dipende dal numero di persone. Da utilizzare
+   * prima di costruire i riepiloghi di più persone (es. presenza giornaliera) per evitare le
+   * query per persona. Fuori da una transazione non fa nulla.
+   *
+   * @param people le persone
+   */
+  public void prefetch(Collection<Person> people) {
+    Map<Long, ContractTimeline> timelines = timelines();
+    if (timelines == null) {
+      return;
+    }
+    List<Person> missing = people.stream()
+        .filter(person -> person.getId() != null && !timelines.containsKey(person.getId()))
+        .collect(Collectors.toList());
+    if (missing.isEmpty()) {
+      return;
+    }
+    Map<Long, List<Contract>> contracts = contractDao.getPeopleContractListFetched(missing)
+        .stream().collect(Collectors.groupingBy(contract -> contract.getPerson().getId()));
+    for (Person person : missing) {
+      timelines.put(person.getId(),
+          ContractTimeline.of(contracts.getOrDefault(person.getId(), ImmutableList.of())));
+    }
+  }
+
+  /**
+   * Invalida la linea temporale della persona nella transazione corrente.
+   *
+   * @param person la persona i cui contratti sono stati modificati
+   */
+  public void invalidate(Person person) {
+    if (person == null || person.getId() == null
+        || !TransactionSynchronizationManager.hasResource(this)) {
+      return;
+    }
+    timelines().remove(person.getId());
+  }
+
+  private ContractTimeline build(Person person) {
+    return ContractTimeline.of(contractDao.getPersonContractList(person));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<Long, ContractTimeline> timelines() {
+    Map<Long, ContractTimeline> timelines =
+        (Map<Long, ContractTimeline>) TransactionSynchronizationManager.getResource(this);
+    if (timelines != null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      return timelines;
+    }
+    final Map<Long, ContractTimeline> bound = Maps.newHashMap();
+    TransactionSynchronizationManager.bindResource(this, bound);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(ContractTimelines.this);
+      }
+    });
+    return bound;
+  }
+}
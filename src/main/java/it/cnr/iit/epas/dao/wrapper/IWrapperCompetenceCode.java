@@ -24,8 +24,6 @@ import it.cnr.iit.epas.models.CompetenceCode;
  */
 public interface IWrapperCompetenceCode extends IWrapperModel<CompetenceCode> {
   
-  public IWrapperCompetenceCode setValue(CompetenceCode cc);
-
   /**
    * Il totale delle competenze per quel mese.
    *
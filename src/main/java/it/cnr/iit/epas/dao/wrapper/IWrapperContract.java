@@ -32,8 +32,6 @@ import java.util.Optional;
  */
 public interface IWrapperContract extends IWrapperModel<Contract> {
 
-  public IWrapperContract setValue(Contract contract);
-
   /**
    * True se il contratto è l'ultimo contratto della persona per mese e anno selezionati.
    *
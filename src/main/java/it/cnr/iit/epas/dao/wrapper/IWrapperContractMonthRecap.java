@@ -27,8 +27,6 @@ import java.util.Optional;
  */
 public interface IWrapperContractMonthRecap extends IWrapperModel<ContractMonthRecap> {
 
-  public IWrapperContractMonthRecap setValue(ContractMonthRecap cmr);
-
   public IWrapperContract getContract();
 
   public boolean residualInitInYearMonth(int year, int month);
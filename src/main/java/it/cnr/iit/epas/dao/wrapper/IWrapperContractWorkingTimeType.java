@@ -25,8 +25,6 @@ import it.cnr.iit.epas.utils.DateInterval;
  */
 public interface IWrapperContractWorkingTimeType extends IWrapperModel<ContractWorkingTimeType> {
 
-  public IWrapperContractWorkingTimeType setValue(ContractWorkingTimeType cwtt);
-
   public DateInterval getDateInverval();
 
 }
\ No newline at end of file
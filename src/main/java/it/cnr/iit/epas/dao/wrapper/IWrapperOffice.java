@@ -32,8 +32,6 @@ import java.util.Optional;
  */
 public interface IWrapperOffice extends IWrapperModel<Office> {
 
-  public IWrapperOffice setValue(Office office);
-
   /**
    * La data di creazione della sede.
    *
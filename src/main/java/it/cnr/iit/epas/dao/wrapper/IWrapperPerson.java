@@ -38,13 +38,16 @@ import java.util.Optional;
  */
 public interface IWrapperPerson extends IWrapperModel<Person> {
 
-  public IWrapperPerson setValue(Person person);
-  
   /**
    * Se la persona ha contratto attivo nella data.
    */
   boolean isActiveInDay(LocalDate date);
 
+  /**
+   * La linea temporale dei contratti della persona, costruita alla prima richiesta.
+   */
+  ContractTimeline getContractTimeline();
+
   /**
    * Se la persona ha contratto attivo nel mese.
    */
@@ -29,8 +29,6 @@ import java.util.Optional;
  */
 public interface IWrapperPersonDay extends IWrapperModel<PersonDay> {
 
-  public IWrapperPersonDay setValue(PersonDay pd);
-
   /**
    * Il contratto cui appartiene il person day. Istanzia una variabile Lazy.
    *
@@ -73,6 +71,14 @@ public interface IWrapperPersonDay extends IWrapperModel<PersonDay> {
 
   void setPreviousForProgressive(Optional<PersonDay> potentialOnlyPrevious);
 
+  /**
+   * Imposta il personDay precedente per il calcolo del progressivo senza interrogare il
+   * database, a partire dall'ultimo personDay del mese precedente al giorno già prelevato.
+   *
+   * @param previousInMonth l'ultimo personDay del mese precedente al giorno, se esiste
+   */
+  void setPreviousForProgressiveInMonth(Optional<PersonDay> previousInMonth);
+
   /**
    * L'ultima timbratura in ordine di tempo nel giorno.
    */
@@ -24,31 +24,23 @@ import it.cnr.iit.epas.models.Competence;
 import it.cnr.iit.epas.models.CompetenceCode;
 import it.cnr.iit.epas.models.Office;
 import java.util.List;
-import javax.inject.Inject;
-import org.springframework.stereotype.Component;
 
 /**
  * Oggetto CompetenceCode con funzionalità aggiuntive.
  */
-@Component
 public class WrapperCompetenceCode implements IWrapperCompetenceCode {
 
-  private CompetenceCode value;
+  private final CompetenceCode value;
   private final CompetenceDao competenceDao;
   private final OfficeDao officeDao;
 
-  @Inject
   WrapperCompetenceCode(
-       OfficeDao officeDao, CompetenceDao competenceDao) {
+       CompetenceCode value, OfficeDao officeDao, CompetenceDao competenceDao) {
+    this.value = value;
     this.competenceDao = competenceDao;
     this.officeDao = officeDao;
   }
 
-  public IWrapperCompetenceCode setValue(CompetenceCode cc) {
-    this.value = cc;
-    return this;
-  }
-
   @Override
   public CompetenceCode getValue() {
     return value;
@@ -30,22 +30,19 @@ import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import javax.inject.Inject;
-import org.springframework.stereotype.Component;
 
 /**
  * Contract con alcune funzionalità aggiuntive.
  *
  * @author Marco Andreini
  */
-@Component
 public class WrapperContract implements IWrapperContract {
 
-  private Contract value;
+  private final Contract value;
   private final AbsenceDao absenceDao;
   
-  @Inject
-  WrapperContract(AbsenceDao absenceDao) {
+  WrapperContract(Contract value, AbsenceDao absenceDao) {
+    this.value = value;
     this.absenceDao = absenceDao;
   }
 
@@ -54,11 +51,6 @@ public class WrapperContract implements IWrapperContract {
     return value;
   }
 
-  public IWrapperContract setValue(Contract contract) {
-    value = contract;
-    return this;
-  }
-
   /**
    * True se il contratto è l'ultimo contratto della persona per mese e anno selezionati.
    *
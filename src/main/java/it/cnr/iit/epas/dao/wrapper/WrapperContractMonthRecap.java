@@ -20,32 +20,24 @@ package it.cnr.iit.epas.dao.wrapper;
 import it.cnr.iit.epas.models.ContractMonthRecap;
 import java.time.YearMonth;
 import java.util.Optional;
-import javax.inject.Inject;
 import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.stereotype.Component;
 
 /**
  * Implementazione contractMonthRecap.
  *
  * @author Alessandro Martelli
  */
-@Component
 public class WrapperContractMonthRecap implements IWrapperContractMonthRecap {
 
-  private ContractMonthRecap value;
+  private final ContractMonthRecap value;
   private final ObjectProvider<IWrapperFactory> wrapperFactoryProvider;
 
-  @Inject
   WrapperContractMonthRecap(
-      ObjectProvider<IWrapperFactory> wrapperFactoryProvider) {
+      ContractMonthRecap value, ObjectProvider<IWrapperFactory> wrapperFactoryProvider) {
+    this.value = value;
     this.wrapperFactoryProvider = wrapperFactoryProvider;
   }
 
-  public IWrapperContractMonthRecap setValue(ContractMonthRecap cmr) {
-    this.value = cmr;
-    return this;
-  }
-
   @Override
   public ContractMonthRecap getValue() {
     return value;
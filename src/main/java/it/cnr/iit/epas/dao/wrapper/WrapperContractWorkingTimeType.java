@@ -19,22 +19,16 @@ package it.cnr.iit.epas.dao.wrapper;
 
 import it.cnr.iit.epas.models.ContractWorkingTimeType;
 import it.cnr.iit.epas.utils.DateInterval;
-import org.springframework.stereotype.Component;
 
 /**
  * Il ContractWorkingTimeType con funzionalità aggiuntive.
  */
-@Component
 public class WrapperContractWorkingTimeType implements IWrapperContractWorkingTimeType {
 
-  private ContractWorkingTimeType value;
+  private final ContractWorkingTimeType value;
 
-  WrapperContractWorkingTimeType() {
-  }
-
-  public IWrapperContractWorkingTimeType setValue(ContractWorkingTimeType cwtt) {
-    this.value = cwtt;
-    return this;
+  WrapperContractWorkingTimeType(ContractWorkingTimeType value) {
+    this.value = value;
   }
 
   @Override
@@ -18,6 +18,17 @@
 package it.cnr.iit.epas.dao.wrapper;
 
 import com.google.common.base.Preconditions;
+import it.cnr.iit.epas.dao.AbsenceDao;
+import it.cnr.iit.epas.dao.CompetenceDao;
+import it.cnr.iit.epas.dao.ContractDao;
+import it.cnr.iit.epas.dao.OfficeDao;
+import it.cnr.iit.epas.dao.PersonDao;
+import it.cnr.iit.epas.dao.PersonDayDao;
+import it.cnr.iit.epas.dao.PersonMonthRecapDao;
+import it.cnr.iit.epas.dao.RoleDao;
+import it.cnr.iit.epas.manager.CompetenceManager;
+import it.cnr.iit.epas.manager.ContractManager;
+import it.cnr.iit.epas.manager.PersonManager;
 import it.cnr.iit.epas.models.CompetenceCode;
 import it.cnr.iit.epas.models.Contract;
 import it.cnr.iit.epas.models.ContractMonthRecap;
@@ -27,11 +38,18 @@ import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.PersonDay;
 import it.cnr.iit.epas.models.TimeSlot;
 import it.cnr.iit.epas.models.WorkingTimeType;
+import jakarta.persistence.EntityManager;
 import javax.inject.Inject;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 /**
- * Classe di supporto per l'istanziazione dei vari factory.
+ * Classe di supporto per l'istanziazione dei vari wrapper.
+ *
+ * <p>Ogni chiamata a create restituisce una nuova istanza legata all'entity passata, con
+ * memoizzazione dei valori calcolati limitata all'istanza stessa. I wrapper non dipendono
+ * dalla richiesta HTTP, quindi possono essere usati anche nei job schedulati e nei task
+ * asincroni, ma non vanno condivisi fra thread diversi.</p>
  *
  * @author cristian Lucchesi
  *
@@ -39,79 +57,94 @@ import org.springframework.stereotype.Component;
 @Component
 public class WrapperFactory implements IWrapperFactory {
 
-  private final IWrapperPerson wrapperPerson;
-  private final IWrapperContract wrapperContract;
-  private final IWrapperWorkingTimeType wrapperWorkingTimeType;
-  private final IWrapperTimeSlot wrapperTimeSlot;
-  private final IWrapperCompetenceCode wrapperCompetenceCode;
-  private final IWrapperOffice wrapperOffice;
-  private final IWrapperPersonDay wrapperPersonDay;
-  private final IWrapperContractMonthRecap wrapperContractMonthRecap;
-  private final IWrapperContractWorkingTimeType wrapperContractWorkingTimeType;
-  
+  private final AbsenceDao absenceDao;
+  private final CompetenceDao competenceDao;
+  private final ContractDao contractDao;
+  private final ContractTimelines contractTimelines;
+  private final OfficeDao officeDao;
+  private final PersonDao personDao;
+  private final PersonDayDao personDayDao;
+  private final PersonMonthRecapDao personMonthRecapDao;
+  private final RoleDao roleDao;
+  private final ObjectProvider<ContractManager> contractManager;
+  private final ObjectProvider<PersonManager> personManager;
+  private final ObjectProvider<CompetenceManager> competenceManager;
+  private final ObjectProvider<IWrapperFactory> wrapperFactory;
+  private final ObjectProvider<EntityManager> emp;
+
   /**
    * Costrutture di default per l'injection.
    */
   @Inject
-  public WrapperFactory(IWrapperPerson wrapperPerson, IWrapperContract wrapperContract,
-      IWrapperWorkingTimeType wrapperWorkingTimeType, IWrapperTimeSlot wrapperTimeSlot,
-      IWrapperCompetenceCode wrapperCompetenceCode, IWrapperOffice wrapperOffice,
-      IWrapperPersonDay wrapperPersonDay, IWrapperContractMonthRecap wrapperContractMonthRecap,
-      IWrapperContractWorkingTimeType wrapperContractWorkingTimeType) {
-    this.wrapperPerson = wrapperPerson;
-    this.wrapperContract = wrapperContract;
-    this.wrapperWorkingTimeType = wrapperWorkingTimeType;
-    this.wrapperTimeSlot = wrapperTimeSlot;
-    this.wrapperCompetenceCode = wrapperCompetenceCode;
-    this.wrapperOffice = wrapperOffice;
-    this.wrapperPersonDay = wrapperPersonDay;
-    this.wrapperContractMonthRecap = wrapperContractMonthRecap;
-    this.wrapperContractWorkingTimeType = wrapperContractWorkingTimeType;
+  public WrapperFactory(AbsenceDao absenceDao, CompetenceDao competenceDao,
+      ContractDao contractDao, ContractTimelines contractTimelines, OfficeDao officeDao,
+      PersonDao personDao, PersonDayDao personDayDao, PersonMonthRecapDao personMonthRecapDao,
+      RoleDao roleDao,
+      ObjectProvider<ContractManager> contractManager,
+      ObjectProvider<PersonManager> personManager,
+      ObjectProvider<CompetenceManager> competenceManager,
+      ObjectProvider<IWrapperFactory> wrapperFactory, ObjectProvider<EntityManager> emp) {
+    this.absenceDao = absenceDao;
+    this.competenceDao = competenceDao;
+    this.contractDao = contractDao;
+    this.contractTimelines = contractTimelines;
+    this.officeDao = officeDao;
+    this.personDao = personDao;
+    this.personDayDao = personDayDao;
+    this.personMonthRecapDao = personMonthRecapDao;
+    this.roleDao = roleDao;
+    this.contractManager = contractManager;
+    this.personManager = personManager;
+    this.competenceManager = competenceManager;
+    this.wrapperFactory = wrapperFactory;
+    this.emp = emp;
   }
-  
+
+  @Override
   public IWrapperPerson create(Person person) {
-    return wrapperPerson.setValue(person);
+    return new WrapperPerson(person, contractDao, personManager.getObject(), personDao,
+        personMonthRecapDao, personDayDao, competenceDao, wrapperFactory, emp,
+        competenceManager);
   }
 
   @Override
   public IWrapperContract create(Contract contract) {
-    return wrapperContract.setValue(contract);
+    return new WrapperContract(contract, absenceDao);
   }
 
   @Override
   public IWrapperWorkingTimeType create(WorkingTimeType wtt) {
-    return wrapperWorkingTimeType.setValue(wtt);
+    return new WrapperWorkingTimeType(wtt, contractDao);
   }
 
   @Override
   public IWrapperTimeSlot create(TimeSlot ts) {
-    return wrapperTimeSlot.setValue(ts);
+    return new WrapperTimeSlot(ts, contractManager.getObject(), contractDao);
   }
 
   @Override
   public IWrapperCompetenceCode create(CompetenceCode cc) {
-    return wrapperCompetenceCode.setValue(cc);
+    return new WrapperCompetenceCode(cc, officeDao, competenceDao);
   }
 
   @Override
   public IWrapperOffice create(Office office) {
-    return wrapperOffice.setValue(office);
+    return new WrapperOffice(office, roleDao);
   }
 
   @Override
   public IWrapperPersonDay create(PersonDay pd) {
-    Preconditions.checkNotNull(wrapperPersonDay);
     Preconditions.checkNotNull(pd);
-    return wrapperPersonDay.setValue(pd);
+    return new WrapperPersonDay(pd, contractTimelines, personDayDao, wrapperFactory);
   }
 
   @Override
   public IWrapperContractMonthRecap create(ContractMonthRecap cmr) {
-    return wrapperContractMonthRecap.setValue(cmr);
+    return new WrapperContractMonthRecap(cmr, wrapperFactory);
   }
 
   @Override
   public IWrapperContractWorkingTimeType create(ContractWorkingTimeType cwtt) {
-    return wrapperContractWorkingTimeType.setValue(cwtt);
+    return new WrapperContractWorkingTimeType(cwtt);
   }
-}
\ No newline at end of file
+}
@@ -26,29 +26,21 @@ import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
-import javax.inject.Inject;
-import org.springframework.stereotype.Component;
 
 /**
  * Wrapper sede.
  *
  * @author Alessandro Martelli
  */
-@Component
 public class WrapperOffice implements IWrapperOffice {
 
-  private Office value;
+  private final Office value;
   private final RoleDao roleDao;
 
-  @Inject
-  WrapperOffice(RoleDao roleDao) {
+  WrapperOffice(Office value, RoleDao roleDao) {
+    this.value = value;
     this.roleDao = roleDao;
   }
-
-  public IWrapperOffice setValue(Office office) {
-    this.value = office;
-    return this;
-  }
   
   @Override
   public final Office getValue() {
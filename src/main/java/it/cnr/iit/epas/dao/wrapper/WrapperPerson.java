@@ -47,23 +47,18 @@ import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 import java.util.SortedMap;
-import javax.inject.Inject;
 import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.stereotype.Component;
-import org.springframework.web.context.annotation.RequestScope;
 
 /**
  * Wrapper per la person.
- * Il @RequestScope è necessario per avere un'istanza diversa per ogni richesta, altrimenti
- * questo componente potrebbe portarsi dietro variabili d'istanza popolate in altre richieste.
+ * Un'istanza per entity, creata da WrapperFactory: i valori memoizzati appartengono
+ * all'istanza e non vanno condivisi fra thread diversi.
  *
  * @author Marco Andreini
  */
-@Component
-@RequestScope
 public class WrapperPerson implements IWrapperPerson {
 
-  private Person value;
+  private final Person value;
   private final ContractDao contractDao;
   //private final CompetenceManager competenceManager;
   private final PersonManager personManager;
@@ -76,6 +71,7 @@ public class WrapperPerson implements IWrapperPerson {
   private final ObjectProvider<CompetenceManager> competenceManager;
 
   private List<Contract> sortedContracts;
+  private ContractTimeline contractTimeline;
   private Optional<Contract> currentContract;
   private Optional<Contract> previousContract;
   private Optional<WorkingTimeType> currentWorkingTimeType;
@@ -85,15 +81,15 @@ public class WrapperPerson implements IWrapperPerson {
 
   private Optional<Boolean> properSynchronized = Optional.empty();
 
-  @Inject
   WrapperPerson(
-      ContractDao contractDao,
+      Person value, ContractDao contractDao,
       //CompetenceManager competenceManager,
       PersonManager personManager,
       PersonDao personDao, PersonMonthRecapDao personMonthRecapDao,
       PersonDayDao personDayDao, CompetenceDao competenceDao,
       ObjectProvider<IWrapperFactory> wrapperFactory, ObjectProvider<EntityManager> emp,
       ObjectProvider<CompetenceManager> competenceManager) {
+    this.value = value;
     this.contractDao = contractDao;
     this.competenceManager = competenceManager;
     this.personManager = personManager;
@@ -109,25 +105,23 @@ public class WrapperPerson implements IWrapperPerson {
   public Person getValue() {
     return value;
   }
-
-  public IWrapperPerson setValue(Person person) {
-    this.value = person;
-    return this;
-  }
   
   @Override
-  public boolean isActiveInDay(LocalDate date) {
-    for (Contract contract : orderedMonthContracts(date.getYear(), date.getMonthValue())) {
-      if (DateUtility.isDateIntoInterval(date, contract.periodInterval())) {
-        return true;
-      }
+  public ContractTimeline getContractTimeline() {
+    if (contractTimeline == null) {
+      contractTimeline = ContractTimeline.of(value.getContracts());
     }
-    return false;
+    return contractTimeline;
+  }
+
+  @Override
+  public boolean isActiveInDay(LocalDate date) {
+    return getContractTimeline().isActive(date);
   }
 
   @Override
   public boolean isActiveInMonth(YearMonth yearMonth) {
-    return getFirstContractInMonth(yearMonth.getYear(), yearMonth.getMonthValue()) != null;
+    return getContractTimeline().isActive(yearMonth.atDay(1), yearMonth.atEndOfMonth());
   }
 
   /**
@@ -151,36 +145,12 @@ public class WrapperPerson implements IWrapperPerson {
 
   @Override
   public List<Contract> orderedMonthContracts(int year, int month) {
-
-    List<Contract> contracts = Lists.newArrayList();
-
-    LocalDate monthBegin = LocalDate.of(year, month, 1);
-    DateInterval monthInterval = new DateInterval(monthBegin,
-        DateUtility.endOfMonth(monthBegin));
-
-    for (Contract contract : orderedContracts()) {
-      if (DateUtility.intervalIntersection(monthInterval, wrapperFactory
-          .getObject().create(contract).getContractDateInterval()) != null) {
-        contracts.add(contract);
-      }
-    }
-    return contracts;
+    return Lists.newArrayList(getContractTimeline().contractsIn(YearMonth.of(year, month)));
   }
 
   @Override
   public List<Contract> orderedYearContracts(int year) {
-
-    List<Contract> contracts = Lists.newArrayList();
-    DateInterval yearInterval = new DateInterval(LocalDate.of(year, 1, 1),
-        LocalDate.of(year, 12, 31));
-
-    for (Contract contract : orderedContracts()) {
-      if (DateUtility.intervalIntersection(yearInterval, wrapperFactory
-          .getObject().create(contract).getContractDateInterval()) != null) {
-        contracts.add(contract);
-      }
-    }
-    return contracts;
+    return Lists.newArrayList(getContractTimeline().contractsInYear(year));
   }
 
   @Override
@@ -206,7 +176,8 @@ public class WrapperPerson implements IWrapperPerson {
   @Override
   public Optional<Contract> getLastContractInMonth(int year, int month) {
 
-    List<Contract> contractInMonth = orderedMonthContracts(year, month);
+    List<Contract> contractInMonth =
+        getContractTimeline().contractsIn(YearMonth.of(year, month));
 
     if (contractInMonth.isEmpty()) {
       return Optional.empty();
@@ -225,7 +196,8 @@ public class WrapperPerson implements IWrapperPerson {
   @Override
   public Optional<Contract> getFirstContractInMonth(int year, int month) {
 
-    List<Contract> contractInMonth = orderedMonthContracts(year, month);
+    List<Contract> contractInMonth =
+        getContractTimeline().contractsIn(YearMonth.of(year, month));
 
     if (contractInMonth.isEmpty()) {
       return Optional.empty();
@@ -574,8 +546,7 @@ public class WrapperPerson implements IWrapperPerson {
     // I riepiloghi mensili (uno per ogni contratto attivo nel mese)
     List<IWrapperContractMonthRecap> contractMonths = Lists.newArrayList();
     
-    List<Contract> monthContracts = wrapperFactory.getObject().create(value)
-        .orderedMonthContracts(yearMonth.getYear(), yearMonth.getMonthValue());
+    List<Contract> monthContracts = getContractTimeline().contractsIn(yearMonth);
 
     for (Contract contract : monthContracts) {
       Optional<ContractMonthRecap> cmr =
@@ -18,11 +18,9 @@
 package it.cnr.iit.epas.dao.wrapper;
 
 import com.google.common.base.Preconditions;
-import it.cnr.iit.epas.dao.ContractDao;
 import it.cnr.iit.epas.dao.PersonDayDao;
 import it.cnr.iit.epas.models.Contract;
 import it.cnr.iit.epas.models.ContractStampProfile;
-import it.cnr.iit.epas.models.ContractWorkingTimeType;
 import it.cnr.iit.epas.models.PersonDay;
 import it.cnr.iit.epas.models.PersonalWorkingTime;
 import it.cnr.iit.epas.models.Stamping;
@@ -33,27 +31,24 @@ import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.stereotype.Component;
-import org.springframework.web.context.annotation.RequestScope;
 
 /**
  * Wrapper personDay.
- * Il @RequestScope è necessario per avere un'istanza diversa per ogni transazione, altrimenti
- * questo componente potrebbe portarsi dietro variabili d'istanza popolate in altre richieste.
+ * Un'istanza per entity, creata da WrapperFactory: i valori memoizzati appartengono
+ * all'istanza e non vanno condivisi fra thread diversi.
  *
  * @author Alessandro Martelli
  */
-@RequiredArgsConstructor
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 @Slf4j
-@Component
-@RequestScope
 public class WrapperPersonDay implements IWrapperPersonDay {
 
-  private PersonDay value;
-  private final ContractDao contractDao;
+  private final PersonDay value;
+  private final ContractTimelines contractTimelines;
   private final PersonDayDao personDayDao;
   private final ObjectProvider<IWrapperFactory> factory;
   private Optional<PersonDay> previousForProgressive = null;
@@ -63,11 +58,6 @@ public class WrapperPersonDay implements IWrapperPersonDay {
   private Optional<WorkingTimeTypeDay> workingTimeTypeDay = null;
   private Optional<PersonalWorkingTime> personalWorkingTime = null;
 
-  public IWrapperPersonDay setValue(PersonDay pd) {
-    this.value = pd;
-    return this;
-  }
-
   @Override
   public PersonDay getValue() {
     return value;
@@ -93,6 +83,20 @@ public class WrapperPersonDay implements IWrapperPersonDay {
    * @param potentialOnlyPrevious se presente è l'unico candidato
    */
   public void setPreviousForProgressive(Optional<PersonDay> potentialOnlyPrevious) {
+    assignPreviousForProgressive(potentialOnlyPrevious, false);
+  }
+
+  @Override
+  public void setPreviousForProgressiveInMonth(Optional<PersonDay> previousInMonth) {
+    assignPreviousForProgressive(previousInMonth, true);
+  }
+
+  /**
+   * Assegna il personDay precedente per il calcolo del progressivo. Se il candidato non è
+   * presente e non è noto che non esista viene cercato fra i personDay del mese.
+   */
+  private void assignPreviousForProgressive(Optional<PersonDay> potentialOnlyPrevious,
+      boolean searched) {
 
     this.previousForProgressive = Optional.<PersonDay>empty();
 
@@ -119,7 +123,7 @@ public class WrapperPersonDay implements IWrapperPersonDay {
     if (potentialOnlyPrevious.isPresent()) {
       candidate = potentialOnlyPrevious.get();
 
-    } else {
+    } else if (!searched) {
 
       List<PersonDay> personDayInMonthAsc = personDayDao
               .getPersonDayInMonth(this.value.getPerson(),
@@ -212,7 +216,8 @@ public class WrapperPersonDay implements IWrapperPersonDay {
       return this.personDayContract;
     }
 
-    Contract contract = contractDao.getContract(this.value.getDate(), this.value.getPerson());
+    Contract contract = contractTimelines.of(this.value.getPerson())
+        .contractAt(this.value.getDate());
 
     if (contract == null) {
       this.personDayContract = Optional.empty();
@@ -267,19 +272,12 @@ public class WrapperPersonDay implements IWrapperPersonDay {
     if (getPersonDayContract().isPresent()) {
       log.trace("WrapperPersonDay::getWorkingTimeTypeDay() -> trovato contratto nel giorno {}",
           getValue().getDate());
-      for (ContractWorkingTimeType cwtt :
-              this.getPersonDayContract().get().getContractWorkingTimeType()) {
-
-        if (DateUtility.isDateIntoInterval(this.value.getDate(),
-                factory.getObject().create(cwtt).getDateInverval())) {
-
-          WorkingTimeTypeDay wttd = cwtt.getWorkingTimeType().getWorkingTimeTypeDays()
-                  .get(this.value.getDate().getDayOfWeek().getValue() - 1);
-
-          Preconditions.checkState(wttd.dayOfWeek == value.getDate().getDayOfWeek().getValue());
-          return Optional.ofNullable(wttd);
-        }
-
+      WorkingTimeTypeDay wttd = contractTimelines.of(this.value.getPerson())
+          .workingTimeTypeDayAt(this.value.getDate());
+      if (wttd != null) {
+        Preconditions.checkState(wttd.dayOfWeek == value.getDate().getDayOfWeek().getValue());
+        this.workingTimeTypeDay = Optional.of(wttd);
+        return this.workingTimeTypeDay;
       }
     } else {
       log.info("WrapperPersonDay::getWorkingTimeTypeDay() -> contratto non presente "
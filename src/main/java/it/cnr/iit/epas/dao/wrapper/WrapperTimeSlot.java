@@ -28,33 +28,25 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import javax.inject.Inject;
-import org.springframework.stereotype.Component;
 
 /**
  * WrapperTimeSlot con alcune funzionalità aggiuntive.
  *
  * @author Cristian Lucchesi
  */
-@Component
 public class WrapperTimeSlot implements IWrapperTimeSlot {
 
-  private TimeSlot value;
+  private final TimeSlot value;
   private final ContractManager contractManager;
   private final ContractDao contractDao;
 
-  @Inject
-  WrapperTimeSlot(ContractManager contractManager, 
+  WrapperTimeSlot(TimeSlot value, ContractManager contractManager, 
       ContractDao contractDao) {
+    this.value = value;
     this.contractManager = contractManager;
     this.contractDao = contractDao;
   }
 
-  public IWrapperTimeSlot setValue(TimeSlot ts) {
-    this.value = ts;
-    return this;
-  }
-
   @Override
   public TimeSlot getValue() {
     return value;
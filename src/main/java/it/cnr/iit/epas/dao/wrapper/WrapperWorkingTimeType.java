@@ -29,8 +29,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import javax.inject.Inject;
-import org.springframework.stereotype.Component;
 
 /**
  * WrapperWorkingTimeType con alcune funzionalità aggiuntive.
@@ -38,22 +36,16 @@ import org.springframework.stereotype.Component;
  * @author Alessandro Martelli
  * @author Cristian Lucchesi
  */
-@Component
 public class WrapperWorkingTimeType implements IWrapperWorkingTimeType {
 
-  private WorkingTimeType value;
+  private final WorkingTimeType value;
   private final ContractDao contractDao;
 
-  @Inject
-  WrapperWorkingTimeType(ContractDao contractDao) {
+  WrapperWorkingTimeType(WorkingTimeType value, ContractDao contractDao) {
+    this.value = value;
     this.contractDao = contractDao;
   }
 
-  public IWrapperWorkingTimeType setValue(WorkingTimeType wtt) {
-    this.value = wtt;
-    return this;
-  }
-
   @Override
   public WorkingTimeType getValue() {
     return value;
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.dto.v4;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SortedMap;
+import lombok.Data;
+
+/**
+ * Dto per la presenza giornaliera di una sede.
+ */
+@Data
+public class DailyPresenceRecapDto {
+
+  private Long officeId;
+  private LocalDate date;
+  private int numberOfInOut;
+
+  // I giorni dei dipendenti attivi (solo quelli con il personday)
+  private List<PersonStampingDayRecapDto> daysRecap = Lists.newArrayList();
+
+  // Le motivazioni delle assenze e quanti hanno quella motivazione, oltre a quanti sono presenti
+  private SortedMap<String, Integer> dailyMap = Maps.newTreeMap();
+}
@@ -34,7 +34,18 @@ public class MealTicketRecapDto {
   private LocalDate dateExpire = null;
   private LocalDate dateRunOut = null;
 
+  /**
+   * I giorni con buono pasto dell'intero intervallo.
+   *
+   * @deprecated caricare tutti i giorni del contratto è costoso, usare
+   *     openPersonDaysMealTickets ed il totale consumed.
+   */
+  @Deprecated
   private List<PersonDayDto> personDaysMealTickets = Lists.newArrayList();
+  /**
+   * I giorni con buono pasto successivi all'ultimo mese concluso.
+   */
+  private List<PersonDayDto> openPersonDaysMealTickets = Lists.newArrayList();
   private List<MealTicketDto> mealTicketReturnedDeliveryOrderDesc = Lists.newArrayList();
   private List<MealTicketDto> mealTicketsReceivedExpireOrderedAsc = Lists.newArrayList();
   private List<MealTicketDto> mealTicketsReceivedExpireOrderedAscPostInit = Lists.newArrayList();
@@ -44,5 +55,6 @@ public class MealTicketRecapDto {
 
   private int remaining = 0;
   private int sourcedInInterval = 0;
+  private int consumed = 0;
   private DateIntervalDto mealTicketInterval = null;
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.dto.v4;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+import lombok.Data;
+
+/**
+ * DTO con l'avanzamento di un ricalcolo massivo delle situazioni dei dipendenti.
+ */
+@Data
+public class RecomputationProgressDto {
+
+  private LocalDate fromDate;
+  private boolean onlyRecap;
+  private int total;
+  private int done;
+  private int failed;
+  private int retries;
+  private int remaining;
+  private boolean completed;
+  private LocalDateTime startedAt;
+  private LocalDateTime endedAt;
+  private Long etaSeconds;
+  private Set<Long> failedPersonIds;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.dto.v4;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.Data;
+
+/**
+ * DTO con lo stato di aggiornamento dei dati calcolati di una persona.
+ */
+@Data
+@Schema(description = "Stato di aggiornamento dei dati calcolati (orari, residui, buoni pasto)"
+    + " di una persona.")
+public class RecomputeStatusDto {
+
+  private Long personId;
+
+  @Schema(description = "true se non ci sono ricalcoli in attesa per la persona")
+  private boolean upToDate;
+
+  @Schema(description = "Data da cui i dati calcolati sono in attesa di ricalcolo")
+  private LocalDate pendingFrom;
+
+  @Schema(description = "Istante dell'ultima modifica che ha richiesto il ricalcolo")
+  private LocalDateTime requestedAt;
+
+  @Schema(description = "Numero di tentativi di ricalcolo falliti")
+  private int attempts;
+
+  @Schema(description = "Errore dell'ultimo tentativo di ricalcolo fallito")
+  private String lastError;
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.dto.v4;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Esito dell'inserimento di una delle timbrature ricevute in blocco dai client di ePAS.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Esito dell'inserimento di una timbratura ricevuta in blocco.")
+public class StampingFromClientResultDto {
+
+  @Schema(description = "Posizione della timbratura nella lista ricevuta", example = "0")
+  private int index;
+
+  @Schema(description = "Esito con la semantica dei codici http dell'inserimento singolo: "
+      + "200 inserita, 400 dati non corretti o troppo vecchia, 403 non autorizzato, "
+      + "404 dipendente non trovato, 409 già presente", example = "200")
+  private int status;
+
+  @Schema(description = "La timbratura inserita (solo in caso di esito 200)")
+  private StampingDto stamping;
+}
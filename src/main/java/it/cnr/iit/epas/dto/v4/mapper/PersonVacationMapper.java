@@ -27,13 +27,17 @@ import it.cnr.iit.epas.dto.v4.VacationSummaryTerseDto;
 import it.cnr.iit.epas.manager.recaps.personvacation.PersonVacationRecap;
 import it.cnr.iit.epas.manager.services.absences.model.VacationSituation;
 import it.cnr.iit.epas.manager.services.absences.model.VacationSituation.VacationSummary;
+import it.cnr.iit.epas.manager.services.absences.model.VacationSummaryCached;
 import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.VacationPeriod;
 import it.cnr.iit.epas.models.absences.Absence;
 import it.cnr.iit.epas.models.absences.JustifiedBehaviour;
 import it.cnr.iit.epas.models.enumerate.VacationCode;
+import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 
 /**
  * Mapping delle informazioni per il riepilogo di un mese lavorativo
@@ -77,4 +81,41 @@ public interface PersonVacationMapper {
   @Mapping(target = "title", expression = "java(vacationSummary.title())")
   VacationSummaryTerseDto convert(VacationSummary vacationSummary);
 
+  /**
+   * Una situazione prelevata dalla cache contiene solo la versione cachata dei riepiloghi.
+   */
+  @AfterMapping
+  default void convertCached(VacationSituation vacationSituation,
+      @MappingTarget VacationSituationDto dto) {
+    if (vacationSituation.lastYear == null) {
+      dto.setLastYear(convert(vacationSituation.lastYearCached, vacationSituation.person));
+    }
+    if (vacationSituation.currentYear == null) {
+      dto.setCurrentYear(convert(vacationSituation.currentYearCached, vacationSituation.person));
+    }
+    if (vacationSituation.permissions == null) {
+      dto.setPermissions(convert(vacationSituation.permissionsCached, vacationSituation.person));
+    }
+  }
+
+  /**
+   * Il DTO del riepilogo cachato, null se il riepilogo non esiste.
+   */
+  default VacationSummaryTerseDto convert(VacationSummaryCached cached, Person person) {
+    if (cached == null || !cached.exists) {
+      return null;
+    }
+    VacationSummaryTerseDto dto = new VacationSummaryTerseDto();
+    dto.setType(cached.type);
+    dto.setTitle(VacationSummary.title(person, cached.type, cached.year));
+    dto.setYear(cached.year);
+    dto.setDate(cached.date);
+    dto.setTotal(cached.total);
+    dto.setAccrued(cached.accrued);
+    dto.setUsed(cached.used);
+    dto.setUsableTotal(cached.usableTotal);
+    dto.setUsable(cached.usable);
+    return dto;
+  }
+
 }
\ No newline at end of file
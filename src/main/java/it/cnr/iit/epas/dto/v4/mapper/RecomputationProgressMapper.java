@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.dto.v4.mapper;
+
+import it.cnr.iit.epas.dto.v4.RecomputationProgressDto;
+import it.cnr.iit.epas.manager.recaps.recomputation.RecomputationProgress;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Mapper da RecomputationProgress al suo DTO per la visualizzazione via REST.
+ */
+@Mapper(componentModel = "spring")
+public interface RecomputationProgressMapper {
+
+  @Mapping(target = "etaSeconds",
+      expression = "java(progress.getEta().map(java.time.Duration::getSeconds).orElse(null))")
+  RecomputationProgressDto convert(RecomputationProgress progress);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.dto.v4.mapper;
+
+import it.cnr.iit.epas.dto.v4.RecomputeStatusDto;
+import it.cnr.iit.epas.models.RecomputeRequest;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Mapper dalla richiesta di ricalcolo in coda allo stato di aggiornamento della persona.
+ */
+@Mapper(componentModel = "spring")
+public interface RecomputeStatusMapper {
+
+  @Mapping(target = "personId", source = "person.id")
+  @Mapping(target = "upToDate", constant = "false")
+  @Mapping(target = "pendingFrom", source = "fromDate")
+  RecomputeStatusDto convert(RecomputeRequest request);
+}
@@ -47,6 +47,9 @@ public interface SeatOrganizationChartMapper {
   // Converte Map<Role, List<User>> -> Map<String, List<UserShowDto>>
   Map<String, List<UserShowDto>> convert(Map<Role, List<User>> users);
   
+  // Converte Map<String, List<User>> -> Map<String, List<UserShowDto>>
+  Map<String, List<UserShowDto>> convertByRoleName(Map<String, List<User>> users);
+
   List<String> convertRoles(List<Role> roles);
 
   @Mapping(target = "ownerId", source = "owner.id")
@@ -165,7 +165,11 @@ public class AbsenceManager {
     List<Absence> newAbsences = Lists.newArrayList();
     //Persistenza
     if (!insertReport.absencesToPersist.isEmpty()) {
+      LocalDate modifiedTo = from;
       for (Absence absence : insertReport.absencesToPersist) {
+        if (absence.getAbsenceDate().isAfter(modifiedTo)) {
+          modifiedTo = absence.getAbsenceDate();
+        }
         PersonDay personDay = personDayManager
             .getOrCreateAndPersistPersonDay(person, absence.getAbsenceDate());
         absence.setPersonDay(personDay);
@@ -192,7 +196,11 @@ public class AbsenceManager {
       personDao.getEntityManager().flush();
       log.trace("Flush dell'entity manager effettuata");
       
-      consistencyManager.updatePersonSituation(person.getId(), from);
+      if (justifiedType.getName().equals(JustifiedTypeName.recover_time)) {
+        consistencyManager.requestPersonSituationUpdate(person.getId(), from);
+      } else {
+        consistencyManager.requestPersonSituationUpdate(person.getId(), from, modifiedTo);
+      }
     }
     return newAbsences;
   }
@@ -403,7 +411,8 @@ public class AbsenceManager {
 
       //Al termine dell'inserimento delle assenze aggiorno tutta la situazione dal primo giorno
       //di assenza fino ad oggi
-      consistencyManager.updatePersonSituation(person.getId(), dateFrom);
+      consistencyManager.requestPersonSituationUpdate(person.getId(), dateFrom,
+          dateTo.orElse(dateFrom));
 
       if (air.getAbsenceInReperibilityOrShift() > 0) {
         sendReperibilityShiftEmail(person, air.datesInReperibilityOrShift());
@@ -705,7 +714,7 @@ public class AbsenceManager {
     pd.setTicketForcedByAdmin(false);
     personDayDao.merge(pd);
     val person = pd.getPerson();
-    consistencyManager.updatePersonSituation(person.getId(), pd.getDate());
+    consistencyManager.requestPersonSituationUpdate(person.getId(), pd.getDate(), pd.getDate());
     log.info("Rimossa assenza del {} per {}", 
         absence.getDate(), absence.getPersonDay().getPerson().getFullname());
   }
@@ -768,7 +777,7 @@ public class AbsenceManager {
 
     //Al termine della cancellazione delle assenze aggiorno tutta la situazione dal primo
     //giorno di assenza fino ad oggi
-    consistencyManager.updatePersonSituation(person.getId(), dateFrom);
+    consistencyManager.requestPersonSituationUpdate(person.getId(), dateFrom, dateTo);
 
     return deleted;
   }
@@ -35,8 +35,6 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
@@ -60,7 +58,8 @@ public class ConsistencyManager {
   private final PersonDao personDao;
   private final SecureManager secureManager;
   private final ConsistencyManagerUtils consistencyManagerUtils;
-  private final ConsistencyManagerAsync consistencyManagerAsync;
+  private final RecomputationEngine recomputationEngine;
+  private final RecomputeQueue recomputeQueue;
   private final ObjectProvider<IWrapperFactory> wrapperFactory;
   private final ObjectProvider<EntityManager> emp;
 
@@ -73,7 +72,7 @@ public class ConsistencyManager {
       OfficeDao officeDao, PersonDao personDao,
       SecureManager secureManager,
       ConsistencyManagerUtils consistencyManagerUtils,
-      ConsistencyManagerAsync consistencyManagerAsync,
+      RecomputationEngine recomputationEngine, RecomputeQueue recomputeQueue,
       ObjectProvider<IWrapperFactory> wrapperFactory, AbsenceDao absenceDao,
       ObjectProvider<EntityManager> emp) {
 
@@ -82,7 +81,8 @@ public class ConsistencyManager {
     this.personDao = personDao;
     this.secureManager = secureManager;
     this.consistencyManagerUtils = consistencyManagerUtils;
-    this.consistencyManagerAsync = consistencyManagerAsync;
+    this.recomputationEngine = recomputationEngine;
+    this.recomputeQueue = recomputeQueue;
     this.wrapperFactory = wrapperFactory;
     this.emp = emp;
   }
@@ -94,11 +94,10 @@ public class ConsistencyManager {
    * @param user utente loggato
    * @param fromDate dalla data
    * @param onlyRecap se si vuole aggiornare solo i riepiloghi
-   * @throws ExecutionException  in caso di problemi con i CompletableFuture
-   * @throws InterruptedException  in caso di interruzione dei CompletableFuture
+   * @throws InterruptedException  in caso di interruzione durante l'attesa dei ricalcoli
    */
   public void fixPersonSituation(Optional<Person> person, Optional<User> user, LocalDate fromDate,
-      boolean onlyRecap) throws InterruptedException, ExecutionException {
+      boolean onlyRecap) throws InterruptedException {
 
     Set<Office> offices = user.isPresent() ? secureManager.officesWriteAllowed(user.get())
         : Sets.newHashSet(officeDao.allEnabledOffices());
@@ -114,11 +113,7 @@ public class ConsistencyManager {
           LocalDate.now().minusDays(1), true).list();
     }
 
-    final List<CompletableFuture<Void>> results = Lists.newArrayList();
-    for (Person p : personList) {
-      results.add(consistencyManagerAsync.fixPersonSituation(p.getId(), fromDate, onlyRecap));
-    }
-    CompletableFuture.allOf(results.toArray(new CompletableFuture[results.size()])).get();
+    recomputationEngine.recompute(personList, fromDate, onlyRecap);
     log.info("Conclusa procedura FixPersonsSituation con parametri!");
   }
 
@@ -129,20 +124,13 @@ public class ConsistencyManager {
    * @param fromDate dalla data
    * @param onlyRecap se si vuole aggiornare solo i riepiloghi
    *
-   * @throws ExecutionException nel caso di problemi con i CompletableFuture
-   * @throws InterruptedException nel caso di interruzione dei CompletableFuture 
+   * @throws InterruptedException nel caso di interruzione durante l'attesa dei ricalcoli
    */
   public void fixPersonSituation(
       List<Person> personList, LocalDate fromDate, boolean onlyRecap) 
-          throws InterruptedException, ExecutionException {
-
-    final List<CompletableFuture<Void>> results = Lists.newArrayList();
-
-    for (Person p : personList) {
-      results.add(consistencyManagerAsync.fixPersonSituation(p.getId(), fromDate, onlyRecap));
-    }
+          throws InterruptedException {
 
-    CompletableFuture.allOf(results.toArray(new CompletableFuture[results.size()])).get();
+    recomputationEngine.recompute(personList, fromDate, onlyRecap);
     log.info("Conclusa procedura FixPersonsSituation con parametri!");
   }
 
@@ -168,6 +156,40 @@ public class ConsistencyManager {
         personId, from, Optional.<LocalDate>empty(), false);
   }
 
+  /**
+   * Richiede l'aggiornamento della situazione della persona a partire dalla data from.
+   * Con la coda dei ricalcoli abilitata la richiesta è registrata nella transazione corrente
+   * ed il ricalcolo è effettuato in modo asincrono, altrimenti il ricalcolo è immediato.
+   *
+   * @param personId id della persona
+   * @param from data dalla quale effettuare i ricalcoli
+   */
+  public void requestPersonSituationUpdate(Long personId, LocalDate from) {
+    if (recomputeQueue.isEnabled()) {
+      recomputeQueue.enqueue(personId, from);
+    } else {
+      updatePersonSituation(personId, from);
+    }
+  }
+
+  /**
+   * Richiede l'aggiornamento della situazione della persona dopo modifiche (timbrature,
+   * assenze) limitate ai giorni da from a to. I giorni successivi a to non sono ricalcolati
+   * completamente ma ne viene solo aggiornato il progressivo, quando possibile.
+   *
+   * @param personId id della persona
+   * @param from il primo giorno modificato
+   * @param to l'ultimo giorno modificato
+   */
+  public void requestPersonSituationUpdate(Long personId, LocalDate from, LocalDate to) {
+    if (recomputeQueue.isEnabled()) {
+      recomputeQueue.enqueue(personId, from, Optional.of(to));
+    } else {
+      consistencyManagerUtils.updatePersonSituationEngine(
+          personId, from, Optional.<LocalDate>empty(), false, Optional.of(to));
+    }
+  }
+
   /**
    * Aggiorna la situazione del contratto a partire dalla data from.
    *
@@ -19,6 +19,7 @@ package it.cnr.iit.epas.manager;
 
 import it.cnr.iit.epas.dao.PersonDao;
 import it.cnr.iit.epas.models.Person;
+import jakarta.transaction.Transactional;
 import java.time.LocalDate;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -88,17 +89,44 @@ public class ConsistencyManagerAsync {
   @Async
   public CompletableFuture<Void> fixPersonSituation(
       Long personId, LocalDate fromDate, boolean onlyRecap) {
-    
+    recomputePerson(personId, fromDate, onlyRecap);
+    return CompletableFuture.allOf();
+  }
+
+  /**
+   * Ricalcolo della situazione di una persona dal mese e anno specificati ad oggi,
+   * effettuato nel thread corrente ed in un'unica transazione, in modo che
+   * in caso di conflitti di lock ottimistico il ricalcolo possa essere ritentato.
+   *
+   * @param personId id della persona di cui effettuare il ricalcolo
+   * @param fromDate dalla data
+   * @param onlyRecap se si vuole aggiornare solo i riepiloghi
+   */
+  @Transactional
+  public void recomputePerson(Long personId, LocalDate fromDate, boolean onlyRecap) {
+    recomputePerson(personId, fromDate, onlyRecap, Optional.<LocalDate>empty());
+  }
+
+  /**
+   * Come recomputePerson(personId, fromDate, onlyRecap), se modifiedTo è presente le
+   * modifiche sono limitate ai giorni da fromDate a modifiedTo ed il ricalcolo dei giorni è
+   * incrementale.
+   *
+   * @param personId id della persona di cui effettuare il ricalcolo
+   * @param fromDate dalla data
+   * @param onlyRecap se si vuole aggiornare solo i riepiloghi
+   * @param modifiedTo l'ultimo giorno modificato
+   */
+  @Transactional
+  public void recomputePerson(Long personId, LocalDate fromDate, boolean onlyRecap,
+      Optional<LocalDate> modifiedTo) {
+
     final Person person = personDao.getPersonById(personId);
 
-    if (onlyRecap) {
-      updatePersonRecaps(personId, fromDate);
-    } else {
-      updatePersonSituation(personId, fromDate);
-    }
+    consistencyManagerUtils.updatePersonSituationEngine(
+        personId, fromDate, Optional.<LocalDate>empty(), onlyRecap, modifiedTo);
 
     personDayInTroubleManager.cleanPersonDayInTrouble(person);
     log.debug("Elaborata la persona ... {}", person);
-    return CompletableFuture.allOf();
   }
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import it.cnr.iit.epas.dao.ContractDao;
 import it.cnr.iit.epas.dao.PersonDao;
 import it.cnr.iit.epas.dao.PersonDayDao;
 import it.cnr.iit.epas.dao.PersonShiftDayDao;
+import it.cnr.iit.epas.dao.PersonStampingRecapSnapshotDao;
 import it.cnr.iit.epas.dao.StampingDao;
 import it.cnr.iit.epas.dao.wrapper.IWrapperContract;
 import it.cnr.iit.epas.dao.wrapper.IWrapperFactory;
@@ -56,8 +57,9 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.YearMonth;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
@@ -73,6 +75,7 @@ class ConsistencyManagerUtils {
   private final PersonDao personDao;
   private final PersonDayDao personDayDao;
   private final PersonShiftDayDao personShiftDayDao;
+  private final PersonStampingRecapSnapshotDao personStampingRecapSnapshotDao;
   private final StampingDao stampingDao;
   private final ContractDao contractDao;
   private final AbsenceDao absenceDao;
@@ -82,6 +85,7 @@ class ConsistencyManagerUtils {
   private final ConfigurationManager configurationManager;
   private final StampTypeManager stampTypeManager;
   private final ContractMonthRecapManager contractMonthRecapManager;
+  private final MealTicketLedgerManager mealTicketLedgerManager;
   private final TimeSlotManager timeSlotManager;
   private final ObjectProvider<IWrapperFactory> wrapperFactory;
   private final ObjectProvider<EntityManager> emp;
@@ -90,17 +94,25 @@ class ConsistencyManagerUtils {
   /**
    * Effettua l'aggiornamento della situazione dei riepiloghi
    * giornalieri e mensili della persona indicata.
-   * Attenzione il metodo deve essere pubblico perché c'è un
-   * listener @AfterRequest per questo metodo che effettua delle
-   * operazioni aggiuntive.
-   *
-   * @see it.cnr.iit.epas.manager.listeners.ConsistencyManagerListener
    */
   public Optional<Contract> updatePersonSituationEngine(
       Long personId, LocalDate from, Optional<LocalDate> to,
       boolean updateOnlyRecaps) {
-    log.debug("updatePersonSituationEngine started. personId={}, from={}, to={}.",
-        personId, from, to.orElse(null));
+    return updatePersonSituationEngine(personId, from, to, updateOnlyRecaps,
+        Optional.<LocalDate>empty());
+  }
+
+  /**
+   * Effettua l'aggiornamento della situazione dei riepiloghi giornalieri e mensili della
+   * persona indicata. Se modifiedTo è presente le modifiche che richiedono il ricalcolo sono
+   * limitate ai giorni da from a modifiedTo ed il ricalcolo dei giorni è incrementale
+   * (vedi updatePersonDaysIncremental).
+   */
+  public Optional<Contract> updatePersonSituationEngine(
+      Long personId, LocalDate from, Optional<LocalDate> to,
+      boolean updateOnlyRecaps, Optional<LocalDate> modifiedTo) {
+    log.debug("updatePersonSituationEngine started. personId={}, from={}, to={}, "
+        + "modifiedTo={}.", personId, from, to.orElse(null), modifiedTo.orElse(null));
 
     final Person person = personDao.fetchPersonForComputation(personId, Optional.ofNullable(from),
         Optional.<LocalDate>empty());
@@ -120,78 +132,225 @@ class ConsistencyManagerUtils {
       lastPersonDayToCompute = to.get();
     }
     LocalDate date = personFirstDateForEpasComputation(person, Optional.ofNullable(from));
+    LocalDate recapFrom = from;
+    Optional<LocalDate> incrementalTo = modifiedTo;
+
+    // Le timbrature notturne legano i giorni modificati ai giorni adiacenti: si ricalcola
+    // completamente a partire dal giorno precedente.
+    if (!updateOnlyRecaps && modifiedTo.isPresent()
+        && nightStampingInvolved(person, date, modifiedTo.get())) {
+      log.debug("Ricalcolo incrementale di {} non applicabile: timbrature notturne tra il {} "
+          + "e il {}", person.getFullname(), date.minusDays(1), modifiedTo.get().plusDays(1));
+      final LocalDate firstDate = personFirstDateForEpasComputation(person, Optional.empty());
+      if (date.isAfter(firstDate)) {
+        date = date.minusDays(1);
+      }
+      if (date.isBefore(recapFrom)) {
+        recapFrom = date;
+      }
+      incrementalTo = Optional.empty();
+    }
 
-    List<PersonDay> personDays = personDayDao.getPersonDayInPeriod(person, date,
-        Optional.ofNullable(lastPersonDayToCompute));
-
-    // Costruire la tabella hash
-    HashMap<LocalDate, PersonDay> personDaysMap = Maps.newHashMap();
-    for (PersonDay personDay : personDays) {
-      personDaysMap.put(personDay.getDate(), personDay);
+    if (!updateOnlyRecaps) {
+      if (incrementalTo.isPresent() && updatePersonDaysIncremental(
+          person, wrPerson, date, incrementalTo.get(), lastPersonDayToCompute)) {
+        log.trace("... ricalcolo incrementale dei giorni lavorativi concluso.");
+      } else {
+        List<PersonDay> personDays = personDayDao.getPersonDayInPeriod(person, date,
+            Optional.ofNullable(lastPersonDayToCompute));
+        log.trace("... fetch dei dati conclusa, inizio dei ricalcoli.");
+        populatePersonDays(person, wrPerson, personDaysMap(personDays), date,
+            lastPersonDayToCompute);
+        log.trace("... ricalcolo dei giorni lavorativi conclusa.");
+      }
     }
 
-    log.trace("... fetch dei dati conclusa, inizio dei ricalcoli.");
+    // (3) Ricalcolo dei residui per mese        
+    populateContractMonthRecapByPerson(person, YearMonth.from(recapFrom));
 
-    PersonDay previous = null;
+    // I riepiloghi mensili salvati dei mesi modificati non sono più validi
+    personStampingRecapSnapshotDao.deleteFrom(person.getId(), YearMonth.from(recapFrom));
 
-    if (!updateOnlyRecaps) {
+    // (4) Scan degli errori sulle assenze
+    absenceService.scanner(person, from);
 
-      while (!date.isAfter(lastPersonDayToCompute)) {
+    // (5) La situazione ferie non è più ricalcolata qui: le versioni dei dati da cui dipende
+    // (vedi VacationSituationVersions) sono aggiornate dalle modifiche ad assenze e contratti
+    // e la situazione è ricalcolata alla prima lettura.
+    final Optional<Contract> contract = wrPerson.getCurrentContract();
 
-        if (!wrPerson.isActiveInDay(date)) {
-          date = date.plusDays(1);
-          previous = null;
-          continue;
-        }
+    // (6) Controllo se per quel giorno person ha anche un turno associato ed effettuo, i ricalcoli
 
-        // Prendere da map
-        PersonDay personDay = personDaysMap.get(date);
-        if (personDay == null) {
-          personDay = new PersonDay(person, date);
-          personDayDao.persist(personDay);
-        }
+    Optional<PersonShiftDay> psd = personShiftDayDao.byPersonAndDate(person, from);
+    if (psd.isPresent()) {
+      shiftManager2.checkShiftValid(psd.get());
+    }
 
-        Preconditions.checkNotNull(personDay);
-        IWrapperPersonDay wrPersonDay = wrapperFactory.getObject().create(personDay);
+    log.trace("... ricalcolo dei riepiloghi conclusa.");
+    log.debug("updatePersonSituationEngine ended. personId={}, from={}, to={}, "
+        + "modifiedTo={}.", personId, from, to.orElse(null), modifiedTo.orElse(null));
+    return contract;
+  }
 
-        if (previous != null) {
-          // set previous for progressive
-          wrPersonDay.setPreviousForProgressive(Optional.ofNullable(previous));
-          // set previous for night stamp
-          wrPersonDay.setPreviousForNightStamp(Optional.ofNullable(previous));
-        }
+  private static Map<LocalDate, PersonDay> personDaysMap(List<PersonDay> personDays) {
+    Map<LocalDate, PersonDay> personDaysMap = Maps.newHashMap();
+    for (PersonDay personDay : personDays) {
+      personDaysMap.put(personDay.getDate(), personDay);
+    }
+    return personDaysMap;
+  }
 
-        populatePersonDay(wrPersonDay);
+  /**
+   * Ricalcola completamente i giorni della persona da from a to, creando i person day
+   * mancanti nei giorni in cui la persona è attiva.
+   *
+   * @return l'ultimo person day ricalcolato, null se nell'ultimo giorno la persona non era
+   *     attiva.
+   */
+  private PersonDay populatePersonDays(Person person, IWrapperPerson wrPerson,
+      Map<LocalDate, PersonDay> personDaysMap, LocalDate from, LocalDate to) {
+
+    PersonDay previous = null;
+    LocalDate date = from;
+
+    while (!date.isAfter(to)) {
 
-        previous = personDay;
+      if (!wrPerson.isActiveInDay(date)) {
         date = date.plusDays(1);
+        previous = null;
+        continue;
       }
 
-      log.trace("... ricalcolo dei giorni lavorativi conclusa.");
-    }
+      // Prendere da map
+      PersonDay personDay = personDaysMap.get(date);
+      if (personDay == null) {
+        personDay = new PersonDay(person, date);
+        personDayDao.persist(personDay);
+        personDaysMap.put(date, personDay);
+      }
 
-    // (3) Ricalcolo dei residui per mese        
-    populateContractMonthRecapByPerson(person, YearMonth.from(from));
+      Preconditions.checkNotNull(personDay);
+      IWrapperPersonDay wrPersonDay = wrapperFactory.getObject().create(personDay);
 
-    // (4) Scan degli errori sulle assenze
-    absenceService.scanner(person, from);
+      if (previous != null) {
+        // set previous for progressive
+        wrPersonDay.setPreviousForProgressive(Optional.ofNullable(previous));
+        // set previous for night stamp
+        wrPersonDay.setPreviousForNightStamp(Optional.ofNullable(previous));
+      }
 
-    // (5) Empty vacation cache and async recomputation
+      populatePersonDay(wrPersonDay);
 
-    absenceService.emptyVacationCache(person, from);
-    final Optional<Contract> contract = wrPerson.getCurrentContract();
+      previous = personDay;
+      date = date.plusDays(1);
+    }
+    return previous;
+  }
 
-    // (6) Controllo se per quel giorno person ha anche un turno associato ed effettuo, i ricalcoli
+  /**
+   * Ricalcolo incrementale dei giorni della persona dopo una modifica limitata ai giorni da
+   * from a modifiedTo.<br>
+   * Sono ricalcolati completamente solo i giorni modificati ed il giorno corrente. Gli altri
+   * giorni fino alla fine del mese di modifiedTo non cambiano differenza, quindi il loro
+   * progressivo è traslato della variazione del progressivo di modifiedTo. Il progressivo
+   * riparte ad ogni mese, i giorni dei mesi successivi non sono toccati.<br>
+   * Se il ricalcolo incrementale non è applicabile (più contratti o inizializzazione nel
+   * periodo, giorni mai calcolati) non effettua modifiche e ritorna false. Le timbrature
+   * notturne sono escluse prima, vedi nightStampingInvolved.
+   *
+   * @return true se il ricalcolo incrementale è stato effettuato.
+   */
+  private boolean updatePersonDaysIncremental(Person person, IWrapperPerson wrPerson,
+      LocalDate from, LocalDate modifiedTo, LocalDate lastPersonDayToCompute) {
 
-    Optional<PersonShiftDay> psd = personShiftDayDao.byPersonAndDate(person, from);
-    if (psd.isPresent()) {
-      shiftManager2.checkShiftValid(psd.get());
+    if (modifiedTo.isBefore(from) || !modifiedTo.isBefore(lastPersonDayToCompute)) {
+      return false;
+    }
+    final LocalDate shiftEnd = DateUtility.endOfMonth(modifiedTo)
+        .isAfter(lastPersonDayToCompute)
+        ? lastPersonDayToCompute : DateUtility.endOfMonth(modifiedTo);
+
+    // Un solo contratto, senza inizializzazione successiva ai giorni modificati.
+    Optional<Contract> contract = person.getContracts().stream()
+        .filter(c -> DateUtility.isDateIntoInterval(from, c.periodInterval())
+            && DateUtility.isDateIntoInterval(shiftEnd, c.periodInterval()))
+        .findFirst();
+    if (!contract.isPresent() || (contract.get().getSourceDateResidual() != null
+        && contract.get().getSourceDateResidual().isAfter(modifiedTo))) {
+      log.debug("Ricalcolo incrementale di {} non applicabile: contratti o inizializzazione "
+          + "tra {} e {}", person.getFullname(), from, shiftEnd);
+      return false;
     }
 
-    log.trace("... ricalcolo dei riepiloghi conclusa.");
-    log.debug("updatePersonSituationEngine ended. personId={}, from={}, to={}.",
-        personId, from, to.orElse(null));
-    return contract;
+    final Map<LocalDate, PersonDay> personDaysMap = personDaysMap(
+        personDayDao.getPersonDayInPeriod(person, from, Optional.of(shiftEnd)));
+    for (LocalDate date = modifiedTo; !date.isAfter(shiftEnd); date = date.plusDays(1)) {
+      if (!personDaysMap.containsKey(date)) {
+        log.debug("Ricalcolo incrementale di {} non applicabile: giorno {} mai calcolato",
+            person.getFullname(), date);
+        return false;
+      }
+    }
+    final int previousProgressive = personDaysMap.get(modifiedTo).getProgressive();
+    PersonDay previous = populatePersonDays(person, wrPerson, personDaysMap, from, modifiedTo);
+    final int delta = previous.getProgressive() - previousProgressive;
+
+    final LocalDate today = LocalDate.now();
+    int shifted = 0;
+    for (LocalDate date = modifiedTo.plusDays(1); !date.isAfter(shiftEnd);
+        date = date.plusDays(1)) {
+      PersonDay personDay = personDaysMap.get(date);
+      if (date.isEqual(today)) {
+        IWrapperPersonDay wrPersonDay = wrapperFactory.getObject().create(personDay);
+        wrPersonDay.setPreviousForProgressive(Optional.of(previous));
+        wrPersonDay.setPreviousForNightStamp(Optional.of(previous));
+        populatePersonDay(wrPersonDay);
+      } else if (delta != 0) {
+        personDay.setProgressive(personDay.getProgressive() + delta);
+        personDayDao.save(personDay);
+        shifted++;
+      }
+      previous = personDay;
+    }
+    log.debug("Ricalcolo incrementale di {}: ricalcolati i giorni dal {} al {}, "
+        + "progressivo traslato di {} minuti in {} giorni", person.getFullname(), from,
+        modifiedTo, delta, shifted);
+    return true;
+  }
+
+  /**
+   * Verifica se le timbrature notturne coinvolgono i giorni modificati, prima o dopo la
+   * modifica: al confine fra il giorno precedente a from e from e fra modifiedTo ed il giorno
+   * successivo c'è una entrata non chiusa seguita da una uscita oppure sono presenti le
+   * timbrature automatiche di mezzanotte (generate in un ricalcolo precedente).
+   */
+  private boolean nightStampingInvolved(Person person, LocalDate from, LocalDate modifiedTo) {
+    final Map<LocalDate, PersonDay> personDaysMap = personDaysMap(personDayDao
+        .getPersonDayInPeriod(person, from.minusDays(1), Optional.of(modifiedTo.plusDays(1))));
+    return nightStamping(personDaysMap.get(from.minusDays(1)), personDaysMap.get(from))
+        || nightStamping(personDaysMap.get(modifiedTo), personDaysMap.get(modifiedTo.plusDays(1)));
+  }
+
+  private static boolean nightStamping(PersonDay previous, PersonDay next) {
+    final List<Stamping> previousStampings =
+        previous != null ? previous.getStampings() : Collections.emptyList();
+    final List<Stamping> nextStampings =
+        next != null ? next.getStampings() : Collections.emptyList();
+    if (previousStampings.stream().anyMatch(ConsistencyManagerUtils::isMidnightStamping)
+        || nextStampings.stream().anyMatch(ConsistencyManagerUtils::isMidnightStamping)) {
+      return true;
+    }
+    final Optional<Stamping> last = previousStampings.stream()
+        .max(Comparator.comparing(Stamping::getDate));
+    final Optional<Stamping> first = nextStampings.stream()
+        .min(Comparator.comparing(Stamping::getDate));
+    return last.isPresent() && last.get().isIn() && first.isPresent() && first.get().isOut();
+  }
+
+  private static boolean isMidnightStamping(Stamping stamping) {
+    return stamping.getStampModificationType() != null
+        && StampModificationTypeCode.TO_CONSIDER_TIME_AT_TURN_OF_MIDNIGHT.getCode()
+            .equals(stamping.getStampModificationType().getCode());
   }
 
   /**
@@ -294,9 +453,6 @@ class ConsistencyManagerUtils {
     
     timeSlotManager.activateAfterRequesCheckAndManageMandatoryTimeSlot(pd.getValue());
 
-    //FIXME: nella versione play1 questo ricaricamento dal db non serviva, perchè?
-    pd.setValue(personDayDao.getPersonDayById(pd.getValue().getId()));
-
     // controllo problemi strutturali del person day
     if (pd.getValue().getDate().isBefore(LocalDate.now())) {
       personDayManager.checkForPersonDayInTrouble(pd);
@@ -583,6 +739,7 @@ class ConsistencyManagerUtils {
             .collect(Collectors.toList());
 
         populateContractMonthRecap(wrContract, Optional.ofNullable(yearMonthFrom), list);
+        mealTicketLedgerManager.update(contract, yearMonthFrom);
       }
     }
   }
@@ -17,6 +17,7 @@
 
 package it.cnr.iit.epas.manager;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import it.cnr.iit.epas.dao.GroupDao;
@@ -212,6 +213,24 @@ public class GroupManager {
     return map;
   }
 
+  /**
+   * Gli utenti con i ruoli indicati sulla sede, prelevati con una sola query.
+   *
+   * @param office la sede
+   * @param roleNames i nomi dei ruoli
+   * @return la mappa dal nome del ruolo agli utenti che lo hanno sulla sede, nell'ordine dei
+   *     ruoli passati e con la lista vuota per i ruoli senza utenti.
+   */
+  public Map<String, List<User>> createOfficeOrganizationChart(Office office,
+      List<String> roleNames) {
+    Map<String, List<User>> map = Maps.newLinkedHashMap();
+    roleNames.forEach(roleName -> map.put(roleName, Lists.newArrayList()));
+    for (UsersRolesOffices uro : uroDao.getUsersRolesOfficesOnOffice(office, roleNames)) {
+      map.get(uro.getRole().getName()).add(uro.getUser());
+    }
+    return map;
+  }
+
   private List<User> getTechnicalAdminInSeat(Office office) {
     return uroDao.getUsersWithRoleOnOffice(roleDao.getRoleByName(Role.TECHNICAL_ADMIN), office);
   }
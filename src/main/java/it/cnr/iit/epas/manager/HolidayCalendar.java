@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import it.cnr.iit.epas.manager.configurations.ConfigurationManager;
+import it.cnr.iit.epas.manager.configurations.EpasParam;
+import it.cnr.iit.epas.models.Configuration;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.utils.NationalHolidays;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Calendario delle festività di una sede: festività nazionali precalcolate per anno
+ * ({@link NationalHolidays}) più il giorno del patrono (parametro DAY_OF_PATRON).
+ *
+ * <p>I giorni del patrono di ogni anno sono calcolati una sola volta per sede e memorizzati
+ * insieme all'indice delle configurazioni della sede, che li invalida quando le
+ * configurazioni cambiano.</p>
+ */
+@RequiredArgsConstructor
+@Component
+public class HolidayCalendar {
+
+  private final ConfigurationManager configurationManager;
+
+  /**
+   * Se il giorno è festivo per la sede.
+   *
+   * @param office la sede
+   * @param date la data da verificare
+   * @return true se festività nazionale o patrono della sede.
+   */
+  public boolean isHoliday(Office office, LocalDate date) {
+    if (NationalHolidays.isHoliday(date)) {
+      return true;
+    }
+    return patronDays(office, date.getYear()).get(date.getDayOfYear() - 1);
+  }
+
+  /**
+   * Il numero di giorni dell'intervallo [from, to] estremi compresi che non sono festivi per
+   * la sede (i fine settimana sono considerati lavorativi).
+   *
+   * @param office la sede
+   * @param from inizio dell'intervallo
+   * @param to fine dell'intervallo
+   * @return il numero di giorni non festivi
+   */
+  public long countWorkingDays(Office office, LocalDate from, LocalDate to) {
+    if (to.isBefore(from)) {
+      return 0;
+    }
+    return ChronoUnit.DAYS.between(from, to) + 1 - countHolidays(office, from, to);
+  }
+
+  /**
+   * Il numero di giorni festivi per la sede nell'intervallo [from, to] estremi compresi.
+   *
+   * @param office la sede
+   * @param from inizio dell'intervallo
+   * @param to fine dell'intervallo
+   * @return il numero di giorni festivi
+   */
+  public long countHolidays(Office office, LocalDate from, LocalDate to) {
+    if (to.isBefore(from)) {
+      return 0;
+    }
+    long holidays = NationalHolidays.countHolidays(from, to);
+    for (int year = from.getYear(); year <= to.getYear(); year++) {
+      int first = year == from.getYear() ? from.getDayOfYear() - 1 : 0;
+      int last = year == to.getYear() ? to.getDayOfYear() - 1 : Integer.MAX_VALUE - 1;
+      BitSet patronDays = patronDays(office, year);
+      for (int day = patronDays.nextSetBit(first); day >= 0 && day <= last;
+          day = patronDays.nextSetBit(day + 1)) {
+        holidays++;
+      }
+    }
+    return holidays;
+  }
+
+  /**
+   * I giorni dell'anno (indice del giorno nell'anno a partire da 0) festivi per la sede per
+   * il patrono e non già festività nazionali.
+   */
+  private BitSet patronDays(Office office, int year) {
+    return configurationManager.derivedValue(office,
+        ImmutableList.of(HolidayCalendar.class, year), () -> computePatronDays(office, year));
+  }
+
+  /**
+   * Un giorno dell'anno è festivo per il patrono se coincide con il patrono valido in quel
+   * giorno: sono quindi verificati solo i giorni dei patroni definiti dalla sede (più la
+   * ricorrenza dell'unità d'Italia, festiva in assenza di patrono) invece di tutti i giorni.
+   */
+  private BitSet computePatronDays(Office office, int year) {
+    Set<LocalDate> candidates = Sets.newHashSet();
+    for (LocalDate reference
+        : new LocalDate[] {LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31)}) {
+      addCandidate(candidates, patron(office, reference), year);
+    }
+    for (Configuration configuration : office.getConfigurations()) {
+      if (configuration.epasParam == EpasParam.DAY_OF_PATRON) {
+        addCandidate(candidates, (MonthDay) configurationManager
+            .parseValue(EpasParam.DAY_OF_PATRON, configuration.fieldValue), year);
+      }
+    }
+    if (year == 2011) {
+      candidates.add(LocalDate.of(2011, 3, 17));
+    }
+    BitSet days = new BitSet();
+    for (LocalDate candidate : candidates) {
+      if (!NationalHolidays.isHoliday(candidate)
+          && NationalHolidays.isHoliday(patron(office, candidate), candidate)) {
+        days.set(candidate.getDayOfYear() - 1);
+      }
+    }
+    return days;
+  }
+
+  private static void addCandidate(Set<LocalDate> candidates, MonthDay patron, int year) {
+    if (patron != null && patron.isValidYear(year)) {
+      candidates.add(patron.atYear(year));
+    }
+  }
+
+  private MonthDay patron(Office office, LocalDate date) {
+    return (MonthDay) configurationManager.configValue(office, EpasParam.DAY_OF_PATRON, date);
+  }
+}
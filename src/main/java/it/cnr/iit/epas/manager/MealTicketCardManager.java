@@ -30,6 +30,7 @@ import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.User;
 import it.cnr.iit.epas.models.enumerate.BlockType;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 import javax.inject.Inject;
@@ -48,6 +49,7 @@ public class MealTicketCardManager {
   private MealTicketDao mealTicketDao;
   private IWrapperFactory wrapperFactory;
   private ContractDao contractDao;
+  private MealTicketLedgerManager mealTicketLedgerManager;
 
   /**
    * Construttore predefinito per l'injection.
@@ -55,11 +57,13 @@ public class MealTicketCardManager {
   @Inject
   public MealTicketCardManager(
       MealTicketCardDao mealTicketCardDao, MealTicketDao mealTicketDao,
-      IWrapperFactory wrapperFactory, ContractDao contractDao) {
+      IWrapperFactory wrapperFactory, ContractDao contractDao,
+      MealTicketLedgerManager mealTicketLedgerManager) {
     this.mealTicketCardDao = mealTicketCardDao;
     this.mealTicketDao = mealTicketDao;
     this.wrapperFactory = wrapperFactory;
     this.contractDao = contractDao;
+    this.mealTicketLedgerManager = mealTicketLedgerManager;
   }
   
   /**
@@ -116,11 +120,12 @@ public class MealTicketCardManager {
       MealTicketCard card, LocalDate deliveryDate, 
       Integer tickets, User admin, LocalDate expireDate, Office office) {
     String block = "" + card.getNumber() + deliveryDate.getYear() + deliveryDate.getMonthValue();
+    Contract contract = contractDao.getContract(deliveryDate, card.getPerson());
     for (Integer i = 1; i <= tickets; i++) {
       MealTicket mealTicket = new MealTicket();
       mealTicket.setBlock(block);
       mealTicket.setBlockType(BlockType.electronic);
-      mealTicket.setContract(contractDao.getContract(deliveryDate, card.getPerson()));
+      mealTicket.setContract(contract);
       mealTicket.setMealTicketCard(card);
       mealTicket.setAdmin(admin.getPerson());
       mealTicket.setDate(deliveryDate);
@@ -134,6 +139,7 @@ public class MealTicketCardManager {
       }
       mealTicketDao.persist(mealTicket);      
     }
+    mealTicketLedgerManager.update(contract, YearMonth.from(deliveryDate));
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager;
+
+import it.cnr.iit.epas.dao.ContractDao;
+import it.cnr.iit.epas.models.Contract;
+import jakarta.transaction.Transactional;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Servizio per aggiornare in asincrono i movimenti mensili dei buoni pasto, fuori dalle
+ * richieste di sola lettura del riepilogo dei buoni pasto.
+ */
+@Transactional
+@Slf4j
+@Service
+public class MealTicketLedgerAsync {
+
+  private final ContractDao contractDao;
+  private final MealTicketLedgerManager mealTicketLedgerManager;
+
+  @Inject
+  MealTicketLedgerAsync(ContractDao contractDao,
+      MealTicketLedgerManager mealTicketLedgerManager) {
+    this.contractDao = contractDao;
+    this.mealTicketLedgerManager = mealTicketLedgerManager;
+  }
+
+  /**
+   * Metodo asincrono per aggiornare i movimenti mensili non allineati del contratto.
+   *
+   * @param contractId l'id del contratto
+   */
+  @Async
+  public void refresh(Long contractId) {
+    log.debug("async refresh dei movimenti dei buoni pasto del contratto id={}", contractId);
+    Contract contract = contractDao.getContractById(contractId);
+    if (contract == null) {
+      return;
+    }
+    mealTicketLedgerManager.refresh(contract);
+  }
+}
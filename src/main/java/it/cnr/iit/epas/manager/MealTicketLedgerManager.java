@@ -0,0 +1,379 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import it.cnr.iit.epas.dao.MealTicketDao;
+import it.cnr.iit.epas.dao.MealTicketLedgerDao;
+import it.cnr.iit.epas.dao.PersonDao;
+import it.cnr.iit.epas.dao.wrapper.IWrapperFactory;
+import it.cnr.iit.epas.manager.configurations.ConfigurationManager;
+import it.cnr.iit.epas.manager.configurations.EpasParam;
+import it.cnr.iit.epas.manager.services.mealtickets.MealTicketStaticUtility;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.MealTicket;
+import it.cnr.iit.epas.models.MealTicketLedger;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.utils.DateInterval;
+import it.cnr.iit.epas.utils.DateUtility;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Gestore dei movimenti mensili dei buoni pasto dei contratti.
+ *
+ * <p>I movimenti dei mesi conclusi sono aggiornati in modo incrementale ad ogni ricalcolo della
+ * situazione della persona che modifica un mese concluso e ad ogni inserimento di buoni pasto,
+ * in modo che il riepilogo dei buoni pasto debba caricare i giorni del solo mese in corso.
+ * I mesi conclusi nel frattempo sono aggiunti in asincrono alla prima lettura.</p>
+ */
+@Slf4j
+@Component
+public class MealTicketLedgerManager {
+
+  private final MealTicketLedgerDao mealTicketLedgerDao;
+  private final MealTicketDao mealTicketDao;
+  private final PersonDao personDao;
+  private final ConfigurationManager configurationManager;
+  private final ObjectProvider<IWrapperFactory> wrapperFactory;
+  private final ObjectProvider<MealTicketLedgerAsync> mealTicketLedgerAsync;
+
+  @Inject
+  MealTicketLedgerManager(MealTicketLedgerDao mealTicketLedgerDao, MealTicketDao mealTicketDao,
+      PersonDao personDao, ConfigurationManager configurationManager,
+      ObjectProvider<IWrapperFactory> wrapperFactory,
+      ObjectProvider<MealTicketLedgerAsync> mealTicketLedgerAsync) {
+    this.mealTicketLedgerDao = mealTicketLedgerDao;
+    this.mealTicketDao = mealTicketDao;
+    this.personDao = personDao;
+    this.configurationManager = configurationManager;
+    this.wrapperFactory = wrapperFactory;
+    this.mealTicketLedgerAsync = mealTicketLedgerAsync;
+  }
+
+  /**
+   * Ritorna l'intervallo valido ePAS per il contratto riguardo la gestione dei buoni pasto. (scarto
+   * la parte precedente a source se definita, e la parte precedente alla data inizio utilizzo per
+   * la sede della persona).
+   *
+   * @return vuoto in caso non vi siano giorni coperti dalla gestione dei buoni pasto.
+   */
+  public Optional<DateInterval> mealTicketInterval(Contract contract) {
+
+    DateInterval intervalForMealTicket = wrapperFactory.getObject().create(contract)
+        .getContractDatabaseIntervalForMealTicket();
+
+    LocalDate officeStartDate = (LocalDate) configurationManager
+        .configValue(contract.person.getOffice(), EpasParam.DATE_START_MEAL_TICKET);
+
+    if (officeStartDate.isBefore(intervalForMealTicket.getBegin())) {
+      return Optional.of(intervalForMealTicket);
+    }
+    if (DateUtility.isDateIntoInterval(officeStartDate, intervalForMealTicket)) {
+      return Optional.of(new DateInterval(officeStartDate,
+          intervalForMealTicket.getEnd()));
+    }
+
+    return Optional.<DateInterval>empty();
+  }
+
+  /**
+   * Il primo giorno del periodo non coperto dai movimenti mensili, cioè il primo giorno del mese
+   * in corso o l'inizio dell'intervallo dei buoni pasto se successivo.
+   *
+   * @param mealTicketInterval l'intervallo di gestione dei buoni pasto del contratto
+   * @return il primo giorno del periodo aperto.
+   */
+  public static LocalDate openPeriodBegin(DateInterval mealTicketInterval) {
+    LocalDate currentMonthBegin = lastClosedMonth().plusMonths(1).atDay(1);
+    return mealTicketInterval.getBegin().isAfter(currentMonthBegin)
+        ? mealTicketInterval.getBegin() : currentMonthBegin;
+  }
+
+  /**
+   * Aggiorna i movimenti mensili del contratto a partire dal mese from. Se from è successivo
+   * all'ultimo mese concluso i movimenti non cambiano e non viene effettuato alcun accesso.
+   *
+   * @param contract il contratto
+   * @param from il primo mese modificato
+   */
+  @Transactional
+  public void update(Contract contract, YearMonth from) {
+    if (from.isAfter(lastClosedMonth())) {
+      return;
+    }
+    mealTicketLedgerDao.lockContract(contract);
+    Optional<DateInterval> mealTicketInterval = mealTicketInterval(contract);
+    if (!mealTicketInterval.isPresent()) {
+      mealTicketLedgerDao.byContract(contract).forEach(mealTicketLedgerDao::delete);
+      return;
+    }
+    update(contract, mealTicketInterval.get(), from, mealTicketDao.contractMealTickets(contract),
+        mealTicketLedgerDao.byContract(contract), true);
+  }
+
+  /**
+   * Aggiorna i movimenti mensili del contratto dal primo mese non allineato con i buoni pasto
+   * ed i giorni del contratto. L'aggiornamento avviene con il contratto bloccato, in modo che
+   * aggiornamenti concorrenti non inseriscano gli stessi mesi.
+   *
+   * @param contract il contratto
+   */
+  @Transactional
+  public void refresh(Contract contract) {
+    mealTicketLedgerDao.lockContract(contract);
+    Optional<DateInterval> mealTicketInterval = mealTicketInterval(contract);
+    if (!mealTicketInterval.isPresent()) {
+      mealTicketLedgerDao.byContract(contract).forEach(mealTicketLedgerDao::delete);
+      return;
+    }
+    List<MealTicket> mealTickets = mealTicketDao.contractMealTickets(contract);
+    List<MealTicketLedger> ledger = mealTicketLedgerDao.byContract(contract);
+    Optional<YearMonth> from =
+        firstStaleMonth(contract, mealTicketInterval.get(), mealTickets, ledger);
+    if (from.isPresent()) {
+      update(contract, mealTicketInterval.get(), from.get(), mealTickets, ledger, true);
+    }
+  }
+
+  /**
+   * I movimenti mensili del contratto allineati con i buoni pasto ed i giorni del contratto.
+   * <br>
+   * La lettura non modifica i movimenti salvati: i mesi non allineati (tipicamente il mese
+   * appena concluso) sono calcolati senza salvarli ed il loro aggiornamento è delegato a
+   * {@link MealTicketLedgerAsync#refresh(Long)} al termine della transazione corrente.
+   *
+   * @param contract il contratto
+   * @param mealTicketInterval l'intervallo di gestione dei buoni pasto del contratto
+   * @param mealTickets tutti i buoni pasto del contratto
+   * @return i movimenti mensili ordinati per mese.
+   */
+  public List<MealTicketLedger> ledger(Contract contract, DateInterval mealTicketInterval,
+      List<MealTicket> mealTickets) {
+    List<MealTicketLedger> ledger = mealTicketLedgerDao.byContract(contract);
+    Optional<YearMonth> from = firstStaleMonth(contract, mealTicketInterval, mealTickets, ledger);
+    if (!from.isPresent()) {
+      return ledger;
+    }
+    log.debug("Movimenti dei buoni pasto del contratto id={} non allineati dal mese {}, "
+        + "ne richiedo l'aggiornamento.", contract.getId(), from.get());
+    requestRefresh(contract.getId());
+    return update(contract, mealTicketInterval, from.get(), mealTickets, ledger, false);
+  }
+
+  /**
+   * Richiede l'aggiornamento asincrono dei movimenti del contratto dopo il commit della
+   * transazione corrente (subito se non c'è una transazione attiva).
+   */
+  private void requestRefresh(Long contractId) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      mealTicketLedgerAsync.getObject().refresh(contractId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        mealTicketLedgerAsync.getObject().refresh(contractId);
+      }
+    });
+  }
+
+  /**
+   * Ricalcola i movimenti dal mese from (o dal primo mese mancante se precedente) all'ultimo
+   * mese concluso dell'intervallo, rimuovendo quelli fuori dall'intervallo. Se persist è false
+   * i movimenti salvati non sono modificati ed i mesi ricalcolati sono restituiti senza
+   * salvarli.
+   */
+  private List<MealTicketLedger> update(Contract contract, DateInterval mealTicketInterval,
+      YearMonth from, List<MealTicket> mealTickets, List<MealTicketLedger> existing,
+      boolean persist) {
+
+    final YearMonth first = YearMonth.from(mealTicketInterval.getBegin());
+    final YearMonth last = lastLedgerMonth(mealTicketInterval);
+
+    Map<YearMonth, MealTicketLedger> byMonth = Maps.newHashMap();
+    for (MealTicketLedger row : existing) {
+      if (row.getYearMonth().isBefore(first) || row.getYearMonth().isAfter(last)) {
+        if (persist) {
+          mealTicketLedgerDao.delete(row);
+        }
+      } else {
+        byMonth.put(row.getYearMonth(), row);
+      }
+    }
+
+    if (from.isBefore(first)) {
+      from = first;
+    }
+    for (YearMonth month = first; month.isBefore(from); month = month.plusMonths(1)) {
+      if (!byMonth.containsKey(month)) {
+        from = month;
+        break;
+      }
+    }
+
+    List<MealTicketLedger> ledger = Lists.newArrayList();
+    int remaining = MealTicketStaticUtility.sourcedInInterval(contract, mealTicketInterval);
+    for (YearMonth month = first; month.isBefore(from); month = month.plusMonths(1)) {
+      ledger.add(byMonth.get(month));
+      remaining = byMonth.get(month).getRemaining();
+    }
+    if (from.isAfter(last)) {
+      return ledger;
+    }
+
+    DateInterval recomputed = new DateInterval(
+        from.equals(first) ? mealTicketInterval.getBegin() : from.atDay(1),
+        closedPeriodEnd(mealTicketInterval));
+    Map<YearMonth, Integer> consumed = Maps.newHashMap();
+    for (PersonDay personDay : personDao.getPersonDayIntoInterval(contract.person, recomputed,
+        true)) {
+      consumed.merge(YearMonth.from(personDay.getDate()), 1, Integer::sum);
+    }
+    Map<YearMonth, MealTicketLedger> movements = movements(mealTickets, mealTicketInterval);
+
+    for (YearMonth month = from; !month.isAfter(last); month = month.plusMonths(1)) {
+      MealTicketLedger row = persist ? byMonth.get(month) : null;
+      if (row == null) {
+        row = new MealTicketLedger();
+        row.setContract(contract);
+        row.setYear(month.getYear());
+        row.setMonth(month.getMonthValue());
+      }
+      MealTicketLedger movement = movements.getOrDefault(month, new MealTicketLedger());
+      row.setDelivered(movement.getDelivered());
+      row.setReturned(movement.getReturned());
+      row.setExpired(movement.getExpired());
+      row.setConsumed(consumed.getOrDefault(month, 0));
+      remaining = remaining + row.getDelivered() - row.getConsumed();
+      row.setRemaining(remaining);
+      if (persist) {
+        mealTicketLedgerDao.save(row);
+      }
+      ledger.add(row);
+    }
+    if (persist) {
+      log.debug("Aggiornati i movimenti dei buoni pasto del contratto id={} dal mese {} al mese "
+          + "{}", contract.getId(), from, last);
+    }
+    return ledger;
+  }
+
+  /**
+   * Il primo mese da aggiornare, vuoto se i movimenti coprono esattamente i mesi conclusi
+   * dell'intervallo, i buoni consegnati e riconsegnati corrispondono a quelli attuali ed il
+   * totale dei giorni con buono pasto corrisponde a quello dei person day.<br>
+   * I mesi conclusi dopo l'ultimo movimento sono aggiunti senza ricalcolare i precedenti,
+   * mentre se il totale dei giorni non corrisponde i movimenti sono ricostruiti dal primo mese.
+   */
+  private Optional<YearMonth> firstStaleMonth(Contract contract, DateInterval mealTicketInterval,
+      List<MealTicket> mealTickets, List<MealTicketLedger> ledger) {
+
+    final YearMonth first = YearMonth.from(mealTicketInterval.getBegin());
+    final YearMonth last = lastLedgerMonth(mealTicketInterval);
+    Map<YearMonth, MealTicketLedger> movements = movements(mealTickets, mealTicketInterval);
+    YearMonth month = first;
+    int remaining = MealTicketStaticUtility.sourcedInInterval(contract, mealTicketInterval);
+    long consumed = 0;
+    for (MealTicketLedger row : ledger) {
+      MealTicketLedger movement = movements.getOrDefault(month, new MealTicketLedger());
+      remaining = remaining + row.getDelivered() - row.getConsumed();
+      if (!row.getYearMonth().equals(month) || month.isAfter(last)
+          || row.getDelivered() != movement.getDelivered()
+          || row.getReturned() != movement.getReturned() || row.getRemaining() != remaining) {
+        return Optional.of(month);
+      }
+      consumed += row.getConsumed();
+      month = month.plusMonths(1);
+    }
+    if (!ledger.isEmpty()) {
+      LocalDate coveredEnd = month.minusMonths(1).atEndOfMonth();
+      if (coveredEnd.isAfter(mealTicketInterval.getEnd())) {
+        coveredEnd = mealTicketInterval.getEnd();
+      }
+      if (consumed != personDao.countPersonDayWithMealTicket(contract.person,
+          new DateInterval(mealTicketInterval.getBegin(), coveredEnd))) {
+        return Optional.of(first);
+      }
+    }
+    return month.isAfter(last) ? Optional.empty() : Optional.of(month);
+  }
+
+  /**
+   * Buoni pasto consegnati, riconsegnati e in scadenza raggruppati per mese.
+   */
+  private static Map<YearMonth, MealTicketLedger> movements(List<MealTicket> mealTickets,
+      DateInterval mealTicketInterval) {
+    Map<YearMonth, MealTicketLedger> movements = Maps.newHashMap();
+    for (MealTicket mealTicket : mealTickets) {
+      if (!DateUtility.isDateIntoInterval(mealTicket.getDate(), mealTicketInterval)) {
+        continue;
+      }
+      if (mealTicket.isReturned()) {
+        MealTicketLedger delivery = movements.computeIfAbsent(
+            YearMonth.from(mealTicket.getDate()), m -> new MealTicketLedger());
+        delivery.setReturned(delivery.getReturned() + 1);
+        continue;
+      }
+      MealTicketLedger delivery = movements.computeIfAbsent(
+          YearMonth.from(mealTicket.getDate()), m -> new MealTicketLedger());
+      delivery.setDelivered(delivery.getDelivered() + 1);
+      MealTicketLedger expiry = movements.computeIfAbsent(
+          YearMonth.from(mealTicket.getExpireDate()), m -> new MealTicketLedger());
+      expiry.setExpired(expiry.getExpired() + 1);
+    }
+    return movements;
+  }
+
+  /**
+   * L'ultimo mese concluso dell'intervallo, precedente al primo mese se nessun mese
+   * dell'intervallo è concluso.
+   */
+  private static YearMonth lastLedgerMonth(DateInterval mealTicketInterval) {
+    YearMonth last = YearMonth.from(mealTicketInterval.getEnd());
+    YearMonth lastClosed = lastClosedMonth();
+    if (last.isAfter(lastClosed)) {
+      last = lastClosed;
+    }
+    YearMonth first = YearMonth.from(mealTicketInterval.getBegin());
+    return last.isBefore(first) ? first.minusMonths(1) : last;
+  }
+
+  /**
+   * L'ultimo giorno coperto dai movimenti mensili.
+   */
+  private static LocalDate closedPeriodEnd(DateInterval mealTicketInterval) {
+    LocalDate end = lastLedgerMonth(mealTicketInterval).atEndOfMonth();
+    return end.isAfter(mealTicketInterval.getEnd()) ? mealTicketInterval.getEnd() : end;
+  }
+
+  private static YearMonth lastClosedMonth() {
+    return YearMonth.now().minusMonths(1);
+  }
+}
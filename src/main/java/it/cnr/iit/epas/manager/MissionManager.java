@@ -156,10 +156,9 @@ public class MissionManager {
     String missionCacheKey = body.id.toString();
     boolean managedMissionOk = true;
     Cache cache = cacheManager.getCache("createMission");
-    if (cache.get(missionCacheKey) == null) {
-      log.debug(LOG_PREFIX + "Imposto la cache {} con valore true", missionCacheKey);
-      //FIXME: impostare una scadenza della cache, prima era a , "1mn"
-      cache.put(missionCacheKey, true);
+    // La scadenza delle chiavi della cache createMission è configurata in CacheProperties
+    if (cache.putIfAbsent(missionCacheKey, true) == null) {
+      log.debug(LOG_PREFIX + "Impostata la cache {} con valore true", missionCacheKey);
     } else {
       log.warn(LOG_PREFIX + "Creazione missione annullata, "
           + "è già in corso un inserimento per la missione {}", body);
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeSet;
+import com.google.common.collect.Sets;
 import com.google.common.collect.TreeRangeSet;
 import it.cnr.iit.epas.dao.PersonDayDao;
 import it.cnr.iit.epas.dao.PersonDayInTroubleDao;
@@ -57,11 +58,12 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.MonthDay;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -85,6 +87,7 @@ public class PersonDayManager {
   private final WorkingTimeTypeDao workingTimeTypeDao;
   private final ZoneDao zoneDao;
   private final AbsenceComponentDao absenceComponentDao;
+  private final HolidayCalendar holidayCalendar;
   private final ObjectProvider<EntityManager> emp;
 
   public PersonDayDao getPersonDayDao() {
@@ -1516,9 +1519,7 @@ public class PersonDayManager {
    */
   public boolean isHoliday(Person person, LocalDate date, boolean saturdayHoliday) {
     //Festività generale
-    MonthDay patron = (MonthDay) configurationManager
-        .configValue(person.getOffice(), EpasParam.DAY_OF_PATRON, date);
-    if (DateUtility.isGeneralHoliday(Optional.ofNullable(patron), date)) {
+    if (holidayCalendar.isHoliday(person.getOffice(), date)) {
       return true;
     }
 
@@ -1541,6 +1542,41 @@ public class PersonDayManager {
     }
   }
 
+  /**
+   * I giorni festivi per la persona nel periodo compreso tra from e to. Il calendario dei tipi
+   * orario della persona è risolto una sola volta per l'intero periodo e per ogni giorno il
+   * risultato coincide con quello di isHoliday(person, date, saturdayHoliday).
+   *
+   * @param person persona interessata
+   * @param from data iniziale
+   * @param to data finale
+   * @param saturdayHoliday se il sabato deve essere considerato festivo
+   * @return l'insieme dei giorni festivi per la persona nel periodo.
+   */
+  public Set<LocalDate> holidaysInPeriod(Person person, LocalDate from, LocalDate to,
+      boolean saturdayHoliday) {
+    final Map<LocalDate, WorkingTimeTypeDay> workingTimeTypeDays =
+        workingTimeTypeDao.getWorkingTimeTypeDays(person, from, to);
+    final Set<LocalDate> holidays = Sets.newHashSet();
+    for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+      if (holidayCalendar.isHoliday(person.getOffice(), date)) {
+        holidays.add(date);
+        continue;
+      }
+      final WorkingTimeTypeDay workingTimeTypeDay = workingTimeTypeDays.get(date);
+      //persona fuori contratto
+      if (workingTimeTypeDay == null) {
+        continue;
+      }
+      if (saturdayHoliday ? workingTimeTypeDay.holiday
+          : workingTimeTypeDay.dayOfWeek == DayOfWeek.SUNDAY.getValue()) {
+        holidays.add(date);
+      }
+    }
+    return holidays;
+  }
+
+
   /**
    * Metodo che controlla se si è trascorso abbastanza tempo in sede per essere considerati 
    * presenti.
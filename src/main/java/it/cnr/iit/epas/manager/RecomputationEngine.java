@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager;
+
+import com.google.common.collect.Lists;
+import it.cnr.iit.epas.config.RecomputationProperties;
+import it.cnr.iit.epas.manager.recaps.recomputation.RecomputationProgress;
+import it.cnr.iit.epas.models.Person;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.OptimisticLockException;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Motore per il ricalcolo massivo delle situazioni dei dipendenti.
+ *
+ * <p>Le persone sono raggruppate per ufficio e suddivise in lotti, elaborati uno alla volta da
+ * un pool di worker di dimensione configurabile (da dimensionare sul pool di connessioni al
+ * db). La sottomissione dei ricalcoli si blocca quando i worker e la coda sono saturi, ogni
+ * persona è ricalcolata in una propria transazione e in caso di conflitto di lock ottimistico
+ * il ricalcolo della singola persona viene ritentato.</p>
+ */
+@Slf4j
+@Component
+public class RecomputationEngine {
+
+  private final ConsistencyManagerAsync consistencyManagerAsync;
+  private final RecomputationProperties properties;
+  private final TaskDecorator taskDecorator;
+
+  private ThreadPoolTaskExecutor executor;
+  private volatile RecomputationProgress lastProgress;
+
+  @Inject
+  RecomputationEngine(ConsistencyManagerAsync consistencyManagerAsync,
+      RecomputationProperties properties, TaskDecorator taskDecorator) {
+    this.consistencyManagerAsync = consistencyManagerAsync;
+    this.properties = properties;
+    this.taskDecorator = taskDecorator;
+  }
+
+  @PostConstruct
+  void init() {
+    executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(properties.getWorkers());
+    executor.setMaxPoolSize(properties.getWorkers());
+    executor.setQueueCapacity(properties.getQueueCapacity());
+    executor.setThreadNamePrefix("recompute-");
+    executor.setTaskDecorator(taskDecorator);
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    executor.initialize();
+    log.info("Inizializzato il motore di ricalcolo con {}", properties);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * L'avanzamento dell'ultimo ricalcolo massivo avviato (eventualmente ancora in corso).
+   */
+  public Optional<RecomputationProgress> getLastProgress() {
+    return Optional.ofNullable(lastProgress);
+  }
+
+  /**
+   * Ricalcola la situazione delle persone indicate a partire dalla data fromDate.
+   * Il metodo ritorna quando tutte le persone sono state elaborate.
+   *
+   * @param people le persone da ricalcolare
+   * @param fromDate la data da cui effettuare i ricalcoli
+   * @param onlyRecap se si vogliono aggiornare solo i riepiloghi
+   * @return l'avanzamento concluso del ricalcolo
+   * @throws InterruptedException in caso di interruzione durante l'attesa dei worker
+   */
+  public RecomputationProgress recompute(List<Person> people, LocalDate fromDate,
+      boolean onlyRecap) throws InterruptedException {
+
+    final RecomputationProgress progress =
+        new RecomputationProgress(fromDate, onlyRecap, people.size());
+    lastProgress = progress;
+
+    final Semaphore slots = new Semaphore(properties.getWorkers() + properties.getQueueCapacity());
+    final List<List<Long>> batches = batches(people);
+    log.info("Avviato ricalcolo di {} persone in {} lotti dal {}, onlyRecap={}",
+        people.size(), batches.size(), fromDate, onlyRecap);
+
+    for (List<Long> batch : batches) {
+      final List<CompletableFuture<Void>> results = Lists.newArrayList();
+      for (Long personId : batch) {
+        slots.acquire();
+        try {
+          results.add(CompletableFuture.runAsync(
+              () -> recomputePerson(personId, fromDate, onlyRecap, progress), executor)
+              .whenComplete((ok, ex) -> slots.release()));
+        } catch (RuntimeException e) {
+          slots.release();
+          throw e;
+        }
+      }
+      CompletableFuture.allOf(results.toArray(new CompletableFuture[results.size()])).join();
+      log.info("Ricalcolo lotto concluso: elaborate {}, fallite {}, rimanenti {}, eta {}",
+          progress.getDone(), progress.getFailed(), progress.getRemaining(),
+          progress.getEta().orElse(null));
+    }
+
+    progress.completed();
+    if (progress.getFailed() > 0) {
+      log.warn("Ricalcolo fallito per le persone con id {}", progress.getFailedPersonIds());
+    }
+    log.info("Concluso ricalcolo {}", progress);
+    return progress;
+  }
+
+  /**
+   * Raggruppa le persone per ufficio e spezza i gruppi in lotti di dimensione massima
+   * configurata.
+   */
+  private List<List<Long>> batches(List<Person> people) {
+    Map<Long, List<Long>> byOffice = people.stream()
+        .sorted(Comparator.comparing(Person::getId))
+        .collect(Collectors.groupingBy(
+            p -> p.getOffice() != null ? p.getOffice().getId() : 0L, TreeMap::new,
+            Collectors.mapping(Person::getId, Collectors.toList())));
+    List<List<Long>> batches = Lists.newArrayList();
+    for (List<Long> officePeople : byOffice.values()) {
+      batches.addAll(Lists.partition(officePeople, Math.max(1, properties.getBatchSize())));
+    }
+    return batches;
+  }
+
+  /**
+   * Sottomette ai worker del motore il ricalcolo della persona a partire dalla data fromDate,
+   * con i tentativi in caso di lock ottimistico. Se worker e coda sono saturi il ricalcolo è
+   * rifiutato con una TaskRejectedException.
+   *
+   * @param personId l'id della persona da ricalcolare
+   * @param fromDate la data da cui effettuare i ricalcoli
+   * @param modifiedTo l'ultimo giorno modificato se le modifiche sono limitate ai giorni da
+   *     fromDate a modifiedTo (ricalcolo incrementale), vuoto per il ricalcolo completo
+   * @return il futuro completato al termine del ricalcolo, eccezionalmente in caso di errore
+   */
+  public CompletableFuture<Void> submit(Long personId, LocalDate fromDate,
+      Optional<LocalDate> modifiedTo) {
+    return CompletableFuture.runAsync(
+        () -> recomputeWithRetries(personId, fromDate, false, modifiedTo, () -> { }), executor);
+  }
+
+  /**
+   * Ricalcolo della singola persona con i tentativi in caso di lock ottimistico.
+   * Gli errori sono registrati nell'avanzamento senza interrompere il ricalcolo degli altri.
+   */
+  private void recomputePerson(Long personId, LocalDate fromDate, boolean onlyRecap,
+      RecomputationProgress progress) {
+    try {
+      recomputeWithRetries(personId, fromDate, onlyRecap, Optional.<LocalDate>empty(),
+          progress::personRetried);
+      progress.personDone();
+    } catch (RuntimeException e) {
+      log.error("Ricalcolo della persona id={} fallito", personId, e);
+      progress.personFailed(personId);
+    }
+  }
+
+  /**
+   * Ricalcolo della singola persona ritentato in caso di conflitto di lock ottimistico,
+   * fino al numero massimo di tentativi configurato.
+   */
+  private void recomputeWithRetries(Long personId, LocalDate fromDate, boolean onlyRecap,
+      Optional<LocalDate> modifiedTo, Runnable onRetry) {
+    int attempt = 0;
+    while (true) {
+      try {
+        consistencyManagerAsync.recomputePerson(personId, fromDate, onlyRecap, modifiedTo);
+        return;
+      } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+        if (attempt >= properties.getMaxRetries()) {
+          log.warn("Ricalcolo della persona id={} fallito dopo {} tentativi per lock ottimistico",
+              personId, attempt + 1);
+          throw e;
+        }
+        attempt++;
+        onRetry.run();
+        log.info("Conflitto di lock ottimistico nel ricalcolo della persona id={}, "
+            + "tentativo {} di {}", personId, attempt, properties.getMaxRetries());
+        try {
+          Thread.sleep(properties.getRetryBackoff().multipliedBy(attempt).toMillis());
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(
+              "Ricalcolo della persona id=" + personId + " interrotto", ie);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.manager;
+
+import com.google.common.collect.Lists;
+import it.cnr.iit.epas.config.RecomputationProperties;
+import it.cnr.iit.epas.config.RecomputeQueueProperties;
+import it.cnr.iit.epas.dao.RecomputeRequestDao;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.RecomputeRequest;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coda persistente dei ricalcoli delle situazioni dei dipendenti.
+ *
+ * <p>Le richieste sono registrate nella stessa transazione della modifica che le ha generate
+ * e accorpate per persona alla data minore. Una richiesta è elaborata dai worker del motore di
+ * ricalcolo quando per la persona non arrivano nuove richieste per l'intervallo di debounce,
+ * in modo che una raffica di timbrature produca un solo ricalcolo.</p>
+ */
+@Slf4j
+@Component
+public class RecomputeQueue {
+
+  private final RecomputeRequestDao recomputeRequestDao;
+  private final RecomputationEngine recomputationEngine;
+  private final RecomputeQueueProperties properties;
+  private final RecomputationProperties recomputationProperties;
+
+  @Inject
+  RecomputeQueue(RecomputeRequestDao recomputeRequestDao,
+      RecomputationEngine recomputationEngine, RecomputeQueueProperties properties,
+      RecomputationProperties recomputationProperties) {
+    this.recomputeRequestDao = recomputeRequestDao;
+    this.recomputationEngine = recomputationEngine;
+    this.properties = properties;
+    this.recomputationProperties = recomputationProperties;
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /**
+   * Registra la richiesta di ricalcolo completo della persona a partire dalla data fromDate,
+   * accorpandola all'eventuale richiesta già in coda per la stessa persona.
+   *
+   * @param personId l'id della persona
+   * @param fromDate la data da cui effettuare il ricalcolo
+   */
+  @Transactional
+  public void enqueue(Long personId, LocalDate fromDate) {
+    enqueue(personId, fromDate, Optional.<LocalDate>empty());
+  }
+
+  /**
+   * Registra la richiesta di ricalcolo della persona per le modifiche ai giorni da fromDate
+   * a toDate (ricalcolo completo da fromDate se toDate è vuoto), accorpandola all'eventuale
+   * richiesta già in coda per la stessa persona.
+   *
+   * @param personId l'id della persona
+   * @param fromDate la data da cui effettuare il ricalcolo
+   * @param toDate l'ultimo giorno modificato
+   */
+  @Transactional
+  public void enqueue(Long personId, LocalDate fromDate, Optional<LocalDate> toDate) {
+    final LocalDateTime now = LocalDateTime.now();
+    if (recomputeRequestDao.coalesce(personId, fromDate, toDate, now)) {
+      log.debug("Accorpata la richiesta di ricalcolo della persona id={} dal {}",
+          personId, fromDate);
+      return;
+    }
+    // Le prime richieste concorrenti per la stessa persona sono serializzate sulla riga della
+    // persona: solo la prima inserisce la richiesta, le altre la trovano e vi si accorpano.
+    recomputeRequestDao.lockPerson(personId);
+    if (recomputeRequestDao.coalesce(personId, fromDate, toDate, now)) {
+      log.debug("Accorpata la richiesta di ricalcolo della persona id={} dal {}",
+          personId, fromDate);
+      return;
+    }
+    final RecomputeRequest request = new RecomputeRequest();
+    request.setPerson(recomputeRequestDao.getEntityManager().getReference(Person.class, personId));
+    request.setFromDate(fromDate);
+    request.setToDate(toDate.orElse(null));
+    request.setRequestedAt(now);
+    recomputeRequestDao.persist(request);
+    log.debug("Registrata la richiesta di ricalcolo della persona id={} dal {}",
+        personId, fromDate);
+  }
+
+  /**
+   * La richiesta di ricalcolo ancora da elaborare per la persona, vuota se i dati calcolati
+   * della persona sono aggiornati.
+   */
+  public Optional<RecomputeRequest> pending(Long personId) {
+    return recomputeRequestDao.byPersonId(personId);
+  }
+
+  /**
+   * Elabora le richieste per cui è trascorso l'intervallo di debounce, al più una per worker
+   * del motore di ricalcolo. Ogni richiesta è presa in carico per la durata del lease, in modo
+   * che non sia elaborata contemporaneamente da più istanze. Le richieste modificate durante il
+   * ricalcolo restano in coda e sono rielaborate al giro successivo.
+   */
+  @Scheduled(fixedDelayString = "${epas.recompute-queue.poll-interval:1000}")
+  public void drain() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    final LocalDateTime now = LocalDateTime.now();
+    final List<RecomputeRequest> due = recomputeRequestDao.due(
+        now.minus(properties.getDebounce()), now, properties.getMaxAttempts(),
+        recomputationProperties.getWorkers());
+    if (due.isEmpty()) {
+      return;
+    }
+    log.debug("Elaborazione di {} richieste di ricalcolo in coda", due.size());
+
+    final List<CompletableFuture<Void>> results = Lists.newArrayList();
+    for (RecomputeRequest request : due) {
+      final Long personId = request.getPerson().getId();
+      if (!recomputeRequestDao.claim(request.getId(), request.getVersion(), now,
+          now.plus(properties.getLease()))) {
+        log.debug("Richiesta di ricalcolo della persona id={} modificata o già in carico ad "
+            + "un'altra istanza", personId);
+        continue;
+      }
+      final CompletableFuture<Void> recomputation;
+      try {
+        recomputation = recomputationEngine.submit(personId, request.getFromDate(),
+            Optional.ofNullable(request.getToDate()));
+      } catch (TaskRejectedException e) {
+        log.debug("Worker del motore di ricalcolo occupati, la persona id={} rimane in coda",
+            personId);
+        recomputeRequestDao.release(request.getId());
+        continue;
+      }
+      results.add(recomputation
+          .handle((ok, ex) -> {
+            if (ex == null) {
+              if (!recomputeRequestDao.deleteIfUnchanged(request.getId(), request.getVersion())) {
+                log.debug("Richiesta di ricalcolo della persona id={} modificata durante il "
+                    + "ricalcolo, rimane in coda", personId);
+                recomputeRequestDao.release(request.getId());
+              }
+            } else {
+              log.error("Ricalcolo in coda della persona id={} dal {} fallito",
+                  personId, request.getFromDate(), ex);
+              recomputeRequestDao.recordFailure(request.getId(), String.valueOf(ex.getMessage()));
+            }
+            return null;
+          }));
+    }
+    CompletableFuture.allOf(results.toArray(new CompletableFuture[results.size()])).join();
+  }
+}
@@ -39,6 +39,7 @@ import it.cnr.iit.epas.models.ReperibilityTypeMonth;
 import it.cnr.iit.epas.models.Role;
 import it.cnr.iit.epas.models.User;
 import it.cnr.iit.epas.models.dto.HolidaysReperibilityDto;
+import it.cnr.iit.epas.models.dto.ReperibilityCompetencesDto;
 import it.cnr.iit.epas.models.dto.WorkDaysReperibilityDto;
 import it.cnr.iit.epas.repo.PersonReperibilityTypeRepository;
 import it.cnr.iit.epas.security.SecureUtils;
@@ -54,6 +55,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
@@ -351,47 +353,101 @@ public class ReperibilityManager2 {
       PersonReperibilityType reperibility, LocalDate from, LocalDate to) {
 
     final Map<Person, Integer> reperibilityWorkDaysCompetences = new HashMap<>();
+    calculateReperibilityCompetences(reperibility, from, to).forEach(dto -> 
+        reperibilityWorkDaysCompetences.put(dto.person, dto.workdays.workdaysReperibility));
+    return reperibilityWorkDaysCompetences;
+  }
+
+  /**
+   * Calcola in un'unica passata i giorni di reperibilità feriale e festiva maturati da ogni
+   * dipendente reperibile nel periodo. I giorni di reperibilità dell'attività sono caricati con
+   * una sola query e il calendario dei giorni festivi è risolto una sola volta per persona.
+   * I giorni maturati sono conteggiati fino alla data odierna, a meno che la sede non abiliti
+   * l'approvazione delle reperibilità prima della fine del mese.
+   *
+   * @param reperibility attività sulla quale effettuare i calcoli
+   * @param from         data di inizio da cui calcolare
+   * @param to           data di fine
+   * @return la lista con i giorni e i periodi di reperibilità feriale e festiva di ogni
+   *     dipendente reperibile.
+   */
+  public List<ReperibilityCompetencesDto> calculateReperibilityCompetences(
+      PersonReperibilityType reperibility, LocalDate from, LocalDate to) {
 
     final LocalDate today = LocalDate.now();
 
-    final LocalDate lastDay;
-    LocalDate lastDay1;
+    LocalDate lastDay;
     log.trace("reperibility = {}, from={}, to={}", reperibility, from, to);
     log.trace("reperibility.getOffice() = {}", reperibility.getOffice());
-    log.trace("EpasParam = {}", EpasParam.ENABLE_REPERIBILITY_APPROVAL_BEFORE_END_MONTH);
-    log.trace("EpasParam = {}", configurationManager.configValue(reperibility.getOffice(),
-        EpasParam.ENABLE_REPERIBILITY_APPROVAL_BEFORE_END_MONTH));
 
     try {
       if ((Boolean) configurationManager.configValue(reperibility.getOffice(),
           EpasParam.ENABLE_REPERIBILITY_APPROVAL_BEFORE_END_MONTH)) {
-        lastDay1 = to;
+        lastDay = to;
       } else {
         if (to.isAfter(today)) {
-          lastDay1 = today;
+          lastDay = today;
         } else {
-          lastDay1 = to;
+          lastDay = to;
         }
       }
     } catch (NullPointerException e) {
       // Gestisci l'eccezione in qualche modo, ad esempio assegnando un valore predefinito
-      lastDay1 = today;
+      lastDay = today;
     }
-    lastDay = lastDay1;
-
-    log.trace("reperibility.getMonthlyCompetenceType = {}", 
-        reperibility.getMonthlyCompetenceType());
-    log.trace("reperibility.getMonthlyCompetenceType = {}", 
-        reperibility.getMonthlyCompetenceType().getWorkdaysCode());
-
-    CompetenceCode code = reperibility.getMonthlyCompetenceType().getWorkdaysCode();
-    involvedReperibilityWorkers(reperibility, from, to).forEach(person -> {
-      int competences =
-          calculatePersonReperibilityCompetencesInPeriod(reperibility, person, from, lastDay, code);
-      reperibilityWorkDaysCompetences.put(person, competences);
-    });
 
-    return reperibilityWorkDaysCompetences;
+    return calculateReperibilityCompetences(reperibility, from, to, lastDay);
+  }
+
+  /**
+   * Calcola in un'unica passata i giorni di reperibilità feriale e festiva maturati da ogni
+   * dipendente reperibile. I giorni maturati sono conteggiati tra from e lastDay, i periodi di
+   * reperibilità sono quelli compresi tra from e to.
+   *
+   * @param reperibility attività sulla quale effettuare i calcoli
+   * @param from         data di inizio
+   * @param to           data di fine dei periodi di reperibilità
+   * @param lastDay      data di fine del conteggio dei giorni maturati
+   * @return la lista con i giorni e i periodi di reperibilità feriale e festiva di ogni
+   *     dipendente reperibile.
+   */
+  private List<ReperibilityCompetencesDto> calculateReperibilityCompetences(
+      PersonReperibilityType reperibility, LocalDate from, LocalDate to, LocalDate lastDay) {
+
+    final LocalDate end = lastDay.isAfter(to) ? lastDay : to;
+    final Map<Person, List<LocalDate>> reperibilityDates = reperibilityDayDao
+        .getPersonReperibilityDayFromPeriodAndType(from, end, reperibility, Optional.empty())
+        .stream().collect(Collectors.groupingBy(day -> day.getPersonReperibility().getPerson(),
+            Collectors.mapping(PersonReperibilityDay::getDate, Collectors.toList())));
+
+    final List<ReperibilityCompetencesDto> competences = Lists.newArrayList();
+    for (Person person : involvedReperibilityWorkers(reperibility, from, to)) {
+      final List<LocalDate> dates = reperibilityDates.getOrDefault(person, List.of());
+      final Set<LocalDate> holidays = dates.isEmpty() ? Set.of()
+          : personDayManager.holidaysInPeriod(person, from, end, true);
+      final Map<Boolean, List<LocalDate>> byHoliday = dates.stream()
+          .collect(Collectors.partitioningBy(holidays::contains));
+
+      ReperibilityCompetencesDto dto = new ReperibilityCompetencesDto();
+      dto.person = person;
+      dto.workdays = new WorkDaysReperibilityDto();
+      dto.workdays.person = person;
+      dto.workdays.workdaysReperibility = countUntil(byHoliday.get(false), lastDay);
+      dto.workdays.workdaysPeriods = reperibilityPeriods(byHoliday.get(false), to);
+      dto.holidays = new HolidaysReperibilityDto();
+      dto.holidays.person = person;
+      dto.holidays.holidaysReperibility = countUntil(byHoliday.get(true), lastDay);
+      dto.holidays.holidaysPeriods = reperibilityPeriods(byHoliday.get(true), to);
+      competences.add(dto);
+    }
+    return competences;
+  }
+
+  /**
+   * Il numero di date della lista non successive a lastDay.
+   */
+  private static int countUntil(List<LocalDate> dates, LocalDate lastDay) {
+    return (int) dates.stream().filter(date -> !date.isAfter(lastDay)).count();
   }
 
   /**
@@ -454,36 +510,8 @@ public class ReperibilityManager2 {
       PersonReperibilityType reperibility, LocalDate start, LocalDate end) {
 
     final Map<Person, Integer> reperibilityHolidaysCompetences = new HashMap<>();
-
-    final LocalDate today = LocalDate.now();
-
-    final LocalDate lastDay;
-    LocalDate lastDay1;
-
-    try {
-      if ((Boolean) configurationManager.configValue(reperibility.getOffice(),
-          EpasParam.ENABLE_REPERIBILITY_APPROVAL_BEFORE_END_MONTH)) {
-        lastDay1 = end;
-      } else {
-        if (end.isAfter(today)) {
-          lastDay1 = today;
-        } else {
-          lastDay1 = end;
-        }
-      }
-    } catch (NullPointerException e) {
-      // Gestisci l'eccezione in qualche modo, ad esempio assegnando un valore predefinito
-      lastDay1 = today;
-    }
-    lastDay = lastDay1;
-
-    CompetenceCode code = reperibility.getMonthlyCompetenceType().getHolidaysCode();
-    involvedReperibilityWorkers(reperibility, start, end).forEach(person -> {
-      int competences = calculatePersonReperibilityCompetencesInPeriod(reperibility,
-          person, start, lastDay, code);
-      reperibilityHolidaysCompetences.put(person, competences);
-    });
-
+    calculateReperibilityCompetences(reperibility, start, end).forEach(dto -> 
+        reperibilityHolidaysCompetences.put(dto.person, dto.holidays.holidaysReperibility));
     return reperibilityHolidaysCompetences;
   }
 
@@ -519,31 +547,18 @@ public class ReperibilityManager2 {
       }
     }
 
-    //cerco le persone reperibili nel periodo di interesse
-    final List<Person> involvedReperibilityPeople = involvedReperibilityWorkers(
-        reperibilityTypeMonth.getPersonReperibilityType(), monthBegin, monthEnd);
     CompetenceCode reperibilityHoliday = reperibilityTypeMonth.getPersonReperibilityType()
         .getMonthlyCompetenceType().getHolidaysCode();
     CompetenceCode reperibilityWorkdays = reperibilityTypeMonth.getPersonReperibilityType()
         .getMonthlyCompetenceType().getWorkdaysCode();
 
-    //per ogni persona approvo le reperibilità feriali e festive 
-    involvedReperibilityPeople.forEach(person -> {
-      WorkDaysReperibilityDto dto = new WorkDaysReperibilityDto();
-      dto.person = person;
-      dto.workdaysReperibility = calculatePersonReperibilityCompetencesInPeriod(
-          reperibilityTypeMonth.getPersonReperibilityType(), person,
-          monthBegin, lastDay, reperibilityWorkdays);
-      dto.workdaysPeriods = getReperibilityPeriod(person, monthBegin, monthEnd,
-          reperibilityTypeMonth.getPersonReperibilityType(), false);
-
-      HolidaysReperibilityDto dto2 = new HolidaysReperibilityDto();
-      dto2.person = person;
-      dto2.holidaysReperibility = calculatePersonReperibilityCompetencesInPeriod(
-          reperibilityTypeMonth.getPersonReperibilityType(), person,
-          monthBegin, lastDay, reperibilityHoliday);
-      dto2.holidaysPeriods = getReperibilityPeriod(person, monthBegin, monthEnd,
-          reperibilityTypeMonth.getPersonReperibilityType(), true);
+    //per ogni persona reperibile nel periodo di interesse approvo le reperibilità feriali e
+    //festive 
+    calculateReperibilityCompetences(reperibilityTypeMonth.getPersonReperibilityType(),
+        monthBegin, monthEnd, lastDay).forEach(competences -> {
+      final Person person = competences.person;
+      WorkDaysReperibilityDto dto = competences.workdays;
+      HolidaysReperibilityDto dto2 = competences.holidays;
 
       Optional<Competence> reperibilityHolidayCompetence = competenceDao
           .getCompetence(person, year, month, reperibilityHoliday);
@@ -586,33 +601,44 @@ public class ReperibilityManager2 {
     List<PersonReperibilityDay> days = reperibilityDao
         .getPersonReperibilityDaysByPeriodAndType(begin, end, type, person);
 
-    List<PersonReperibilityDay> newList = null;
-    if (holidays) {
-      newList = days.stream().filter(
-          day -> personDayManager.isHoliday(person, day.getDate())).collect(Collectors.toList());
-    } else {
-      newList = days.stream().filter(
-          day -> !personDayManager.isHoliday(person, day.getDate())).collect(Collectors.toList());
-    }
-    if (newList.isEmpty()) {
-      return null;
-    }
-    LocalDate first = newList.get(0).getDate();
+    Set<LocalDate> holidayDates = days.isEmpty() ? Set.of()
+        : personDayManager.holidaysInPeriod(person, begin, end, true);
+    return reperibilityPeriods(days.stream().map(PersonReperibilityDay::getDate)
+        .filter(date -> holidayDates.contains(date) == holidays)
+        .collect(Collectors.toList()), end);
+  }
+
+  /**
+   * La lista dei range di date consecutive della lista ordinata di date, limitata alle date non
+   * successive a end.
+   *
+   * @param dates la lista ordinata dei giorni di reperibilità
+   * @param end   la data entro cui considerare i giorni di reperibilità
+   * @return la lista dei range di date consecutive, null se non ci sono date.
+   */
+  private static List<Range<LocalDate>> reperibilityPeriods(List<LocalDate> dates,
+      LocalDate end) {
     List<Range<LocalDate>> list = Lists.newArrayList();
     Range<LocalDate> range = null;
 
-    for (PersonReperibilityDay day : newList) {
-      if (first.equals(day.getDate())) {
-        range = Range.closed(day.getDate(), day.getDate());
+    for (LocalDate date : dates) {
+      if (date.isAfter(end)) {
+        break;
+      }
+      if (range == null) {
+        range = Range.closed(date, date);
       } else {
-        if (day.getDate().equals(range.upperEndpoint().plusDays(1))) {
-          range = Range.closed(range.lowerEndpoint(), day.getDate());
+        if (date.equals(range.upperEndpoint().plusDays(1))) {
+          range = Range.closed(range.lowerEndpoint(), date);
         } else {
           list.add(range);
-          range = Range.closed(day.getDate(), day.getDate());
+          range = Range.closed(date, date);
         }
       }
     }
+    if (range == null) {
+      return null;
+    }
     list.add(range);
     return list;
   }
@@ -18,9 +18,11 @@
 package it.cnr.iit.epas.manager;
 
 import com.google.common.base.Verify;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeSet;
+import com.google.common.collect.Table;
 import com.google.common.collect.TreeRangeSet;
 import it.cnr.iit.epas.dao.CompetenceCodeDao;
 import it.cnr.iit.epas.dao.CompetenceDao;
@@ -64,7 +66,9 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -738,125 +742,31 @@ public class ShiftManager2 {
 
     int shiftCompetences = 0;
 
-    int paidMinutesMorning = 0;
-    int paidMinutesAfternoon = 0;
-    if (activity.getShiftTimeTable() != null) {
-      //TODO: completare con il calcolo corretto tra mattine e pomeriggi con la nuova
-      // modellazione di minuti pagati la mattina e minuti pagati il pomeriggio
-      paidMinutesMorning = activity.getShiftTimeTable().getPaidMinutesMorning();
-      paidMinutesAfternoon = activity.getShiftTimeTable().getPaidMinutesAfternoon();
-    }
-
     final List<PersonShiftDay> shifts = personShiftDayDao
         .byTypeInPeriod(from, to, activity, Optional.of(person));
     List<PersonShiftDay> list = Lists.newArrayList();
-    //Cerco gli intervalli orari per stabilire a quale competenza assegnare la quantità 
-    //di ore di turno
-    Optional<TimeInterval> timeInterval = null;
-    Optional<TimeInterval> timeInterval2 = null;
-    TimeInterval daily = null;
-    TimeInterval night = null;
-    TimeInterval beforeDawn = null;
     GeneralSetting setting = generalSettingDao.generalSetting();
-    if (setting != null) {
-      //Costruisco l'intervallo temporale per il turno diurno e il turno notturno
-      daily = new TimeInterval(convertFromString(setting.getStartDailyShift()), 
-          convertFromString(setting.getEndDailyShift()));
-
-      night = new TimeInterval(convertFromString(setting.getStartNightlyShift()), 
-          LocalTime.of(23, 59));
-      beforeDawn = new TimeInterval(
-          LocalTime.of(0, 0), convertFromString(setting.getEndNightlyShift()));
-
-    } else {
+    if (setting == null) {
       log.warn("Manca il general setting relativo all'ente. Occore definirlo!!!");
       return 0;
     }
+    //Cerco gli intervalli orari per stabilire a quale competenza assegnare la quantità 
+    //di ore di turno
+    final PeriodIntervals intervals = PeriodIntervals.of(setting, type);
     //Proviamo a filtrarli...
-    switch (type) {
-      case daily:
-        timeInterval = Optional.ofNullable(daily);
-        timeInterval2 = Optional.<TimeInterval>empty();
-        list = shifts.stream().filter(day -> { 
-          return !personDayManager.isHoliday(day.getPersonShift().getPerson(), day.getDate(), 
-              setting.isSaturdayHolidayShift());
-        }).collect(Collectors.toList());
-
-        break;
-      case nightly:
-        timeInterval = Optional.ofNullable(night);
-        timeInterval2 = Optional.ofNullable(beforeDawn);
-        list = shifts.stream().filter(day -> { 
-          return !personDayManager.isHoliday(day.getPersonShift().getPerson(), day.getDate(), 
-              setting.isSaturdayHolidayShift());
-        }).collect(Collectors.toList());
+    list = shifts.stream().filter(day -> { 
+      return personDayManager.isHoliday(day.getPersonShift().getPerson(), day.getDate(), 
+          setting.isSaturdayHolidayShift()) == (type == ShiftPeriod.holiday);
+    }).collect(Collectors.toList());
 
-        break;
-      case holiday:
-        if (setting.isHolidayShiftInNightToo()) {
-          timeInterval = Optional.of(new TimeInterval(LocalTime.of(0, 0), LocalTime.of(23, 59)));
-          timeInterval2 = Optional.<TimeInterval>empty();
-        } else {
-          timeInterval = Optional.ofNullable(daily);
-          timeInterval2 = Optional.<TimeInterval>empty();
-        }
-        
-        list = shifts.stream().filter(day -> { 
-          return personDayManager.isHoliday(day.getPersonShift().getPerson(), day.getDate(), 
-              setting.isSaturdayHolidayShift());
-        }).collect(Collectors.toList());
-
-        break;
-      default:
-        break;
-    }
-    List<ShiftTroubles> troubles = Lists.newArrayList();
-    if (activity.getOrganizaionShiftTimeTable() != null
-        && !activity.getOrganizaionShiftTimeTable().isConsiderEverySlot()) {
-      troubles.addAll(ShiftTroubles.warningTroubles());
-    } else {
-      troubles.addAll(ShiftTroubles.invalidatingTroubles());
-    }
+    final List<ShiftTroubles> troubles = countedShiftTroubles(activity);
     // I conteggi funzionano nel caso lo stato dei turni sia aggiornato
     for (PersonShiftDay shift : list) {
       // Nessun errore sul turno
       if (!shift.hasOneOfErrors(troubles)) {
         PersonDay pd = personDayManager
             .getOrCreateAndPersistPersonDay(shift.getPersonShift().getPerson(), shift.getDate());
-        if (shift.getOrganizationShiftSlot() != null) {
-
-          if (shift.getOrganizationShiftSlot().getShiftTimeTable().getCalculationType()
-              .equals(CalculationType.percentage)) {
-            //FIXME: che succede se siamo nel festivo e ci sono timbrature notturne?
-            int quantity = isIntervalTotallyInSlot(pd, shift, timeInterval)
-                - (shift.getExceededThresholds() * SIXTY_MINUTES);
-            if (quantity < 0) {
-              quantity = 0;
-            }
-            shiftCompetences = shiftCompetences + quantity;
-            if (timeInterval2.isPresent()) {
-              shiftCompetences += isIntervalTotallyInSlot(pd, shift, timeInterval2);
-            }
-
-          } else {    
-            if (shift.getOrganizationShiftSlot().getPaymentType() 
-                  == PaymentType.SPLIT_CALCULATION) {
-              shiftCompetences += quantityCountForShift(shift, pd, timeInterval);
-            } else {
-              shiftCompetences += shift.getOrganizationShiftSlot().getMinutesPaid() 
-                  - (shift.getExceededThresholds() * SIXTY_MINUTES);
-            }
-          }
-        } else {
-          // shiftCompetences += paidMinutes - (shift.getExceededThresholds() * SIXTY_MINUTES);
-          if (shift.getShiftSlot().equals(ShiftSlot.MORNING)) {
-            shiftCompetences += 
-                paidMinutesMorning - (shift.getExceededThresholds() * SIXTY_MINUTES);
-          } else {
-            shiftCompetences += 
-                paidMinutesAfternoon - (shift.getExceededThresholds() * SIXTY_MINUTES);
-          }
-        }
+        shiftCompetences += shiftQuantity(activity, shift, pd, intervals);
         log.info("Competenza calcolata sul turno di {}-{}: {}", 
             person.fullName(), shift.getDate(), shiftCompetences 
             - (shift.getExceededThresholds() * SIXTY_MINUTES));
@@ -869,6 +779,198 @@ public class ShiftManager2 {
     return shiftCompetences;
   }
 
+  /**
+   * Metodo che calcola in un'unica passata i minuti di turno diurno, festivo e notturno maturati
+   * dalle persone sulle attività indicate in base ai turni effettuati nel periodo.
+   * I giorni di turno di tutte le persone e attività sono caricati con una sola query e il
+   * risultato è equivalente, per ogni persona e tipo di periodo, alla somma sulle attività di
+   * calculatePersonShiftCompetencesInPeriod.
+   *
+   * @param activities le attività di turno
+   * @param people le persone sulle quali effettuare i calcoli
+   * @param from data iniziale
+   * @param to data finale
+   * @return la tabella persona/tipo di periodo con il numero di minuti di competenza maturati,
+   *     contenente una cella (eventualmente a 0) per ogni persona e tipo di periodo.
+   */
+  public Table<Person, ShiftPeriod, Integer> calculateShiftCompetencesInPeriod(
+      Collection<ShiftType> activities, Collection<Person> people,
+      LocalDate from, LocalDate to) {
+
+    final Table<Person, ShiftPeriod, Integer> result = HashBasedTable.create();
+    for (Person person : people) {
+      for (ShiftPeriod type : ShiftPeriod.values()) {
+        result.put(person, type, 0);
+      }
+    }
+    final GeneralSetting setting = generalSettingDao.generalSetting();
+    if (setting == null) {
+      log.warn("Manca il general setting relativo all'ente. Occore definirlo!!!");
+      return result;
+    }
+    final Map<ShiftPeriod, PeriodIntervals> intervals = new EnumMap<>(ShiftPeriod.class);
+    for (ShiftPeriod type : ShiftPeriod.values()) {
+      intervals.put(type, PeriodIntervals.of(setting, type));
+    }
+
+    final List<PersonShiftDay> shifts =
+        personShiftDayDao.byTypesInPeriod(from, to, activities, people);
+    final Map<Person, Map<LocalDate, PersonDay>> personDays = new HashMap<>();
+    personDayDao.getPersonDayForPeopleInPeriod(people, from, to).forEach(pd -> 
+        personDays.computeIfAbsent(pd.getPerson(), p -> new HashMap<>()).put(pd.getDate(), pd));
+
+    // Competenze per attività, arrotondate separatamente come nel calcolo per persona
+    final Map<ShiftType, Table<Person, ShiftPeriod, Integer>> byActivity = new HashMap<>();
+    final Map<ShiftType, List<ShiftTroubles>> troubles = new HashMap<>();
+    for (PersonShiftDay shift : shifts) {
+      final ShiftType activity = shift.getShiftType();
+      if (shift.hasOneOfErrors(
+          troubles.computeIfAbsent(activity, this::countedShiftTroubles))) {
+        continue;
+      }
+      final Person person = shift.getPersonShift().getPerson();
+      PersonDay pd = personDays.computeIfAbsent(person, p -> new HashMap<>())
+          .get(shift.getDate());
+      if (pd == null) {
+        pd = personDayManager.getOrCreateAndPersistPersonDay(person, shift.getDate());
+        personDays.get(person).put(shift.getDate(), pd);
+      }
+      final Table<Person, ShiftPeriod, Integer> activityCompetences =
+          byActivity.computeIfAbsent(activity, a -> HashBasedTable.create());
+      final List<ShiftPeriod> types = personDayManager.isHoliday(person, shift.getDate(),
+          setting.isSaturdayHolidayShift())
+          ? List.of(ShiftPeriod.holiday) : List.of(ShiftPeriod.daily, ShiftPeriod.nightly);
+      for (ShiftPeriod type : types) {
+        int quantity = shiftQuantity(activity, shift, pd, intervals.get(type));
+        Integer current = activityCompetences.get(person, type);
+        activityCompetences.put(person, type, current == null ? quantity : current + quantity);
+      }
+    }
+
+    byActivity.values().forEach(activityCompetences -> 
+        activityCompetences.cellSet().forEach(cell -> {
+          int quantity = cell.getValue();
+          if (setting.isRoundingShiftQuantity()) {
+            quantity = roundingShift(quantity);
+          }
+          result.put(cell.getRowKey(), cell.getColumnKey(),
+              result.get(cell.getRowKey(), cell.getColumnKey()) + quantity);
+        }));
+    return result;
+  }
+
+  /**
+   * I problemi che escludono un giorno di turno dal calcolo delle competenze dell'attività.
+   *
+   * @param activity attività di turno
+   * @return la lista dei problemi che invalidano il turno ai fini del conteggio.
+   */
+  private List<ShiftTroubles> countedShiftTroubles(ShiftType activity) {
+    List<ShiftTroubles> troubles = Lists.newArrayList();
+    if (activity.getOrganizaionShiftTimeTable() != null
+        && !activity.getOrganizaionShiftTimeTable().isConsiderEverySlot()) {
+      troubles.addAll(ShiftTroubles.warningTroubles());
+    } else {
+      troubles.addAll(ShiftTroubles.invalidatingTroubles());
+    }
+    return troubles;
+  }
+
+  /**
+   * Metodo che ritorna la quantità in minuti di competenza maturata con un giorno di turno
+   * negli intervalli orari del periodo (diurno/notturno/festivo).
+   *
+   * @param activity attività di turno
+   * @param shift il giorno di turno senza errori
+   * @param pd il personDay del giorno di turno
+   * @param intervals gli intervalli orari del periodo
+   * @return la quantità in minuti di competenza maturata con il turno.
+   */
+  private int shiftQuantity(ShiftType activity, PersonShiftDay shift, PersonDay pd,
+      PeriodIntervals intervals) {
+    if (shift.getOrganizationShiftSlot() != null) {
+
+      if (shift.getOrganizationShiftSlot().getShiftTimeTable().getCalculationType()
+          .equals(CalculationType.percentage)) {
+        //FIXME: che succede se siamo nel festivo e ci sono timbrature notturne?
+        int quantity = isIntervalTotallyInSlot(pd, shift, intervals.first)
+            - (shift.getExceededThresholds() * SIXTY_MINUTES);
+        if (quantity < 0) {
+          quantity = 0;
+        }
+        if (intervals.second.isPresent()) {
+          quantity += isIntervalTotallyInSlot(pd, shift, intervals.second);
+        }
+        return quantity;
+
+      } else {    
+        if (shift.getOrganizationShiftSlot().getPaymentType() 
+              == PaymentType.SPLIT_CALCULATION) {
+          return quantityCountForShift(shift, pd, intervals.first);
+        } else {
+          return shift.getOrganizationShiftSlot().getMinutesPaid() 
+              - (shift.getExceededThresholds() * SIXTY_MINUTES);
+        }
+      }
+    }
+    int paidMinutesMorning = 0;
+    int paidMinutesAfternoon = 0;
+    if (activity.getShiftTimeTable() != null) {
+      //TODO: completare con il calcolo corretto tra mattine e pomeriggi con la nuova
+      // modellazione di minuti pagati la mattina e minuti pagati il pomeriggio
+      paidMinutesMorning = activity.getShiftTimeTable().getPaidMinutesMorning();
+      paidMinutesAfternoon = activity.getShiftTimeTable().getPaidMinutesAfternoon();
+    }
+    if (shift.getShiftSlot().equals(ShiftSlot.MORNING)) {
+      return paidMinutesMorning - (shift.getExceededThresholds() * SIXTY_MINUTES);
+    } else {
+      return paidMinutesAfternoon - (shift.getExceededThresholds() * SIXTY_MINUTES);
+    }
+  }
+
+  /**
+   * Gli intervalli orari in cui conteggiare i minuti di turno di un tipo di periodo.
+   */
+  private static final class PeriodIntervals {
+
+    private final Optional<TimeInterval> first;
+    private final Optional<TimeInterval> second;
+
+    private PeriodIntervals(Optional<TimeInterval> first, Optional<TimeInterval> second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    /**
+     * Costruisce gli intervalli del tipo di periodo a partire dalle fasce orarie di turno diurno
+     * e notturno del general setting.
+     */
+    private static PeriodIntervals of(GeneralSetting setting, ShiftPeriod type) {
+      //Costruisco l'intervallo temporale per il turno diurno e il turno notturno
+      final TimeInterval daily = new TimeInterval(
+          convertFromString(setting.getStartDailyShift()), 
+          convertFromString(setting.getEndDailyShift()));
+      switch (type) {
+        case nightly:
+          return new PeriodIntervals(
+              Optional.of(new TimeInterval(convertFromString(setting.getStartNightlyShift()), 
+                  LocalTime.of(23, 59))),
+              Optional.of(new TimeInterval(
+                  LocalTime.of(0, 0), convertFromString(setting.getEndNightlyShift()))));
+        case holiday:
+          if (setting.isHolidayShiftInNightToo()) {
+            return new PeriodIntervals(
+                Optional.of(new TimeInterval(LocalTime.of(0, 0), LocalTime.of(23, 59))),
+                Optional.<TimeInterval>empty());
+          }
+          return new PeriodIntervals(Optional.of(daily), Optional.<TimeInterval>empty());
+        case daily:
+        default:
+          return new PeriodIntervals(Optional.of(daily), Optional.<TimeInterval>empty());
+      }
+    }
+  }
+
   /**
    * Metodo di utilità che arrotonda il quantitativo di ore di turno all'ora superiore
    * o inferiore a seconda che la divisione % 60 del quantitativo sia maggiore o minore di mezz'ora.
@@ -954,7 +1056,7 @@ public class ShiftManager2 {
    * @param str la stringa da convertire
    * @return il LocalTime generato a partire dalla stringa passata come parametro.
    */
-  private LocalTime convertFromString(String str) {
+  private static LocalTime convertFromString(String str) {
     final String splitter = ":";
     String[] s = str.split(splitter);
     LocalTime time = LocalTime.of(Integer.valueOf(s[0]), Integer.valueOf(s[1]));
@@ -1056,36 +1158,15 @@ public class ShiftManager2 {
     final List<Person> involvedShiftPeople = involvedShiftWorkers(shiftTypeMonth.getShiftType(),
         monthBegin, monthEnd);
 
-    Map<Person, Integer> totalPeopleCompetences = new HashMap<>();
-    Map<Person, Integer> totalHolidayPeopleCompetences = new HashMap<>();
-    Map<Person, Integer> totalNightlyPeopleCompetences = new HashMap<>();
-
-    // Recupero tutte le attività approvate in quel mese
-    shiftTypeMonthDao.approvedInMonthRelatedWith(shiftTypeMonth.getYearMonth(), involvedShiftPeople)
-        .forEach(monthStatus -> {
-          // Per ogni attività calcolo le competenze di ogni persona coinvolta
-          involvedShiftPeople.forEach(person -> {
-            int activityCompetence = 0;
-            //Cerco le competenze di turno diurno...
-            activityCompetence = calculatePersonShiftCompetencesInPeriod(monthStatus.getShiftType(),
-                person, monthBegin, lastDay, ShiftPeriod.daily);
-            // Somma algebrica delle competenze delle persone derivanti da ogni attività sulla
-            // quale ha svolto i turni
-            totalPeopleCompetences.merge(person, activityCompetence, 
-                (previousValue, newValue) -> newValue + previousValue);
-            //Cerco le competenze di turno festivo...
-            activityCompetence = calculatePersonShiftCompetencesInPeriod(monthStatus.getShiftType(),
-                person, monthBegin, lastDay, ShiftPeriod.holiday);
-            totalHolidayPeopleCompetences.merge(person, activityCompetence, 
-                (previousValue, newValue) -> newValue + previousValue);
-            //Cerco le competenze di turno notturno...
-            activityCompetence = 
-                calculatePersonShiftCompetencesInPeriod(monthStatus.getShiftType(), 
-                person, monthBegin, lastDay, ShiftPeriod.nightly);
-            totalNightlyPeopleCompetences.merge(person, activityCompetence, 
-                (previousValue, newValue) -> newValue + previousValue);
-          });
-        });
+    // Recupero tutte le attività approvate in quel mese e calcolo in un'unica passata le
+    // competenze di ogni persona coinvolta, come somma algebrica delle competenze derivanti da
+    // ogni attività sulla quale ha svolto i turni
+    final List<ShiftType> approvedActivities = shiftTypeMonthDao
+        .approvedInMonthRelatedWith(shiftTypeMonth.getYearMonth(), involvedShiftPeople)
+        .stream().map(ShiftTypeMonth::getShiftType).distinct().collect(Collectors.toList());
+    final Table<Person, ShiftPeriod, Integer> competences = calculateShiftCompetencesInPeriod(
+        approvedActivities, involvedShiftPeople, monthBegin, lastDay);
+
     //Assegno i codici di competenza per andare ad assegnare le competenze corrette
     CompetenceCode shiftCode = competenceCodeDao.getCompetenceCodeByCode(codShift);
     CompetenceCode nightCode = competenceCodeDao.getCompetenceCodeByCode(codShiftNight);
@@ -1093,18 +1174,18 @@ public class ShiftManager2 {
 
     involvedShiftPeople.forEach(person -> {
       Integer calculatedCompetences = null;
-      calculatedCompetences = totalPeopleCompetences.get(person);
+      calculatedCompetences = competences.get(person, ShiftPeriod.daily);
       saveCompetence(person, shiftTypeMonth, shiftCode, calculatedCompetences);
       // Verifico che per le person coinvolte ci siano o no eventuali residui dai mesi precedenti
 
       if (person.getPersonCompetenceCodes().stream()
           .anyMatch(pcc -> pcc.getCompetenceCode().equals(holidayCode))) {
-        calculatedCompetences = totalHolidayPeopleCompetences.get(person);
+        calculatedCompetences = competences.get(person, ShiftPeriod.holiday);
         saveCompetence(person, shiftTypeMonth, holidayCode, calculatedCompetences);
       }
       if (person.getPersonCompetenceCodes().stream()
           .anyMatch(pcc -> pcc.getCompetenceCode().equals(nightCode))) {
-        calculatedCompetences = totalNightlyPeopleCompetences.get(person);
+        calculatedCompetences = competences.get(person, ShiftPeriod.nightly);
         saveCompetence(person, shiftTypeMonth, nightCode, calculatedCompetences);
       }
 
@@ -19,15 +19,14 @@ package it.cnr.iit.epas.manager;
 
 import com.google.common.base.Strings;
 import com.google.common.base.Verify;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import it.cnr.iit.epas.dao.GeneralSettingDao;
 import it.cnr.iit.epas.dao.PersonDao;
-import it.cnr.iit.epas.dao.PersonDayDao;
 import it.cnr.iit.epas.dao.StampingDao;
 import it.cnr.iit.epas.dao.wrapper.IWrapperFactory;
 import it.cnr.iit.epas.dao.wrapper.IWrapperPersonDay;
-import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingDayRecap;
-import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingDayRecapFactory;
 import it.cnr.iit.epas.messages.Messages;
 import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.PersonDay;
@@ -35,7 +34,6 @@ import it.cnr.iit.epas.models.Role;
 import it.cnr.iit.epas.models.Stamping;
 import it.cnr.iit.epas.models.Stamping.WayType;
 import it.cnr.iit.epas.models.User;
-import it.cnr.iit.epas.models.absences.JustifiedType.JustifiedTypeName;
 import it.cnr.iit.epas.models.dto.TeleworkDto;
 import it.cnr.iit.epas.models.enumerate.StampTypes;
 import it.cnr.iit.epas.models.enumerate.TeleworkStampTypes;
@@ -44,11 +42,14 @@ import it.cnr.iit.epas.security.SecureUtils;
 import jakarta.transaction.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.SortedMap;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -64,10 +65,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class StampingManager {
 
-  private final PersonDayDao personDayDao;
   private final PersonDao personDao;
   private final PersonDayManager personDayManager;
-  private final PersonStampingDayRecapFactory stampingDayRecapFactory;
   private final ConsistencyManager consistencyManager;
   private final StampingDao stampingDao;
   private final NotificationManager notificationManager;
@@ -79,26 +78,20 @@ public class StampingManager {
   /**
    * Injection.
    *
-   * @param personDayDao il dao per cercare i personday
    * @param personDao il dao per cercare le persone
    * @param personDayManager il manager per lavorare sui personday
-   * @param stampingDayRecapFactory il factory per lavorare sugli stampingDayRecap
    * @param consistencyManager il costruttore dell'injector.
    */
   @Inject
-  public StampingManager(PersonDayDao personDayDao,
-      PersonDao personDao,
+  public StampingManager(PersonDao personDao,
       PersonDayManager personDayManager,
-      PersonStampingDayRecapFactory stampingDayRecapFactory,
       ConsistencyManager consistencyManager, StampingDao stampingDao,
       NotificationManager notificationManager, IWrapperFactory wrapperFactory,
       GeneralSettingDao generalSettingDao, 
       SecureUtils secureUtils, Messages messages) {
 
-    this.personDayDao = personDayDao;
     this.personDao = personDao;
     this.personDayManager = personDayManager;
-    this.stampingDayRecapFactory = stampingDayRecapFactory;
     this.consistencyManager = consistencyManager;
     this.stampingDao = stampingDao;
     this.notificationManager = notificationManager;
@@ -161,36 +154,6 @@ public class StampingManager {
         date.getDayOfMonth(), hour, minute, 0);
   }
 
-  /**
-   * Calcola il numero massimo di coppie ingresso/uscita in un giorno specifico per tutte le persone
-   * presenti nella lista di persone attive a quella data.
-   *
-   * @param date data
-   * @param activePersonsInDay lista delle persone da verificare
-   * @return numero di coppie
-   */
-  public final int maxNumberOfStampingsInMonth(final LocalDate date,
-      final List<Person> activePersonsInDay) {
-
-    int max = 0;
-
-    for (Person person : activePersonsInDay) {
-      Optional<PersonDay> pd = personDayDao.getPersonDay(person, date);
-
-      if (pd.isPresent()) {
-        PersonDay personDay = pd.get();
-        if (max < personDayManager.numberOfInOutInPersonDay(personDay)) {
-          max = personDayManager.numberOfInOutInPersonDay(personDay);
-        }
-      }
-    }
-
-    if (max < 2) {
-      max = 2;
-    }
-    return max;
-  }
-
   /**
    * Controlla che la timbratura da inserire non sia troppo nel passato.
    */
@@ -242,8 +205,8 @@ public class StampingManager {
       stampingDao.save(stamping);
 
       consistencyManager
-          .updatePersonSituation(stamping.getPersonDay().getPerson().getId(), 
-          stamping.getPersonDay().getDate());
+          .requestPersonSituationUpdate(stamping.getPersonDay().getPerson().getId(), 
+          stamping.getPersonDay().getDate(), stamping.getPersonDay().getDate());
 
       notificationManager
       .notificationStampingPolicy(currentUser, stamping, newInsert, !newInsert, false);
@@ -341,6 +304,25 @@ public class StampingManager {
       return Optional.empty();
     }
 
+    Stamping stamping = insertStamping(personDay, stampingFromClient, way);
+
+    // Ricalcolo
+    if (recompute) {
+      consistencyManager.requestPersonSituationUpdate(person.getId(), personDay.getDate(),
+          personDay.getDate());
+    }
+
+    return Optional.of(stamping);
+  }
+
+  /**
+   * Inserisce nel personDay la timbratura ricevuta dal client, preceduta dall'eventuale
+   * timbratura di fine lavoro fuori sede.
+   */
+  private Stamping insertStamping(PersonDay personDay, StampingFromClient stampingFromClient,
+      WayType way) {
+    final Person person = personDay.getPerson();
+
     //controllo se la precedente timbratura è per lavoro fuori sede e di ingresso
     if (checkOffSite(personDay, stampingFromClient)) {
       log.info("Il sistema inserisce una timbratura in automatico per {} "
@@ -372,74 +354,133 @@ public class StampingManager {
     log.info("Inserita timbratura {} per {} (matricola = {}) ",
         stamping.getLabel(), person, person.getNumber());
 
-    // Ricalcolo
-    if (recompute) {
-      consistencyManager.updatePersonSituation(person.getId(), personDay.getDate());
-    }
-
-    return Optional.of(stamping);
+    return stamping;
   }
 
   /**
-   * La lista dei PersonStampingDayRecap renderizzata da presenza giornaliera.
+   * Inserimento in un'unica transazione delle timbrature ricevute dal client, già associate
+   * alle persone. Le timbrature già presenti sul db o ripetute nella lista non sono inserite.
+   * Non effettua ricalcoli, vedi {@link #updatePersonSituations(Collection)}.
+   *
+   * @param stampingsFromClient le timbrature da inserire
+   * @return per ogni timbratura ricevuta (nello stesso ordine) la timbratura inserita oppure
+   *     vuoto se la timbratura era già presente.
    */
-  public List<PersonStampingDayRecap> populatePersonStampingDayRecapList(
-      List<Person> activePersonsInDay,
-      LocalDate dayPresence, int numberOfInOut) {
+  @Transactional
+  public List<Optional<Stamping>> createStampingsFromClient(
+      List<StampingFromClient> stampingsFromClient) {
 
-    List<PersonStampingDayRecap> daysRecap = new ArrayList<>();
-    for (Person person : activePersonsInDay) {
+    final List<Optional<Stamping>> results = Lists.newArrayList();
+    if (stampingsFromClient.isEmpty()) {
+      return results;
+    }
+    final Set<Person> people = Sets.newHashSet();
+    LocalDateTime from = stampingsFromClient.get(0).getDateTime();
+    LocalDateTime to = from;
+    for (StampingFromClient stampingFromClient : stampingsFromClient) {
+      Verify.verifyNotNull(stampingFromClient.getPerson());
+      Verify.verifyNotNull(stampingFromClient.getDateTime());
+      people.add(stampingFromClient.getPerson());
+      if (stampingFromClient.getDateTime().isBefore(from)) {
+        from = stampingFromClient.getDateTime();
+      }
+      if (stampingFromClient.getDateTime().isAfter(to)) {
+        to = stampingFromClient.getDateTime();
+      }
+      results.add(Optional.empty());
+    }
 
-      person = personDao.getPersonById(person.getId());
-      Optional<PersonDay> pd = personDayDao.getPersonDay(person, dayPresence);
+    // Timbrature già presenti nel periodo per il controllo dei duplicati
+    final Set<List<Object>> present = Sets.newHashSet();
+    for (Stamping stamping : stampingDao.getStampings(people, from, to)) {
+      present.add(List.of(
+          stamping.getPersonDay().getPerson().getId(), stamping.getDate(), stamping.getWay()));
+    }
 
-      if (pd.isPresent()) {
-        personDayManager.setValidPairStampings(pd.get().getStampings());
-        daysRecap.add(stampingDayRecapFactory
-            .create(pd.get(), numberOfInOut, true, Optional.empty()));
+    // Inserimento in ordine cronologico, per il controllo sul lavoro fuori sede
+    final List<Integer> order = Lists.newArrayList();
+    for (int i = 0; i < stampingsFromClient.size(); i++) {
+      order.add(i);
+    }
+    order.sort(Comparator.comparing(i -> stampingsFromClient.get(i).getDateTime()));
+
+    final Map<List<Object>, PersonDay> personDays = Maps.newHashMap();
+    for (Integer i : order) {
+      final StampingFromClient stampingFromClient = stampingsFromClient.get(i);
+      final Person person = stampingFromClient.getPerson();
+      final WayType way = stampingFromClient.getInOut() == 0 ? WayType.in : WayType.out;
+      if (!present.add(List.of(person.getId(), stampingFromClient.getDateTime(), way))) {
+        log.info("Timbratura delle {} già presente per {} (matricola = {}) ",
+            stampingFromClient.getDateTime(), person, person.getNumber());
+        continue;
       }
+      final LocalDate date = stampingFromClient.getDateTime().toLocalDate();
+      final PersonDay personDay = personDays.computeIfAbsent(List.of(person.getId(), date),
+          k -> personDayManager.getOrCreateAndPersistPersonDay(person, date));
+      results.set(i, Optional.of(insertStamping(personDay, stampingFromClient, way)));
     }
-    return daysRecap;
+
+    return results;
   }
 
   /**
-   * Metodo per formare una mappa di riepilogo nella presenza giornaliera.
+   * Richiede il ricalcolo della situazione delle persone a cui appartengono le timbrature,
+   * una sola volta per persona per i giorni dalla timbratura più vecchia alla più recente.
    *
-   * @param daysRecap la lista dei personStampingDayRecap per stabilire chi è presente
-   *     e chi no in uno specifico giorno
-   * @return la mappa contenente le motivazioni delle assenze e quanti hanno quella motivazione
-   *     oltre a quanti sono presenti.
+   * @param stampings le timbrature inserite
    */
-  public Map<String, Integer> createDailyMap(List<PersonStampingDayRecap> daysRecap) {
-    SortedMap<String, Integer> map = Maps.newTreeMap();
-    String key = "";
-    int value = 0;
-    for (PersonStampingDayRecap day : daysRecap) {
-      if (day.getPersonDay().getStampings().isEmpty() 
-          && day.getPersonDay().getAbsences().isEmpty()) {
-        key = "Giorno in attesa di completamento";
-      } else if (day.getPersonDay().getStampings().isEmpty() 
-          && (day.getPersonDay().getAbsences().get(0).getJustifiedType().getName()
-              .equals(JustifiedTypeName.all_day) 
-          || day.getPersonDay().getAbsences().get(0).getJustifiedType().getName()
-          .equals(JustifiedTypeName.assign_all_day)
-          || day.getPersonDay().getAbsences().get(0).getJustifiedType().getName()
-          .equals(JustifiedTypeName.complete_day_and_add_overtime))) {
-        key = day.getPersonDay().getAbsences().get(0).getAbsenceType().getCode() + " - " 
-            + day.getPersonDay().getAbsences().get(0).getAbsenceType().getShortDescription();
-      } else {
-        key = "Presenti";
+  public void updatePersonSituations(Collection<Stamping> stampings) {
+    final Map<Long, LocalDate> fromDates = Maps.newHashMap();
+    final Map<Long, LocalDate> toDates = Maps.newHashMap();
+    for (Stamping stamping : stampings) {
+      final Long personId = stamping.getPersonDay().getPerson().getId();
+      final LocalDate date = stamping.getPersonDay().getDate();
+      fromDates.merge(personId, date, (a, b) -> a.isBefore(b) ? a : b);
+      toDates.merge(personId, date, (a, b) -> a.isAfter(b) ? a : b);
+    }
+    fromDates.forEach((personId, from) ->
+        consistencyManager.requestPersonSituationUpdate(personId, from, toDates.get(personId)));
+  }
+
+  /**
+   * Associa le persone alle timbrature ricevute via REST, prelevando i proprietari dei badge
+   * con un'unica query. Le timbrature con badge non associato restano senza persona.
+   *
+   * @param stampings DTO costruiti dal Json
+   */
+  public void linkToPersons(List<StampingFromClient> stampings) {
+
+    Optional<User> user = secureUtils.getCurrentUser();
+    if (!user.isPresent()) {
+      log.error("Impossibile recuperare l'utente che ha inviato le timbrature");
+      return;
+    }
+    if (user.get().getBadgeReader() == null) {
+      log.error("L'utente {} utilizzato per l'invio delle timbrature"
+          + " non ha una istanza badgeReader valida associata.", user.get().getUsername());
+      return;
+    }
+    final Set<String> badgeNumbers = stampings.stream()
+        .map(StampingFromClient::getNumeroBadge).filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    final Map<String, Person> owners =
+        personDao.getPersonsByBadgeNumbers(badgeNumbers, user.get().getBadgeReader());
+
+    for (StampingFromClient stamping : stampings) {
+      if (stamping.getNumeroBadge() == null) {
+        continue;
+      }
+      Person person = owners.get(stamping.getNumeroBadge());
+      if (person == null) {
+        person = owners.get(stamping.getNumeroBadge().replaceFirst("^0+(?!$)", ""));
       }
-      if (!map.containsKey(key)) {
-        map.put(key, 1); 
+      if (person != null) {
+        stamping.setPerson(person);
       } else {
-        value = map.get(key);
-        value++;
-        map.put(key, value);
+        log.warn("Non e' stato possibile recuperare la persona a cui si riferisce la timbratura,"
+            + " matricolaFirma={}. Controllare il database.", stamping.getNumeroBadge());
       }
     }
-
-    return map;
   }
 
   /**
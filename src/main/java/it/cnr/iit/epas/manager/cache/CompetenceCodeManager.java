@@ -59,7 +59,6 @@ public class CompetenceCodeManager {
     Preconditions.checkNotNull(code);
 
     // String key = COMPETENCE_PREFIX + code;
-    //FIXME: da verificare se e come funziona con spring boot
     Cache cache = cacheManager.getCache(COMPETENCE_PREFIX);
     ValueWrapper value = cache.get(code);
     CompetenceCode cc = null;
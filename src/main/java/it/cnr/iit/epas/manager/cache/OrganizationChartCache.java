@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.manager.cache;
+
+import it.cnr.iit.epas.models.Office;
+import java.util.concurrent.Callable;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache a breve scadenza dell'organigramma delle sedi (gli utenti con i ruoli di sede),
+ * indicizzata per id della sede.
+ *
+ * <p>Le voci sono rimosse dallo UserListener ad ogni modifica dei ruoli di una sede o degli
+ * utenti, subito e di nuovo al commit della transazione, così che un organigramma letto da
+ * una richiesta concorrente prima del commit non resti in cache. La scadenza si configura con
+ * epas.cache.specs[organizationChart].</p>
+ */
+@Slf4j
+@Component
+public class OrganizationChartCache {
+
+  public static final String ORGANIZATION_CHART_CACHE = "organizationChart";
+
+  private final CacheManager cacheManager;
+
+  @Inject
+  OrganizationChartCache(CacheManager cacheManager) {
+    this.cacheManager = cacheManager;
+  }
+
+  /**
+   * L'organigramma della sede, calcolato con loader se non presente in cache.
+   *
+   * @param office la sede
+   * @param loader il calcolo dell'organigramma
+   * @return l'organigramma della sede.
+   */
+  public <T> T get(Office office, Callable<T> loader) {
+    return cache().get(office.getId(), loader);
+  }
+
+  /**
+   * Rimuove dalla cache l'organigramma della sede, anche al commit della transazione corrente
+   * se presente.
+   */
+  public void evict(Office office) {
+    if (office == null || office.getId() == null) {
+      return;
+    }
+    final Long officeId = office.getId();
+    cache().evict(officeId);
+    afterCommit(() -> cache().evict(officeId));
+    log.trace("Rimosso dalla cache l'organigramma della sede id={}", officeId);
+  }
+
+  /**
+   * Svuota la cache, anche al commit della transazione corrente se presente.
+   */
+  public void evictAll() {
+    cache().clear();
+    afterCommit(() -> cache().clear());
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  private Cache cache() {
+    return cacheManager.getCache(ORGANIZATION_CHART_CACHE);
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager.configurations;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import it.cnr.iit.epas.manager.configurations.EpasParam.EpasParamValueType;
+import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.base.IPropertyInPeriod;
+import it.cnr.iit.epas.utils.DateInterval;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Indice immutabile delle configurazioni di un owner (sede o persona).
+ *
+ * <p>Per ogni EpasParam contiene i periodi di validità ordinati per data di inizio insieme ai
+ * valori già convertiti dal formato stringa, in modo che la ricerca del valore valido ad una
+ * data sia una ricerca binaria senza parsing. I valori restituiti sono condivisi tra le
+ * chiamate e non devono essere modificati dai chiamanti.</p>
+ */
+final class ConfigurationIndex {
+
+  /**
+   * Risultato di valueAt quando nessun periodo contiene la data.
+   */
+  static final Object NOT_FOUND = new Object();
+
+  private static final int FINGERPRINT_FIELDS = 5;
+
+  // Id, date e valore grezzo di ogni configurazione nell'ordine della collezione, per
+  // riconoscere le modifiche fatte sulle entity senza passare dal ConfigurationManager.
+  // Non sono mantenuti riferimenti alle entity, che tratterrebbero la chiave della cache.
+  private final Object[] fingerprint;
+  private final Map<EpasParam, Periods> byParam;
+  // Valori calcolati a partire dalle configurazioni, validi quanto l'indice
+  private final ConcurrentMap<Object, Object> derived = new ConcurrentHashMap<>();
+
+  private ConfigurationIndex(Object[] fingerprint, Map<EpasParam, Periods> byParam) {
+    this.fingerprint = fingerprint;
+    this.byParam = byParam;
+  }
+
+  /**
+   * Costruisce l'indice a partire dalle configurazioni dell'owner.
+   *
+   * @param configurations le configurazioni (Configuration o PersonConfiguration)
+   * @return l'indice
+   */
+  static ConfigurationIndex build(Collection<? extends IPropertyInPeriod> configurations) {
+    Map<EpasParam, List<IPropertyInPeriod>> grouped = Maps.newEnumMap(EpasParam.class);
+    for (IPropertyInPeriod configuration : configurations) {
+      grouped.computeIfAbsent((EpasParam) configuration.getType(), k -> Lists.newArrayList())
+          .add(configuration);
+    }
+    Map<EpasParam, Periods> byParam = new EnumMap<>(EpasParam.class);
+    for (Map.Entry<EpasParam, List<IPropertyInPeriod>> entry : grouped.entrySet()) {
+      List<IPropertyInPeriod> periods = entry.getValue();
+      periods.sort(Comparator.comparing(IPropertyInPeriod::getBeginDate));
+      long[] begins = new long[periods.size()];
+      long[] ends = new long[periods.size()];
+      Object[] values = new Object[periods.size()];
+      for (int i = 0; i < periods.size(); i++) {
+        DateInterval interval = periods.get(i).periodInterval();
+        begins[i] = interval.getBegin().toEpochDay();
+        ends[i] = interval.getEnd().toEpochDay();
+        values[i] = EpasParamValueType.parseValue(
+            entry.getKey().epasParamValueType, (String) periods.get(i).getValue());
+      }
+      byParam.put(entry.getKey(), new Periods(begins, ends, values));
+    }
+    return new ConfigurationIndex(fingerprint(configurations), byParam);
+  }
+
+  /**
+   * Se l'indice è stato costruito sulle stesse configurazioni (stessi id, tipi, date e
+   * valori nello stesso ordine) di quelle passate.
+   */
+  boolean isAlignedWith(Collection<? extends IPropertyInPeriod> configurations) {
+    if (configurations.size() * FINGERPRINT_FIELDS != fingerprint.length) {
+      return false;
+    }
+    int i = 0;
+    for (IPropertyInPeriod configuration : configurations) {
+      if (!Objects.equals(fingerprint[i++], idOf(configuration))
+          || !Objects.equals(fingerprint[i++], configuration.getType())
+          || !Objects.equals(fingerprint[i++], configuration.getBeginDate())
+          || !Objects.equals(fingerprint[i++], configuration.getEndDate())
+          || !Objects.equals(fingerprint[i++], configuration.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Object[] fingerprint(Collection<? extends IPropertyInPeriod> configurations) {
+    Object[] fingerprint = new Object[configurations.size() * FINGERPRINT_FIELDS];
+    int i = 0;
+    for (IPropertyInPeriod configuration : configurations) {
+      fingerprint[i++] = idOf(configuration);
+      fingerprint[i++] = configuration.getType();
+      fingerprint[i++] = configuration.getBeginDate();
+      fingerprint[i++] = configuration.getEndDate();
+      fingerprint[i++] = configuration.getValue();
+    }
+    return fingerprint;
+  }
+
+  private static Long idOf(IPropertyInPeriod configuration) {
+    return configuration instanceof BaseEntity ? ((BaseEntity) configuration).getId() : null;
+  }
+
+  /**
+   * Il valore derivato dalle configurazioni con la chiave indicata, calcolato alla prima
+   * richiesta. Il calcolo non deve richiedere altri valori derivati dello stesso indice.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T derived(Object key, Supplier<T> loader) {
+    return (T) derived.computeIfAbsent(key, k -> loader.get());
+  }
+
+  /**
+   * Il valore del parametro valido alla data, NOT_FOUND se nessun periodo contiene la data.
+   */
+  Object valueAt(EpasParam epasParam, LocalDate date) {
+    Periods periods = byParam.get(epasParam);
+    if (periods == null) {
+      return NOT_FOUND;
+    }
+    long day = date.toEpochDay();
+    // Di norma i periodi non si sovrappongono e il primo controllo è sufficiente.
+    for (int i = periods.lastBeginningNotAfter(day); i >= 0; i--) {
+      if (periods.ends[i] >= day) {
+        return periods.values[i];
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  /**
+   * Il valore del periodo più prossimo alla data (a parità di distanza il primo in ordine di
+   * inizio), da usare come risposta di cortesia quando nessun periodo contiene la data.
+   */
+  Optional<Object> nearestValue(EpasParam epasParam, LocalDate date) {
+    Periods periods = byParam.get(epasParam);
+    if (periods == null) {
+      return Optional.empty();
+    }
+    long day = date.toEpochDay();
+    Object nearest = null;
+    long distance = Long.MAX_VALUE;
+    for (int i = 0; i < periods.values.length; i++) {
+      long current = day < periods.begins[i] ? periods.begins[i] - day : day - periods.ends[i];
+      if (current < distance) {
+        distance = current;
+        nearest = periods.values[i];
+      }
+    }
+    return Optional.ofNullable(nearest);
+  }
+
+  /**
+   * Periodi di validità di un parametro ordinati per inizio.
+   */
+  private static final class Periods {
+    private final long[] begins;
+    private final long[] ends;
+    private final Object[] values;
+
+    private Periods(long[] begins, long[] ends, Object[] values) {
+      this.begins = begins;
+      this.ends = ends;
+      this.values = values;
+    }
+
+    /**
+     * Indice dell'ultimo periodo che inizia non dopo il giorno, -1 se non esiste.
+     */
+    private int lastBeginningNotAfter(long day) {
+      int low = 0;
+      int high = begins.length - 1;
+      int result = -1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (begins[mid] <= day) {
+          result = mid;
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager.configurations;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.base.IPropertiesInPeriodOwner;
+import it.cnr.iit.epas.models.base.IPropertyInPeriod;
+import java.util.Collection;
+import java.util.Collections;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache degli indici delle configurazioni degli owner (sedi e persone).
+ *
+ * <p>Gli indici sono associati alla collezione di configurazioni caricata nell'owner
+ * (confronto per identità e riferimento debole): ogni nuovo caricamento dal db dell'owner
+ * produce quindi un nuovo indice alla prima richiesta, mentre gli indici delle collezioni
+ * non più referenziate sono liberati dal garbage collector. Le modifiche effettuate tramite
+ * il ConfigurationManager invalidano esplicitamente l'indice dell'owner, quelle fatte
+ * direttamente sulle configurazioni sono riconosciute confrontando id, date e valori.</p>
+ */
+@Slf4j
+@Component
+class ConfigurationIndexCache {
+
+  private final Cache<Collection<?>, ConfigurationIndex> indexes =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  /**
+   * L'indice delle configurazioni dell'owner, costruito se non presente o non più allineato
+   * alle configurazioni dell'owner.
+   */
+  ConfigurationIndex indexOf(IPropertiesInPeriodOwner owner) {
+    Collection<? extends IPropertyInPeriod> configurations = configurationsOf(owner);
+    ConfigurationIndex index = indexes.getIfPresent(configurations);
+    if (index == null || !index.isAlignedWith(configurations)) {
+      index = ConfigurationIndex.build(configurations);
+      indexes.put(configurations, index);
+      log.trace("Costruito indice delle configurazioni per {}", owner);
+    }
+    return index;
+  }
+
+  /**
+   * Invalida l'indice delle configurazioni dell'owner.
+   */
+  void invalidate(IPropertiesInPeriodOwner owner) {
+    indexes.invalidate(configurationsOf(owner));
+  }
+
+  private Collection<? extends IPropertyInPeriod> configurationsOf(
+      IPropertiesInPeriodOwner owner) {
+    if (owner instanceof Office) {
+      return ((Office) owner).getConfigurations();
+    }
+    if (owner instanceof Person) {
+      return ((Person) owner).getPersonConfigurations();
+    }
+    return Collections.emptyList();
+  }
+}
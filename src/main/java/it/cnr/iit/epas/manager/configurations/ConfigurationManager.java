@@ -35,7 +35,6 @@ import it.cnr.iit.epas.models.QConfiguration;
 import it.cnr.iit.epas.models.base.IPropertiesInPeriodOwner;
 import it.cnr.iit.epas.models.base.IPropertyInPeriod;
 import it.cnr.iit.epas.models.enumerate.BlockType;
-import it.cnr.iit.epas.utils.DateInterval;
 import it.cnr.iit.epas.utils.DateUtility;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
@@ -44,6 +43,7 @@ import java.time.MonthDay;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
@@ -62,6 +62,7 @@ public class ConfigurationManager {
   private final OfficeDao officeDao;
   private final ConfigurationManagerUtils utils;
   private final ConfigurationManagerAsync async;
+  private final ConfigurationIndexCache indexCache;
 
   /**
    * Default constructor per l'injection.
@@ -70,12 +71,14 @@ public class ConfigurationManager {
   ConfigurationManager(ObjectProvider<EntityManager> emp,
       PersonDao personDao,
       OfficeDao officeDao,
-      ConfigurationManagerUtils utils, ConfigurationManagerAsync async) {
+      ConfigurationManagerUtils utils, ConfigurationManagerAsync async,
+      ConfigurationIndexCache indexCache) {
     this.queryFactory = new JPAQueryFactory(emp.getObject());
     this.personDao = personDao;
     this.officeDao = officeDao;
     this.utils = utils;
     this.async = async;
+    this.indexCache = indexCache;
   }
 
   /**
@@ -417,36 +420,12 @@ public class ConfigurationManager {
       throw new IllegalStateException();
     }
 
-    List<IPropertyInPeriod> configurations = Lists.newArrayList();
-    if (owner instanceof Office) {
-      configurations = Lists.newArrayList(((Office) owner).getConfigurations());
-    }
-    if (owner instanceof Person) {
-      configurations = Lists.newArrayList(((Person) owner).getPersonConfigurations());
-    }
+    final ConfigurationIndex index = indexCache.indexOf(owner);
 
     // Primo tentativo (caso generale)
-    for (IPropertyInPeriod configuration : configurations) {
-
-      EpasParam currentEpasParam = null;
-      String fieldValue = null;
-
-      if (configuration instanceof Configuration) {
-        currentEpasParam = ((Configuration) configuration).epasParam;
-        fieldValue = ((Configuration) configuration).fieldValue;
-      }
-      if (configuration instanceof PersonConfiguration) {
-        currentEpasParam = ((PersonConfiguration) configuration).getEpasParam();
-        fieldValue = ((PersonConfiguration) configuration).getFieldValue();
-      }
-
-      if (!currentEpasParam.equals(epasParam)) {
-        continue;
-      }
-      if (!DateUtility.isDateIntoInterval(date, configuration.periodInterval())) {
-        continue;
-      }
-      return parseValue(currentEpasParam, fieldValue);
+    Object value = index.valueAt(epasParam, date);
+    if (value != ConfigurationIndex.NOT_FOUND) {
+      return value;
     }
 
     // Parametro necessario inesistente
@@ -455,55 +434,15 @@ public class ConfigurationManager {
     }
 
     // Parametro non necessario, risposta di cortesia.
-    Object nearestValue = null;
-    Long days = null;
-
-    for (IPropertyInPeriod configuration : configurations) {
-
-      EpasParam currentEpasParam = null;
-      String fieldValue = null;
-
-      if (configuration instanceof Configuration) {
-        currentEpasParam = ((Configuration) configuration).epasParam;
-        fieldValue = ((Configuration) configuration).fieldValue;
-      }
-      if (configuration instanceof PersonConfiguration) {
-        currentEpasParam = ((PersonConfiguration) configuration).getEpasParam();
-        fieldValue = ((PersonConfiguration) configuration).getFieldValue();
-      }
+    Optional<Object> nearestValue = index.nearestValue(epasParam, date);
 
-      if (!currentEpasParam.equals(epasParam)) {
-        continue;
-      }
-
-      Long daysInterval;
-      if (date.isBefore(configuration.getBeginDate())) {
-        daysInterval = DateUtility
-            .daysInInterval(new DateInterval(date, configuration.getBeginDate()));
-      } else {
-        daysInterval = DateUtility
-            .daysInInterval(new DateInterval(configuration.calculatedEnd(), date));
-      }
-      if (days == null) {
-        days = daysInterval;
-        nearestValue = EpasParamValueType
-            .parseValue(epasParam.epasParamValueType, fieldValue);
-      } else {
-        if (days > daysInterval) {
-          days = daysInterval;
-          nearestValue = EpasParamValueType
-              .parseValue(epasParam.epasParamValueType, fieldValue);
-        }
-      }
-    }
-
-    if (nearestValue != null) {
+    if (nearestValue.isPresent()) {
       log.debug("Ritorno il valore non necessario più prossimo per {} {} {}: {}",
-          owner, epasParam, date, nearestValue);
-      return nearestValue;
+          owner, epasParam, date, nearestValue.get());
+      return nearestValue.get();
     } else {
       log.debug("Ritorno il valore non necessario default per {} {} {}: {}",
-          owner, epasParam, date, nearestValue);
+          owner, epasParam, date, epasParam.defaultValue);
       return epasParam.defaultValue;
     }
 
@@ -551,6 +490,19 @@ public class ConfigurationManager {
     return configValue(owner, epasParam, date);
   }
 
+  /**
+   * Un valore calcolato a partire dalle configurazioni dell'owner, memorizzato finché le
+   * configurazioni dell'owner non cambiano.
+   *
+   * @param owner sede o persona
+   * @param key la chiave del valore, da cui deve dipendere anche il tipo di calcolo
+   * @param loader il calcolo del valore
+   * @return il valore
+   */
+  public <T> T derivedValue(IPropertiesInPeriodOwner owner, Object key, Supplier<T> loader) {
+    return indexCache.indexOf(owner).derived(key, loader);
+  }
+
   public void updateConfigurations(Person owner) {
     utils.updateConfigurations(owner);
   }
@@ -26,6 +26,7 @@ import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.PersonConfiguration;
 import it.cnr.iit.epas.models.base.IPropertiesInPeriodOwner;
 import it.cnr.iit.epas.models.base.IPropertyInPeriod;
+import it.cnr.iit.epas.security.PermissionDecisionCache;
 import it.cnr.iit.epas.utils.DateInterval;
 import it.cnr.iit.epas.utils.DateUtility;
 import java.time.LocalDate;
@@ -39,10 +40,15 @@ import org.springframework.stereotype.Component;
 class ConfigurationManagerUtils {
 
   private final PeriodManager periodManager;
+  private final ConfigurationIndexCache indexCache;
+  private final PermissionDecisionCache permissionDecisionCache;
 
   @Inject
-  ConfigurationManagerUtils(PeriodManager periodManage) {
+  ConfigurationManagerUtils(PeriodManager periodManage, ConfigurationIndexCache indexCache,
+      PermissionDecisionCache permissionDecisionCache) {
     this.periodManager = periodManage;
+    this.indexCache = indexCache;
+    this.permissionDecisionCache = permissionDecisionCache;
   }
 
   /**
@@ -93,6 +99,11 @@ class ConfigurationManagerUtils {
     Verify.verify(validateTimeType(epasParam, configurationInPeriod));
 
     periodManager.updatePeriods(configurationInPeriod, persist);
+    indexCache.invalidate(target);
+    if (persist) {
+      // alcune regole sui permessi dipendono dalle configurazioni
+      permissionDecisionCache.evictAll();
+    }
     return configurationInPeriod;
   }
 
@@ -157,6 +168,7 @@ class ConfigurationManagerUtils {
       }
       log.debug("Updated configurations for {}", owner);
     }
+    indexCache.invalidate(owner);
   }
 
   /**
@@ -187,6 +199,7 @@ class ConfigurationManagerUtils {
         log.trace("Creato parametro {} per {}", epasParam, owner);
       }
     }
+    indexCache.invalidate(owner);
     log.debug("Updated configurations for {}", owner);
   }
 }
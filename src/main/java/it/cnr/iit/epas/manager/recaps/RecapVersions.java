@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager.recaps;
+
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import it.cnr.iit.epas.dao.RecapVersionDao;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.RecapVersion;
+import it.cnr.iit.epas.models.RecapVersion.Scope;
+import it.cnr.iit.epas.models.User;
+import it.cnr.iit.epas.security.SecureUtils;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Versioni dei dati da cui dipendono i riepiloghi di una persona, per mese, per anno e per
+ * l'intera persona (contratti, tipi orario, piani ferie, competenze abilitate e configurazione
+ * dell'ufficio). Sono utilizzate per calcolare gli ETag dei riepiloghi e rispondere 304 alle
+ * richieste condizionali senza ricostruirli.
+ *
+ * <p>Mantiene anche le versioni delle situazioni ferie (vedi VacationSituationVersions), che
+ * cambiano solo con le modifiche ad assenze, contratti, piani ferie e inizializzazioni.</p>
+ *
+ * <p>Le versioni sono i contatori di RecapVersion, incrementati prima del commit della
+ * transazione che ha modificato i dati (segnalata da RecapVersionListener): sono quindi
+ * condivise da tutte le istanze dell'applicazione e sopravvivono ai riavvii. Le modifiche
+ * effettuate senza passare dalle entity (ad esempio con update massivi) non incrementano le
+ * versioni.</p>
+ */
+@Slf4j
+@Component
+public class RecapVersions {
+
+  private static final Comparator<Key> ORDER = Comparator.comparingLong(Key::getPersonId)
+      .thenComparing(Key::getScope).thenComparingInt(Key::getYear)
+      .thenComparingInt(Key::getMonth);
+
+  private final RecapVersionDao recapVersionDao;
+  private final ObjectProvider<SecureUtils> secureUtils;
+
+  @Inject
+  RecapVersions(RecapVersionDao recapVersionDao, ObjectProvider<SecureUtils> secureUtils) {
+    this.recapVersionDao = recapVersionDao;
+    this.secureUtils = secureUtils;
+  }
+
+  /**
+   * Registra la modifica dei dati del mese della persona (incrementa anche la versione
+   * dell'anno).
+   */
+  public void monthChanged(Person person, YearMonth yearMonth) {
+    if (person == null || person.getId() == null || yearMonth == null) {
+      return;
+    }
+    changed(new Key(Scope.RECAPS, person.getId(), yearMonth.getYear(),
+        yearMonth.getMonthValue()));
+    changed(new Key(Scope.RECAPS, person.getId(), yearMonth.getYear(), 0));
+  }
+
+  /**
+   * Registra una modifica che riguarda tutti i mesi della persona.
+   */
+  public void personChanged(Person person) {
+    if (person == null || person.getId() == null) {
+      return;
+    }
+    changed(new Key(Scope.RECAPS, person.getId(), 0, 0));
+  }
+
+  /**
+   * Registra una modifica che riguarda tutti i mesi di tutte le persone dell'ufficio (ad
+   * esempio la sua configurazione).
+   */
+  public void officeChanged(Office office) {
+    if (office == null || office.getId() == null) {
+      return;
+    }
+    Pending pending = pending(office);
+    if (pending != null) {
+      pending.offices.add(office.getId());
+    }
+  }
+
+  /**
+   * Registra la modifica dei dati della situazione ferie della persona nell'anno, year a zero
+   * per le modifiche che riguardano tutti gli anni.
+   */
+  public void vacationsChanged(Person person, int year) {
+    if (person == null || person.getId() == null) {
+      return;
+    }
+    changed(new Key(Scope.VACATIONS, person.getId(), year, 0));
+  }
+
+  /**
+   * La versione dei dati della situazione ferie della persona nell'anno, year a zero per
+   * quella che riguarda tutti gli anni.
+   */
+  public long vacationsVersion(Person person, int year) {
+    incrementPending();
+    return version(new Key(Scope.VACATIONS, person.getId(), year, 0));
+  }
+
+  /**
+   * L'ETag forte del riepilogo mensile della persona. Dipende anche dall'utente corrente e
+   * dal giorno attuale, dai quali i riepiloghi dipendono.
+   */
+  public String monthEtag(Person person, YearMonth yearMonth) {
+    Hasher hasher = hasher(person);
+    hasher.putLong(version(new Key(Scope.RECAPS, person.getId(), yearMonth.getYear(),
+        yearMonth.getMonthValue())));
+    return "\"" + hasher.hash() + "\"";
+  }
+
+  /**
+   * L'ETag forte del riepilogo annuale della persona, comprensivo dell'anno precedente dal
+   * quale derivano i residui.
+   */
+  public String yearEtag(Person person, int year) {
+    Hasher hasher = hasher(person);
+    hasher.putLong(version(new Key(Scope.RECAPS, person.getId(), year, 0)));
+    hasher.putLong(version(new Key(Scope.RECAPS, person.getId(), year - 1, 0)));
+    return "\"" + hasher.hash() + "\"";
+  }
+
+  /**
+   * La versione dei dati da cui dipende il riepilogo mensile della persona, nella forma
+   * versione della persona.versione del mese.
+   */
+  public String monthVersion(Person person, YearMonth yearMonth) {
+    incrementPending();
+    return version(new Key(Scope.RECAPS, person.getId(), 0, 0)) + "."
+        + version(new Key(Scope.RECAPS, person.getId(), yearMonth.getYear(),
+            yearMonth.getMonthValue()));
+  }
+
+  private Hasher hasher(Person person) {
+    incrementPending();
+    final Hasher hasher = Hashing.murmur3_128().newHasher()
+        .putLong(person.getId())
+        .putLong(version(new Key(Scope.RECAPS, person.getId(), 0, 0)))
+        .putLong(LocalDate.now().toEpochDay());
+    secureUtils.getObject().getCurrentUser().map(User::getId)
+        .ifPresent(hasher::putLong);
+    return hasher;
+  }
+
+  private long version(Key key) {
+    return recapVersionDao.counter(key.getScope(), key.getPersonId(), key.getYear(),
+        key.getMonth());
+  }
+
+  private void changed(Key key) {
+    Pending pending = pending(key);
+    if (pending != null) {
+      pending.keys.add(key);
+    }
+  }
+
+  /**
+   * Le chiavi modificate sono raccolte per transazione e incrementate una sola volta prima
+   * del commit, nella stessa transazione che ha modificato i dati. Gli uffici modificati sono
+   * risolti nelle chiavi delle loro persone solo al momento dell'incremento, fuori dal flush
+   * durante il quale sono notificate le modifiche.
+   */
+  private Pending pending(Object changed) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      log.warn("Modifica dei dati dei riepiloghi {} fuori da una transazione, versione non "
+          + "incrementata", changed);
+      return null;
+    }
+    Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      final Pending bound = new Pending();
+      TransactionSynchronizationManager.bindResource(this, bound);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void beforeCommit(boolean readOnly) {
+          incrementAll(bound);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+          TransactionSynchronizationManager.unbindResourceIfPossible(RecapVersions.this);
+        }
+      });
+      pending = bound;
+    }
+    return pending;
+  }
+
+  /**
+   * Incrementa subito le versioni modificate dalla transazione corrente, in modo che le
+   * letture successive nella stessa transazione non restituiscano l'ETag precedente.
+   */
+  private void incrementPending() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+    if (pending != null && !pending.isEmpty()) {
+      incrementAll(pending);
+    }
+  }
+
+  /**
+   * Il flush iniziale porta sul database le modifiche ancora in sospeso, che possono
+   * aggiungere altre chiavi. Le chiavi sono incrementate in ordine, così che transazioni
+   * concorrenti acquisiscano i lock delle righe nello stesso ordine.
+   */
+  private void incrementAll(Pending pending) {
+    recapVersionDao.getEntityManager().flush();
+    while (!pending.isEmpty()) {
+      for (Long officeId : pending.offices) {
+        recapVersionDao.personIds(officeId)
+            .forEach(personId -> pending.keys.add(new Key(Scope.RECAPS, personId, 0, 0)));
+      }
+      pending.offices.clear();
+      final List<Key> sorted = pending.keys.stream().sorted(ORDER).collect(Collectors.toList());
+      pending.keys.clear();
+      sorted.forEach(this::increment);
+      recapVersionDao.getEntityManager().flush();
+      log.trace("Incrementate le versioni dei riepiloghi {}", sorted);
+    }
+  }
+
+  private void increment(Key key) {
+    if (recapVersionDao.increment(key.getScope(), key.getPersonId(), key.getYear(),
+        key.getMonth())) {
+      return;
+    }
+    final Person person = recapVersionDao.lockPerson(key.getPersonId());
+    if (person == null) {
+      // persona rimossa nella stessa transazione
+      return;
+    }
+    if (recapVersionDao.increment(key.getScope(), key.getPersonId(), key.getYear(),
+        key.getMonth())) {
+      return;
+    }
+    final RecapVersion version = new RecapVersion();
+    version.setPerson(person);
+    version.setScope(key.getScope());
+    version.setYear(key.getYear());
+    version.setMonth(key.getMonth());
+    version.setCounter(1);
+    recapVersionDao.persist(version);
+  }
+
+  /**
+   * Dati, persona, anno e mese. Il mese a zero indica l'anno intero, anno e mese a zero la
+   * persona.
+   */
+  @Value
+  private static class Key {
+    Scope scope;
+    long personId;
+    int year;
+    int month;
+  }
+
+  /**
+   * Chiavi e uffici modificati dalla transazione corrente e non ancora incrementati.
+   */
+  private static class Pending {
+    private final Set<Key> keys = Sets.newHashSet();
+    private final Set<Long> offices = Sets.newHashSet();
+
+    private boolean isEmpty() {
+      return keys.isEmpty() && offices.isEmpty();
+    }
+  }
+}
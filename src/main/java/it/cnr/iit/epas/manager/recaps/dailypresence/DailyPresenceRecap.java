@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager.recaps.dailypresence;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import it.cnr.iit.epas.dao.PersonDao;
+import it.cnr.iit.epas.dao.PersonDayDao;
+import it.cnr.iit.epas.dao.wrapper.ContractTimelines;
+import it.cnr.iit.epas.manager.PersonDayManager;
+import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingDayRecap;
+import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingDayRecapFactory;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.absences.Absence;
+import it.cnr.iit.epas.models.absences.JustifiedType.JustifiedTypeName;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Oggetto che modella il contenuto della vista presenza giornaliera di una sede: il giorno
+ * di ogni dipendente attivo e il riepilogo di presenti e assenti.
+ *
+ * <p>I personday della sede sono prelevati insieme alle timbrature e alle assenze, i contratti
+ * (con tipi orario, orari personalizzati e profili di timbratura) e i personday precedenti per
+ * il calcolo del progressivo con un numero di query che non dipende dal numero di dipendenti.
+ * Riepilogo e mappa giornaliera sono costruiti in un solo passaggio.</p>
+ */
+@Slf4j
+public class DailyPresenceRecap {
+
+  public static final String PRESENT = "Presenti";
+  public static final String TO_BE_COMPLETED = "Giorno in attesa di completamento";
+
+  public Office office;
+  public LocalDate date;
+  public int numberOfInOut;
+
+  // I giorni dei dipendenti attivi (solo quelli con il personday)
+  public List<PersonStampingDayRecap> daysRecap = Lists.newArrayList();
+
+  // Le motivazioni delle assenze e quanti hanno quella motivazione, oltre a quanti sono presenti
+  public SortedMap<String, Integer> dailyMap = Maps.newTreeMap();
+
+  /**
+   * Costruisce l'oggetto contenente tutte le informazioni da renderizzare nella pagina
+   * presenza giornaliera.
+   *
+   * @param personDao               personDao
+   * @param personDayDao            personDayDao
+   * @param personDayManager        personDayManager
+   * @param stampingDayRecapFactory stampingDayRecapFactory
+   * @param contractTimelines       contractTimelines
+   * @param office                  la sede
+   * @param date                    il giorno
+   */
+  public DailyPresenceRecap(PersonDao personDao, PersonDayDao personDayDao,
+      PersonDayManager personDayManager, PersonStampingDayRecapFactory stampingDayRecapFactory,
+      ContractTimelines contractTimelines, Office office, LocalDate date) {
+
+    final long start = System.currentTimeMillis();
+    this.office = office;
+    this.date = date;
+
+    List<Person> activePersonsInDay = personDao.listFetched(Optional.empty(),
+        ImmutableSet.of(office), false, date, date, true).list();
+    List<PersonDay> personDays =
+        personDayDao.getPersonDayForPeopleInDayReadOnly(activePersonsInDay, date);
+    contractTimelines.prefetch(activePersonsInDay);
+    final Map<Long, PersonDay> previousInMonth = personDayDao
+        .getPreviousPersonDayInMonthForPeopleReadOnly(activePersonsInDay, date).stream()
+        .collect(Collectors.toMap(pd -> pd.getPerson().getId(), Function.identity()));
+
+    numberOfInOut = 2;
+    for (PersonDay personDay : personDays) {
+      numberOfInOut = Math.max(numberOfInOut,
+          personDayManager.numberOfInOutInPersonDay(personDay));
+    }
+
+    for (PersonDay personDay : personDays) {
+      daysRecap.add(stampingDayRecapFactory.create(personDay, numberOfInOut, true,
+          Optional.empty(),
+          Optional.ofNullable(previousInMonth.get(personDay.getPerson().getId()))));
+      dailyMap.merge(dailyMapKey(personDay), 1, Integer::sum);
+    }
+
+    log.debug("Creata presenza giornaliera della sede {} del {}: {} dipendenti attivi, "
+        + "{} giorni in {} ms", office.getName(), date, activePersonsInDay.size(),
+        daysRecap.size(), System.currentTimeMillis() - start);
+  }
+
+  /**
+   * La voce della mappa giornaliera in cui ricade il giorno: in attesa di completamento se
+   * non ci sono né timbrature né assenze, il codice dell'assenza se non ci sono timbrature e
+   * la prima assenza è giornaliera, presente altrimenti.
+   *
+   * @param personDay il giorno della persona
+   * @return la voce della mappa giornaliera.
+   */
+  private static String dailyMapKey(PersonDay personDay) {
+    if (personDay.getStampings().isEmpty() && personDay.getAbsences().isEmpty()) {
+      return TO_BE_COMPLETED;
+    }
+    if (personDay.getStampings().isEmpty()) {
+      Absence absence = personDay.getAbsences().get(0);
+      JustifiedTypeName justifiedTypeName = absence.getJustifiedType().getName();
+      if (justifiedTypeName.equals(JustifiedTypeName.all_day)
+          || justifiedTypeName.equals(JustifiedTypeName.assign_all_day)
+          || justifiedTypeName.equals(JustifiedTypeName.complete_day_and_add_overtime)) {
+        return absence.getAbsenceType().getCode() + " - "
+            + absence.getAbsenceType().getShortDescription();
+      }
+    }
+    return PRESENT;
+  }
+
+}
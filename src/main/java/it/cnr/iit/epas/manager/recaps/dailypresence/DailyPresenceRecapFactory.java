@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager.recaps.dailypresence;
+
+import it.cnr.iit.epas.dao.PersonDao;
+import it.cnr.iit.epas.dao.PersonDayDao;
+import it.cnr.iit.epas.dao.wrapper.ContractTimelines;
+import it.cnr.iit.epas.manager.PersonDayManager;
+import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingDayRecapFactory;
+import it.cnr.iit.epas.models.Office;
+import java.time.LocalDate;
+import javax.inject.Inject;
+import org.springframework.stereotype.Component;
+
+/**
+ * Factory per DailyPresenceRecap.
+ */
+@Component
+public class DailyPresenceRecapFactory {
+
+  private final PersonDao personDao;
+  private final PersonDayDao personDayDao;
+  private final PersonDayManager personDayManager;
+  private final PersonStampingDayRecapFactory stampingDayRecapFactory;
+  private final ContractTimelines contractTimelines;
+
+  /**
+   * Costruttore per l'injection.
+   */
+  @Inject
+  DailyPresenceRecapFactory(PersonDao personDao, PersonDayDao personDayDao,
+      PersonDayManager personDayManager, PersonStampingDayRecapFactory stampingDayRecapFactory,
+      ContractTimelines contractTimelines) {
+
+    this.personDao = personDao;
+    this.personDayDao = personDayDao;
+    this.personDayManager = personDayManager;
+    this.stampingDayRecapFactory = stampingDayRecapFactory;
+    this.contractTimelines = contractTimelines;
+  }
+
+  /**
+   * Costruisce la presenza giornaliera della sede nel giorno.
+   */
+  public DailyPresenceRecap create(Office office, LocalDate date) {
+
+    return new DailyPresenceRecap(personDao, personDayDao, personDayManager,
+        stampingDayRecapFactory, contractTimelines, office, date);
+  }
+
+}
@@ -19,7 +19,6 @@ package it.cnr.iit.epas.manager.recaps.personstamping;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import it.cnr.iit.epas.dao.wrapper.IWrapperFactory;
 import it.cnr.iit.epas.dao.wrapper.IWrapperPersonDay;
 import it.cnr.iit.epas.manager.PersonDayManager;
 import it.cnr.iit.epas.manager.cache.StampTypeManager;
@@ -82,19 +81,18 @@ public class PersonStampingDayRecap {
    *
    * @param personDayManager     injected
    * @param stampTypeManager     injected
-   * @param wrapperFactory       injected
    * @param configurationManager injected
    * @param personDay            personDay
+   * @param wrPersonDay          il wrapper del personDay
    * @param numberOfInOut        numero di colonne del tabellone a livello mensile.
    * @param considerExitingNow   se considerare nel calcolo l'uscita in questo momento
    * @param monthContracts       il riepiloghi del mese
    */
   public PersonStampingDayRecap(PersonDayManager personDayManager,
       StampingTemplateFactory stampingTemplateFactory,
-      StampTypeManager stampTypeManager, IWrapperFactory wrapperFactory,
-      ConfigurationManager configurationManager, PersonDay personDay,
-      int numberOfInOut, boolean considerExitingNow,
-      Optional<List<Contract>> monthContracts) {
+      StampTypeManager stampTypeManager, ConfigurationManager configurationManager,
+      PersonDay personDay, IWrapperPersonDay wrPersonDay, int numberOfInOut,
+      boolean considerExitingNow, Optional<List<Contract>> monthContracts) {
 
     this.personDay = personDay;
 
@@ -109,7 +107,7 @@ public class PersonStampingDayRecap {
     this.personDay.setHoliday(personDayManager
         .isHoliday(personDay.getPerson(), personDay.getDate()));
 
-    wrPersonDay = wrapperFactory.create(personDay);
+    this.wrPersonDay = wrPersonDay;
     
     wttd = this.wrPersonDay.getWorkingTimeTypeDay();
     
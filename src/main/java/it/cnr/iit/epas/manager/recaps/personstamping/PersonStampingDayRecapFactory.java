@@ -18,6 +18,7 @@
 package it.cnr.iit.epas.manager.recaps.personstamping;
 
 import it.cnr.iit.epas.dao.wrapper.IWrapperFactory;
+import it.cnr.iit.epas.dao.wrapper.IWrapperPersonDay;
 import it.cnr.iit.epas.manager.PersonDayManager;
 import it.cnr.iit.epas.manager.cache.StampTypeManager;
 import it.cnr.iit.epas.manager.configurations.ConfigurationManager;
@@ -68,8 +69,31 @@ public class PersonStampingDayRecapFactory {
       boolean considerExitingNow, Optional<List<Contract>> monthContracts) {
 
     return new PersonStampingDayRecap(personDayManager, stampingTemplateFactory, stampTypeManager,
-        wrapperFactory, configurationManager,
-        personDay, numberOfInOut, considerExitingNow, monthContracts);
+        configurationManager, personDay, wrapperFactory.create(personDay),
+        numberOfInOut, considerExitingNow, monthContracts);
+  }
+
+  /**
+   * Costruisce l'oggetto che rappresenta un giorno nel tabellone timbrature conoscendo già
+   * l'ultimo personDay del mese precedente al giorno, che non viene quindi cercato nel database
+   * per il calcolo del progressivo.
+   *
+   * @param personDay          personDay
+   * @param numberOfInOut      numero di colonne del tabellone a livello mensile.
+   * @param considerExitingNow se considerare nel calcolo l'uscita in questo momento
+   * @param monthContracts     riepiloghi mensili (servono a capire se il giorno è da considere).
+   * @param previousInMonth    l'ultimo personDay del mese precedente al giorno, se esiste
+   * @return personStampingDayRecap
+   */
+  public PersonStampingDayRecap create(PersonDay personDay, int numberOfInOut,
+      boolean considerExitingNow, Optional<List<Contract>> monthContracts,
+      Optional<PersonDay> previousInMonth) {
+
+    IWrapperPersonDay wrPersonDay = wrapperFactory.create(personDay);
+    wrPersonDay.setPreviousForProgressiveInMonth(previousInMonth);
+    return new PersonStampingDayRecap(personDayManager, stampingTemplateFactory, stampTypeManager,
+        configurationManager, personDay, wrPersonDay,
+        numberOfInOut, considerExitingNow, monthContracts);
   }
 
 }
@@ -138,7 +138,7 @@ public class PersonStampingRecap {
     LocalDate end = DateUtility.endOfMonth(begin);
 
     List<PersonDay> personDays =
-        personDayDao.getPersonDayInPeriod(person, begin, Optional.ofNullable(end));
+        personDayDao.getPersonDayInMonthReadOnly(person, YearMonth.of(year, month));
 
     this.numberOfInOut =
         Math.max(MIN_IN_OUT_COLUMN, personDayManager.getMaximumCoupleOfStampings(personDays));
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.manager.recaps.personstamping;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.cnr.iit.epas.config.StampingRecapSnapshotProperties;
+import it.cnr.iit.epas.dao.CertificationDao;
+import it.cnr.iit.epas.dao.PersonStampingRecapSnapshotDao;
+import it.cnr.iit.epas.dto.v4.mapper.PersonStampingRecapMapper;
+import it.cnr.iit.epas.manager.PersonManager;
+import it.cnr.iit.epas.manager.recaps.RecapVersions;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonStampingRecapSnapshot;
+import it.cnr.iit.epas.models.absences.Absence;
+import it.cnr.iit.epas.models.absences.JustifiedType.JustifiedTypeName;
+import it.cnr.iit.epas.security.SecureUtils;
+import it.cnr.iit.epas.security.SecurityRules;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gestisce i riepiloghi mensili delle timbrature dei mesi chiusi.
+ *
+ * <p>Un mese è chiuso quando è precedente ai mesi ancora modificabili oppure quando è già stato
+ * inviato agli attestati. Il riepilogo di un mese chiuso è calcolato alla prima richiesta e
+ * salvato in JSON insieme alla versione dei dati del mese letta prima del calcolo, le
+ * richieste successive lo leggono con una sola query finché la versione non cambia. I
+ * riepiloghi sono rimossi anche dal motore di ricalcolo a partire dal mese della modifica
+ * retroattiva.</p>
+ *
+ * <p>Le informazioni che non dipendono dal mese (i permessi dell'utente corrente e le assenze
+ * ancora da recuperare) sono calcolate ad ogni richiesta.</p>
+ */
+@Slf4j
+@Component
+public class PersonStampingRecapSnapshotManager {
+
+  private final PersonStampingRecapFactory stampingRecapFactory;
+  private final PersonStampingRecapMapper personStampingRecapMapper;
+  private final PersonStampingRecapSnapshotDao snapshotDao;
+  private final CertificationDao certificationDao;
+  private final PersonManager personManager;
+  private final SecurityRules rules;
+  private final SecureUtils secureUtils;
+  private final StampingRecapSnapshotProperties properties;
+  private final RecapVersions recapVersions;
+  private final ObjectMapper objectMapper;
+
+  @Inject
+  PersonStampingRecapSnapshotManager(PersonStampingRecapFactory stampingRecapFactory,
+      PersonStampingRecapMapper personStampingRecapMapper,
+      PersonStampingRecapSnapshotDao snapshotDao, CertificationDao certificationDao,
+      PersonManager personManager, SecurityRules rules, SecureUtils secureUtils,
+      StampingRecapSnapshotProperties properties, RecapVersions recapVersions,
+      ObjectMapper objectMapper) {
+    this.stampingRecapFactory = stampingRecapFactory;
+    this.personStampingRecapMapper = personStampingRecapMapper;
+    this.snapshotDao = snapshotDao;
+    this.certificationDao = certificationDao;
+    this.personManager = personManager;
+    this.rules = rules;
+    this.secureUtils = secureUtils;
+    this.properties = properties;
+    this.recapVersions = recapVersions;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Il riepilogo mensile delle timbrature della persona in formato JSON. Per i mesi chiusi il
+   * riepilogo è letto da quello salvato (o calcolato e salvato se non presente), per gli altri
+   * è sempre calcolato.
+   *
+   * @param person la persona
+   * @param yearMonth il mese
+   * @return il PersonStampingRecapDto serializzato.
+   */
+  @Transactional
+  public JsonNode recap(Person person, YearMonth yearMonth) {
+    if (!isClosed(person, yearMonth)) {
+      return objectMapper.valueToTree(personStampingRecapMapper.convert(
+          stampingRecapFactory.create(person, yearMonth.getYear(),
+              yearMonth.getMonthValue(), true)));
+    }
+
+    // la versione è letta prima dei dati: se cambia durante il calcolo il riepilogo salvato
+    // non sarà più utilizzato
+    final String version = recapVersions.monthVersion(person, yearMonth);
+    ObjectNode recap = snapshotDao.byPersonAndMonth(person, yearMonth)
+        .filter(snapshot -> version.equals(snapshot.getRecapVersion()))
+        .map(this::read)
+        .orElse(null);
+    if (recap == null) {
+      recap = objectMapper.valueToTree(personStampingRecapMapper.convert(
+          stampingRecapFactory.create(person, yearMonth.getYear(),
+              yearMonth.getMonthValue(), true)));
+      store(person, yearMonth, version, recap);
+    } else {
+      log.trace("Riepilogo mensile di {} per {} letto da quello salvato",
+          person.getFullname(), yearMonth);
+    }
+    return refresh(person, recap);
+  }
+
+  /**
+   * Indica se il riepilogo del mese può essere salvato.
+   *
+   * @param person la persona
+   * @param yearMonth il mese
+   * @return true se il mese è chiuso.
+   */
+  public boolean isClosed(Person person, YearMonth yearMonth) {
+    if (!properties.isEnabled()) {
+      return false;
+    }
+    final YearMonth firstOpenMonth = YearMonth.now().minusMonths(properties.getOpenMonths());
+    if (yearMonth.isBefore(firstOpenMonth)) {
+      return true;
+    }
+    return yearMonth.isBefore(YearMonth.now()) && !certificationDao
+        .personCertifications(person, yearMonth.getYear(), yearMonth.getMonthValue()).isEmpty();
+  }
+
+  private ObjectNode read(PersonStampingRecapSnapshot snapshot) {
+    try {
+      return (ObjectNode) objectMapper.readTree(snapshot.getContent());
+    } catch (JsonProcessingException | ClassCastException e) {
+      log.warn("Riepilogo mensile salvato id={} non leggibile, verrà ricalcolato: {}",
+          snapshot.getId(), e.getMessage());
+      snapshotDao.delete(snapshot);
+      return null;
+    }
+  }
+
+  private void store(Person person, YearMonth yearMonth, String version, ObjectNode recap) {
+    snapshotDao.deleteMonth(person.getId(), yearMonth);
+    final PersonStampingRecapSnapshot snapshot = new PersonStampingRecapSnapshot();
+    snapshot.setPerson(person);
+    snapshot.setYear(yearMonth.getYear());
+    snapshot.setMonth(yearMonth.getMonthValue());
+    snapshot.setContent(recap.toString());
+    snapshot.setRecapVersion(version);
+    snapshot.setCreatedAt(LocalDateTime.now());
+    snapshotDao.persist(snapshot);
+  }
+
+  /**
+   * Aggiorna nel riepilogo le informazioni che non dipendono dal mese.
+   */
+  private ObjectNode refresh(Person person, ObjectNode recap) {
+    recap.put("canEditStampings", secureUtils.getCurrentUser().isPresent()
+        && rules.check("/rest/v4/stampings/edit"));
+
+    final List<Absence> absencesToRecover = personManager.absencesToRecover(person,
+        person.getOffice().getBeginDate(), LocalDate.now(), JustifiedTypeName.recover_time);
+    recap.put("absenceToRecoverYet", !absencesToRecover.isEmpty());
+    recap.set("absencesToRecoverList", objectMapper.valueToTree(
+        personManager.dtoList(absencesToRecover).stream()
+            .map(personStampingRecapMapper::convert)
+            .collect(Collectors.toList())));
+    return recap;
+  }
+}
@@ -87,7 +87,7 @@ public class PersonVacationRecap {
     for (Contract contract : contracts) {
       log.debug("contract {}", contract);
       VacationSituation vacationSituation = absenceService.buildVacationSituation(contract, year,
-          vacationGroup, Optional.empty(), false);
+          vacationGroup, Optional.empty(), true);
       log.debug("vacationSituation {}>> {}", vacationSituation, vacationSituation.contract);
       vacationSituations.add(vacationSituation);
     }
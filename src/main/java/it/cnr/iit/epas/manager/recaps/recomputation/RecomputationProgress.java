@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.manager.recaps.recomputation;
+
+import com.google.common.collect.Sets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Avanzamento di un ricalcolo massivo delle situazioni dei dipendenti.
+ * È aggiornato concorrentemente dai worker del motore di ricalcolo.
+ */
+@ToString
+public class RecomputationProgress {
+
+  @Getter
+  private final LocalDate fromDate;
+  @Getter
+  private final boolean onlyRecap;
+  @Getter
+  private final int total;
+  @Getter
+  private final LocalDateTime startedAt;
+  @Getter
+  private LocalDateTime endedAt;
+
+  private final AtomicInteger done = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private final AtomicInteger retries = new AtomicInteger();
+  @ToString.Exclude
+  private final Set<Long> failedPersonIds = Sets.newConcurrentHashSet();
+
+  /**
+   * Costruisce l'avanzamento di un ricalcolo di total persone.
+   */
+  public RecomputationProgress(LocalDate fromDate, boolean onlyRecap, int total) {
+    this.fromDate = fromDate;
+    this.onlyRecap = onlyRecap;
+    this.total = total;
+    this.startedAt = LocalDateTime.now();
+  }
+
+  public void personDone() {
+    done.incrementAndGet();
+  }
+
+  public void personFailed(Long personId) {
+    failed.incrementAndGet();
+    failedPersonIds.add(personId);
+  }
+
+  public void personRetried() {
+    retries.incrementAndGet();
+  }
+
+  public void completed() {
+    endedAt = LocalDateTime.now();
+  }
+
+  public int getDone() {
+    return done.get();
+  }
+
+  public int getFailed() {
+    return failed.get();
+  }
+
+  public int getRetries() {
+    return retries.get();
+  }
+
+  public int getRemaining() {
+    return total - done.get() - failed.get();
+  }
+
+  public boolean isCompleted() {
+    return endedAt != null;
+  }
+
+  public Set<Long> getFailedPersonIds() {
+    return Collections.unmodifiableSet(failedPersonIds);
+  }
+
+  /**
+   * Stima del tempo residuo calcolata sulla velocità media di elaborazione
+   * delle persone già concluse, vuota se nessuna persona è stata ancora elaborata.
+   */
+  public Optional<Duration> getEta() {
+    int processed = done.get() + failed.get();
+    if (isCompleted()) {
+      return Optional.of(Duration.ZERO);
+    }
+    if (processed == 0) {
+      return Optional.empty();
+    }
+    Duration elapsed = Duration.between(startedAt, LocalDateTime.now());
+    return Optional.of(elapsed.multipliedBy(getRemaining()).dividedBy(processed));
+  }
+}
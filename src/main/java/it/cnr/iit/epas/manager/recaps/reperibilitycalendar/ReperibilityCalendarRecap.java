@@ -57,24 +57,18 @@ public class ReperibilityCalendarRecap {
     log.debug("ReperibilityCalendarRecap = start{}", start);
     log.debug("ReperibilityCalendarRecap = end{}", end);
 
-    val workDaysRepCompetences = reperibilityManager2
-        .calculateReperibilityWorkDaysCompetences(reperibility, start, end);
+    reperibilityManager2.calculateReperibilityCompetences(reperibility, start, end)
+        .forEach(competences -> {
+          val workDaysCompRecap = new ReperibilityCalculatedCompetences();
+          workDaysCompRecap.setFullname(competences.person.getFullname());
+          workDaysCompRecap.setCount(competences.workdays.workdaysReperibility);
+          workDaysReperibilityCalculatedCompetences.add(workDaysCompRecap);
 
-    workDaysRepCompetences.forEach((person, count) -> {
-      val personCompRecap = new ReperibilityCalculatedCompetences();
-      personCompRecap.setFullname(person.getFullname());
-      personCompRecap.setCount(count);
-      workDaysReperibilityCalculatedCompetences.add(personCompRecap);
-    });
-    val holidaysRepCompetences =
-        reperibilityManager2.calculateReperibilityHolidaysCompetences(reperibility, start, end);
-
-    holidaysRepCompetences.forEach((person, count) -> {
-      val personCompRecap = new ReperibilityCalculatedCompetences();
-      personCompRecap.setFullname(person.getFullname());
-      personCompRecap.setCount(count);
-      holidaysReperibilityCalculatedCompetences.add(personCompRecap);
-    });
+          val holidaysCompRecap = new ReperibilityCalculatedCompetences();
+          holidaysCompRecap.setFullname(competences.person.getFullname());
+          holidaysCompRecap.setCount(competences.holidays.holidaysReperibility);
+          holidaysReperibilityCalculatedCompetences.add(holidaysCompRecap);
+        });
 
     reperibilityTypeMonth = reperibilityTypeMonthDao
         .byReperibilityTypeAndDate(reperibility, start).orElse(null);
@@ -23,7 +23,6 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import it.cnr.iit.epas.dao.AbsenceTypeDao;
 import it.cnr.iit.epas.dao.CategoryTabDao;
-import it.cnr.iit.epas.dao.ContractDao;
 import it.cnr.iit.epas.dao.GeneralSettingDao;
 import it.cnr.iit.epas.dao.GroupAbsenceTypeDao;
 import it.cnr.iit.epas.dao.JustifiedTypeDao;
@@ -41,6 +40,7 @@ import it.cnr.iit.epas.manager.services.absences.model.AbsencePeriod;
 import it.cnr.iit.epas.manager.services.absences.model.DayInPeriod;
 import it.cnr.iit.epas.manager.services.absences.model.DayInPeriod.TemplateRow;
 import it.cnr.iit.epas.manager.services.absences.model.PeriodChain;
+import it.cnr.iit.epas.manager.services.absences.model.PersistedAbsences;
 import it.cnr.iit.epas.manager.services.absences.model.Scanner;
 import it.cnr.iit.epas.manager.services.absences.model.ServiceFactories;
 import it.cnr.iit.epas.manager.services.absences.model.VacationSituation;
@@ -98,9 +98,9 @@ public class AbsenceService {
   private final AbsenceTypeDao absenceTypeDao;
   private final JustifiedTypeDao justifiedTypeDao;
   private final CategoryTabDao categoryTabDao;
-  private final ContractDao contractDao;
   private final GeneralSettingDao generalSettingDao;
   private final CacheManager cacheManager;
+  private final VacationSituationVersions vacationSituationVersions;
   private final SecureUtils secureUtils;
 
   /**
@@ -120,9 +120,9 @@ public class AbsenceService {
       GroupAbsenceTypeDao groupAbsenceTypeDao,
       AbsenceTypeDao absenceTypeDao, 
       JustifiedTypeDao justifiedTypeDao, CategoryTabDao categoryTabDao,
-      ContractDao contractDao,
       GeneralSettingDao generalSettingDao,
-      CacheManager cacheManager, SecureUtils secureUtils) {
+      CacheManager cacheManager, VacationSituationVersions vacationSituationVersions,
+      SecureUtils secureUtils) {
     this.configurationManager = configurationManager;
     this.absenceEngineUtility = absenceEngineUtility;
     this.serviceFactories = serviceFactories;
@@ -134,8 +134,8 @@ public class AbsenceService {
     this.groupAbsenceTypeDao = groupAbsenceTypeDao;
     this.absenceTypeDao = absenceTypeDao;
     this.cacheManager = cacheManager;
+    this.vacationSituationVersions = vacationSituationVersions;
     this.justifiedTypeDao = justifiedTypeDao;
-    this.contractDao = contractDao;
     this.generalSettingDao = generalSettingDao;
     this.categoryTabDao = categoryTabDao;
     this.secureUtils = secureUtils;
@@ -305,6 +305,9 @@ public class AbsenceService {
     List<Contract> fetchedContracts = person.getContracts(); // TODO: fetch
     List<InitializationGroup> initializationGroups =
         absenceComponentDao.personInitializationGroups(person);
+    // Le assenze persistite sono prelevate una volta per tutti i giorni da inserire
+    PersistedAbsences persistedAbsences =
+        new PersistedAbsences(person, absenceComponentDao, from, to);
 
     while (true) {
 
@@ -319,7 +322,8 @@ public class AbsenceService {
 
       PeriodChain periodChain =
           serviceFactories.buildPeriodChain(person, groupAbsenceType, currentDate, previousInserts,
-              absenceToInsert, orderedChildren, fetchedContracts, initializationGroups);
+              absenceToInsert, orderedChildren, fetchedContracts, initializationGroups,
+              persistedAbsences);
 
       criticalErrors.addAll(periodChain.criticalErrors());
 
@@ -360,6 +364,8 @@ public class AbsenceService {
 
     // Gli esiti sotto forma di template rows
     List<TemplateRow> insertTemplateRows = Lists.newArrayList();
+    final JustifiedType nothing =
+        absenceComponentDao.getOrBuildJustifiedType(JustifiedTypeName.nothing);
     for (PeriodChain periodChain : chains) {
 
       // caso particolare di errore figli.
@@ -385,8 +391,7 @@ public class AbsenceService {
         }
         if (addResult) {
           for (DayInPeriod dayInPeriod : absencePeriod.daysInPeriod.values()) {
-            insertTemplateRows.addAll(dayInPeriod.templateRowsForInsert(
-                absenceComponentDao.getOrBuildJustifiedType(JustifiedTypeName.nothing)));
+            insertTemplateRows.addAll(dayInPeriod.templateRowsForInsert(nothing));
           }
         }
       }
@@ -987,7 +992,10 @@ public class AbsenceService {
   }
 
   /**
-   * Situazione riepilogativa della persona.
+   * Situazione riepilogativa della persona. Con useCache la situazione (solo nella versione
+   * cachata dei riepiloghi) è prelevata dalla cache se è stata calcolata alla stessa data e con
+   * la versione corrente dei dati da cui dipende (vedi VacationSituationVersions), altrimenti è
+   * calcolata e salvata in cache.
    *
    * @param contract contratto
    * @param year anno situation
@@ -1011,14 +1019,20 @@ public class AbsenceService {
     }
     situation.date = date;
 
-    final String lastYearKey = vacationCacheKey(contract, year - 1, TypeSummary.VACATION);
-    final String currentYearKey = vacationCacheKey(contract, year, TypeSummary.VACATION);
-    final String permissionsKey = vacationCacheKey(contract, year, TypeSummary.PERMISSION);
-
-    Cache cache = cacheManager.getCache(VACATION_SITUATION_CACHE_KEY);
+    Cache cache = null;
+    String lastYearKey = null;
+    String currentYearKey = null;
+    String permissionsKey = null;
 
     // Provo a prelevare la situazione dalla cache
     if (useCache) {
+      // la versione è letta solo se la situazione può essere prelevata dalla cache
+      final String version = vacationSituationVersions.version(contract, year);
+      lastYearKey = vacationCacheKey(contract, year - 1, TypeSummary.VACATION, date, version);
+      currentYearKey = vacationCacheKey(contract, year, TypeSummary.VACATION, date, version);
+      permissionsKey = vacationCacheKey(contract, year, TypeSummary.PERMISSION, date, version);
+      cache = cacheManager.getCache(VACATION_SITUATION_CACHE_KEY);
+
       if (cache.get(lastYearKey) != null && cache.get(currentYearKey) != null
           && cache.get(permissionsKey) != null) {
         situation.lastYearCached = (VacationSummaryCached) cache.get(lastYearKey).get();
@@ -1058,10 +1072,6 @@ public class AbsenceService {
           date, TypeSummary.VACATION);
       situation.permissionsCached = new VacationSummaryCached(situation.permissions, contract, year,
           date, TypeSummary.PERMISSION);
-      //XXX: prima del passaggio a spring boot la merge del contract era nel costruttore del
-      //VacationSummaryCached
-      contractDao.merge(contract);
-
       cache.put(lastYearKey, situation.lastYearCached);
       cache.put(currentYearKey, situation.currentYearCached);
       cache.put(permissionsKey, situation.permissionsCached);
@@ -1071,44 +1081,9 @@ public class AbsenceService {
 
   }
 
-  /**
-   * Elimina i periodi ferie in cache per quella persona a partire dalla data from.
-   *
-   * @param person persona
-   * @param from from
-   */
-  public void emptyVacationCache(Person person, LocalDate from) {
-    for (Contract contract : person.getContracts()) {
-      if (DateUtility.isDateIntoInterval(from, contract.periodInterval())) {
-        emptyVacationCache(contract);
-      }
-    }
-  }
-
-  /**
-   * Elimina i riepiloghi ferie in cache per quel contratto.
-   *
-   * @param contract cotratto
-   */
-  public void emptyVacationCache(Contract contract) {
-    // per ogni anno fino a quello successivo l'attuale
-    int year = contract.getBeginDate().getYear();
-    if (contract.getSourceDateVacation() != null) {
-      year = contract.getSourceDateVacation().getYear() - 1;
-    }
-    Cache cache = cacheManager.getCache(VACATION_SITUATION_CACHE_KEY);
-    while (true) {
-      cache.put(vacationCacheKey(contract, year, TypeSummary.VACATION), null);
-      cache.put(vacationCacheKey(contract, year, TypeSummary.PERMISSION), null);
-      year++;
-      if (year > LocalDate.now().getYear() + 1) {
-        return;
-      }
-    }
-  }
-
-  private String vacationCacheKey(Contract contract, int year, TypeSummary type) {
-    return contract.getId() + "-" + year + "-" + type.name();
+  private String vacationCacheKey(Contract contract, int year, TypeSummary type,
+      LocalDate date, String version) {
+    return contract.getId() + "-" + year + "-" + type.name() + "-" + date + "-" + version;
   }
 
   /**
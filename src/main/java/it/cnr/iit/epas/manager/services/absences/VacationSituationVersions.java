@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.manager.services.absences;
+
+import it.cnr.iit.epas.manager.configurations.ConfigurationManager;
+import it.cnr.iit.epas.manager.configurations.EpasParam;
+import it.cnr.iit.epas.manager.recaps.RecapVersions;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.Person;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Versioni dei dati da cui dipende la situazione ferie e permessi di un contratto: le assenze
+ * della persona per anno, i contratti con i relativi piani ferie e inizializzazioni, la
+ * scadenza delle ferie dell'anno precedente configurata per la sede e il catalogo delle
+ * assenze. La versione fa parte della chiave della situazione in cache, quindi una modifica
+ * rende la situazione non più valida senza eliminarla e la situazione è ricalcolata alla
+ * prima lettura successiva. Le modifiche che non riguardano le ferie (ad esempio le
+ * timbrature) non cambiano la versione.
+ *
+ * <p>Le versioni di assenze, contratti, piani ferie e inizializzazioni sono segnalate da
+ * RecapVersionListener e mantenute sul database da RecapVersions, quindi sono condivise da
+ * tutte le istanze e la transazione che ha modificato i dati legge già la nuova versione. La
+ * scadenza delle ferie è letta ad ogni calcolo della versione. La versione del catalogo delle
+ * assenze (codici, gruppi, comportamenti) è invece locale all'istanza ed è incrementata al
+ * commit della transazione che lo ha modificato: le sue modifiche fatte da un'altra istanza
+ * sono viste alla scadenza delle voci in cache.</p>
+ */
+@Component
+public class VacationSituationVersions {
+
+  private final RecapVersions recapVersions;
+  private final ConfigurationManager configurationManager;
+  private final AtomicLong catalogVersion = new AtomicLong();
+
+  @Inject
+  VacationSituationVersions(RecapVersions recapVersions,
+      ConfigurationManager configurationManager) {
+    this.recapVersions = recapVersions;
+    this.configurationManager = configurationManager;
+  }
+
+  /**
+   * Registra la modifica di un'assenza della persona alla data indicata.
+   */
+  public void absenceChanged(Person person, LocalDate date) {
+    if (date == null) {
+      return;
+    }
+    recapVersions.vacationsChanged(person, date.getYear());
+  }
+
+  /**
+   * Registra una modifica che riguarda tutti gli anni della persona (contratti, piani ferie,
+   * inizializzazioni).
+   */
+  public void personChanged(Person person) {
+    recapVersions.vacationsChanged(person, 0);
+  }
+
+  /**
+   * Registra una modifica al catalogo delle assenze, che riguarda le situazioni di tutte le
+   * persone. La versione è incrementata al commit della transazione.
+   */
+  public void catalogChanged() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      catalogVersion.incrementAndGet();
+      return;
+    }
+    if (TransactionSynchronizationManager.hasResource(this)) {
+      return;
+    }
+    TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        catalogVersion.incrementAndGet();
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(
+            VacationSituationVersions.this);
+      }
+    });
+  }
+
+  /**
+   * La versione della situazione ferie del contratto nell'anno. Comprende le assenze
+   * dell'anno precedente (ferie dell'anno precedente) e di quello successivo (ferie dell'anno
+   * godute entro la scadenza) e la scadenza delle ferie dei due anni della situazione.
+   */
+  public String version(Contract contract, int year) {
+    final Person person = contract.getPerson();
+    final Office office = person.getOffice();
+    return recapVersions.vacationsVersion(person, 0) + "."
+        + recapVersions.vacationsVersion(person, year - 1) + "."
+        + recapVersions.vacationsVersion(person, year) + "."
+        + recapVersions.vacationsVersion(person, year + 1) + "."
+        + configurationManager.configValue(office, EpasParam.EXPIRY_VACATION_PAST_YEAR,
+            year - 1) + "."
+        + configurationManager.configValue(office, EpasParam.EXPIRY_VACATION_PAST_YEAR, year)
+        + "." + catalogVersion.get();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2022  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.manager.services.absences.model;
+
+import com.google.common.collect.Sets;
+import it.cnr.iit.epas.dao.absences.AbsenceComponentDao;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.absences.Absence;
+import it.cnr.iit.epas.models.absences.AbsenceType;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Le assenze persistite di una persona in una finestra temporale, prelevate una sola volta e
+ * condivise fra le catene costruite per giorni diversi (ad esempio nella simulazione di un
+ * inserimento su più giorni).
+ *
+ * <p>Le richieste contenute nella finestra sono risolte in memoria. Una richiesta che esce dalla
+ * finestra la estende all'unione della finestra corrente, dell'intervallo richiesto e
+ * dell'intervallo suggerito alla creazione, con una nuova query. Una data null indica un
+ * estremo illimitato, come in AbsenceComponentDao.orderedAbsences.</p>
+ *
+ * <p>Le assenze sono quelle persistite al momento del prelievo: gli inserimenti simulati
+ * sono gestiti dalle catene tramite previousInserts.</p>
+ */
+@Slf4j
+public class PersistedAbsences {
+
+  private final Person person;
+  private final AbsenceComponentDao absenceComponentDao;
+  private final LocalDate hintFrom;
+  private final LocalDate hintTo;
+
+  private boolean fetched = false;
+  private LocalDate from;
+  private LocalDate to;
+  // ordinate per data decrescente
+  private List<Absence> absences;
+
+  /**
+   * Costruttore.
+   *
+   * @param person la persona
+   * @param absenceComponentDao il dao per il prelievo delle assenze
+   * @param hintFrom l'inizio dell'intervallo che sarà richiesto (null se non noto)
+   * @param hintTo la fine dell'intervallo che sarà richiesto (null se non noto)
+   */
+  public PersistedAbsences(Person person, AbsenceComponentDao absenceComponentDao,
+      LocalDate hintFrom, LocalDate hintTo) {
+    this.person = person;
+    this.absenceComponentDao = absenceComponentDao;
+    this.hintFrom = hintFrom;
+    this.hintTo = hintTo != null ? hintTo : hintFrom;
+  }
+
+  /**
+   * Le assenze persistite della persona comprese fra begin ed end (estremi inclusi, null se
+   * illimitati) con codice in codeSet (tutti i codici se vuoto), ordinate per data
+   * decrescente.
+   *
+   * @param begin inizio
+   * @param end fine
+   * @param codeSet i codici da considerare
+   * @return la lista delle assenze.
+   */
+  public List<Absence> orderedAbsences(LocalDate begin, LocalDate end,
+      Set<AbsenceType> codeSet) {
+    if (!covers(begin, end)) {
+      extend(begin, end);
+    }
+    return absences.stream()
+        .filter(absence -> begin == null || !absence.getAbsenceDate().isBefore(begin))
+        .filter(absence -> end == null || !absence.getAbsenceDate().isAfter(end))
+        .filter(absence -> codeSet.isEmpty() || codeSet.contains(absence.getAbsenceType()))
+        .collect(Collectors.toList());
+  }
+
+  private boolean covers(LocalDate begin, LocalDate end) {
+    if (!fetched) {
+      return false;
+    }
+    boolean beginCovered = from == null || (begin != null && !begin.isBefore(from));
+    boolean endCovered = to == null || (end != null && !end.isAfter(to));
+    return beginCovered && endCovered;
+  }
+
+  private void extend(LocalDate begin, LocalDate end) {
+    LocalDate newFrom = begin;
+    LocalDate newTo = end;
+    if (fetched) {
+      newFrom = min(newFrom, from);
+      newTo = max(newTo, to);
+    } else if (hintFrom != null) {
+      newFrom = min(newFrom, hintFrom);
+      newTo = max(newTo, hintTo);
+    }
+    log.trace("Prelievo delle assenze di {} da {} a {}", person.getFullname(), newFrom, newTo);
+    absences = absenceComponentDao.orderedAbsences(person, newFrom, newTo, Sets.newHashSet());
+    from = newFrom;
+    to = newTo;
+    fetched = true;
+  }
+
+  private static LocalDate min(LocalDate first, LocalDate second) {
+    if (first == null || second == null) {
+      return null;
+    }
+    return first.isBefore(second) ? first : second;
+  }
+
+  private static LocalDate max(LocalDate first, LocalDate second) {
+    if (first == null || second == null) {
+      return null;
+    }
+    return first.isAfter(second) ? first : second;
+  }
+}
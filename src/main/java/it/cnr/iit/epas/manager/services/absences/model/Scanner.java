@@ -119,10 +119,8 @@ public class Scanner {
         .mapAbsences(this.absencesToScan, null);
     
     // analisi dei requisiti generici
-    for (Absence absence : this.absencesToScan) {
-      this.genericErrors = serviceFactories
-          .genericConstraints(genericErrors, person, absence, absencesToScanMap);
-    }
+    this.genericErrors = serviceFactories
+        .genericConstraints(genericErrors, person, this.absencesToScan, absencesToScanMap);
     
     // analisi dei requisiti all'interno di ogni gruppo
     Iterator<Absence> iterator = this.absencesToScan.iterator();
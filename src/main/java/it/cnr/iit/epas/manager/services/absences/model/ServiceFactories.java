@@ -50,6 +50,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -142,10 +143,37 @@ public class ServiceFactories {
       Absence absenceToInsert,
       List<PersonChildren> orderedChildren, List<Contract> fetchedContracts, 
       List<InitializationGroup> initializationGroups) { 
+    return buildPeriodChain(person, groupAbsenceType, date, previousInserts, absenceToInsert,
+        orderedChildren, fetchedContracts, initializationGroups,
+        new PersistedAbsences(person, absenceComponentDao, null, null));
+  }
+
+  /**
+   * Costruisce lo stato del gruppo (la periodChain) prelevando le assenze persistite da
+   * persistedAbsences, che può essere condiviso fra le catene di giorni diversi per evitare
+   * di ripetere le query sulla stessa finestra temporale.
+   *
+   * @param person persona
+   * @param groupAbsenceType gruppo
+   * @param date data
+   * @param previousInserts gli inserimenti di successo precedenti (optional)
+   * @param absenceToInsert la nuova assenza da inserire (optional)
+   * @param orderedChildren la lista dei figli ordinati per data di nascita
+   * @param fetchedContracts i contratti
+   * @param persistedAbsences le assenze persistite della persona
+   * @return periodChain
+   */
+  public PeriodChain buildPeriodChain(
+      Person person, GroupAbsenceType groupAbsenceType, LocalDate date,
+      List<Absence> previousInserts,
+      Absence absenceToInsert,
+      List<PersonChildren> orderedChildren, List<Contract> fetchedContracts, 
+      List<InitializationGroup> initializationGroups, PersistedAbsences persistedAbsences) { 
     
     //1 costruire i periods
     PeriodChain periodChain = buildPeriodChainPhase1(person, groupAbsenceType, date, 
-        orderedChildren, fetchedContracts, initializationGroups, previousInserts);
+        orderedChildren, fetchedContracts, initializationGroups, previousInserts,
+        persistedAbsences);
 
     List<Absence> allPersistedAbsences = Lists.newArrayList();
     List<Absence> groupPersistedAbsences = Lists.newArrayList();
@@ -156,14 +184,14 @@ public class ServiceFactories {
       if (absenceToInsert == null) {
         return periodChain;
       }
-      allPersistedAbsences = absenceComponentDao.orderedAbsences(periodChain.person, 
+      allPersistedAbsences = persistedAbsences.orderedAbsences(
           absenceToInsert.getAbsenceDate().minusDays(7),    //costante da inserire nel vincolo
           absenceToInsert.getAbsenceDate().plusDays(7),     //del week end 
           Sets.newHashSet());
     } else {
-      allPersistedAbsences = absenceComponentDao.orderedAbsences(periodChain.person, 
+      allPersistedAbsences = persistedAbsences.orderedAbsences(
           periodChain.from, periodChain.to, Sets.newHashSet());
-      groupPersistedAbsences = absenceComponentDao.orderedAbsences(periodChain.person, 
+      groupPersistedAbsences = persistedAbsences.orderedAbsences(
           periodChain.from, periodChain.to, 
           periodChain.periodChainInvolvedCodes());
     }
@@ -197,12 +225,21 @@ public class ServiceFactories {
   public PeriodChain buildPeriodChainPhase1(Person person, GroupAbsenceType groupAbsenceType, 
       LocalDate date, List<PersonChildren> orderedChildren, List<Contract> fetchedContracts,
       List<InitializationGroup> initializationGroups, List<Absence> previousInserts) {
+    return buildPeriodChainPhase1(person, groupAbsenceType, date, orderedChildren,
+        fetchedContracts, initializationGroups, previousInserts,
+        new PersistedAbsences(person, absenceComponentDao, null, null));
+  }
+
+  private PeriodChain buildPeriodChainPhase1(Person person, GroupAbsenceType groupAbsenceType, 
+      LocalDate date, List<PersonChildren> orderedChildren, List<Contract> fetchedContracts,
+      List<InitializationGroup> initializationGroups, List<Absence> previousInserts,
+      PersistedAbsences persistedAbsences) {
     
     PeriodChain periodChain = new PeriodChain(person, groupAbsenceType, date);
 
     if (groupAbsenceType.getPattern().equals(GroupAbsenceTypePattern.vacationsCnr)) {
-      periodChain = vacationFactory
-          .buildVacationChain(person, groupAbsenceType, fetchedContracts, date);
+      periodChain = vacationFactory.buildVacationChain(person, groupAbsenceType,
+          fetchedContracts, date, persistedAbsences);
     } else if (groupAbsenceType.getPattern().equals(GroupAbsenceTypePattern.compensatoryRestCnr)) {
       //TODO: implementare la migrazione riposi compensativi. Una volta completata 
       // riattivare lo scan del gruppo 
@@ -638,6 +675,51 @@ public class ServiceFactories {
   public ErrorsBox genericConstraints(ErrorsBox genericErrors, 
       Person person, Absence absence, 
       Map<LocalDate, Set<Absence>> allCodeAbsences) {
+    return genericConstraints(genericErrors, person, absence, allCodeAbsences,
+        date -> personReperibilityDayDao.getPersonReperibilityDay(person, date).isPresent(),
+        date -> personShiftDayDao.getPersonShiftDay(person, date).isPresent());
+  }
+
+  /**
+   * I vincoli generici per tutte le assenze della lista. I giorni di reperibilità e di turno
+   * della persona sono prelevati con due sole query nel periodo coperto dalle assenze.
+   *
+   * @param genericErrors box errori
+   * @param person persona
+   * @param absences le assenze da controllare
+   * @param allCodeAbsences tutti i codici che potrebbero conflittuare.
+   * @return error box
+   */
+  public ErrorsBox genericConstraints(ErrorsBox genericErrors, 
+      Person person, List<Absence> absences, 
+      Map<LocalDate, Set<Absence>> allCodeAbsences) {
+    if (absences.isEmpty()) {
+      return genericErrors;
+    }
+    LocalDate from = absences.get(0).getAbsenceDate();
+    LocalDate to = from;
+    for (Absence absence : absences) {
+      if (absence.getAbsenceDate().isBefore(from)) {
+        from = absence.getAbsenceDate();
+      }
+      if (absence.getAbsenceDate().isAfter(to)) {
+        to = absence.getAbsenceDate();
+      }
+    }
+    final Set<LocalDate> reperibilityDates = 
+        personReperibilityDayDao.getReperibilityDates(person, from, to);
+    final Set<LocalDate> shiftDates = personShiftDayDao.getShiftDates(person, from, to);
+    for (Absence absence : absences) {
+      genericErrors = genericConstraints(genericErrors, person, absence, allCodeAbsences,
+          reperibilityDates::contains, shiftDates::contains);
+    }
+    return genericErrors;
+  }
+
+  private ErrorsBox genericConstraints(ErrorsBox genericErrors, 
+      Person person, Absence absence, 
+      Map<LocalDate, Set<Absence>> allCodeAbsences,
+      Predicate<LocalDate> inReperibility, Predicate<LocalDate> inShift) {
 
     final boolean isHoliday = personDayManager.isHoliday(person, absence.getAbsenceDate());
 
@@ -649,14 +731,13 @@ public class ServiceFactories {
           person, absence.getAbsenceDate());
       //check sulla reperibilità
       if (!absence.absenceType.isReperibilityCompatible() 
-          && personReperibilityDayDao.getPersonReperibilityDay(
-              person, absence.getAbsenceDate()).isPresent()) {
+          && inReperibility.test(absence.getAbsenceDate())) {
         genericErrors.addAbsenceWarning(absence, AbsenceProblem.InReperibility);
         log.info("Aggiunto warning di reperibilità per {} in data {}", person, 
             absence.getAbsenceDate());
       }
       log.debug("Controllo i turni per {} nel giorno {}", person, absence.getAbsenceDate());
-      if (personShiftDayDao.getPersonShiftDay(person, absence.getAbsenceDate()).isPresent()) {
+      if (inShift.test(absence.getAbsenceDate())) {
         genericErrors.addAbsenceWarning(absence, AbsenceProblem.InShift);
         log.info("Aggiunto warning di turno per {} in data {}", person, absence.getAbsenceDate());
       }
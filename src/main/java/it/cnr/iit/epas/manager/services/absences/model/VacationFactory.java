@@ -85,6 +85,23 @@ public class VacationFactory {
    */
   public PeriodChain buildVacationChain(Person person, GroupAbsenceType group, 
       List<Contract> fetchedContract, LocalDate date) {
+    return buildVacationChain(person, group, fetchedContract, date,
+        new PersistedAbsences(person, absenceComponentDao, null, null));
+  }
+
+  /**
+   * La periodChain che riduce il problema delle ferie e permessi alla prendibilità di assenze,
+   * con le assenze di riduzione prelevate da persistedAbsences.
+   *
+   * @param person persona 
+   * @param group gruppo
+   * @param fetchedContract i contratti
+   * @param date la data di maturazione??
+   * @param persistedAbsences le assenze persistite della persona
+   * @return la periodChain.
+   */
+  public PeriodChain buildVacationChain(Person person, GroupAbsenceType group, 
+      List<Contract> fetchedContract, LocalDate date, PersistedAbsences persistedAbsences) {
     
     Contract contract = null;
     //creare i period dai contract.vacationperiod
@@ -119,19 +136,19 @@ public class VacationFactory {
         || group.getName().equals(DefaultGroup.FERIE_CNR_DIPENDENTI.name())) {
       //se il gruppo è vacation i codici posso anche prenderli.
       vacationLastYear = vacationPeriodPerYear(person, group, year - 1, contract, 
-          initializationLastYear, false);
+          initializationLastYear, false, persistedAbsences);
       permission = permissionPeriodPerYear(person, group, year, contract,  
-          initializationPermission);
+          initializationPermission, persistedAbsences);
       vacationCurrentYear = vacationPeriodPerYear(person, group, year, contract,
-          initializationCurrentYear, false);
+          initializationCurrentYear, false, persistedAbsences);
     } else {
       //se il gruppo è il prorogation i codici non posso prenderli.
       vacationLastYear = vacationPeriodPerYear(person, group, year - 1, contract,
-          initializationLastYear, true);
+          initializationLastYear, true, persistedAbsences);
       permission = permissionPeriodPerYear(person, group, year, contract, 
-          initializationPermission);
+          initializationPermission, persistedAbsences);
       vacationCurrentYear = vacationPeriodPerYear(person, group, year, contract,
-          initializationCurrentYear, true);      
+          initializationCurrentYear, true, persistedAbsences);      
     }
 
     
@@ -161,7 +178,8 @@ public class VacationFactory {
   }
   
   private List<AbsencePeriod> vacationPeriodPerYear(Person person, GroupAbsenceType group, 
-      int year, Contract contract, Integer initializationDays, boolean prorogation) {
+      int year, Contract contract, Integer initializationDays, boolean prorogation,
+      PersistedAbsences persistedAbsences) {
     
     List<AbsencePeriod> periods = Lists.newArrayList();
     
@@ -195,7 +213,7 @@ public class VacationFactory {
     periods = fixTooLucky(periods, limits, year);
     
     //Fix dei giorni post partum
-    periods = fixPostPartum(periods, person, year);
+    periods = fixPostPartum(periods, person, year, persistedAbsences);
     
     //Split del primo anno di contratto
     periods = handleAccruedFirstYear(person, group, contract, periods);
@@ -247,7 +265,7 @@ public class VacationFactory {
   }
   
   private List<AbsencePeriod> permissionPeriodPerYear(Person person, GroupAbsenceType group, 
-      int year, Contract contract, int initializationDays) {
+      int year, Contract contract, int initializationDays, PersistedAbsences persistedAbsences) {
     List<AbsencePeriod> periods = Lists.newArrayList();
 
     Set<AbsenceType> codes = group.getTakableAbsenceBehaviour().getTakenCodes(); // === 31-32-94-37
@@ -276,7 +294,7 @@ public class VacationFactory {
     periods = fixTooLucky(periods, limits, year);
     
     //Fix dei giorni post partum
-    periods = fixPostPartum(periods, person, year);
+    periods = fixPostPartum(periods, person, year, persistedAbsences);
 
     //Split del primo anno di contratto
     periods = handleAccruedFirstYear(person, group, contract, periods);
@@ -370,7 +388,8 @@ public class VacationFactory {
     return periods;
   }
 
-  private List<AbsencePeriod> fixPostPartum(List<AbsencePeriod> periods, Person person, int year) {
+  private List<AbsencePeriod> fixPostPartum(List<AbsencePeriod> periods, Person person, int year,
+      PersistedAbsences persistedAbsences) {
     
     if (periods.isEmpty()) { 
       return periods;
@@ -385,7 +404,7 @@ public class VacationFactory {
     // FIXME a volte il ritorno del dao è absent e schianta la get()
     GroupAbsenceType reducingGroup = absenceComponentDao
         .groupAbsenceTypeByName(DefaultGroup.RIDUCE_FERIE_CNR.name()).get();
-    periods.get(0).reducingAbsences = absenceComponentDao.orderedAbsences(person, 
+    periods.get(0).reducingAbsences = persistedAbsences.orderedAbsences(
         beginPostPartum, endPostPartum, 
         reducingGroup.getTakableAbsenceBehaviour().getTakableCodes());
     long postPartum = periods.get(0).reducingAbsences.size();
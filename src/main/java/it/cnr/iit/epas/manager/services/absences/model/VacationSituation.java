@@ -455,10 +455,17 @@ public class VacationSituation {
      * TODO: spostare su message.
      */
     public String title() {
-      if (this.type.equals(TypeSummary.VACATION)) {
-        return this.contract.person.fullName() + " - " + "Riepilogo Ferie " + this.year;  
+      return title(this.contract.person, this.type, this.year);
+    }
+
+    /**
+     * Il titolo del riepilogo di quel tipo per la persona e l'anno.
+     */
+    public static String title(Person person, TypeSummary type, int year) {
+      if (type.equals(TypeSummary.VACATION)) {
+        return person.fullName() + " - " + "Riepilogo Ferie " + year;  
       } else {
-        return this.contract.person.fullName() + " - " + "Riepilogo Permessi Legge " + this.year;
+        return person.fullName() + " - " + "Riepilogo Permessi Legge " + year;
       }
     }
   }
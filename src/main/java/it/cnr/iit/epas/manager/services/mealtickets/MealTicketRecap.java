@@ -43,7 +43,16 @@ public class MealTicketRecap {
   private LocalDate dateExpire = null;
   private LocalDate dateRunOut = null;
 
+  /**
+   * I giorni con buono pasto dell'intero intervallo, valorizzato solo dal recap costruito
+   * sull'intero intervallo (vedi MealTicketRecapBuilder).
+   */
   private List<PersonDay> personDaysMealTickets = Lists.newArrayList();
+
+  /**
+   * I giorni con buono pasto successivi all'ultimo mese concluso, con il buono assegnato.
+   */
+  private List<PersonDay> openPersonDaysMealTickets = Lists.newArrayList();
   private List<MealTicket> mealTicketReturnedDeliveryOrderDesc = Lists.newArrayList();
   private List<MealTicket> mealTicketsReceivedExpireOrderedAsc = Lists.newArrayList();
   private List<MealTicket> mealTicketsReceivedExpireOrderedAscPostInit = Lists.newArrayList();
@@ -53,6 +62,11 @@ public class MealTicketRecap {
 
   private int sourcedInInterval = 0;
 
+  /**
+   * Il numero dei giorni dell'intervallo che hanno maturato il buono pasto.
+   */
+  private int consumed = 0;
+
   private DateInterval mealTicketInterval = null;
 
   /**
@@ -62,7 +76,7 @@ public class MealTicketRecap {
    */
   public int getNegativeResidual() {
     return (this.sourcedInInterval + this.mealTicketsReceivedDeliveryOrderedDesc.size()
-        - this.personDaysMealTickets.size()) * -1;
+        - this.consumed) * -1;
   }
 
   /**
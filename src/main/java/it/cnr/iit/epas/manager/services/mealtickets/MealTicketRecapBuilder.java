@@ -17,13 +17,20 @@
 
 package it.cnr.iit.epas.manager.services.mealtickets;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
 import it.cnr.iit.epas.models.Contract;
 import it.cnr.iit.epas.models.MealTicket;
+import it.cnr.iit.epas.models.MealTicketLedger;
 import it.cnr.iit.epas.models.PersonDay;
 import it.cnr.iit.epas.utils.DateInterval;
 import it.cnr.iit.epas.utils.DateUtility;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Component;
 
 /**
@@ -71,12 +78,9 @@ public class MealTicketRecapBuilder {
     mealTicketRecap.setMealTicketsReceivedDeliveryOrderedDesc(deliveryOrderedDesc);
     mealTicketRecap.setMealTicketReturnedDeliveryOrderDesc(returnedDeliveryOrderedDesc);
 
-    if (contract.getSourceDateMealTicket() != null 
-        && DateUtility.isDateIntoInterval(contract.getSourceDateMealTicket().plusDays(1), 
-            mealTicketRecap.getMealTicketInterval())) {
-      
-      mealTicketRecap.setSourcedInInterval(contract.getSourceRemainingMealTicket());
-    }
+    mealTicketRecap.setSourcedInInterval(
+        MealTicketStaticUtility.sourcedInInterval(contract, mealTicketInterval));
+    mealTicketRecap.setConsumed(personDays.size());
     
     //Imposto i rimanenti
     mealTicketRecap.setRemaining(mealTicketRecap
@@ -130,4 +134,130 @@ public class MealTicketRecapBuilder {
 
     return mealTicketRecap;
   }
-}
\ No newline at end of file
+
+  /**
+   * Costruisce il recap dei buoni pasto a partire dai movimenti mensili dei mesi conclusi e dai
+   * soli giorni del periodo aperto, con lo stesso risultato di buildMealTicketRecap sull'intero
+   * intervallo. I giorni di un mese concluso sono caricati solo se servono a individuare la data
+   * di esaurimento o la data di inizio consumo dei buoni scaduti.<br>
+   * Nel recap restituito i giorni del periodo aperto sono in openPersonDaysMealTickets,
+   * personDaysMealTickets è vuoto.
+   *
+   * @param contract contract
+   * @param mealTicketInterval intervallo buoni pasto da considerare
+   * @param ledger i movimenti mensili dei mesi conclusi ordinati per mese
+   * @param openPersonDays i giorni con buono pasto successivi all'ultimo mese concluso
+   * @param mealTickets tutti i buoni pasto del contratto
+   * @param closedMonthPersonDays i giorni con buono pasto di un mese concluso
+   * @return il recap
+   */
+  public MealTicketRecap buildMealTicketRecap(Contract contract, DateInterval mealTicketInterval,
+      List<MealTicketLedger> ledger, List<PersonDay> openPersonDays, List<MealTicket> mealTickets,
+      Function<YearMonth, List<PersonDay>> closedMonthPersonDays) {
+
+    MealTicketRecap mealTicketRecap = new MealTicketRecap();
+
+    mealTicketRecap.setContract(contract);
+
+    mealTicketRecap.setMealTicketInterval(
+        DateInterval.withBegin(mealTicketInterval.getBegin(), Optional.empty()));
+
+    mealTicketRecap.setOpenPersonDaysMealTickets(openPersonDays);
+
+    List<MealTicket> expireOrderedAsc = mealTickets.stream().filter(mt -> !mt.isReturned())
+        .sorted(MealTicketStaticUtility.EXPIRE_DATE_ASC).collect(Collectors.toList());
+    List<MealTicket> expireOrderedAscPostInit = expireOrderedAsc.stream()
+        .filter(mt -> DateUtility.isDateIntoInterval(mt.getDate(), mealTicketInterval))
+        .collect(Collectors.toList());
+    mealTicketRecap.setMealTicketsReceivedExpireOrderedAsc(expireOrderedAsc);
+    mealTicketRecap.setMealTicketsReceivedExpireOrderedAscPostInit(expireOrderedAscPostInit);
+    mealTicketRecap.setMealTicketsReceivedDeliveryOrderedDesc(mealTickets.stream()
+        .filter(mt -> !mt.isReturned())
+        .sorted(MealTicketStaticUtility.DELIVERY_DATE_DESC).collect(Collectors.toList()));
+    mealTicketRecap.setMealTicketReturnedDeliveryOrderDesc(mealTickets.stream()
+        .filter(MealTicket::isReturned)
+        .sorted(MealTicketStaticUtility.DELIVERY_DATE_DESC).collect(Collectors.toList()));
+
+    final int sourced = MealTicketStaticUtility.sourcedInInterval(contract, mealTicketInterval);
+    mealTicketRecap.setSourcedInInterval(sourced);
+
+    final int closedConsumed = ledger.stream().mapToInt(MealTicketLedger::getConsumed).sum();
+    final int consumed = closedConsumed + openPersonDays.size();
+    mealTicketRecap.setConsumed(consumed);
+
+    //Imposto i rimanenti
+    mealTicketRecap.setRemaining(expireOrderedAscPostInit.size() - consumed + sourced);
+
+    //Matching dei buoni coi giorni: il giorno i-esimo successivo a quelli coperti dai buoni da
+    //inizializzazione consuma il buono i-esimo in ordine di scadenza. Se i buoni da
+    //inizializzazione sono negativi nessun giorno ne è coperto.
+    for (MealTicket mealTicket : expireOrderedAsc) {
+      mealTicket.used = false;
+    }
+    final int covered = Math.max(0, sourced);
+    final int assigned = Math.min(expireOrderedAscPostInit.size(), Math.max(0, consumed - covered));
+    for (int i = 0; i < assigned; i++) {
+      expireOrderedAscPostInit.get(i).used = true;
+    }
+
+    final Map<YearMonth, List<PersonDay>> loaded = Maps.newHashMap();
+    final Function<MealTicketLedger, List<PersonDay>> monthDays = row -> {
+      List<PersonDay> days = loaded.computeIfAbsent(row.getYearMonth(), closedMonthPersonDays);
+      Preconditions.checkState(days.size() == row.getConsumed(),
+          "Movimenti dei buoni pasto del mese %s non allineati", row.getYearMonth());
+      return days;
+    };
+
+    //Non ho altri buoni pasto da assegnare. Run Out.
+    if (consumed > covered + expireOrderedAscPostInit.size()) {
+      int runOut = covered + expireOrderedAscPostInit.size();
+      int start = 0;
+      for (MealTicketLedger row : ledger) {
+        if (runOut < start + row.getConsumed()) {
+          mealTicketRecap.setDateRunOut(monthDays.apply(row).get(runOut - start).getDate());
+          break;
+        }
+        start += row.getConsumed();
+      }
+      if (mealTicketRecap.getDateRunOut() == null) {
+        mealTicketRecap.setDateRunOut(openPersonDays.get(runOut - closedConsumed).getDate());
+      }
+    }
+
+    //Mi salvo la data in cui ho iniziato a consumare buoni pasto scaduti. Un mese concluso
+    //va esaminato solo se il primo buono consumato nel mese scade prima della sua fine.
+    int start = 0;
+    for (MealTicketLedger row : ledger) {
+      int from = Math.max(start, covered);
+      int to = Math.min(start + row.getConsumed(), covered + assigned);
+      if (from < to && expireOrderedAscPostInit.get(from - covered).getExpireDate()
+          .isBefore(row.getYearMonth().atEndOfMonth())) {
+        List<PersonDay> days = monthDays.apply(row);
+        for (int i = from; i < to; i++) {
+          if (days.get(i - start).getDate()
+              .isAfter(expireOrderedAscPostInit.get(i - covered).getExpireDate())) {
+            mealTicketRecap.setDateExpire(days.get(i - start).getDate());
+            break;
+          }
+        }
+        if (mealTicketRecap.getDateExpire() != null) {
+          break;
+        }
+      }
+      start += row.getConsumed();
+    }
+
+    //Giorni del periodo aperto
+    for (int i = Math.max(closedConsumed, covered); i < covered + assigned; i++) {
+      PersonDay personDay = openPersonDays.get(i - closedConsumed);
+      MealTicket mealTicket = expireOrderedAscPostInit.get(i - covered);
+      if (mealTicketRecap.getDateExpire() == null
+          && personDay.getDate().isAfter(mealTicket.getExpireDate())) {
+        mealTicketRecap.setDateExpire(personDay.getDate());
+      }
+      personDay.setMealTicketAssigned(mealTicket);
+    }
+
+    return mealTicketRecap;
+  }
+}
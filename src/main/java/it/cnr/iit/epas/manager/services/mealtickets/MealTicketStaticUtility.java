@@ -24,6 +24,7 @@ import it.cnr.iit.epas.models.MealTicket;
 import it.cnr.iit.epas.utils.DateInterval;
 import it.cnr.iit.epas.utils.DateUtility;
 import java.math.BigDecimal;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +34,41 @@ import java.util.Optional;
  */
 public class MealTicketStaticUtility {
 
+  /**
+   * Ordinamento per data di scadenza crescente e per codice, lo stesso della query con
+   * MealTicketOrder.ORDER_BY_EXPIRE_DATE_ASC.
+   */
+  public static final Comparator<MealTicket> EXPIRE_DATE_ASC =
+      Comparator.comparing(MealTicket::getExpireDate)
+          .thenComparing(MealTicket::getBlock, Comparator.nullsLast(Comparator.naturalOrder()))
+          .thenComparing(MealTicket::getNumber, Comparator.nullsLast(Comparator.naturalOrder()));
+
+  /**
+   * Ordinamento per data di consegna decrescente e per codice, lo stesso della query con
+   * MealTicketOrder.ORDER_BY_DELIVERY_DATE_DESC.
+   */
+  public static final Comparator<MealTicket> DELIVERY_DATE_DESC =
+      Comparator.comparing(MealTicket::getDate, Comparator.reverseOrder())
+          .thenComparing(MealTicket::getBlock, Comparator.nullsLast(Comparator.naturalOrder()))
+          .thenComparing(MealTicket::getNumber, Comparator.nullsLast(Comparator.naturalOrder()));
+
+  /**
+   * I buoni pasto da inizializzazione del contratto che ricadono nell'intervallo di gestione dei
+   * buoni pasto.
+   *
+   * @param contract il contratto
+   * @param mealTicketInterval l'intervallo di gestione dei buoni pasto del contratto
+   * @return il numero dei buoni pasto da inizializzazione da considerare.
+   */
+  public static int sourcedInInterval(Contract contract, DateInterval mealTicketInterval) {
+    if (contract.getSourceDateMealTicket() != null
+        && DateUtility.isDateIntoInterval(contract.getSourceDateMealTicket().plusDays(1),
+            DateInterval.withBegin(mealTicketInterval.getBegin(), Optional.empty()))) {
+      return contract.getSourceRemainingMealTicket();
+    }
+    return 0;
+  }
+
   /**
    * Costruisce i blocchi di codici consecutivi a partire dalla lista ordinata di buoni pasto.
    *
@@ -24,12 +24,13 @@ import it.cnr.iit.epas.dao.PersonDao;
 import it.cnr.iit.epas.dao.wrapper.IWrapperContract;
 import it.cnr.iit.epas.dao.wrapper.IWrapperFactory;
 import it.cnr.iit.epas.manager.ConsistencyManager;
-import it.cnr.iit.epas.manager.configurations.ConfigurationManager;
+import it.cnr.iit.epas.manager.MealTicketLedgerManager;
 import it.cnr.iit.epas.manager.configurations.EpasParam;
 import it.cnr.iit.epas.models.Configuration;
 import it.cnr.iit.epas.models.Contract;
 import it.cnr.iit.epas.models.ContractMonthRecap;
 import it.cnr.iit.epas.models.MealTicket;
+import it.cnr.iit.epas.models.MealTicketLedger;
 import it.cnr.iit.epas.models.Office;
 import it.cnr.iit.epas.models.PersonDay;
 import it.cnr.iit.epas.models.dto.MealTicketComposition;
@@ -58,7 +59,7 @@ public class MealTicketsServiceImpl implements IMealTicketsService {
   private IWrapperFactory wrapperFactory;
   private ConsistencyManager consistencyManager;
   private MealTicketRecapBuilder mealTicketRecapBuilder;
-  private ConfigurationManager configurationManager;
+  private MealTicketLedgerManager mealTicketLedgerManager;
   private ObjectProvider<EntityManager> emp;
 
   /**
@@ -66,7 +67,7 @@ public class MealTicketsServiceImpl implements IMealTicketsService {
    *
    * @param personDao            personDao
    * @param mealTicketDao        mealTicketDao
-   * @param configurationManager configurationManager
+   * @param mealTicketLedgerManager mealTicketLedgerManager
    * @param consistencyManager   consistencyManager
    * @param wrapperFactory       wrapperFactory
    */
@@ -74,7 +75,7 @@ public class MealTicketsServiceImpl implements IMealTicketsService {
   public MealTicketsServiceImpl(PersonDao personDao,
       MealTicketDao mealTicketDao,
       ConsistencyManager consistencyManager,
-      ConfigurationManager configurationManager,
+      MealTicketLedgerManager mealTicketLedgerManager,
       MealTicketRecapBuilder mealTicketRecapBuilder,
       IWrapperFactory wrapperFactory,
       ObjectProvider<EntityManager> emp) {
@@ -82,14 +83,15 @@ public class MealTicketsServiceImpl implements IMealTicketsService {
     this.personDao = personDao;
     this.mealTicketDao = mealTicketDao;
     this.consistencyManager = consistencyManager;
-    this.configurationManager = configurationManager;
+    this.mealTicketLedgerManager = mealTicketLedgerManager;
     this.mealTicketRecapBuilder = mealTicketRecapBuilder;
     this.wrapperFactory = wrapperFactory;
     this.emp = emp;
   }
 
   /**
-   * Creat un'istanza di MealTicketRecap a partire da un Contract.
+   * Creat un'istanza di MealTicketRecap a partire da un Contract. I giorni dei mesi conclusi
+   * sono letti dai movimenti mensili del contratto, quelli del mese in corso dai person day.
    */
   @Override
   public Optional<MealTicketRecap> create(Contract contract) {
@@ -102,28 +104,25 @@ public class MealTicketsServiceImpl implements IMealTicketsService {
       return Optional.<MealTicketRecap>empty();
     }
 
-    List<PersonDay> personDays = personDao.getPersonDayIntoInterval(contract.person,
-        dateInterval.get(), true);
+    final DateInterval mealTicketInterval = dateInterval.get();
 
-    List<MealTicket> expireOrderedAsc = mealTicketDao
-        .contractMealTickets(contract, Optional.empty(),
-            MealTicketOrder.ORDER_BY_EXPIRE_DATE_ASC, false);
-    
-    List<MealTicket> expireOrderedAscPostInit = mealTicketDao
-        .contractMealTickets(contract, dateInterval,
-            MealTicketOrder.ORDER_BY_EXPIRE_DATE_ASC, false);
+    List<MealTicket> mealTickets = mealTicketDao.contractMealTickets(contract);
 
-    List<MealTicket> deliveryOrderedDesc = mealTicketDao
-        .contractMealTickets(contract, Optional.empty(),
-            MealTicketOrder.ORDER_BY_DELIVERY_DATE_DESC, false);
+    List<MealTicketLedger> ledger =
+        mealTicketLedgerManager.ledger(contract, mealTicketInterval, mealTickets);
 
-    List<MealTicket> returnedDeliveryOrderedDesc = mealTicketDao
-        .contractMealTickets(contract, Optional.empty(),
-            MealTicketOrder.ORDER_BY_DELIVERY_DATE_DESC, true);
+    LocalDate openBegin = MealTicketLedgerManager.openPeriodBegin(mealTicketInterval);
+    List<PersonDay> openPersonDays = openBegin.isAfter(mealTicketInterval.getEnd())
+        ? Lists.newArrayList()
+        : personDao.getPersonDayIntoInterval(contract.person,
+            new DateInterval(openBegin, mealTicketInterval.getEnd()), true);
 
     return Optional.ofNullable(mealTicketRecapBuilder.buildMealTicketRecap(
-        contract, dateInterval.get(), personDays, expireOrderedAsc, expireOrderedAscPostInit, 
-        deliveryOrderedDesc, returnedDeliveryOrderedDesc));
+        contract, mealTicketInterval, ledger, openPersonDays, mealTickets,
+        month -> personDao.getPersonDayIntoInterval(contract.person,
+            DateUtility.intervalIntersection(
+                new DateInterval(month.atDay(1), month.atEndOfMonth()), mealTicketInterval),
+            true)));
   }
 
   /**
@@ -135,22 +134,7 @@ public class MealTicketsServiceImpl implements IMealTicketsService {
    */
   @Override
   public Optional<DateInterval> getContractMealTicketDateInterval(Contract contract) {
-
-    DateInterval intervalForMealTicket = wrapperFactory.create(contract)
-        .getContractDatabaseIntervalForMealTicket();
-
-    LocalDate officeStartDate = (LocalDate) configurationManager
-        .configValue(contract.person.getOffice(), EpasParam.DATE_START_MEAL_TICKET);
-
-    if (officeStartDate.isBefore(intervalForMealTicket.getBegin())) {
-      return Optional.of(intervalForMealTicket);
-    }
-    if (DateUtility.isDateIntoInterval(officeStartDate, intervalForMealTicket)) {
-      return Optional.of(new DateInterval(officeStartDate,
-          intervalForMealTicket.getEnd()));
-    }
-
-    return Optional.<DateInterval>empty();
+    return mealTicketLedgerManager.mealTicketInterval(contract);
   }
 
   /**
@@ -18,7 +18,9 @@
 package it.cnr.iit.epas.models;
 
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
@@ -38,6 +40,7 @@ import org.hibernate.envers.Audited;
 @Getter
 @Setter
 @Entity
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "competences")
 @Audited
 public class Competence extends BaseEntity {
@@ -20,8 +20,10 @@ package it.cnr.iit.epas.models;
 import it.cnr.iit.epas.manager.configurations.EpasParam;
 import it.cnr.iit.epas.models.base.IPropertiesInPeriodOwner;
 import it.cnr.iit.epas.models.base.PropertyInPeriod;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -36,6 +38,7 @@ import org.hibernate.envers.Audited;
  */
 @Audited
 @Entity
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "configurations")
 public class Configuration extends PropertyInPeriod {
 
@@ -25,9 +25,12 @@ import it.cnr.iit.epas.models.base.IPropertiesInPeriodOwner;
 import it.cnr.iit.epas.models.base.IPropertyInPeriod;
 import it.cnr.iit.epas.models.base.PeriodModel;
 import it.cnr.iit.epas.models.enumerate.ContractType;
+import it.cnr.iit.epas.models.listeners.ContractTimelineListener;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -63,6 +66,7 @@ import org.hibernate.envers.NotAudited;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@EntityListeners({RecapVersionListener.class, ContractTimelineListener.class})
 @Table(name = "contracts")
 @Audited
 public class Contract extends PeriodModel implements IPropertiesInPeriodOwner {
@@ -160,6 +164,10 @@ public class Contract extends PeriodModel implements IPropertiesInPeriodOwner {
   @OneToMany(mappedBy = "contract", cascade = CascadeType.REMOVE)
   public List<MealTicket> mealTickets;
 
+  @NotAudited
+  @OneToMany(mappedBy = "contract", cascade = CascadeType.REMOVE)
+  private List<MealTicketLedger> mealTicketLedger = Lists.newArrayList();
+
   @NotNull
   private boolean onCertificate = true;
 
@@ -19,10 +19,12 @@ package it.cnr.iit.epas.models;
 
 import it.cnr.iit.epas.dao.wrapper.IWrapperContract;
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import it.cnr.iit.epas.utils.DateInterval;
 import it.cnr.iit.epas.utils.DateUtility;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -43,6 +45,7 @@ import org.hibernate.envers.Audited;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@EntityListeners(RecapVersionListener.class)
 @Table(
     name = "contract_month_recap",
     uniqueConstraints = {@UniqueConstraint(columnNames = {"year", "month", "contract_id"})})
@@ -20,7 +20,10 @@ package it.cnr.iit.epas.models;
 import it.cnr.iit.epas.models.base.IPropertiesInPeriodOwner;
 import it.cnr.iit.epas.models.base.IPropertyInPeriod;
 import it.cnr.iit.epas.models.base.PropertyInPeriod;
+import it.cnr.iit.epas.models.listeners.ContractTimelineListener;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -45,6 +48,7 @@ import org.hibernate.envers.NotAudited;
 @ToString
 @Audited
 @Entity
+@EntityListeners({RecapVersionListener.class, ContractTimelineListener.class})
 @Table(name = "contracts_working_time_types")
 public class ContractWorkingTimeType extends PropertyInPeriod implements IPropertyInPeriod {
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.models;
+
+import it.cnr.iit.epas.models.base.BaseEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import java.time.YearMonth;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Movimenti mensili dei buoni pasto di un contratto.
+ *
+ * <p>Esiste una riga per ogni mese concluso dell'intervallo di gestione dei buoni pasto del
+ * contratto. I conteggi sono quelli del mese (limitati all'intervallo di gestione), remaining
+ * è il saldo a fine mese comprensivo dei buoni da inizializzazione.</p>
+ */
+@Getter
+@Setter
+@ToString
+@Entity
+@Table(name = "meal_ticket_ledgers",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"contract_id", "year", "month"}))
+public class MealTicketLedger extends BaseEntity {
+
+  private static final long serialVersionUID = -2370467416342907515L;
+
+  @NotNull
+  @ToString.Exclude
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "contract_id", nullable = false, updatable = false)
+  private Contract contract;
+
+  @Column(nullable = false)
+  private int year;
+
+  @Column(nullable = false)
+  private int month;
+
+  /**
+   * Buoni pasto consegnati nel mese e non riconsegnati.
+   */
+  private int delivered;
+
+  /**
+   * Giorni del mese che hanno maturato il buono pasto.
+   */
+  private int consumed;
+
+  /**
+   * Buoni pasto consegnati nel mese e successivamente riconsegnati.
+   */
+  private int returned;
+
+  /**
+   * Buoni pasto non riconsegnati con scadenza nel mese.
+   */
+  private int expired;
+
+  /**
+   * Saldo dei buoni pasto a fine mese.
+   */
+  private int remaining;
+
+  public YearMonth getYearMonth() {
+    return YearMonth.of(year, month);
+  }
+}
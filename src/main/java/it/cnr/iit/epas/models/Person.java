@@ -204,6 +204,18 @@ public class Person extends PeriodModel implements IPropertiesInPeriodOwner {
   @OneToMany(mappedBy = "person", cascade = {CascadeType.REMOVE})
   private List<PersonShift> personShifts = Lists.newArrayList();
 
+  @NotAudited
+  @OneToMany(mappedBy = "person", cascade = {CascadeType.REMOVE})
+  private Set<RecomputeRequest> recomputeRequests = Sets.newHashSet();
+
+  @NotAudited
+  @OneToMany(mappedBy = "person", cascade = {CascadeType.REMOVE})
+  private Set<RecapVersion> recapVersions = Sets.newHashSet();
+
+  @NotAudited
+  @OneToMany(mappedBy = "person", cascade = {CascadeType.REMOVE})
+  private Set<PersonStampingRecapSnapshot> stampingRecapSnapshots = Sets.newHashSet();
+
   @ManyToOne
   @NotNull
   private Qualification qualification;
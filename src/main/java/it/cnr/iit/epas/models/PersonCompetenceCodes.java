@@ -18,7 +18,9 @@
 package it.cnr.iit.epas.models;
 
 import it.cnr.iit.epas.models.base.PeriodModel;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -35,6 +37,7 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "persons_competence_codes")
 public class PersonCompetenceCodes extends PeriodModel {
 
@@ -21,9 +21,11 @@ import it.cnr.iit.epas.models.absences.Absence;
 import it.cnr.iit.epas.models.base.BaseEntity;
 import it.cnr.iit.epas.models.enumerate.MealTicketBehaviour;
 import it.cnr.iit.epas.models.enumerate.Troubles;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -38,6 +40,8 @@ import java.util.List;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.envers.Audited;
 import org.hibernate.envers.NotAudited;
 import org.springframework.beans.BeanUtils;
@@ -50,6 +54,7 @@ import org.springframework.beans.BeanUtils;
  */
 @NoArgsConstructor
 @Entity
+@EntityListeners(RecapVersionListener.class)
 @Audited
 @Table(name = "person_days",
     uniqueConstraints = {@UniqueConstraint(columnNames = {"person_id", "date"})})
@@ -142,6 +147,7 @@ public class PersonDay extends BaseEntity {
 
   @NotAudited
   @OneToMany(mappedBy = "personDay", cascade = {CascadeType.PERSIST, CascadeType.REMOVE})
+  @Fetch(FetchMode.SUBSELECT)
   private List<PersonDayInTrouble> troubles = new ArrayList<PersonDayInTrouble>();
   
   @ManyToOne
@@ -19,7 +19,9 @@ package it.cnr.iit.epas.models;
 
 import it.cnr.iit.epas.models.base.BaseEntity;
 import it.cnr.iit.epas.models.enumerate.Troubles;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.JoinColumn;
@@ -38,6 +40,7 @@ import org.hibernate.envers.Audited;
 @Setter
 @Audited
 @Entity
+@EntityListeners(RecapVersionListener.class)
 public class PersonDayInTrouble extends BaseEntity {
 
   private static final long serialVersionUID = 4802468368796902865L;
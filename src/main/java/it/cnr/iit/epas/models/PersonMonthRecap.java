@@ -19,7 +19,9 @@ package it.cnr.iit.epas.models;
 
 import com.google.common.base.MoreObjects;
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -40,6 +42,7 @@ import lombok.Setter;
 @Setter
 @Table(name = "person_month_recap")
 @Entity
+@EntityListeners(RecapVersionListener.class)
 public class PersonMonthRecap extends BaseEntity {
 
   private static final long serialVersionUID = -8423858325056981355L;
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.models;
+
+import it.cnr.iit.epas.models.base.BaseEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Riepilogo mensile delle timbrature di un mese chiuso, già serializzato in JSON.
+ *
+ * <p>La riga è utilizzata solo se recapVersion coincide con la versione corrente dei dati del
+ * mese (vedi RecapVersions), quindi una riga salvata da una lettura concorrente ad una
+ * modifica non è mai restituita. Le righe sono rimosse anche dal motore di ricalcolo quando
+ * una modifica retroattiva coinvolge il mese o uno dei mesi precedenti. Non è presente un
+ * vincolo di unicità: in caso di letture concorrenti dello stesso mese viene usata la riga più
+ * recente.</p>
+ */
+@Getter
+@Setter
+@ToString
+@Entity
+@Table(name = "person_stamping_recap_snapshots",
+    indexes = @Index(name = "person_stamping_recap_snapshots_person_idx",
+        columnList = "person_id, year, month"))
+public class PersonStampingRecapSnapshot extends BaseEntity {
+
+  private static final long serialVersionUID = 6904132280937655121L;
+
+  @NotNull
+  @ToString.Exclude
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "person_id", nullable = false, updatable = false)
+  private Person person;
+
+  @Column(nullable = false)
+  private int year;
+
+  @Column(nullable = false)
+  private int month;
+
+  /**
+   * Il PersonStampingRecapDto del mese serializzato in JSON.
+   */
+  @NotNull
+  @ToString.Exclude
+  @Column(nullable = false, columnDefinition = "text")
+  private String content;
+
+  /**
+   * La versione dei dati del mese letta prima del calcolo del riepilogo.
+   */
+  @NotNull
+  @Column(name = "recap_version", nullable = false)
+  private String recapVersion;
+
+  @NotNull
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  public YearMonth getYearMonth() {
+    return YearMonth.of(year, month);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.models;
+
+import it.cnr.iit.epas.models.base.BaseEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Contatore delle modifiche ai dati da cui dipendono i riepiloghi (o le situazioni ferie) di
+ * una persona, per mese, per anno (mese a zero) e per l'intera persona (anno e mese a zero).
+ *
+ * <p>Il contatore è incrementato nella stessa transazione che modifica i dati, quindi è
+ * condiviso da tutte le istanze dell'applicazione. Le righe non sono mai rimosse se non con
+ * la persona: un contatore assente vale zero.</p>
+ */
+@Getter
+@Setter
+@ToString
+@Entity
+@Table(name = "recap_versions",
+    uniqueConstraints = @UniqueConstraint(
+        columnNames = {"person_id", "scope", "year", "month"}))
+public class RecapVersion extends BaseEntity {
+
+  private static final long serialVersionUID = -2687149342318503425L;
+
+  /**
+   * I dati a cui si riferisce il contatore.
+   */
+  public enum Scope {
+    /**
+     * Tutti i dati dei riepiloghi mensili e annuali.
+     */
+    RECAPS,
+    /**
+     * Solo i dati delle situazioni ferie e permessi (assenze, contratti, piani ferie,
+     * inizializzazioni).
+     */
+    VACATIONS
+  }
+
+  @NotNull
+  @ToString.Exclude
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "person_id", nullable = false, updatable = false)
+  private Person person;
+
+  @NotNull
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, updatable = false)
+  private Scope scope;
+
+  @Column(nullable = false, updatable = false)
+  private int year;
+
+  @Column(nullable = false, updatable = false)
+  private int month;
+
+  @Column(nullable = false)
+  private long counter;
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.models;
+
+import it.cnr.iit.epas.models.base.BaseEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Richiesta di ricalcolo della situazione di una persona a partire da una data.
+ *
+ * <p>Esiste al più una richiesta per persona: le richieste successive per la stessa persona
+ * sono accorpate spostando fromDate alla data minore e aggiornando requestedAt. La richiesta
+ * è rimossa quando il ricalcolo è concluso, se nel frattempo non è stata modificata.</p>
+ */
+@Getter
+@Setter
+@ToString
+@Entity
+@Table(name = "recompute_requests",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"person_id"}))
+public class RecomputeRequest extends BaseEntity {
+
+  private static final long serialVersionUID = 3412057703218854512L;
+
+  @NotNull
+  @ToString.Exclude
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "person_id", nullable = false, updatable = false)
+  private Person person;
+
+  @NotNull
+  @Column(name = "from_date", nullable = false)
+  private LocalDate fromDate;
+
+  /**
+   * Ultimo giorno modificato dalle richieste accorpate, se null la situazione va ricalcolata
+   * completamente da fromDate.
+   */
+  @Column(name = "to_date")
+  private LocalDate toDate;
+  /**
+   * Istante dell'ultima richiesta accorpata, il ricalcolo parte trascorso l'intervallo di
+   * debounce da questo istante.
+   */
+  @NotNull
+  @Column(name = "requested_at", nullable = false)
+  private LocalDateTime requestedAt;
+
+  /**
+   * Numero di tentativi di ricalcolo falliti.
+   */
+  private int attempts;
+
+  @Column(name = "last_error")
+  private String lastError;
+
+  /**
+   * Istante fino al quale la richiesta è in elaborazione da parte di un'istanza, le altre
+   * istanze non la elaborano fino a questo istante.
+   */
+  @Column(name = "claimed_until")
+  private LocalDateTime claimedUntil;
+}
@@ -20,8 +20,10 @@ package it.cnr.iit.epas.models;
 import com.google.common.base.MoreObjects;
 import it.cnr.iit.epas.models.base.BaseEntity;
 import it.cnr.iit.epas.models.enumerate.StampTypes;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -47,6 +49,7 @@ import org.hibernate.envers.Audited;
 @Setter
 @Audited
 @Entity
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "stampings")
 public class Stamping extends BaseEntity implements Comparable<Stamping> {
 
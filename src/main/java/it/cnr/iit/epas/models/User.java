@@ -22,10 +22,12 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import it.cnr.iit.epas.models.base.BaseEntity;
 import it.cnr.iit.epas.models.enumerate.AccountRole;
+import it.cnr.iit.epas.models.listeners.UserListener;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -54,6 +56,7 @@ import org.hibernate.envers.NotAudited;
 @Getter
 @Setter
 @Entity
+@EntityListeners(UserListener.class)
 @Audited
 @Table(name = "users", uniqueConstraints = {@UniqueConstraint(columnNames = {"username"})})
 public class User extends BaseEntity {
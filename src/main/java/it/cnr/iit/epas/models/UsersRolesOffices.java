@@ -19,7 +19,9 @@ package it.cnr.iit.epas.models;
 
 import com.google.common.base.MoreObjects;
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.UserListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -39,6 +41,7 @@ import org.hibernate.envers.Audited;
 @Getter
 @Setter
 @Entity
+@EntityListeners(UserListener.class)
 @Table(name = "users_roles_offices")
 @Audited
 public class UsersRolesOffices extends BaseEntity {
@@ -21,8 +21,11 @@ import it.cnr.iit.epas.models.base.IPropertiesInPeriodOwner;
 import it.cnr.iit.epas.models.base.IPropertyInPeriod;
 import it.cnr.iit.epas.models.base.PropertyInPeriod;
 import it.cnr.iit.epas.models.enumerate.VacationCode;
+import it.cnr.iit.epas.models.listeners.ContractTimelineListener;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -42,6 +45,7 @@ import org.hibernate.envers.Audited;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@EntityListeners({RecapVersionListener.class, ContractTimelineListener.class})
 @Table(name = "vacation_periods")
 @Audited
 public class VacationPeriod extends PropertyInPeriod implements IPropertyInPeriod {
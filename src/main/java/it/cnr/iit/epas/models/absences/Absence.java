@@ -25,12 +25,17 @@ import it.cnr.iit.epas.models.TimeVariation;
 import it.cnr.iit.epas.models.absences.JustifiedBehaviour.JustifiedBehaviourName;
 import it.cnr.iit.epas.models.absences.JustifiedType.JustifiedTypeName;
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
@@ -41,6 +46,7 @@ import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.envers.Audited;
@@ -53,6 +59,7 @@ import org.hibernate.envers.NotAudited;
 @Setter
 @Audited
 @Entity
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "absences")
 public class Absence extends BaseEntity {
 
@@ -99,12 +106,32 @@ public class Absence extends BaseEntity {
   @NotAudited
   private LocalDateTime updatedAt;
 
+  /**
+   * Il personDay dell'assenza all'ultima lettura o scrittura sul database. Permette a
+   * RecapVersionListener di registrare la modifica anche del giorno da cui l'assenza è stata
+   * spostata.
+   */
+  @Setter(AccessLevel.NONE)
+  @Transient
+  private PersonDay storedPersonDay;
+
   @PreUpdate
   @PrePersist
   private void onUpdate() {
     this.updatedAt = LocalDateTime.now();
   }
 
+  /**
+   * Invocato dopo RecapVersionListener, che nelle modifiche legge ancora il personDay
+   * precedente.
+   */
+  @PostLoad
+  @PostPersist
+  @PostUpdate
+  private void onStored() {
+    this.storedPersonDay = personDay;
+  }
+
   @Override
   public String toString() {
     if (personDay == null) {
@@ -25,16 +25,19 @@ import com.google.common.collect.Sets;
 import it.cnr.iit.epas.models.Qualification;
 import it.cnr.iit.epas.models.absences.GroupAbsenceType.GroupAbsenceTypePattern;
 import it.cnr.iit.epas.models.absences.JustifiedBehaviour.JustifiedBehaviourName;
-import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType;
 import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType.Behaviour;
+import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType;
 import it.cnr.iit.epas.models.absences.definitions.DefaultGroup;
 import it.cnr.iit.epas.models.base.BaseEntity;
 import it.cnr.iit.epas.models.enumerate.MealTicketBehaviour;
 import it.cnr.iit.epas.models.enumerate.QualificationMapping;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import it.cnr.iit.epas.utils.DateInterval;
 import it.cnr.iit.epas.utils.DateUtility;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.JoinColumn;
@@ -51,6 +54,8 @@ import java.util.Optional;
 import java.util.Set;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.LazyCollection;
 import org.hibernate.annotations.LazyCollectionOption;
 import org.hibernate.envers.Audited;
@@ -61,6 +66,9 @@ import org.hibernate.envers.Audited;
 @Getter
 @Setter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "absence_types")
 @Audited
 public class AbsenceType extends BaseEntity {
@@ -100,6 +108,7 @@ public class AbsenceType extends BaseEntity {
 
   private boolean toUpdate = true;
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @ManyToMany
   @JoinTable(name = "absence_types_justified_types", 
       joinColumns = { @JoinColumn(name = "absence_types_id") }, 
@@ -23,7 +23,10 @@ import com.google.common.collect.Sets;
 import it.cnr.iit.epas.models.absences.definitions.DefaultCategoryType;
 import it.cnr.iit.epas.models.base.BaseEntity;
 import it.cnr.iit.epas.models.contractuals.ContractualClause;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -37,6 +40,8 @@ import java.util.SortedMap;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
 /**
@@ -47,6 +52,9 @@ import org.hibernate.envers.Audited;
 @Setter
 @Audited
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "category_group_absence_types")
 public class CategoryGroupAbsenceType extends BaseEntity 
     implements Comparable<CategoryGroupAbsenceType> {
@@ -59,6 +67,7 @@ public class CategoryGroupAbsenceType extends BaseEntity
   
   public int priority;
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @OneToMany(mappedBy = "category", fetch = FetchType.LAZY)
   public Set<GroupAbsenceType> groupAbsenceTypes;
 
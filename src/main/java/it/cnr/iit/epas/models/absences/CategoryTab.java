@@ -20,7 +20,10 @@ package it.cnr.iit.epas.models.absences;
 import com.google.common.collect.Sets;
 import it.cnr.iit.epas.models.absences.definitions.DefaultTab;
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
@@ -28,6 +31,8 @@ import java.util.Optional;
 import java.util.Set;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
 /**
@@ -37,6 +42,9 @@ import org.hibernate.envers.Audited;
 @Setter
 @Audited
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "category_tabs")
 public class CategoryTab extends BaseEntity implements Comparable<CategoryTab> {
 
@@ -50,6 +58,7 @@ public class CategoryTab extends BaseEntity implements Comparable<CategoryTab> {
 
   public boolean isDefault = false;
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @OneToMany(mappedBy = "tab", fetch = FetchType.LAZY)
   public Set<CategoryGroupAbsenceType> categoryGroupAbsenceTypes = Sets.newHashSet();
 
@@ -21,8 +21,11 @@ import com.google.common.collect.Sets;
 import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType;
 import it.cnr.iit.epas.models.absences.definitions.DefaultComplation;
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -36,6 +39,8 @@ import java.util.Optional;
 import java.util.Set;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
 /**
@@ -45,6 +50,9 @@ import org.hibernate.envers.Audited;
 @Setter
 @Audited
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "complation_absence_behaviours")
 public class ComplationAbsenceBehaviour extends BaseEntity {
 
@@ -55,12 +63,14 @@ public class ComplationAbsenceBehaviour extends BaseEntity {
   @Column(name = "name")
   public String name;
   
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @OneToMany(mappedBy = "complationAbsenceBehaviour", fetch = FetchType.LAZY)
   public Set<GroupAbsenceType> groupAbsenceTypes = Sets.newHashSet();
 
   @Enumerated(EnumType.STRING)
   public AmountType amountType;
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @ManyToMany
   @JoinTable(name = "complation_codes_group", 
         joinColumns = { @JoinColumn(name = "complation_behaviour_id") }, 
@@ -68,6 +78,7 @@ public class ComplationAbsenceBehaviour extends BaseEntity {
   @OrderBy("code")
   public Set<AbsenceType> complationCodes = Sets.newHashSet();
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @ManyToMany
   @JoinTable(name = "replacing_codes_group", 
         joinColumns = { @JoinColumn(name = "complation_behaviour_id") }, 
@@ -21,8 +21,11 @@ import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
 import it.cnr.iit.epas.models.absences.definitions.DefaultGroup;
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import it.cnr.iit.epas.utils.DateInterval;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -36,6 +39,8 @@ import java.util.Optional;
 import java.util.Set;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
 /**
@@ -45,6 +50,9 @@ import org.hibernate.envers.Audited;
 @Setter
 @Audited
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "group_absence_types")
 public class GroupAbsenceType extends BaseEntity {
 
@@ -92,6 +100,7 @@ public class GroupAbsenceType extends BaseEntity {
   @JoinColumn(name = "next_group_to_check_id")
   public GroupAbsenceType nextGroupToCheck;
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @OneToMany(mappedBy = "nextGroupToCheck", fetch = FetchType.LAZY)
   public Set<GroupAbsenceType> previousGroupChecked = Sets.newHashSet();
 
@@ -20,7 +20,9 @@ package it.cnr.iit.epas.models.absences;
 import com.google.common.collect.Lists;
 import it.cnr.iit.epas.models.Person;
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -40,6 +42,7 @@ import org.hibernate.envers.Audited;
 @Setter
 @Audited
 @Entity
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "initialization_groups")
 public class InitializationGroup extends BaseEntity {
 
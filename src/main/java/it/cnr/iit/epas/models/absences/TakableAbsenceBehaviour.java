@@ -20,8 +20,11 @@ package it.cnr.iit.epas.models.absences;
 import com.google.common.collect.Sets;
 import it.cnr.iit.epas.models.absences.definitions.DefaultTakable;
 import it.cnr.iit.epas.models.base.BaseEntity;
+import it.cnr.iit.epas.models.listeners.RecapVersionListener;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -36,6 +39,8 @@ import java.util.Optional;
 import java.util.Set;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
 
@@ -48,6 +53,9 @@ import org.hibernate.envers.Audited;
 @Setter
 @Audited
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
+@EntityListeners(RecapVersionListener.class)
 @Table(name = "takable_absence_behaviours")
 public class TakableAbsenceBehaviour extends BaseEntity {
 
@@ -57,12 +65,14 @@ public class TakableAbsenceBehaviour extends BaseEntity {
 
   private String name;
   
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @OneToMany(mappedBy = "takableAbsenceBehaviour", fetch = FetchType.LAZY)
   private Set<GroupAbsenceType> groupAbsenceTypes = Sets.newHashSet();
   
   @Enumerated(EnumType.STRING)
   private AmountType amountType;
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @ManyToMany
   @JoinTable(name = "taken_codes_group", 
       joinColumns = { @JoinColumn(name = "takable_behaviour_id") }, 
@@ -75,6 +85,7 @@ public class TakableAbsenceBehaviour extends BaseEntity {
   //  public TakeCountBehaviour takableCountBehaviour;
   
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "absenceCatalog")
   @ManyToMany
   @JoinTable(name = "takable_codes_group", 
       joinColumns = { @JoinColumn(name = "takable_behaviour_id") }, 
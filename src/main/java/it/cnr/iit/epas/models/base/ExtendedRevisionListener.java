@@ -17,13 +17,15 @@
 
 package it.cnr.iit.epas.models.base;
 
+import it.cnr.iit.epas.dao.history.RevisionChangesTable;
 import it.cnr.iit.epas.models.User;
 import it.cnr.iit.epas.security.SecureUtils;
 import java.util.Optional;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
-import org.hibernate.envers.RevisionListener;
+import org.hibernate.envers.EntityTrackingRevisionListener;
+import org.hibernate.envers.RevisionType;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.context.request.RequestAttributes;
@@ -32,19 +34,21 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * Revision listener che aggiunge le informazioni su owner e ipaddress che hanno modificato
- * la revisione.
+ * la revisione e registra le entità modificate nella revisione.
  *
  * @author Cristian Lucchesi
  */
 @Slf4j
-public class ExtendedRevisionListener implements RevisionListener {
+public class ExtendedRevisionListener implements EntityTrackingRevisionListener {
 
   protected final ObjectProvider<SecureUtils> secureUtils;
-  
+  protected final ObjectProvider<RevisionChangesTable> revisionChangesTable;
 
   @Inject
-  public ExtendedRevisionListener(ObjectProvider<SecureUtils> securityUtils) {
+  public ExtendedRevisionListener(ObjectProvider<SecureUtils> securityUtils,
+      ObjectProvider<RevisionChangesTable> revisionChangesTable) {
     this.secureUtils = securityUtils;
+    this.revisionChangesTable = revisionChangesTable;
   }
 
   @Override
@@ -73,6 +77,21 @@ public class ExtendedRevisionListener implements RevisionListener {
     }
   }
 
+  /**
+   * Registra l'entità modificata nella revisione, in modo da poterne ricavare l'ultima
+   * revisione (e il relativo owner) con una sola query indicizzata. Non registra nulla finché
+   * la tabella revinfo_changes non è presente.
+   */
+  @SuppressWarnings("rawtypes")
+  @Override
+  public void entityChanged(Class entityClass, String entityName, Object entityId,
+      RevisionType revisionType, Object revisionEntity) {
+    if (entityId instanceof Long && revisionChangesTable.getObject().exists()) {
+      ((Revision) revisionEntity).getChanges()
+          .add(new RevisionChange(entityClass.getName(), (Long) entityId));
+    }
+  }
+
   private Optional<User> getUserFromCurrentSecurityContext() {
     val authentication = SecurityContextHolder.getContext().getAuthentication();
     return secureUtils.getObject().getUserFromAuthentication(authentication);
@@ -19,18 +19,25 @@ package it.cnr.iit.epas.models.base;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import com.google.common.collect.Sets;
 import it.cnr.iit.epas.models.User;
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Set;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.envers.RevisionEntity;
@@ -63,6 +70,15 @@ public class Revision {
   // ip address
   public String ipaddress;
 
+  /**
+   * Le entità modificate nella revisione, valorizzate da ExtendedRevisionListener.
+   */
+  @ElementCollection(fetch = FetchType.LAZY)
+  @CollectionTable(name = "revinfo_changes", joinColumns = @JoinColumn(name = "rev"),
+      indexes = @Index(name = "revinfo_changes_entity_idx",
+          columnList = "entity_name, entity_id, rev"))
+  public Set<RevisionChange> changes = Sets.newHashSet();
+
   @Transient
   public LocalDateTime getRevisionDate() {
     return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
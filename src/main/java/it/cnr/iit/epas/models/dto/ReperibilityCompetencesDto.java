@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.models.dto;
+
+import it.cnr.iit.epas.models.Person;
+
+/**
+ * Reperibilità nei feriali e nei festivi di un dipendente.
+ *
+ */
+public class ReperibilityCompetencesDto {
+
+  public Person person;
+
+  public WorkDaysReperibilityDto workdays;
+
+  public HolidaysReperibilityDto holidays;
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.models.listeners;
+
+import it.cnr.iit.epas.dao.wrapper.ContractTimelines;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.ContractWorkingTimeType;
+import it.cnr.iit.epas.models.VacationPeriod;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener per le modifiche a contratti, periodi di tipo orario e piani ferie, invalida la
+ * linea temporale dei contratti della persona in ContractTimelines.
+ */
+@RequiredArgsConstructor
+@Component
+public class ContractTimelineListener {
+
+  private final ContractTimelines contractTimelines;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void onChange(Object entity) {
+    Contract contract = null;
+    if (entity instanceof Contract) {
+      contract = (Contract) entity;
+    } else if (entity instanceof ContractWorkingTimeType) {
+      contract = ((ContractWorkingTimeType) entity).getContract();
+    } else if (entity instanceof VacationPeriod) {
+      contract = ((VacationPeriod) entity).getContract();
+    }
+    if (contract != null) {
+      contractTimelines.invalidate(contract.getPerson());
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.models.listeners;
+
+import it.cnr.iit.epas.manager.recaps.RecapVersions;
+import it.cnr.iit.epas.manager.services.absences.VacationSituationVersions;
+import it.cnr.iit.epas.models.Competence;
+import it.cnr.iit.epas.models.Configuration;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.ContractMonthRecap;
+import it.cnr.iit.epas.models.ContractWorkingTimeType;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonCompetenceCodes;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.PersonDayInTrouble;
+import it.cnr.iit.epas.models.PersonMonthRecap;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.VacationPeriod;
+import it.cnr.iit.epas.models.absences.Absence;
+import it.cnr.iit.epas.models.absences.AbsenceType;
+import it.cnr.iit.epas.models.absences.CategoryGroupAbsenceType;
+import it.cnr.iit.epas.models.absences.CategoryTab;
+import it.cnr.iit.epas.models.absences.ComplationAbsenceBehaviour;
+import it.cnr.iit.epas.models.absences.GroupAbsenceType;
+import it.cnr.iit.epas.models.absences.InitializationGroup;
+import it.cnr.iit.epas.models.absences.JustifiedType;
+import it.cnr.iit.epas.models.absences.TakableAbsenceBehaviour;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import java.time.YearMonth;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener per le modifiche ai dati da cui dipendono i riepiloghi mensili e annuali delle
+ * persone, incrementa le relative versioni in RecapVersions. Le competenze abilitate della
+ * persona e la configurazione dell'ufficio incrementano la versione di tutti i mesi delle
+ * persone interessate. Le modifiche ad assenze, contratti, piani ferie e inizializzazioni
+ * incrementano anche le versioni delle situazioni ferie in VacationSituationVersions, così come
+ * le modifiche al catalogo delle assenze (codici, gruppi, tipi giustificativi, categorie, tab e
+ * comportamenti).
+ */
+@RequiredArgsConstructor
+@Component
+public class RecapVersionListener {
+
+  private final RecapVersions recapVersions;
+  private final VacationSituationVersions vacationSituationVersions;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void onChange(Object entity) {
+    if (entity instanceof Stamping) {
+      personDayChanged(((Stamping) entity).getPersonDay());
+    } else if (entity instanceof Absence) {
+      Absence absence = (Absence) entity;
+      absenceChanged(absence.getPersonDay());
+      // l'assenza spostata su un altro giorno modifica anche il mese e l'anno di partenza
+      if (absence.getStoredPersonDay() != null
+          && absence.getStoredPersonDay() != absence.getPersonDay()) {
+        absenceChanged(absence.getStoredPersonDay());
+      }
+    } else if (entity instanceof PersonDay) {
+      personDayChanged((PersonDay) entity);
+    } else if (entity instanceof PersonDayInTrouble) {
+      personDayChanged(((PersonDayInTrouble) entity).getPersonDay());
+    } else if (entity instanceof ContractMonthRecap) {
+      ContractMonthRecap cmr = (ContractMonthRecap) entity;
+      if (cmr.getContract() != null) {
+        monthChanged(cmr.getContract().getPerson(), cmr.getYear(), cmr.getMonth());
+      }
+    } else if (entity instanceof PersonMonthRecap) {
+      PersonMonthRecap pmr = (PersonMonthRecap) entity;
+      if (pmr.getYear() != null && pmr.getMonth() != null) {
+        monthChanged(pmr.getPerson(), pmr.getYear(), pmr.getMonth());
+      }
+    } else if (entity instanceof Competence) {
+      Competence competence = (Competence) entity;
+      monthChanged(competence.getPerson(), competence.getYear(), competence.getMonth());
+    } else if (entity instanceof Contract) {
+      recapVersions.personChanged(((Contract) entity).getPerson());
+      vacationSituationVersions.personChanged(((Contract) entity).getPerson());
+    } else if (entity instanceof ContractWorkingTimeType) {
+      contractChanged(((ContractWorkingTimeType) entity).getContract());
+    } else if (entity instanceof VacationPeriod) {
+      contractChanged(((VacationPeriod) entity).getContract());
+      if (((VacationPeriod) entity).getContract() != null) {
+        vacationSituationVersions.personChanged(
+            ((VacationPeriod) entity).getContract().getPerson());
+      }
+    } else if (entity instanceof PersonCompetenceCodes) {
+      recapVersions.personChanged(((PersonCompetenceCodes) entity).getPerson());
+    } else if (entity instanceof Configuration) {
+      recapVersions.officeChanged(((Configuration) entity).office);
+    } else if (entity instanceof InitializationGroup) {
+      vacationSituationVersions.personChanged(((InitializationGroup) entity).getPerson());
+    } else if (entity instanceof AbsenceType || entity instanceof GroupAbsenceType
+        || entity instanceof JustifiedType || entity instanceof CategoryGroupAbsenceType
+        || entity instanceof CategoryTab || entity instanceof TakableAbsenceBehaviour
+        || entity instanceof ComplationAbsenceBehaviour) {
+      vacationSituationVersions.catalogChanged();
+    }
+  }
+
+  private void absenceChanged(PersonDay personDay) {
+    personDayChanged(personDay);
+    if (personDay != null) {
+      vacationSituationVersions.absenceChanged(personDay.getPerson(), personDay.getDate());
+    }
+  }
+
+  private void personDayChanged(PersonDay personDay) {
+    if (personDay != null && personDay.getDate() != null) {
+      recapVersions.monthChanged(personDay.getPerson(), YearMonth.from(personDay.getDate()));
+    }
+  }
+
+  private void monthChanged(Person person, int year, int month) {
+    if (month >= 1 && month <= 12) {
+      recapVersions.monthChanged(person, YearMonth.of(year, month));
+    }
+  }
+
+  private void contractChanged(Contract contract) {
+    if (contract != null) {
+      recapVersions.personChanged(contract.getPerson());
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.models.listeners;
+
+import it.cnr.iit.epas.manager.cache.OrganizationChartCache;
+import it.cnr.iit.epas.models.User;
+import it.cnr.iit.epas.models.UsersRolesOffices;
+import it.cnr.iit.epas.security.PermissionDecisionCache;
+import it.cnr.iit.epas.security.PrincipalCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener per le modifiche agli utenti ed ai loro ruoli, invalida le informazioni
+ * sugli utenti e gli organigrammi delle sedi mantenuti in cache.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Component
+public class UserListener {
+
+  private final PrincipalCache principalCache;
+  private final PermissionDecisionCache permissionDecisionCache;
+  private final OrganizationChartCache organizationChartCache;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void onChange(Object entity) {
+    if (entity instanceof User) {
+      principalCache.evict((User) entity);
+      permissionDecisionCache.evict((User) entity);
+      organizationChartCache.evictAll();
+    } else if (entity instanceof UsersRolesOffices) {
+      principalCache.evict(((UsersRolesOffices) entity).getUser());
+      permissionDecisionCache.evict(((UsersRolesOffices) entity).getUser());
+      organizationChartCache.evict(((UsersRolesOffices) entity).getOffice());
+    }
+  }
+}
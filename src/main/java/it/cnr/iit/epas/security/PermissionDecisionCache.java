@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import it.cnr.iit.epas.config.SecurityProperties;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.User;
+import it.cnr.iit.epas.models.UsersRolesOffices;
+import java.util.Objects;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache a breve scadenza degli esiti dei controlli delle autorizzazioni effettuati con le drools.
+ *
+ * <p>L'esito è memorizzato per utente, impronta dei suoi ruoli (di sistema e per ufficio),
+ * permesso normalizzato, metodo http e target. Sono memorizzati solo i controlli su uffici e
+ * persone, il cui esito dipende dall'identità del target. I controlli senza target o sui tipi
+ * di reperibilità dipendono anche dalle reperibilità della persona collegata all'utente, mentre
+ * per gli altri target (timbrature, assenze, mesi...) le regole valutano lo stato dell'oggetto:
+ * in questi casi le regole sono sempre applicate. Con permissionCacheTtl a zero la cache è
+ * disabilitata.</p>
+ */
+@Slf4j
+@Component
+public class PermissionDecisionCache {
+
+  private final Cache<DecisionKey, Boolean> decisions;
+  private final boolean enabled;
+
+  @Inject
+  PermissionDecisionCache(SecurityProperties securityProperties,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    this.enabled = !securityProperties.getPermissionCacheTtl().isZero();
+    this.decisions = CacheBuilder.newBuilder()
+        .expireAfterWrite(securityProperties.getPermissionCacheTtl())
+        .maximumSize(securityProperties.getPermissionCacheSize())
+        .recordStats()
+        .build();
+    GuavaCacheMetrics.monitor(
+        meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), decisions, "permissions");
+  }
+
+  /**
+   * La chiave del controllo se il suo esito può essere memorizzato, vuota altrimenti.
+   */
+  Optional<DecisionKey> keyOf(User user, String permission, String method, Object target) {
+    if (!enabled || user.getId() == null) {
+      return Optional.empty();
+    }
+    final String targetType;
+    final Long targetId;
+    final Long targetOfficeId;
+    if (target instanceof Office) {
+      targetType = Office.class.getSimpleName();
+      targetId = ((Office) target).getId();
+      targetOfficeId = targetId;
+    } else if (target instanceof Person) {
+      targetType = Person.class.getSimpleName();
+      targetId = ((Person) target).getId();
+      targetOfficeId = officeId(((Person) target).getOffice());
+    } else {
+      return Optional.empty();
+    }
+    if (targetId == null) {
+      // entity non ancora salvata
+      return Optional.empty();
+    }
+    return Optional.of(new DecisionKey(user.getId(), rolesFingerprint(user), permission, method,
+        targetType, targetId, targetOfficeId));
+  }
+
+  Optional<Boolean> decision(DecisionKey key) {
+    return Optional.ofNullable(decisions.getIfPresent(key));
+  }
+
+  void put(DecisionKey key, boolean permitted) {
+    decisions.put(key, permitted);
+  }
+
+  /**
+   * Rimuove dalla cache tutti gli esiti relativi all'utente. All'interno di una transazione
+   * la rimozione è ripetuta al commit, per scartare gli esiti calcolati nel frattempo da altre
+   * richieste sui dati non ancora committati.
+   */
+  public void evict(User user) {
+    if (user == null || user.getId() == null) {
+      return;
+    }
+    final Long userId = user.getId();
+    evictUser(userId);
+    afterCommit(() -> evictUser(userId));
+  }
+
+  /**
+   * Svuota la cache, anche al commit della transazione corrente se presente.
+   */
+  public void evictAll() {
+    decisions.invalidateAll();
+    afterCommit(decisions::invalidateAll);
+  }
+
+  private void evictUser(Long userId) {
+    if (decisions.asMap().keySet().removeIf(key -> key.userId.equals(userId))) {
+      log.debug("Rimossi dalla cache dei permessi gli esiti dell'utente id={}", userId);
+    }
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  private static Long officeId(Office office) {
+    return office != null ? office.getId() : null;
+  }
+
+  /**
+   * Impronta dei ruoli dell'utente, cambia ad ogni variazione dei ruoli di sistema o dei
+   * ruoli negli uffici.
+   */
+  private static int rolesFingerprint(User user) {
+    int fingerprint = user.getRoles().hashCode();
+    for (UsersRolesOffices uro : user.getUsersRolesOffices()) {
+      // somma per non dipendere dall'ordine della collezione
+      fingerprint += Objects.hash(uro.getId(), uro.getRole().getId(), officeId(uro.getOffice()));
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Chiave di un controllo delle autorizzazioni.
+   */
+  @EqualsAndHashCode
+  @ToString
+  static final class DecisionKey {
+    private final Long userId;
+    private final int rolesFingerprint;
+    private final String permission;
+    private final String method;
+    private final String targetType;
+    private final Long targetId;
+    private final Long targetOfficeId;
+
+    private DecisionKey(Long userId, int rolesFingerprint, String permission, String method,
+        String targetType, Long targetId, Long targetOfficeId) {
+      this.userId = userId;
+      this.rolesFingerprint = rolesFingerprint;
+      this.permission = permission;
+      this.method = method;
+      this.targetType = targetType;
+      this.targetId = targetId;
+      this.targetOfficeId = targetOfficeId;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import it.cnr.iit.epas.config.SecurityProperties;
+import it.cnr.iit.epas.models.User;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache a breve scadenza tra l'identificativo dell'utente autenticato (claim del token JWT o
+ * username della Basic Auth) e l'id dell'utente ePAS corrispondente.
+ *
+ * <p>Contiene solo gli id degli utenti e non le entity, che sono comunque prelevate dal db ad
+ * ogni richiesta tramite la chiave primaria. Con principalCacheTtl a zero la cache è
+ * disabilitata.</p>
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+  private final Cache<String, Long> userIds;
+  private final boolean enabled;
+
+  @Inject
+  PrincipalCache(SecurityProperties securityProperties) {
+    this.enabled = !securityProperties.getPrincipalCacheTtl().isZero();
+    this.userIds = CacheBuilder.newBuilder()
+        .expireAfterWrite(securityProperties.getPrincipalCacheTtl())
+        .maximumSize(securityProperties.getPrincipalCacheSize())
+        .build();
+  }
+
+  Optional<Long> userId(String principalKey) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(userIds.getIfPresent(principalKey));
+  }
+
+  void put(String principalKey, User user) {
+    if (enabled) {
+      userIds.put(principalKey, user.getId());
+    }
+  }
+
+  /**
+   * Rimuove dalla cache tutte le associazioni relative all'utente.
+   */
+  public void evict(User user) {
+    if (user == null || user.getId() == null) {
+      return;
+    }
+    if (userIds.asMap().values().removeIf(id -> id.equals(user.getId()))) {
+      log.debug("Rimosso dalla cache delle autenticazioni l'utente id={}", user.getId());
+    }
+  }
+
+  /**
+   * Svuota la cache.
+   */
+  public void evictAll() {
+    userIds.invalidateAll();
+  }
+}
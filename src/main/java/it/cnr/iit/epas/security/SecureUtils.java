@@ -22,6 +22,7 @@ import it.cnr.iit.epas.dao.UserDao;
 import it.cnr.iit.epas.models.User;
 import java.util.Optional;
 import javax.inject.Inject;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
@@ -30,6 +31,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * Supporto per prelevare l'utente corrente.
@@ -41,13 +44,18 @@ import org.springframework.stereotype.Component;
 @Component
 public class SecureUtils {
 
+  private static final String CURRENT_USER_ATTRIBUTE = SecureUtils.class.getName() + ".user";
+
   private final UserDao userDao;
   private final SecurityProperties securityProperties;
+  private final PrincipalCache principalCache;
 
   @Inject
-  SecureUtils(UserDao userDao, SecurityProperties securityProperties) {
+  SecureUtils(UserDao userDao, SecurityProperties securityProperties,
+      PrincipalCache principalCache) {
     this.userDao = userDao;
     this.securityProperties = securityProperties;
+    this.principalCache = principalCache;
   }
 
   /**
@@ -60,15 +68,36 @@ public class SecureUtils {
   /**
    * Preleva le informazioni dell'utente corrente dal token JWT se presente,
    * facendo il match con l'utente presente nel db del servizio.
+   * L'id dell'utente individuato è memorizzato nella richiesta corrente, le chiamate
+   * successive con la stessa authentication non effettuano ulteriori ricerche e prelevano
+   * l'utente per chiave primaria dal contesto di persistenza del thread corrente (gli
+   * attributi della richiesta sono condivisi anche con i task asincroni).
    */
   public Optional<User> getUserFromAuthentication(Authentication authentication) {
+    if (authentication == null) {
+      log.warn("Impossibile prelevare l'utente corrente, authentication non disponibile.");
+      return Optional.empty();
+    }
+    val resolved = requestAttribute();
+    if (resolved.isPresent() && resolved.get().authentication == authentication) {
+      return Optional.ofNullable(resolved.get().userId)
+          .map(id -> userDao.getEntityManager().find(User.class, id));
+    }
+    val user = resolveUser(authentication);
+    setRequestAttribute(new ResolvedUser(authentication, user.map(User::getId).orElse(null)));
+    return user;
+  }
+
+  private Optional<User> resolveUser(Authentication authentication) {
     User user = null;
-    if (authentication != null) {
-      if (authentication.getPrincipal() instanceof Jwt) {
-        val principal = (Jwt) authentication.getPrincipal();
-        //per esempio getOauth2().getJwtField() = "preferred_username"
-        val userJwtIdentifier = 
-            principal.getClaimAsString(securityProperties.getOauth2().getJwtField());
+    if (authentication.getPrincipal() instanceof Jwt) {
+      val principal = (Jwt) authentication.getPrincipal();
+      //per esempio getOauth2().getJwtField() = "preferred_username"
+      val userJwtIdentifier = 
+          principal.getClaimAsString(securityProperties.getOauth2().getJwtField());
+      val principalKey = "jwt:" + userJwtIdentifier;
+      user = cachedUser(principalKey).orElse(null);
+      if (user == null) {
         switch (securityProperties.getOauth2().getUserAuthIdentifier()) {
           case eppn:
             user = userDao.byEppn(userJwtIdentifier).orElse(null);
@@ -85,25 +114,78 @@ public class SecureUtils {
                 "Unexpected value: " + securityProperties.getOauth2().getUserAuthIdentifier());
         }
         if (user != null) {
-          log.info("Autenticato utente {} tramite JWT", user.getUsername());
+          principalCache.put(principalKey, user);
         }
-      } else if (authentication instanceof UsernamePasswordAuthenticationToken) {
+      }
+      if (user != null) {
+        log.debug("Autenticato utente {} tramite JWT", user.getUsername());
+      }
+    } else if (authentication instanceof UsernamePasswordAuthenticationToken) {
+      val principalKey = "basic:" + authentication.getPrincipal().toString();
+      user = cachedUser(principalKey).orElse(null);
+      if (user == null) {
         user = userDao.byUsername(authentication.getPrincipal().toString());
         if (user != null) {
-          log.info("Autenticato utente {} tramite Basic Auth", user.getUsername());
-        } 
-      } else if (authentication instanceof AnonymousAuthenticationToken) {
-        log.info("Nessun autenticazione, utente anononimo");
-      } else {
-        log.warn("Autenticazione avvenuta ma tipo di Authentication non supportato -> "
-            + "authentication = {}", authentication);
+          principalCache.put(principalKey, user);
+        }
       }
+      if (user != null) {
+        log.debug("Autenticato utente {} tramite Basic Auth", user.getUsername());
+      } 
+    } else if (authentication instanceof AnonymousAuthenticationToken) {
+      log.debug("Nessun autenticazione, utente anononimo");
     } else {
-      log.warn("Impossibile prelevare l'utente corrente, authentication non disponibile.");
+      log.warn("Autenticazione avvenuta ma tipo di Authentication non supportato -> "
+          + "authentication = {}", authentication);
     }
 
     return Optional.ofNullable(user);
+  }
 
+  /**
+   * L'utente associato all'identificativo nella cache, prelevato tramite chiave primaria.
+   */
+  private Optional<User> cachedUser(String principalKey) {
+    return principalCache.userId(principalKey)
+        .map(id -> userDao.getEntityManager().find(User.class, id));
+  }
+
+  private Optional<ResolvedUser> requestAttribute() {
+    val attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.ofNullable(
+          (ResolvedUser) attributes.getAttribute(
+              CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    } catch (IllegalStateException e) {
+      // richiesta già conclusa (per esempio in un task asincrono)
+      return Optional.empty();
+    }
+  }
+
+  private void setRequestAttribute(ResolvedUser resolvedUser) {
+    val attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return;
+    }
+    try {
+      attributes.setAttribute(
+          CURRENT_USER_ATTRIBUTE, resolvedUser, RequestAttributes.SCOPE_REQUEST);
+    } catch (IllegalStateException e) {
+      log.trace("Richiesta non più attiva, utente corrente non memorizzato");
+    }
+  }
+
+  /**
+   * Id dell'utente individuato per una authentication nella richiesta corrente (null se
+   * nessun utente corrisponde).
+   */
+  @RequiredArgsConstructor
+  private static class ResolvedUser {
+    private final Authentication authentication;
+    private final Long userId;
   }
 
-}
\ No newline at end of file
+}
@@ -18,15 +18,18 @@
 package it.cnr.iit.epas.security;
 
 import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import it.cnr.iit.epas.dao.history.HistoricalDao;
 import it.cnr.iit.epas.models.User;
-import it.cnr.iit.epas.models.UsersRolesOffices;
-import it.cnr.iit.epas.models.enumerate.AccountRole;
+import it.cnr.iit.epas.security.PermissionDecisionCache.DecisionKey;
 import it.cnr.iit.epas.utils.RequestScopeData;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
 import java.util.regex.Pattern;
 import javax.inject.Inject;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.kie.api.KieBase;
 import org.kie.api.command.Command;
@@ -34,9 +37,12 @@ import org.kie.api.event.rule.AfterMatchFiredEvent;
 import org.kie.api.event.rule.DefaultAgendaEventListener;
 import org.kie.api.runtime.StatelessKieSession;
 import org.kie.internal.command.CommandFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.SpringSecurityMessageSource;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * SecurityRules.
@@ -51,21 +57,29 @@ public class SecurityRules {
   private static final String CURRENT_ROLES = "userRoles";
   private static final String CURRENT_ROLES_OFFICES = "userRolesOffices";
   private static final String HISTORICAL_DAO = "historicalDao";
+  private static final String SESSION_ATTRIBUTE = SecurityRules.class.getName() + ".session";
+  private static final String EVALUATION_TIMER = "epas.security.rules.evaluation";
+  private static final AgendaLogger AGENDA_LOGGER = new AgendaLogger();
 
   private final KieBase kieBase;
   private final SecureUtils secureUtils;
   private final RequestScopeData requestScope;
   private final HistoricalDao historicalDao;
+  private final PermissionDecisionCache decisionCache;
+  private final MeterRegistry meterRegistry;
 
   private static final Pattern PATH_PARAMS_PATTERN = Pattern.compile(":.*?}");
 
   @Inject
   SecurityRules(KieBase kieBase, SecureUtils secureUtils, RequestScopeData requestScope, 
-      HistoricalDao historicalDao) {
+      HistoricalDao historicalDao, PermissionDecisionCache decisionCache,
+      ObjectProvider<MeterRegistry> meterRegistry) {
     this.kieBase = kieBase;
     this.secureUtils = secureUtils;
     this.requestScope = requestScope;
     this.historicalDao = historicalDao;
+    this.decisionCache = decisionCache;
+    this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
   }
 
   public void checkifPermitted() {
@@ -83,12 +97,38 @@ public class SecurityRules {
     }
   }
 
+  /**
+   * Controllo delle autorizzazioni sul permesso e sul target indicati. L'esito è prelevato
+   * dalla cache dei permessi quando possibile.
+   */
   public boolean check(String method, String permission, Object target) {
     // Ripuliamo la stringa dalle eventuali espressioni regolari derivanti dai path
     // Es. /v1/ruoloutente/{id:^\d+$} -> /v1/ruoloutente/{id}
-    final String normalized = PATH_PARAMS_PATTERN.matcher(permission).replaceAll("}");
+    final String normalized = permission != null
+        ? PATH_PARAMS_PATTERN.matcher(permission).replaceAll("}") : null;
+
+    final Optional<User> user = secureUtils.getCurrentUser();
+    if (!user.isPresent()) {
+      return false;
+    }
+    final Optional<DecisionKey> key =
+        decisionCache.keyOf(user.get(), normalized, method, target);
+    if (key.isPresent()) {
+      final Optional<Boolean> decision = decisionCache.decision(key.get());
+      if (decision.isPresent()) {
+        log.debug("hasPermission({}, {}, {}) from cache: {}", user.get().getUsername(), target,
+            normalized, decision.get());
+        return decision.get();
+      }
+    }
+
     final PermissionCheck check = new PermissionCheck(target, normalized, method);
-    fireRules(check);
+    final Timer.Sample sample = Timer.start(meterRegistry);
+    fireRules(user.get(), check);
+    sample.stop(meterRegistry.timer(EVALUATION_TIMER,
+        "outcome", check.isPermitted() ? "granted" : "denied"));
+
+    key.ifPresent(k -> decisionCache.put(k, check.isPermitted()));
     return check.isPermitted();
   }
 
@@ -109,36 +149,67 @@ public class SecurityRules {
     return check(null);
   }
 
-  private void fireRules(PermissionCheck check) {
-
-    if (!secureUtils.getCurrentUser().isPresent()) {
-      return;
-    }
-
-    final User user = secureUtils.getCurrentUser().get();
-    final List<UsersRolesOffices> userRolesOffices = user.getUsersRolesOffices();
-    log.debug("current UserRolesOffices = {}", userRolesOffices);
-    final Set<AccountRole> userRoles = user.getRoles();
+  private void fireRules(User user, PermissionCheck check) {
 
+    log.debug("current UserRolesOffices = {}", user.getUsersRolesOffices());
     log.debug("hasPermission({}, {}, {}) called", user.getUsername(), check.getTarget(),
         check.getPermission());
 
-
     final List<Command<?>> commands = Lists.newArrayList();
-
-    StatelessKieSession session = kieBase.newStatelessKieSession();
-    session.setGlobal(CURRENT_USER, user);
-    session.setGlobal(CURRENT_ROLES, userRoles);
-    session.setGlobal(CURRENT_ROLES_OFFICES, userRolesOffices);
-    session.setGlobal(HISTORICAL_DAO, historicalDao);
-    session.addEventListener(new AgendaLogger());
-
     commands.add(CommandFactory.newInsert(check.getTarget()));
     commands.add(CommandFactory.newInsert(check));
 
+    session(user).execute(CommandFactory.newBatchExecution(commands));
+  }
+
+  /**
+   * La sessione con i globals impostati per l'utente. Nella stessa richiesta la sessione è
+   * riutilizzata per tutti i controlli dell'utente, la StatelessKieSession non mantiene infatti
+   * i fatti inseriti tra un'esecuzione e l'altra.
+   */
+  private StatelessKieSession session(User user) {
+    final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    UserSession userSession = null;
+    if (attributes != null) {
+      try {
+        userSession = (UserSession) attributes.getAttribute(
+            SESSION_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+      } catch (IllegalStateException e) {
+        // richiesta già conclusa (per esempio in un task asincrono)
+      }
+    }
+    if (userSession != null && userSession.user == user) {
+      return userSession.session;
+    }
+
+    final StatelessKieSession session = kieBase.newStatelessKieSession();
+    session.setGlobal(CURRENT_USER, user);
+    session.setGlobal(CURRENT_ROLES, user.getRoles());
+    session.setGlobal(CURRENT_ROLES_OFFICES, user.getUsersRolesOffices());
+    session.setGlobal(HISTORICAL_DAO, historicalDao);
+    if (log.isDebugEnabled()) {
+      session.addEventListener(AGENDA_LOGGER);
+    }
     log.debug("session is {}", session);
-    session.execute(CommandFactory.newBatchExecution(commands));
 
+    if (attributes != null) {
+      try {
+        attributes.setAttribute(SESSION_ATTRIBUTE, new UserSession(user, session),
+            RequestAttributes.SCOPE_REQUEST);
+      } catch (IllegalStateException e) {
+        log.trace("Richiesta non più attiva, sessione drools non memorizzata");
+      }
+    }
+    return session;
+  }
+
+  /**
+   * Sessione drools associata all'utente per cui sono stati impostati i globals.
+   */
+  @RequiredArgsConstructor
+  private static class UserSession {
+    private final User user;
+    private final StatelessKieSession session;
   }
 
   private static class AgendaLogger extends DefaultAgendaEventListener {
@@ -95,65 +95,11 @@ public class DateUtility {
    * @param officePatron giorno del patrono
    * @param date data da verificare
    * @return esito
+   * @see NationalHolidays
    */
   public static boolean isGeneralHoliday(
       final Optional<MonthDay> officePatron, final LocalDate date) {
-
-    LocalDate easter = findEaster(date.getYear());
-    LocalDate easterMonday = easter.plusDays(1);
-    if (date.getDayOfMonth() == easter.getDayOfMonth()
-            && date.getMonthValue() == easter.getMonthValue()) {
-      return true;
-    }
-    if (date.getDayOfMonth() == easterMonday.getDayOfMonth()
-            && date.getMonthValue() == easterMonday.getMonthValue()) {
-      return true;
-    }
-    if ((date.getMonthValue() == 12) && (date.getDayOfMonth() == 25)) {
-      return true;
-    }
-    if ((date.getMonthValue() == 12) && (date.getDayOfMonth() == 26)) {
-      return true;
-    }
-    if ((date.getMonthValue() == 12) && (date.getDayOfMonth() == 8)) {
-      return true;
-    }
-    if ((date.getMonthValue() == 6) && (date.getDayOfMonth() == 2)) {
-      return true;
-    }
-    if ((date.getMonthValue() == 4) && (date.getDayOfMonth() == 25)) {
-      return true;
-    }
-    if ((date.getMonthValue() == 5) && (date.getDayOfMonth() == 1)) {
-      return true;
-    }
-    if ((date.getMonthValue() == 8) && (date.getDayOfMonth() == 15)) {
-      return true;
-    }
-    if ((date.getMonthValue() == 1) && (date.getDayOfMonth() == 1)) {
-      return true;
-    }
-    if ((date.getMonthValue() == 1) && (date.getDayOfMonth() == 6)) {
-      return true;
-    }
-    if ((date.getMonthValue() == 11) && (date.getDayOfMonth() == 1)) {
-      return true;
-    }
-
-    if (officePatron.isPresent()) {
-
-      return (date.getMonthValue() == officePatron.get().getMonthValue()
-              && date.getDayOfMonth() == officePatron.get().getDayOfMonth());
-    }
-
-    /*
-     * ricorrenza centocinquantenario dell'unità d'Italia.
-     */
-    if (date.isEqual(LocalDate.of(2011, 3, 17))) {
-      return true;
-    }
-
-    return false;
+    return NationalHolidays.isHoliday(officePatron.orElse(null), date);
   }
 
   /**
@@ -169,7 +115,7 @@ public class DateUtility {
     LocalDate day = begin;
     List<LocalDate> generalWorkingDays = new ArrayList<LocalDate>();
     while (!day.isAfter(end)) {
-      if (!DateUtility.isGeneralHoliday(Optional.<MonthDay>empty(), day)) {
+      if (!NationalHolidays.isHoliday(null, day)) {
         generalWorkingDays.add(day);
       }
       day = day.plusDays(1);
@@ -177,6 +123,24 @@ public class DateUtility {
     return generalWorkingDays;
   }
 
+  /**
+   * Il numero dei giorni contenuti nell'intervallo [begin,end] estremi compresi, escluse
+   * le general holiday. Equivale alla dimensione di getGeneralWorkingDays senza costruire
+   * la lista.
+   *
+   * @param begin data iniziale.
+   * @param end   data finale
+   * @return il numero di giorni non festivi
+   */
+  public static long countGeneralWorkingDays(final LocalDate begin, final LocalDate end) {
+    long days = NationalHolidays.countNotHolidays(begin, end);
+    LocalDate anniversary = LocalDate.of(2011, 3, 17);
+    if (!anniversary.isBefore(begin) && !anniversary.isAfter(end)) {
+      days--;
+    }
+    return days;
+  }
+
 
   /**
    * Se la data è contenuta nell'intervallo.
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.utils;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Calendario precalcolato delle festività nazionali.
+ *
+ * <p>Per ogni anno viene calcolata una sola volta (alla prima richiesta) una bitmap con un bit
+ * per ogni giorno dell'anno, comprensiva di Pasqua e Lunedì dell'Angelo. Le verifiche sui
+ * singoli giorni e i conteggi sugli intervalli non effettuano quindi calcoli sulla data di
+ * Pasqua né allocazioni.</p>
+ */
+public final class NationalHolidays {
+
+  private static final int FIRST_CACHED_YEAR = 1900;
+  private static final int LAST_CACHED_YEAR = 2199;
+  private static final int WORDS_PER_YEAR = 6;
+
+  private static final int[][] FIXED_HOLIDAYS = {
+      {1, 1}, {1, 6}, {4, 25}, {5, 1}, {6, 2}, {8, 15}, {11, 1}, {12, 8}, {12, 25}, {12, 26}};
+
+  private static final AtomicReferenceArray<long[]> YEARS =
+      new AtomicReferenceArray<>(LAST_CACHED_YEAR - FIRST_CACHED_YEAR + 1);
+
+  private NationalHolidays() {
+  }
+
+  /**
+   * Se la data è una festività nazionale.
+   */
+  public static boolean isHoliday(LocalDate date) {
+    return isSet(bits(date.getYear()), date.getDayOfYear() - 1);
+  }
+
+  /**
+   * Se la data è festiva considerando le festività nazionali, il patrono della sede (se
+   * presente) e la ricorrenza del centocinquantenario dell'unità d'Italia.
+   * La ricorrenza è considerata solo in assenza del patrono, come nel controllo storico di
+   * {@link DateUtility#isGeneralHoliday(java.util.Optional, LocalDate)}.
+   *
+   * @param patron il giorno del patrono, null se non definito
+   * @param date la data da verificare
+   * @return esito
+   */
+  public static boolean isHoliday(MonthDay patron, LocalDate date) {
+    if (isHoliday(date)) {
+      return true;
+    }
+    if (patron != null) {
+      return date.getMonthValue() == patron.getMonthValue()
+          && date.getDayOfMonth() == patron.getDayOfMonth();
+    }
+    return isUnityAnniversary(date);
+  }
+
+  /**
+   * Il numero di festività nazionali nell'intervallo [from, to] estremi compresi.
+   */
+  public static long countHolidays(LocalDate from, LocalDate to) {
+    if (to.isBefore(from)) {
+      return 0;
+    }
+    long count = 0;
+    for (int year = from.getYear(); year <= to.getYear(); year++) {
+      int first = year == from.getYear() ? from.getDayOfYear() - 1 : 0;
+      int last = year == to.getYear() ? to.getDayOfYear() - 1 : LocalDate.of(year, 12, 31)
+          .getDayOfYear() - 1;
+      count += countSet(bits(year), first, last);
+    }
+    return count;
+  }
+
+  /**
+   * Il numero di giorni dell'intervallo [from, to] estremi compresi che non sono festività
+   * nazionali (i fine settimana sono considerati lavorativi).
+   */
+  public static long countNotHolidays(LocalDate from, LocalDate to) {
+    if (to.isBefore(from)) {
+      return 0;
+    }
+    return ChronoUnit.DAYS.between(from, to) + 1 - countHolidays(from, to);
+  }
+
+  /**
+   * Se la data è la ricorrenza del centocinquantenario dell'unità d'Italia (17/03/2011).
+   */
+  static boolean isUnityAnniversary(LocalDate date) {
+    return date.getYear() == 2011 && date.getMonthValue() == 3 && date.getDayOfMonth() == 17;
+  }
+
+  private static long[] bits(int year) {
+    if (year < FIRST_CACHED_YEAR || year > LAST_CACHED_YEAR) {
+      return compute(year);
+    }
+    int index = year - FIRST_CACHED_YEAR;
+    long[] bits = YEARS.get(index);
+    if (bits == null) {
+      bits = compute(year);
+      YEARS.compareAndSet(index, null, bits);
+    }
+    return bits;
+  }
+
+  private static long[] compute(int year) {
+    long[] bits = new long[WORDS_PER_YEAR];
+    for (int[] holiday : FIXED_HOLIDAYS) {
+      set(bits, LocalDate.of(year, holiday[0], holiday[1]).getDayOfYear() - 1);
+    }
+    LocalDate easter = DateUtility.findEaster(year);
+    set(bits, easter.getDayOfYear() - 1);
+    set(bits, easter.getDayOfYear());
+    return bits;
+  }
+
+  private static void set(long[] bits, int dayIndex) {
+    bits[dayIndex >>> 6] |= 1L << dayIndex;
+  }
+
+  private static boolean isSet(long[] bits, int dayIndex) {
+    return (bits[dayIndex >>> 6] & (1L << dayIndex)) != 0;
+  }
+
+  private static int countSet(long[] bits, int first, int last) {
+    int count = 0;
+    for (int word = first >>> 6; word <= last >>> 6; word++) {
+      long mask = -1L;
+      if (word == first >>> 6) {
+        mask &= -1L << first;
+      }
+      if (word == last >>> 6) {
+        mask &= -1L >>> (63 - (last & 63));
+      }
+      count += Long.bitCount(bits[word] & mask);
+    }
+    return count;
+  }
+}
@@ -0,0 +1,15 @@
+-- Coda persistente dei ricalcoli delle situazioni dei dipendenti (una richiesta per persona)
+CREATE TABLE recompute_requests (
+    id BIGSERIAL PRIMARY KEY,
+    version INTEGER,
+    person_id BIGINT NOT NULL REFERENCES persons (id),
+    from_date DATE NOT NULL,
+    to_date DATE,
+    requested_at TIMESTAMP NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(255),
+    claimed_until TIMESTAMP,
+    CONSTRAINT recompute_requests_person_id_key UNIQUE (person_id)
+);
+
+CREATE INDEX recompute_requests_requested_at_idx ON recompute_requests (requested_at);
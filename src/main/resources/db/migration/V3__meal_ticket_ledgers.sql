@@ -0,0 +1,14 @@
+-- Movimenti mensili dei buoni pasto dei contratti (una riga per contratto e mese concluso)
+CREATE TABLE meal_ticket_ledgers (
+    id BIGSERIAL PRIMARY KEY,
+    version INTEGER,
+    contract_id BIGINT NOT NULL REFERENCES contracts (id),
+    year INTEGER NOT NULL,
+    month INTEGER NOT NULL,
+    delivered INTEGER NOT NULL DEFAULT 0,
+    consumed INTEGER NOT NULL DEFAULT 0,
+    returned INTEGER NOT NULL DEFAULT 0,
+    expired INTEGER NOT NULL DEFAULT 0,
+    remaining INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT meal_ticket_ledgers_contract_id_year_month_key UNIQUE (contract_id, year, month)
+);
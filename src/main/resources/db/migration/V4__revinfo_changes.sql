@@ -0,0 +1,9 @@
+-- Entità modificate in ogni revisione envers, per individuare l'ultima revisione di un'entità
+CREATE TABLE revinfo_changes (
+    rev INTEGER NOT NULL REFERENCES revinfo (rev),
+    entity_name VARCHAR(255) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    PRIMARY KEY (rev, entity_name, entity_id)
+);
+
+CREATE INDEX revinfo_changes_entity_idx ON revinfo_changes (entity_name, entity_id, rev);
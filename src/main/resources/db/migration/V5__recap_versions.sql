@@ -0,0 +1,12 @@
+-- Contatori delle modifiche ai dati dei riepiloghi delle persone (per mese, anno e persona)
+CREATE TABLE recap_versions (
+    id BIGSERIAL PRIMARY KEY,
+    version INTEGER,
+    person_id BIGINT NOT NULL REFERENCES persons (id),
+    scope VARCHAR(255) NOT NULL,
+    year INTEGER NOT NULL,
+    month INTEGER NOT NULL,
+    counter BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT recap_versions_person_id_scope_year_month_key
+        UNIQUE (person_id, scope, year, month)
+);
@@ -0,0 +1,14 @@
+-- Riepiloghi mensili delle timbrature dei mesi chiusi, serializzati in JSON
+CREATE TABLE person_stamping_recap_snapshots (
+    id BIGSERIAL PRIMARY KEY,
+    version INTEGER,
+    person_id BIGINT NOT NULL REFERENCES persons (id),
+    year INTEGER NOT NULL,
+    month INTEGER NOT NULL,
+    content TEXT NOT NULL,
+    recap_version VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX person_stamping_recap_snapshots_person_idx
+    ON person_stamping_recap_snapshots (person_id, year, month);
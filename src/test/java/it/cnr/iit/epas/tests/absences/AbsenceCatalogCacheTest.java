@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.absences;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import it.cnr.iit.epas.dao.absences.AbsenceComponentDao;
+import it.cnr.iit.epas.manager.services.absences.AbsenceService;
+import it.cnr.iit.epas.models.absences.GroupAbsenceType;
+import it.cnr.iit.epas.models.absences.JustifiedType.JustifiedTypeName;
+import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType;
+import it.cnr.iit.epas.models.absences.definitions.DefaultGroup;
+import javax.inject.Inject;
+import lombok.val;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Il catalogo delle assenze è letto dalla cache di secondo livello: le transazioni successive
+ * alla prima lettura non eseguono query sul catalogo.
+ */
+@SpringBootTest
+class AbsenceCatalogCacheTest {
+
+  @Inject
+  private TransactionTemplate transactionTemplate;
+  @Inject
+  private AbsenceService absenceService;
+  @Inject
+  private AbsenceComponentDao absenceComponentDao;
+
+  @Test
+  void catalogLookupsAreServedByTheCache() {
+    transactionTemplate.executeWithoutResult(status -> absenceService.enumInitializator());
+    transactionTemplate.executeWithoutResult(status -> lookups());
+
+    final Statistics statistics = absenceComponentDao.getEntityManager()
+        .getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    statistics.setStatisticsEnabled(true);
+    try {
+      transactionTemplate.executeWithoutResult(status -> lookups());
+      assertEquals(0, statistics.getPrepareStatementCount());
+      assertTrue(statistics.getQueryCacheHitCount() > 0);
+    } finally {
+      statistics.setStatisticsEnabled(false);
+    }
+  }
+
+  /**
+   * Le ricerche per codice e per nome, le liste ordinate per priorità e i gruppi per pattern,
+   * con le associazioni utilizzate dal motore delle assenze.
+   */
+  private void lookups() {
+    val code = DefaultAbsenceType.A_31.getCode();
+    assertEquals(code, absenceComponentDao.absenceTypeByCode(code.toLowerCase()).get().getCode());
+    assertEquals(JustifiedTypeName.all_day,
+        absenceComponentDao.getOrBuildJustifiedType(JustifiedTypeName.all_day).getName());
+
+    GroupAbsenceType ferie =
+        absenceComponentDao.groupAbsenceTypeByName(DefaultGroup.FERIE_CNR.name()).get();
+    assertEquals(ferie, absenceComponentDao.groupAbsenceTypeById(ferie.getId()));
+    assertFalse(ferie.getTakableAbsenceBehaviour().getTakableCodes().isEmpty());
+    assertFalse(ferie.getCategory().getName().isEmpty());
+
+    assertFalse(absenceComponentDao.categoriesByPriority().isEmpty());
+    assertFalse(absenceComponentDao.tabsByPriority().isEmpty());
+    assertFalse(absenceComponentDao.allGroupAbsenceType(true).isEmpty());
+    assertTrue(absenceComponentDao.groupAbsenceTypeOfPattern(ferie.getPattern())
+        .contains(ferie));
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.tests.absences;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import it.cnr.iit.epas.dao.PersonReperibilityDayDao;
+import it.cnr.iit.epas.manager.services.absences.errors.AbsenceError;
+import it.cnr.iit.epas.manager.services.absences.errors.ErrorsBox;
+import it.cnr.iit.epas.manager.services.absences.model.ServiceFactories;
+import it.cnr.iit.epas.models.CompetenceCode;
+import it.cnr.iit.epas.models.MonthlyCompetenceType;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonReperibility;
+import it.cnr.iit.epas.models.PersonReperibilityDay;
+import it.cnr.iit.epas.models.PersonReperibilityType;
+import it.cnr.iit.epas.models.absences.Absence;
+import it.cnr.iit.epas.models.absences.AbsenceType;
+import it.cnr.iit.epas.models.enumerate.LimitType;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class GenericConstraintsTest {
+
+  private static final LocalDate BEGIN = LocalDate.of(2024, 4, 1);
+  private static final LocalDate END = LocalDate.of(2024, 4, 14);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private ServiceFactories serviceFactories;
+  @Inject
+  private PersonReperibilityDayDao personReperibilityDayDao;
+
+  /**
+   * I vincoli generici controllati per tutte le assenze insieme, con i giorni di reperibilità
+   * prelevati una sola volta, producono gli stessi avvisi del controllo assenza per assenza.
+   */
+  @Test
+  void batchedConstraintsMatchSingleAbsenceConstraints() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    val reperibility = personReperibility(person);
+    for (int day : new int[] {2, 3, 6, 10}) {
+      reperibilityDay(reperibility, LocalDate.of(2024, 4, day));
+    }
+    // reperibilità fuori dal periodo delle assenze
+    reperibilityDay(reperibility, END.plusDays(1));
+    personReperibilityDayDao.getEntityManager().flush();
+
+    val absenceType = new AbsenceType();
+    absenceType.setCode("REPTEST");
+    absenceType.setConsideredWeekEnd(true);
+    absenceType.setReperibilityCompatible(false);
+    List<Absence> absences = Lists.newArrayList();
+    for (LocalDate date = BEGIN; !date.isAfter(END); date = date.plusDays(1)) {
+      val absence = new Absence();
+      absence.setAbsenceType(absenceType);
+      absence.date = date;
+      absences.add(absence);
+    }
+
+    ErrorsBox single = new ErrorsBox();
+    for (Absence absence : absences) {
+      single = serviceFactories.genericConstraints(single, person, absence, ImmutableMap.of());
+    }
+    final ErrorsBox batched = serviceFactories
+        .genericConstraints(new ErrorsBox(), person, absences, ImmutableMap.of());
+
+    int warnings = 0;
+    for (Absence absence : absences) {
+      assertEquals(absence.getAbsenceDate().toString(), problems(single, absence),
+          problems(batched, absence));
+      warnings += batched.absenceWarnings(absence).size();
+    }
+    assertEquals(4, warnings);
+  }
+
+  private static List<String> problems(ErrorsBox errorsBox, Absence absence) {
+    return errorsBox.absenceWarnings(absence).stream()
+        .map(AbsenceError::getAbsenceProblem).map(Enum::name).sorted()
+        .collect(Collectors.toList());
+  }
+
+  private void persist(Object entity) {
+    personReperibilityDayDao.getEntityManager().persist(entity);
+  }
+
+  private PersonReperibility personReperibility(Person person) {
+    val type = new PersonReperibilityType();
+    type.setDescription("Reperibilità");
+    type.setOffice(person.getOffice());
+    type.setSupervisor(person);
+    type.setMonthlyCompetenceType(monthlyCompetenceType());
+    persist(type);
+
+    val personReperibility = new PersonReperibility();
+    personReperibility.setPerson(person);
+    personReperibility.setPersonReperibilityType(type);
+    personReperibility.setStartDate(LocalDate.of(2020, 1, 1));
+    persist(personReperibility);
+    return personReperibility;
+  }
+
+  private MonthlyCompetenceType monthlyCompetenceType() {
+    val type = new MonthlyCompetenceType();
+    type.name = "Reperibilità";
+    type.workdaysCode = competenceCode("207test");
+    type.holidaysCode = competenceCode("208test");
+    persist(type);
+    return type;
+  }
+
+  private CompetenceCode competenceCode(String code) {
+    val competenceCode = new CompetenceCode();
+    competenceCode.setCode(code);
+    competenceCode.setDescription(code);
+    competenceCode.setLimitType(LimitType.monthly);
+    persist(competenceCode);
+    return competenceCode;
+  }
+
+  private void reperibilityDay(PersonReperibility personReperibility, LocalDate date) {
+    val day = new PersonReperibilityDay();
+    day.setPersonReperibility(personReperibility);
+    day.setReperibilityType(personReperibility.getPersonReperibilityType());
+    day.setDate(date);
+    persist(day);
+  }
+}
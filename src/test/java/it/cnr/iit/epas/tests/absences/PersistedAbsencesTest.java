@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.tests.absences;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import it.cnr.iit.epas.dao.absences.AbsenceComponentDao;
+import it.cnr.iit.epas.manager.services.absences.AbsenceService;
+import it.cnr.iit.epas.manager.services.absences.model.PersistedAbsences;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.absences.Absence;
+import it.cnr.iit.epas.models.absences.AbsenceType;
+import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import it.cnr.iit.epas.tests.db.h2support.base.H2AbsenceSupport;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class PersistedAbsencesTest {
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private H2AbsenceSupport h2AbsenceSupport;
+  @Inject
+  private AbsenceService absenceService;
+  @Inject
+  private AbsenceComponentDao absenceComponentDao;
+
+  /**
+   * Le assenze lette dalla finestra (anche estesa) coincidono con quelle prelevate dal dao
+   * con gli stessi parametri.
+   */
+  @Test
+  void windowMatchesDao() {
+    absenceService.enumInitializator();
+
+    Person person = h2Examples.normalEmployee(LocalDate.of(2014, 3, 17), Optional.empty());
+    h2AbsenceSupport.multipleAllDayInstances(person, DefaultAbsenceType.A_31,
+        ImmutableSet.of(LocalDate.of(2015, 12, 30), LocalDate.of(2016, 1, 4),
+            LocalDate.of(2016, 1, 5), LocalDate.of(2016, 3, 24)));
+    h2AbsenceSupport.multipleAllDayInstances(person, DefaultAbsenceType.A_32,
+        ImmutableSet.of(LocalDate.of(2016, 1, 7), LocalDate.of(2016, 2, 1),
+            LocalDate.of(2016, 12, 31)));
+
+    AbsenceType a32 = absenceComponentDao
+        .absenceTypeByCode(DefaultAbsenceType.A_32.getCode()).get();
+    Set<AbsenceType> noCodes = Sets.newHashSet();
+    Set<AbsenceType> onlyA32 = Sets.newHashSet(a32);
+
+    PersistedAbsences persistedAbsences = new PersistedAbsences(person, absenceComponentDao,
+        LocalDate.of(2016, 1, 4), LocalDate.of(2016, 1, 8));
+
+    assertSameAbsences(
+        absenceComponentDao.orderedAbsences(person, LocalDate.of(2016, 1, 1),
+            LocalDate.of(2016, 1, 31), noCodes),
+        persistedAbsences.orderedAbsences(LocalDate.of(2016, 1, 1),
+            LocalDate.of(2016, 1, 31), noCodes));
+    assertSameAbsences(
+        absenceComponentDao.orderedAbsences(person, LocalDate.of(2016, 1, 1),
+            LocalDate.of(2016, 1, 31), onlyA32),
+        persistedAbsences.orderedAbsences(LocalDate.of(2016, 1, 1),
+            LocalDate.of(2016, 1, 31), onlyA32));
+    // fuori dalla finestra: estensione
+    assertSameAbsences(
+        absenceComponentDao.orderedAbsences(person, LocalDate.of(2015, 1, 1),
+            LocalDate.of(2016, 12, 31), noCodes),
+        persistedAbsences.orderedAbsences(LocalDate.of(2015, 1, 1),
+            LocalDate.of(2016, 12, 31), noCodes));
+    // estremi illimitati
+    assertSameAbsences(
+        absenceComponentDao.orderedAbsences(person, null, null, onlyA32),
+        persistedAbsences.orderedAbsences(null, null, onlyA32));
+  }
+
+  private static void assertSameAbsences(List<Absence> expected, List<Absence> actual) {
+    assertEquals(dates(expected), dates(actual));
+  }
+
+  private static List<LocalDate> dates(List<Absence> absences) {
+    return absences.stream().map(Absence::getAbsenceDate).collect(Collectors.toList());
+  }
+}
@@ -19,13 +19,24 @@ package it.cnr.iit.epas.tests.absences;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import it.cnr.iit.epas.dao.PersonDayDao;
 import it.cnr.iit.epas.dao.absences.AbsenceComponentDao;
+import it.cnr.iit.epas.manager.configurations.ConfigurationManager;
+import it.cnr.iit.epas.manager.configurations.EpasParam;
 import it.cnr.iit.epas.manager.services.absences.AbsenceService;
+import it.cnr.iit.epas.manager.services.absences.VacationSituationVersions;
 import it.cnr.iit.epas.manager.services.absences.model.VacationSituation;
 import it.cnr.iit.epas.models.Contract;
 import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.Stamping.WayType;
+import it.cnr.iit.epas.models.absences.Absence;
 import it.cnr.iit.epas.models.absences.GroupAbsenceType;
 import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType;
 import it.cnr.iit.epas.models.absences.definitions.DefaultGroup;
@@ -33,6 +44,7 @@ import it.cnr.iit.epas.tests.db.h2support.H2Examples;
 import it.cnr.iit.epas.tests.db.h2support.base.H2AbsenceSupport;
 import jakarta.transaction.Transactional;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import javax.inject.Inject;
 import org.junit.jupiter.api.Order;
@@ -51,9 +63,15 @@ class VacationSituationTest {
   @Inject 
   private H2AbsenceSupport h2AbsenceSupport;
   @Inject
+  private ConfigurationManager configurationManager;
+  @Inject
   private AbsenceService absenceService;
   @Inject
   private AbsenceComponentDao absenceComponentDao;
+  @Inject
+  private PersonDayDao personDayDao;
+  @Inject
+  private VacationSituationVersions vacationSituationVersions;
 
   @Order(1)
   @Test
@@ -276,4 +294,99 @@ class VacationSituationTest {
     
   }
 
-}
\ No newline at end of file
+  /**
+   * La situazione in cache è riutilizzata dopo la modifica di una timbratura ed è ricalcolata
+   * alla prima lettura dopo la modifica di un'assenza.
+   */
+  @Test
+  void cachedSituationIsRebuiltOnlyAfterAbsenceChanges() {
+
+    absenceService.enumInitializator();
+
+    GroupAbsenceType vacationGroup = absenceComponentDao
+        .groupAbsenceTypeByName(DefaultGroup.FERIE_CNR.name()).get();
+
+    Person person = h2Examples.normalEmployee(LocalDate.of(2009, 2, 1), Optional.empty());
+    Contract contract = person.getContracts().get(0);
+    final LocalDate today = LocalDate.of(2016, 9, 1);
+
+    VacationSituation vacationSituation = absenceService.buildVacationSituation(
+        contract, 2016, vacationGroup, Optional.of(today), true);
+    assertNotNull(vacationSituation.currentYear);
+    assertEquals(0, vacationSituation.currentYearCached.used);
+
+    PersonDay personDay = h2AbsenceSupport.getPersonDay(person, LocalDate.of(2016, 9, 5));
+    Stamping stamping = new Stamping(personDay, LocalDateTime.of(2016, 9, 5, 9, 0));
+    stamping.setWay(WayType.in);
+    personDayDao.getEntityManager().persist(stamping);
+
+    vacationSituation = absenceService.buildVacationSituation(
+        contract, 2016, vacationGroup, Optional.of(today), true);
+    assertNull(vacationSituation.currentYear);
+    assertEquals(0, vacationSituation.currentYearCached.used);
+
+    h2AbsenceSupport.absence(DefaultAbsenceType.A_32,
+        LocalDate.of(2016, 9, 12), Optional.empty(), 0, person);
+
+    vacationSituation = absenceService.buildVacationSituation(
+        contract, 2016, vacationGroup, Optional.of(today), true);
+    assertNotNull(vacationSituation.currentYear);
+    assertEquals(1, vacationSituation.currentYearCached.used);
+  }
+
+  /**
+   * La situazione in cache è ricalcolata dopo la modifica della scadenza delle ferie
+   * dell'anno precedente configurata per la sede.
+   */
+  @Test
+  void cachedSituationIsRebuiltAfterExpiryChanges() {
+
+    absenceService.enumInitializator();
+
+    GroupAbsenceType vacationGroup = absenceComponentDao
+        .groupAbsenceTypeByName(DefaultGroup.FERIE_CNR.name()).get();
+
+    Person person = h2Examples.normalEmployee(LocalDate.of(2009, 2, 1), Optional.empty());
+    Contract contract = person.getContracts().get(0);
+    final LocalDate today = LocalDate.of(2016, 9, 1);
+
+    VacationSituation vacationSituation = absenceService.buildVacationSituation(
+        contract, 2016, vacationGroup, Optional.of(today), true);
+    assertNotNull(vacationSituation.currentYear);
+    vacationSituation = absenceService.buildVacationSituation(
+        contract, 2016, vacationGroup, Optional.of(today), true);
+    assertNull(vacationSituation.currentYear);
+
+    configurationManager.updateYearlyDayMonth(EpasParam.EXPIRY_VACATION_PAST_YEAR,
+        person.getOffice(), 30, 9, 2015, false, true);
+
+    vacationSituation = absenceService.buildVacationSituation(
+        contract, 2016, vacationGroup, Optional.of(today), true);
+    assertNotNull(vacationSituation.currentYear);
+  }
+
+  /**
+   * Lo spostamento di un'assenza in un altro anno cambia la versione delle situazioni
+   * dell'anno di partenza oltre a quella dell'anno di arrivo.
+   */
+  @Test
+  void movedAbsenceChangesTheVersionOfBothYears() {
+
+    absenceService.enumInitializator();
+
+    Person person = h2Examples.normalEmployee(LocalDate.of(2009, 2, 1), Optional.empty());
+    Contract contract = person.getContracts().get(0);
+    Absence absence = h2AbsenceSupport.absence(DefaultAbsenceType.A_32,
+        LocalDate.of(2013, 9, 12), Optional.empty(), 0, person);
+    personDayDao.getEntityManager().flush();
+
+    final String before2012 = vacationSituationVersions.version(contract, 2012);
+    final String before2017 = vacationSituationVersions.version(contract, 2017);
+
+    absence.setPersonDay(h2AbsenceSupport.getPersonDay(person, LocalDate.of(2016, 9, 12)));
+    personDayDao.getEntityManager().flush();
+
+    assertNotEquals(before2012, vacationSituationVersions.version(contract, 2012));
+    assertNotEquals(before2017, vacationSituationVersions.version(contract, 2017));
+  }
+}
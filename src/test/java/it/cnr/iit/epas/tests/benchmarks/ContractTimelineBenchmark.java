@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.benchmarks;
+
+import com.google.common.collect.Lists;
+import it.cnr.iit.epas.dao.wrapper.ContractTimeline;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.utils.DateInterval;
+import it.cnr.iit.epas.utils.DateUtility;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Confronto tra il controllo storico di WrapperPerson.isActiveInDay (contratti del mese
+ * calcolati con intersezione di DateInterval ad ogni chiamata) e la ContractTimeline, su tutti
+ * i giorni di un dipendente con vent'anni di contratti come avviene in un ricalcolo completo.
+ *
+ * <p>Si esegue dopo mvn test-compile con il main di questa classe e il classpath di test.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContractTimelineBenchmark {
+
+  private static final LocalDate FROM = LocalDate.of(2005, 1, 1);
+  private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+  private List<Contract> contracts;
+  private ContractTimeline timeline;
+
+  /**
+   * Quattro contratti a tempo determinato di cinque anni, con un mese di pausa fra l'uno e
+   * l'altro, seguiti da un contratto a tempo indeterminato.
+   */
+  @Setup
+  public void setup() {
+    contracts = Lists.newArrayList();
+    LocalDate begin = FROM;
+    for (int i = 0; i < 4; i++) {
+      Contract contract = new Contract();
+      contract.setBeginDate(begin);
+      contract.setEndDate(begin.plusYears(5).minusMonths(1).minusDays(1));
+      contracts.add(contract);
+      begin = begin.plusYears(5);
+    }
+    Contract contract = new Contract();
+    contract.setBeginDate(begin);
+    contracts.add(contract);
+    timeline = ContractTimeline.of(contracts);
+  }
+
+  @Benchmark
+  public int legacyIsActiveInDay() {
+    int active = 0;
+    for (LocalDate date = FROM; !date.isAfter(TO); date = date.plusDays(1)) {
+      if (LegacyContracts.isActiveInDay(contracts, date)) {
+        active++;
+      }
+    }
+    return active;
+  }
+
+  @Benchmark
+  public int timelineIsActiveInDay() {
+    int active = 0;
+    for (LocalDate date = FROM; !date.isAfter(TO); date = date.plusDays(1)) {
+      if (timeline.isActive(date)) {
+        active++;
+      }
+    }
+    return active;
+  }
+
+  @Benchmark
+  public int legacyMonthContracts() {
+    int count = 0;
+    for (LocalDate date = FROM; !date.isAfter(TO); date = date.plusMonths(1)) {
+      count += LegacyContracts.orderedMonthContracts(
+          contracts, date.getYear(), date.getMonthValue()).size();
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int timelineMonthContracts() {
+    int count = 0;
+    for (LocalDate date = FROM; !date.isAfter(TO); date = date.plusMonths(1)) {
+      count += timeline.contractsIn(date, DateUtility.endOfMonth(date)).size();
+    }
+    return count;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ContractTimelineBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  /**
+   * I contratti del mese e il controllo sul giorno come implementati in WrapperPerson prima
+   * della ContractTimeline.
+   */
+  public static final class LegacyContracts {
+
+    static boolean isActiveInDay(List<Contract> personContracts, LocalDate date) {
+      for (Contract contract : orderedMonthContracts(
+          personContracts, date.getYear(), date.getMonthValue())) {
+        if (DateUtility.isDateIntoInterval(date, contract.periodInterval())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    static List<Contract> orderedMonthContracts(List<Contract> personContracts,
+        int year, int month) {
+      List<Contract> contracts = Lists.newArrayList();
+      LocalDate monthBegin = LocalDate.of(year, month, 1);
+      DateInterval monthInterval = new DateInterval(monthBegin,
+          DateUtility.endOfMonth(monthBegin));
+      // personContracts è già ordinata, come sortedContracts memoizzato nel wrapper
+      for (Contract contract : personContracts) {
+        DateInterval contractInterval = contract.getEndContract() != null
+            ? new DateInterval(contract.getBeginDate(), contract.getEndContract())
+            : new DateInterval(contract.getBeginDate(), contract.getEndDate());
+        if (DateUtility.intervalIntersection(monthInterval, contractInterval) != null) {
+          contracts.add(contract);
+        }
+      }
+      return contracts;
+    }
+  }
+}
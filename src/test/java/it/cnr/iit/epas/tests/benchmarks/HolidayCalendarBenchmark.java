@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.benchmarks;
+
+import it.cnr.iit.epas.tests.utils.LegacyHolidays;
+import it.cnr.iit.epas.utils.NationalHolidays;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Confronto tra il controllo storico delle festività (calcolo della Pasqua e catena di
+ * confronti ad ogni chiamata) e il calendario precalcolato per anno, su tutti i giorni di
+ * dieci anni come avviene in un ricalcolo.
+ *
+ * <p>Si esegue dopo mvn test-compile con il main di questa classe e il classpath di test.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HolidayCalendarBenchmark {
+
+  private static final MonthDay PATRON = MonthDay.of(6, 24);
+  private static final LocalDate FROM = LocalDate.of(2015, 1, 1);
+  private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+  @Benchmark
+  public int legacyIsGeneralHoliday() {
+    int holidays = 0;
+    for (LocalDate date = FROM; !date.isAfter(TO); date = date.plusDays(1)) {
+      if (LegacyHolidays.isGeneralHoliday(PATRON, date)) {
+        holidays++;
+      }
+    }
+    return holidays;
+  }
+
+  @Benchmark
+  public int precomputedIsHoliday() {
+    int holidays = 0;
+    for (LocalDate date = FROM; !date.isAfter(TO); date = date.plusDays(1)) {
+      if (NationalHolidays.isHoliday(PATRON, date)) {
+        holidays++;
+      }
+    }
+    return holidays;
+  }
+
+  @Benchmark
+  public long precomputedCountHolidays() {
+    return NationalHolidays.countHolidays(FROM, TO);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(HolidayCalendarBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.cnr.iit.epas.config.CacheProperties;
+import it.cnr.iit.epas.config.GuavaCacheManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+class GuavaCacheManagerTest {
+
+  @Test
+  void boundedCacheWithMetrics() {
+    CacheProperties properties = new CacheProperties();
+    properties.getSpecs().put("test", new CacheProperties.Spec(2, null, null));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    GuavaCacheManager cacheManager = new GuavaCacheManager(properties, registry);
+
+    Cache cache = cacheManager.getCache("test");
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.put("c", 3);
+    cache.get("c");
+    cache.get("d");
+
+    // la dimensione massima è rispettata
+    assertEquals(2L, ((com.google.common.cache.Cache<?, ?>) cache.getNativeCache()).size());
+    assertEquals(1.0, registry.get("cache.evictions").tag("cache", "test")
+        .functionCounter().count(), 0.0);
+    assertEquals(1.0, registry.get("cache.gets").tag("cache", "test").tag("result", "hit")
+        .functionCounter().count(), 0.0);
+
+    // inserire null equivale a rimuovere la chiave
+    assertNotNull(cache.get("c"));
+    cache.put("c", null);
+    assertNull(cache.get("c"));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.configurations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import it.cnr.iit.epas.manager.configurations.ConfigurationManager;
+import it.cnr.iit.epas.manager.configurations.EpasParam;
+import it.cnr.iit.epas.manager.configurations.EpasParam.EpasParamValueType;
+import it.cnr.iit.epas.manager.configurations.EpasParam.EpasParamValueType.LocalTimeInterval;
+import it.cnr.iit.epas.models.Configuration;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+import javax.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class ConfigurationIndexTest {
+
+  private static final LocalDate BEGIN = LocalDate.of(2020, 1, 1);
+  private static final LocalDate DAY = LocalDate.of(2024, 6, 3);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private ConfigurationManager configurationManager;
+
+  /**
+   * I valori sono convertiti una sola volta e condivisi finché le configurazioni non cambiano.
+   */
+  @Test
+  void parsedValuesAreShared() {
+    Office office = office();
+
+    Object lunch = configurationManager.configValue(office, EpasParam.LUNCH_INTERVAL, DAY);
+    assertSame(lunch, configurationManager.configValue(office, EpasParam.LUNCH_INTERVAL, DAY));
+    assertEquals(LocalTime.of(12, 0), ((LocalTimeInterval) lunch).from);
+  }
+
+  /**
+   * La modifica del valore di una configurazione fatta direttamente sull'entity, senza cambiare
+   * il numero delle configurazioni, ricostruisce l'indice.
+   */
+  @Test
+  void changedValueRebuildsTheIndex() {
+    Office office = office();
+    Object before = configurationManager.configValue(office, EpasParam.LUNCH_INTERVAL, DAY);
+
+    lunchInterval(office).setValue(EpasParamValueType.formatValue(
+        new LocalTimeInterval(LocalTime.of(13, 0), LocalTime.of(14, 0))));
+
+    Object after = configurationManager.configValue(office, EpasParam.LUNCH_INTERVAL, DAY);
+    assertNotSame(before, after);
+    assertEquals(LocalTime.of(13, 0), ((LocalTimeInterval) after).from);
+  }
+
+  /**
+   * Anche lo spostamento delle date di un periodo ricostruisce l'indice.
+   */
+  @Test
+  void changedPeriodRebuildsTheIndex() {
+    Office office = office();
+    configurationManager.configValue(office, EpasParam.LUNCH_INTERVAL, DAY);
+
+    lunchInterval(office).setBeginDate(DAY.plusDays(1));
+
+    // il giorno è nella vita della sede ma non più coperto da alcun periodo
+    assertThrows(IllegalStateException.class,
+        () -> configurationManager.configValue(office, EpasParam.LUNCH_INTERVAL, DAY));
+  }
+
+  private Office office() {
+    String name = "office" + UUID.randomUUID();
+    return h2Examples.buildOffice(BEGIN, name, name, name);
+  }
+
+  private Configuration lunchInterval(Office office) {
+    return office.getConfigurations().stream()
+        .filter(c -> c.epasParam == EpasParam.LUNCH_INTERVAL)
+        .findFirst().get();
+  }
+}
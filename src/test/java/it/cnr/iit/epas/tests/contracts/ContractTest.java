@@ -59,4 +59,23 @@ class ContractTest {
     assertTrue(wrapperPerson.getCurrentContract().isPresent());
     assertEquals(contract, wrapperPerson.getCurrentContract().get());
   }
-}
\ No newline at end of file
+
+  /**
+   * Ogni wrapper è legato alla propria persona: la creazione di un secondo wrapper non deve
+   * modificare i valori (e le memoizzazioni) del primo.
+   */
+  @Test
+  void testWrappersAreIndependent() {
+    val beginDate = LocalDate.now();
+    val first = example.normalEmployee(beginDate, Optional.empty());
+    val second = example.normalEmployee(beginDate.minusYears(1), Optional.empty());
+    val firstWrapper = wrapperFactory.create(first);
+    assertEquals(first.getContracts().get(0), firstWrapper.getCurrentContract().get());
+
+    val secondWrapper = wrapperFactory.create(second);
+    assertEquals(second, secondWrapper.getValue());
+    assertEquals(second.getContracts().get(0), secondWrapper.getCurrentContract().get());
+    assertEquals(first, firstWrapper.getValue());
+    assertEquals(first.getContracts().get(0), firstWrapper.getCurrentContract().get());
+  }
+}
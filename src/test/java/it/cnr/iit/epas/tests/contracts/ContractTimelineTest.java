@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.contracts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import it.cnr.iit.epas.dao.wrapper.ContractTimeline;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.ContractWorkingTimeType;
+import it.cnr.iit.epas.models.VacationPeriod;
+import it.cnr.iit.epas.models.WorkingTimeType;
+import it.cnr.iit.epas.models.WorkingTimeTypeDay;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import org.junit.jupiter.api.Test;
+
+class ContractTimelineTest {
+
+  private static final LocalDate FIRST_BEGIN = LocalDate.of(2010, 1, 1);
+  private static final LocalDate FIRST_END = LocalDate.of(2012, 6, 30);
+  private static final LocalDate SECOND_BEGIN = LocalDate.of(2012, 9, 1);
+
+  /**
+   * Giorni dentro, fuori e al bordo dei contratti, con il contratto a tempo indeterminato
+   * chiuso da endContract.
+   */
+  @Test
+  void activeAndContractOnDay() {
+    Contract first = contract(FIRST_BEGIN, FIRST_END, null);
+    Contract second = contract(SECOND_BEGIN, null, LocalDate.of(2030, 12, 31));
+    ContractTimeline timeline = ContractTimeline.of(Lists.newArrayList(second, first));
+
+    assertEquals(Lists.newArrayList(first, second), timeline.contracts());
+    assertFalse(timeline.isActive(FIRST_BEGIN.minusDays(1)));
+    assertEquals(first, timeline.contractAt(FIRST_BEGIN));
+    assertEquals(first, timeline.contractAt(FIRST_END));
+    assertFalse(timeline.isActive(FIRST_END.plusDays(1)));
+    assertNull(timeline.contractAt(SECOND_BEGIN.minusDays(1)));
+    assertEquals(second, timeline.contractAt(SECOND_BEGIN));
+    assertTrue(timeline.isActive(LocalDate.of(2030, 12, 31)));
+    assertFalse(timeline.isActive(LocalDate.of(2031, 1, 1)));
+  }
+
+  /**
+   * Contratti di un mese e di un anno, compresi quelli che lo intersecano solo in parte.
+   */
+  @Test
+  void contractsInMonthAndYear() {
+    Contract first = contract(FIRST_BEGIN, FIRST_END, null);
+    Contract second = contract(SECOND_BEGIN, null, null);
+    ContractTimeline timeline = ContractTimeline.of(Lists.newArrayList(first, second));
+
+    assertEquals(Lists.newArrayList(first), timeline.contractsIn(YearMonth.of(2012, 6)));
+    assertTrue(timeline.contractsIn(YearMonth.of(2012, 7)).isEmpty());
+    assertEquals(Lists.newArrayList(second), timeline.contractsIn(YearMonth.of(2040, 1)));
+    assertEquals(Lists.newArrayList(first, second), timeline.contractsInYear(2012));
+    assertTrue(timeline.contractsInYear(2009).isEmpty());
+    assertFalse(timeline.isActive(LocalDate.of(2012, 7, 1), LocalDate.of(2012, 8, 31)));
+    assertTrue(timeline.isActive(LocalDate.of(2012, 7, 1), SECOND_BEGIN));
+  }
+
+  /**
+   * Tipo orario e piano ferie in vigore nel giorno.
+   */
+  @Test
+  void workingTimeTypeAndVacationPeriodOnDay() {
+    Contract contract = contract(FIRST_BEGIN, null, null);
+    WorkingTimeType normal = workingTimeType();
+    WorkingTimeType partTime = workingTimeType();
+    ContractWorkingTimeType cwttNormal =
+        contractWorkingTimeType(normal, FIRST_BEGIN, LocalDate.of(2014, 12, 31));
+    ContractWorkingTimeType cwttPartTime =
+        contractWorkingTimeType(partTime, LocalDate.of(2015, 1, 1), null);
+    contract.getContractWorkingTimeType().add(cwttNormal);
+    contract.getContractWorkingTimeType().add(cwttPartTime);
+    VacationPeriod vacationPeriod = new VacationPeriod();
+    vacationPeriod.setBeginDate(FIRST_BEGIN);
+    contract.getVacationPeriods().add(vacationPeriod);
+    ContractTimeline timeline = ContractTimeline.of(Lists.newArrayList(contract));
+
+    assertEquals(cwttNormal, timeline.contractWorkingTimeTypeAt(LocalDate.of(2014, 12, 31)));
+    assertEquals(cwttPartTime, timeline.contractWorkingTimeTypeAt(LocalDate.of(2015, 1, 1)));
+    // 2015-01-01 è un giovedì
+    assertEquals(partTime.getWorkingTimeTypeDays().get(3),
+        timeline.workingTimeTypeDayAt(LocalDate.of(2015, 1, 1)));
+    assertEquals(vacationPeriod, timeline.vacationPeriodAt(LocalDate.of(2020, 5, 5)));
+    assertNull(timeline.workingTimeTypeDayAt(FIRST_BEGIN.minusDays(1)));
+    assertNull(timeline.vacationPeriodAt(FIRST_BEGIN.minusDays(1)));
+  }
+
+  private static Contract contract(LocalDate begin, LocalDate end, LocalDate endContract) {
+    Contract contract = new Contract();
+    contract.setBeginDate(begin);
+    contract.setEndDate(end);
+    contract.setEndContract(endContract);
+    return contract;
+  }
+
+  private static WorkingTimeType workingTimeType() {
+    WorkingTimeType wtt = new WorkingTimeType();
+    for (int day = 1; day <= 7; day++) {
+      WorkingTimeTypeDay wttd = new WorkingTimeTypeDay();
+      wttd.dayOfWeek = day;
+      wtt.getWorkingTimeTypeDays().add(wttd);
+    }
+    return wtt;
+  }
+
+  private static ContractWorkingTimeType contractWorkingTimeType(WorkingTimeType wtt,
+      LocalDate begin, LocalDate end) {
+    ContractWorkingTimeType cwtt = new ContractWorkingTimeType();
+    cwtt.setWorkingTimeType(wtt);
+    cwtt.setBeginDate(begin);
+    cwtt.setEndDate(end);
+    return cwtt;
+  }
+}
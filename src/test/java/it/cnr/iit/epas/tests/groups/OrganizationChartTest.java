@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.tests.groups;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.google.common.hash.Hashing;
+import it.cnr.iit.epas.dao.RoleDao;
+import it.cnr.iit.epas.dao.UsersRolesOfficesDao;
+import it.cnr.iit.epas.dto.v4.mapper.SeatOrganizationChartMapper;
+import it.cnr.iit.epas.manager.GroupManager;
+import it.cnr.iit.epas.manager.cache.OrganizationChartCache;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.Role;
+import it.cnr.iit.epas.models.UsersRolesOffices;
+import it.cnr.iit.epas.models.enumerate.AccountRole;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import javax.inject.Inject;
+import lombok.val;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrganizationChartTest {
+
+  private static final String PASSWORD = "password";
+  private static final List<String> OFFICE_ROLES = List.of(Role.SEAT_SUPERVISOR,
+      Role.PERSONNEL_ADMIN, Role.TECHNICAL_ADMIN, Role.REGISTRY_MANAGER,
+      Role.MEAL_TICKET_MANAGER, Role.PERSONNEL_ADMIN_MINI);
+
+  @Inject
+  private MockMvc mockMvc;
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private GroupManager groupManager;
+  @Inject
+  private SeatOrganizationChartMapper seatOrganizationChartMapper;
+  @Inject
+  private RoleDao roleDao;
+  @Inject
+  private UsersRolesOfficesDao uroDao;
+  @Inject
+  private OrganizationChartCache organizationChartCache;
+  @Inject
+  private CacheManager cacheManager;
+
+  @BeforeEach
+  void clearCache() {
+    organizationChartCache.evictAll();
+  }
+
+  /**
+   * L'organigramma della sede è letto con un numero di query che non dipende dal numero di
+   * utenti con ruoli nella sede, compresa la conversione nei DTO.
+   */
+  @Test
+  void officeChartQueriesDoNotGrowWithUsers() {
+    val small = office();
+    role(employee(small), small, Role.PERSONNEL_ADMIN);
+    val large = office();
+    role(employee(large), large, Role.PERSONNEL_ADMIN);
+    role(employee(large), large, Role.PERSONNEL_ADMIN);
+    role(employee(large), large, Role.TECHNICAL_ADMIN);
+    role(employee(large), large, Role.PERSONNEL_ADMIN_MINI);
+
+    assertEquals(statements(small), statements(large));
+
+    val chart = seatOrganizationChartMapper.convertByRoleName(
+        groupManager.createOfficeOrganizationChart(large, OFFICE_ROLES));
+    assertEquals(OFFICE_ROLES, List.copyOf(chart.keySet()));
+    assertEquals(2, chart.get(Role.PERSONNEL_ADMIN).size());
+    assertEquals(1, chart.get(Role.TECHNICAL_ADMIN).size());
+    assertEquals(1, chart.get(Role.PERSONNEL_ADMIN_MINI).size());
+    assertEquals(0, chart.get(Role.SEAT_SUPERVISOR).size());
+  }
+
+  /**
+   * L'organigramma in cache è rimosso quando cambiano i ruoli della sede.
+   */
+  @Test
+  void roleChangesEvictTheOfficeChart() throws Exception {
+    val office = office();
+    val employee = employee(office);
+    val developer = employee(office);
+    developer.getUser().getRoles().add(AccountRole.DEVELOPER);
+    developer.getUser().setPassword(
+        Hashing.md5().hashString(PASSWORD, StandardCharsets.UTF_8).toString());
+
+    mockMvc.perform(seatOrganizationChart(developer, employee))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.personnelAdmins.personnelAdmin.length()").value(0));
+    val cache = cacheManager.getCache(OrganizationChartCache.ORGANIZATION_CHART_CACHE);
+    assertNotNull(cache.get(office.getId()));
+
+    role(employee(office), office, Role.PERSONNEL_ADMIN);
+    assertNull(cache.get(office.getId()));
+    // il nuovo utente va riletto con la sua persona
+    uroDao.getEntityManager().flush();
+    uroDao.getEntityManager().clear();
+
+    mockMvc.perform(seatOrganizationChart(developer, employee))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.personnelAdmins.personnelAdmin.length()").value(1));
+  }
+
+  /**
+   * Le query eseguite per costruire l'organigramma della sede, con il contesto di persistenza
+   * vuoto.
+   */
+  private long statements(Office office) {
+    val em = uroDao.getEntityManager();
+    em.flush();
+    em.clear();
+    final Statistics statistics =
+        em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    statistics.setStatisticsEnabled(true);
+    try {
+      seatOrganizationChartMapper.convertByRoleName(
+          groupManager.createOfficeOrganizationChart(office, OFFICE_ROLES));
+      return statistics.getPrepareStatementCount();
+    } finally {
+      statistics.setStatisticsEnabled(false);
+    }
+  }
+
+  private Office office() {
+    val name = "office" + UUID.randomUUID();
+    return h2Examples.buildOffice(LocalDate.of(2020, 1, 1), name, name, name);
+  }
+
+  private Person employee(Office office) {
+    return h2Examples.createPerson(office, "employee" + UUID.randomUUID());
+  }
+
+  private void role(Person person, Office office, String roleName) {
+    val uro = new UsersRolesOffices();
+    uro.setUser(person.getUser());
+    uro.setOffice(office);
+    uro.setRole(roleDao.getRoleByName(roleName));
+    uroDao.persist(uro);
+  }
+
+  private MockHttpServletRequestBuilder seatOrganizationChart(Person user, Person person) {
+    val credentials = user.getUser().getUsername() + ":" + PASSWORD;
+    return get("/rest/v4/groups/seatOrganizationChart")
+        .param("personId", person.getId().toString())
+        .header(HttpHeaders.AUTHORIZATION, "Basic "
+            + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.tests.history;
+
+import static org.junit.Assert.assertEquals;
+
+import it.cnr.iit.epas.dao.OfficeDao;
+import it.cnr.iit.epas.dao.history.HistoricalDao;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.User;
+import javax.inject.Inject;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Le revisioni envers sono scritte solo al commit, per cui le modifiche sono effettuate in
+ * transazioni distinte e non annullate al termine del test (la sede è riportata al nome
+ * iniziale).
+ */
+@SpringBootTest
+class LastRevisionOperatorTest {
+
+  private static final long OFFICE_ID = 2L;
+
+  @Inject
+  private TransactionTemplate transactionTemplate;
+  @Inject
+  private OfficeDao officeDao;
+  @Inject
+  private HistoricalDao historicalDao;
+
+  @AfterEach
+  void clearAuthentication() {
+    SecurityContextHolder.clearContext();
+  }
+
+  /**
+   * L'ultimo operatore ricavato dalle entità registrate nelle revisioni coincide con quello
+   * dello storico envers, anche per le entity modificate prima della loro registrazione.
+   */
+  @Test
+  void indexAndHistoryReturnTheSameOperator() {
+    val name = transactionTemplate.execute(status -> office().getName());
+    rename(name + " (modificata)", "cristian.lucchesi");
+    rename(name, "pisaBadge");
+
+    transactionTemplate.executeWithoutResult(status -> {
+      User fromHistory = historicalDao.lastRevisionOf(Office.class, OFFICE_ID).revision
+          .getOwner();
+      assertEquals("pisaBadge", fromHistory.getUsername());
+      assertEquals(fromHistory, historicalDao.lastRevisionOperator(office()));
+    });
+
+    // revisioni precedenti alla registrazione delle entità modificate
+    transactionTemplate.executeWithoutResult(status -> officeDao.getEntityManager()
+        .createNativeQuery(
+            "DELETE FROM revinfo_changes WHERE entity_name = :name AND entity_id = :id")
+        .setParameter("name", Office.class.getName())
+        .setParameter("id", OFFICE_ID)
+        .executeUpdate());
+
+    transactionTemplate.executeWithoutResult(status -> {
+      User fromHistory = historicalDao.lastRevisionOf(Office.class, OFFICE_ID).revision
+          .getOwner();
+      assertEquals(fromHistory, historicalDao.lastRevisionOperator(office()));
+      assertEquals("pisaBadge", historicalDao.lastRevisionOperator(office()).getUsername());
+    });
+  }
+
+  private void rename(String name, String username) {
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(username, null));
+    transactionTemplate.executeWithoutResult(status -> {
+      val office = office();
+      office.setName(name);
+      officeDao.merge(office);
+    });
+  }
+
+  private Office office() {
+    return officeDao.byId(OFFICE_ID).get();
+  }
+}
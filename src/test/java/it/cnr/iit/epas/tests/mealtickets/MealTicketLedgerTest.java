@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.mealtickets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Maps;
+import it.cnr.iit.epas.dao.MealTicketDao;
+import it.cnr.iit.epas.dao.MealTicketLedgerDao;
+import it.cnr.iit.epas.dao.PersonDao;
+import it.cnr.iit.epas.dao.PersonDayDao;
+import it.cnr.iit.epas.manager.MealTicketLedgerManager;
+import it.cnr.iit.epas.manager.services.mealtickets.IMealTicketsService;
+import it.cnr.iit.epas.manager.services.mealtickets.MealTicketRecap;
+import it.cnr.iit.epas.manager.services.mealtickets.MealTicketRecapBuilder;
+import it.cnr.iit.epas.manager.services.mealtickets.MealTicketsServiceImpl.MealTicketOrder;
+import it.cnr.iit.epas.models.Contract;
+import it.cnr.iit.epas.models.MealTicket;
+import it.cnr.iit.epas.models.MealTicketLedger;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.enumerate.BlockType;
+import it.cnr.iit.epas.models.enumerate.MealTicketBehaviour;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import it.cnr.iit.epas.utils.DateInterval;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class MealTicketLedgerTest {
+
+  private static final YearMonth FIRST_MONTH = YearMonth.now().minusMonths(21);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private IMealTicketsService mealTicketsService;
+  @Inject
+  private MealTicketRecapBuilder mealTicketRecapBuilder;
+  @Inject
+  private MealTicketLedgerManager mealTicketLedgerManager;
+  @Inject
+  private MealTicketLedgerDao mealTicketLedgerDao;
+  @Inject
+  private MealTicketDao mealTicketDao;
+  @Inject
+  private PersonDao personDao;
+  @Inject
+  private PersonDayDao personDayDao;
+
+  /**
+   * Il riepilogo costruito dai movimenti mensili coincide con quello costruito sull'intera
+   * storia del contratto, anche quando esaurimento e scadenza cadono in mesi conclusi.
+   * La lettura del riepilogo non salva i movimenti, salvati dall'aggiornamento dei mesi
+   * conclusi.
+   */
+  @Test
+  void ledgerRecapMatchesFullRecap() {
+    val contract = contractWithMealTickets();
+
+    assertSameRecap(contract);
+    assertTrue(mealTicketLedgerDao.byContract(contract).isEmpty());
+
+    mealTicketLedgerManager.update(contract, YearMonth.now());
+    assertTrue(mealTicketLedgerDao.byContract(contract).isEmpty());
+
+    mealTicketLedgerManager.refresh(contract);
+    assertSameRecap(contract);
+
+    val ledger = mealTicketLedgerDao.byContract(contract);
+    assertEquals(21, ledger.size());
+    assertEquals(210, ledger.stream().mapToInt(MealTicketLedger::getConsumed).sum());
+    assertEquals(70 - 210, ledger.get(ledger.size() - 1).getRemaining());
+    assertEquals(5, ledger.get(1).getReturned());
+    assertEquals(40, ledger.get(3).getExpired());
+  }
+
+  /**
+   * I movimenti aggiornati dal mese modificato, o ricostruiti se non allineati con i giorni,
+   * producono lo stesso riepilogo dell'intera storia del contratto.
+   */
+  @Test
+  void ledgerFollowsPersonDayChanges() {
+    val contract = contractWithMealTickets();
+    assertSameRecap(contract);
+
+    val modified = FIRST_MONTH.plusMonths(5);
+    personDayWithMealTicket(contract.person, modified.atDay(15));
+    mealTicketLedgerManager.update(contract, modified);
+    assertEquals(11, mealTicketLedgerDao.byContract(contract).get(5).getConsumed());
+    assertSameRecap(contract);
+
+    // giorno aggiunto senza aggiornare i movimenti
+    personDayWithMealTicket(contract.person, FIRST_MONTH.plusMonths(2).atDay(20));
+    assertSameRecap(contract);
+    assertEquals(10, mealTicketLedgerDao.byContract(contract).get(2).getConsumed());
+    mealTicketLedgerManager.refresh(contract);
+    assertEquals(11, mealTicketLedgerDao.byContract(contract).get(2).getConsumed());
+  }
+
+  /**
+   * Al cambio del mese i movimenti sono estesi con il mese appena concluso, senza ricalcolare
+   * i mesi precedenti.
+   */
+  @Test
+  void closedMonthIsAppendedToLedger() {
+    val contract = contractWithMealTickets();
+    mealTicketLedgerManager.refresh(contract);
+
+    val ledger = mealTicketLedgerDao.byContract(contract);
+    // il primo mese è marcato per verificare che non venga ricalcolato
+    ledger.get(0).setExpired(1000);
+    // l'ultimo mese concluso non ancora registrato, come al primo accesso del nuovo mese
+    mealTicketLedgerDao.delete(ledger.get(ledger.size() - 1));
+    mealTicketLedgerDao.getEntityManager().flush();
+
+    assertSameRecap(contract);
+    assertEquals(20, mealTicketLedgerDao.byContract(contract).size());
+    mealTicketLedgerManager.refresh(contract);
+    val updated = mealTicketLedgerDao.byContract(contract);
+    assertEquals(21, updated.size());
+    assertEquals(1000, updated.get(0).getExpired());
+    assertEquals(10, updated.get(20).getConsumed());
+  }
+
+  /**
+   * Con i buoni da inizializzazione, positivi o negativi, il riepilogo costruito dai movimenti
+   * mensili coincide con quello costruito sull'intera storia del contratto.
+   */
+  @Test
+  void ledgerRecapMatchesFullRecapWithSourcedMealTickets() {
+    val contract = contractWithMealTickets();
+    contract.setSourceDateMealTicket(FIRST_MONTH.atDay(1));
+
+    contract.setSourceRemainingMealTicket(25);
+    assertSameRecap(contract);
+    assertEquals(25, mealTicketsService.create(contract).get().getSourcedInInterval());
+
+    contract.setSourceRemainingMealTicket(-15);
+    assertSameRecap(contract);
+    assertEquals(-15, mealTicketsService.create(contract).get().getSourcedInInterval());
+  }
+
+  private void assertSameRecap(Contract contract) {
+    val expected = fullRecap(contract);
+    Map<MealTicket, Boolean> expectedUsed = used(expected);
+
+    val recap = mealTicketsService.create(contract).get();
+
+    assertEquals(expected.getRemaining(), recap.getRemaining());
+    assertEquals(expected.getConsumed(), recap.getConsumed());
+    assertEquals(expected.getSourcedInInterval(), recap.getSourcedInInterval());
+    assertEquals(expected.getNegativeResidual(), recap.getNegativeResidual());
+    assertNotNull(expected.getDateRunOut());
+    assertEquals(expected.getDateRunOut(), recap.getDateRunOut());
+    assertNotNull(expected.getDateExpire());
+    assertEquals(expected.getDateExpire(), recap.getDateExpire());
+    assertEquals(expected.getMealTicketsReceivedExpireOrderedAsc(),
+        recap.getMealTicketsReceivedExpireOrderedAsc());
+    assertEquals(expected.getMealTicketsReceivedExpireOrderedAscPostInit(),
+        recap.getMealTicketsReceivedExpireOrderedAscPostInit());
+    assertEquals(expected.getMealTicketsReceivedDeliveryOrderedDesc(),
+        recap.getMealTicketsReceivedDeliveryOrderedDesc());
+    assertEquals(expected.getMealTicketReturnedDeliveryOrderDesc(),
+        recap.getMealTicketReturnedDeliveryOrderDesc());
+    assertEquals(expectedUsed, used(recap));
+  }
+
+  private MealTicketRecap fullRecap(Contract contract) {
+    DateInterval interval = mealTicketsService.getContractMealTicketDateInterval(contract).get();
+    return mealTicketRecapBuilder.buildMealTicketRecap(contract, interval,
+        personDao.getPersonDayIntoInterval(contract.person, interval, true),
+        mealTicketDao.contractMealTickets(contract, Optional.empty(),
+            MealTicketOrder.ORDER_BY_EXPIRE_DATE_ASC, false),
+        mealTicketDao.contractMealTickets(contract, Optional.of(interval),
+            MealTicketOrder.ORDER_BY_EXPIRE_DATE_ASC, false),
+        mealTicketDao.contractMealTickets(contract, Optional.empty(),
+            MealTicketOrder.ORDER_BY_DELIVERY_DATE_DESC, false),
+        mealTicketDao.contractMealTickets(contract, Optional.empty(),
+            MealTicketOrder.ORDER_BY_DELIVERY_DATE_DESC, true));
+  }
+
+  private static Map<MealTicket, Boolean> used(MealTicketRecap recap) {
+    Map<MealTicket, Boolean> used = Maps.newHashMap();
+    recap.getMealTicketsReceivedExpireOrderedAsc().forEach(mt -> used.put(mt, mt.used));
+    return used;
+  }
+
+  /**
+   * Un contratto con 10 giorni con buono pasto al mese dal primo mese a quello in corso e
+   * 70 buoni consegnati: i primi 40 scadono durante il quarto mese, i buoni si esauriscono
+   * all'inizio dell'ottavo mese.
+   */
+  private Contract contractWithMealTickets() {
+    val person = h2Examples.normalEmployee(FIRST_MONTH.atDay(1), Optional.empty());
+    val contract = person.getContracts().get(0);
+
+    for (YearMonth month = FIRST_MONTH; !month.isAfter(YearMonth.now());
+        month = month.plusMonths(1)) {
+      for (int day = 1; day <= 10; day++) {
+        personDayWithMealTicket(person, month.atDay(day));
+      }
+    }
+
+    deliver(contract, "A", 40, FIRST_MONTH.atDay(2), FIRST_MONTH.plusMonths(3).atDay(5), false);
+    deliver(contract, "B", 30, FIRST_MONTH.plusMonths(2).atDay(1),
+        LocalDate.now().plusYears(1), false);
+    deliver(contract, "C", 5, FIRST_MONTH.plusMonths(1).atDay(1),
+        LocalDate.now().plusYears(1), true);
+    return contract;
+  }
+
+  private void personDayWithMealTicket(Person person, LocalDate date) {
+    val personDay = new PersonDay(person, date);
+    personDay.setTicketAvailable(MealTicketBehaviour.allowMealTicket);
+    personDayDao.persist(personDay);
+  }
+
+  private void deliver(Contract contract, String block, int size, LocalDate date,
+      LocalDate expireDate, boolean returned) {
+    for (MealTicket mealTicket : mealTicketsService.buildBlockMealTicket(block + date,
+        BlockType.papery, 1, size, expireDate, contract.person.getOffice())) {
+      mealTicket.setContract(contract);
+      mealTicket.setDate(date);
+      mealTicket.setAdmin(contract.person);
+      mealTicket.setReturned(returned);
+      mealTicketDao.persist(mealTicket);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.tests.persondays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableSet;
+import it.cnr.iit.epas.dao.PersonDayDao;
+import it.cnr.iit.epas.manager.services.absences.AbsenceService;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.Stamping.WayType;
+import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import it.cnr.iit.epas.tests.db.h2support.base.H2AbsenceSupport;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import javax.inject.Inject;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class PersonDayDaoTest {
+
+  private static final YearMonth MONTH = YearMonth.of(2016, 1);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private H2AbsenceSupport h2AbsenceSupport;
+  @Inject
+  private AbsenceService absenceService;
+  @Inject
+  private PersonDayDao personDayDao;
+
+  /**
+   * I personday del mese hanno timbrature e assenze già inizializzate, anche nella versione
+   * in sola lettura, e le modifiche ai personday in sola lettura non sono salvate.
+   */
+  @Test
+  void personDaysInMonthAreFetched() {
+    absenceService.enumInitializator();
+
+    Person person = h2Examples.normalEmployee(LocalDate.of(2014, 3, 17), Optional.empty());
+    h2AbsenceSupport.multipleAllDayInstances(person, DefaultAbsenceType.A_31,
+        ImmutableSet.of(MONTH.atDay(4), MONTH.atDay(5)));
+    PersonDay worked = h2AbsenceSupport.getPersonDay(person, MONTH.atDay(7));
+    stamping(worked, 9, WayType.in);
+    stamping(worked, 17, WayType.out);
+
+    EntityManager em = personDayDao.getEntityManager();
+    em.flush();
+    em.clear();
+
+    List<PersonDay> personDays = personDayDao.getPersonDayInMonth(person, MONTH);
+    assertFetched(personDays);
+
+    em.clear();
+    List<PersonDay> readOnly = personDayDao.getPersonDayInMonthReadOnly(person, MONTH);
+    assertFetched(readOnly);
+
+    readOnly.forEach(pd -> pd.setTimeAtWork(123));
+    em.flush();
+    em.clear();
+    personDayDao.getPersonDayInMonth(person, MONTH)
+        .forEach(pd -> assertEquals(0, pd.getTimeAtWork().intValue()));
+  }
+
+  private void assertFetched(List<PersonDay> personDays) {
+    assertEquals(3, personDays.size());
+    assertEquals(MONTH.atDay(4), personDays.get(0).getDate());
+    assertEquals(MONTH.atDay(7), personDays.get(2).getDate());
+    for (PersonDay pd : personDays) {
+      assertTrue(Hibernate.isInitialized(pd.getStampings()));
+      assertTrue(Hibernate.isInitialized(pd.getAbsences()));
+    }
+    assertEquals(1, personDays.get(0).getAbsences().size());
+    assertEquals(DefaultAbsenceType.A_31.getCode(),
+        personDays.get(0).getAbsences().get(0).getAbsenceType().getCode());
+    assertEquals(2, personDays.get(2).getStampings().size());
+    assertEquals(0, personDays.get(2).getAbsences().size());
+  }
+
+  private void stamping(PersonDay personDay, int hour, WayType way) {
+    Stamping stamping = new Stamping(personDay, personDay.getDate().atTime(hour, 0));
+    stamping.setWay(way);
+    personDayDao.getEntityManager().persist(stamping);
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.recaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import it.cnr.iit.epas.dao.PersonDayDao;
+import it.cnr.iit.epas.dao.RoleDao;
+import it.cnr.iit.epas.manager.recaps.dailypresence.DailyPresenceRecap;
+import it.cnr.iit.epas.manager.recaps.dailypresence.DailyPresenceRecapFactory;
+import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingDayRecap;
+import it.cnr.iit.epas.manager.services.absences.AbsenceService;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.Role;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.Stamping.WayType;
+import it.cnr.iit.epas.models.UsersRolesOffices;
+import it.cnr.iit.epas.models.WorkingTimeType;
+import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import it.cnr.iit.epas.tests.db.h2support.base.H2AbsenceSupport;
+import it.cnr.iit.epas.tests.db.h2support.base.H2WorkingTimeTypeSupport;
+import it.cnr.iit.epas.tests.db.h2support.base.WorkingTimeTypeDefinitions.WorkingDefinition;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import javax.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class DailyPresenceRecapTest {
+
+  private static final String PASSWORD = "password";
+  private static final LocalDate BEGIN = LocalDate.of(2014, 3, 17);
+  private static final LocalDate DAY = LocalDate.of(2016, 1, 7);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private H2AbsenceSupport h2AbsenceSupport;
+  @Inject
+  private H2WorkingTimeTypeSupport h2WorkingTimeTypeSupport;
+  @Inject
+  private AbsenceService absenceService;
+  @Inject
+  private DailyPresenceRecapFactory dailyPresenceRecapFactory;
+  @Inject
+  private PersonDayDao personDayDao;
+  @Inject
+  private RoleDao roleDao;
+  @Inject
+  private MockMvc mockMvc;
+
+  /**
+   * La presenza giornaliera contiene un giorno per ogni dipendente della sede con il personday,
+   * le colonne per il massimo numero di coppie ingresso/uscita e il riepilogo di presenti e
+   * assenti.
+   */
+  @Test
+  void officeDayIsBuiltForAllPeople() {
+    absenceService.enumInitializator();
+
+    Person worker = h2Examples.normalEmployee(BEGIN, Optional.empty());
+    final Office office = worker.getOffice();
+    Person absent = employee(office);
+    Person waiting = employee(office);
+
+    PersonDay worked = h2AbsenceSupport.getPersonDay(worker, DAY);
+    stamping(worked, 8, WayType.in);
+    stamping(worked, 10, WayType.out);
+    stamping(worked, 11, WayType.in);
+    stamping(worked, 13, WayType.out);
+    stamping(worked, 14, WayType.in);
+    stamping(worked, 18, WayType.out);
+    h2AbsenceSupport.multipleAllDayInstances(absent, DefaultAbsenceType.A_31,
+        ImmutableSet.of(DAY));
+    h2AbsenceSupport.getPersonDay(waiting, DAY);
+
+    EntityManager em = personDayDao.getEntityManager();
+    em.flush();
+    em.clear();
+
+    DailyPresenceRecap recap =
+        dailyPresenceRecapFactory.create(em.find(Office.class, office.getId()), DAY);
+
+    assertEquals(3, recap.daysRecap.size());
+    assertEquals(3, recap.numberOfInOut);
+    for (PersonStampingDayRecap day : recap.daysRecap) {
+      assertEquals(6, day.stampingsTemplate.size());
+    }
+    assertEquals(3, recap.dailyMap.size());
+    assertEquals(Integer.valueOf(1), recap.dailyMap.get(DailyPresenceRecap.PRESENT));
+    assertEquals(Integer.valueOf(1), recap.dailyMap.get(DailyPresenceRecap.TO_BE_COMPLETED));
+  }
+
+  /**
+   * Il numero di query per costruire la presenza giornaliera non dipende dal numero di
+   * dipendenti della sede, anche nel giorno corrente in cui viene calcolata l'uscita in questo
+   * momento a partire dal personday precedente.
+   */
+  @Test
+  void statementsDoNotGrowWithHeadcount() {
+    absenceService.enumInitializator();
+
+    final LocalDate today = LocalDate.now();
+    final Office warmUp = officeWithEmployees(1, today);
+    final Office small = officeWithEmployees(1, today);
+    final Office large = officeWithEmployees(3, today);
+
+    // la prima costruzione carica anche le cache non legate alla sede
+    statements(warmUp, today);
+    assertEquals(statements(small, today), statements(large, today));
+  }
+
+  /**
+   * La presenza giornaliera è visibile all'amministratore del personale della sede e non ai
+   * dipendenti.
+   */
+  @Test
+  void dailyPresenceIsShownToThePersonnelAdmin() throws Exception {
+    absenceService.enumInitializator();
+
+    Person worker = h2Examples.normalEmployee(BEGIN, Optional.empty());
+    final Office office = worker.getOffice();
+    PersonDay worked = h2AbsenceSupport.getPersonDay(worker, DAY);
+    stamping(worked, 8, WayType.in);
+    stamping(worked, 14, WayType.out);
+
+    final String adminOffice = "office" + UUID.randomUUID();
+    Person admin = h2Examples.createPerson(
+        h2Examples.buildOffice(BEGIN, adminOffice, adminOffice, adminOffice),
+        "admin" + UUID.randomUUID());
+    UsersRolesOffices uro = new UsersRolesOffices();
+    uro.setUser(admin.getUser());
+    uro.setOffice(office);
+    uro.setRole(roleDao.getRoleByName(Role.PERSONNEL_ADMIN));
+    personDayDao.getEntityManager().persist(uro);
+    for (Person person : ImmutableSet.of(admin, worker)) {
+      person.getUser().setPassword(
+          Hashing.md5().hashString(PASSWORD, StandardCharsets.UTF_8).toString());
+    }
+
+    EntityManager em = personDayDao.getEntityManager();
+    em.flush();
+    em.clear();
+
+    mockMvc.perform(dailyPresence(admin, office))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.numberOfInOut").value(2))
+        .andExpect(jsonPath("$.daysRecap.length()").value(1))
+        .andExpect(jsonPath("$.dailyMap['" + DailyPresenceRecap.PRESENT + "']").value(1));
+    mockMvc.perform(dailyPresence(worker, office))
+        .andExpect(status().isForbidden());
+  }
+
+  private MockHttpServletRequestBuilder dailyPresence(Person user, Office office) {
+    String credentials = user.getUser().getUsername() + ":" + PASSWORD;
+    return get("/rest/v4/stampings/dailyPresence")
+        .param("officeId", office.getId().toString())
+        .param("date", DAY.toString())
+        .header(HttpHeaders.AUTHORIZATION, "Basic "
+            + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private long statements(Office office, LocalDate date) {
+    EntityManager em = personDayDao.getEntityManager();
+    em.flush();
+    em.clear();
+    final Statistics statistics =
+        em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    statistics.setStatisticsEnabled(true);
+    try {
+      dailyPresenceRecapFactory.create(em.find(Office.class, office.getId()), date);
+      return statistics.getPrepareStatementCount();
+    } finally {
+      statistics.setStatisticsEnabled(false);
+    }
+  }
+
+  /**
+   * Una sede con dipendenti entrati e non ancora usciti nel giorno, con il personday del giorno
+   * precedente se appartiene allo stesso mese.
+   */
+  private Office officeWithEmployees(int employees, LocalDate date) {
+    Person first = h2Examples.normalEmployee(BEGIN, Optional.empty());
+    final Office office = first.getOffice();
+    List<Person> people = Lists.newArrayList(first);
+    for (int i = 1; i < employees; i++) {
+      people.add(employee(office));
+    }
+    for (Person person : people) {
+      if (date.getDayOfMonth() > 1) {
+        PersonDay previous = h2AbsenceSupport.getPersonDay(person, date.minusDays(1));
+        stamping(previous, 8, WayType.in);
+        stamping(previous, 14, WayType.out);
+      }
+      stamping(h2AbsenceSupport.getPersonDay(person, date), 0, WayType.in);
+    }
+    return office;
+  }
+
+  private Person employee(Office office) {
+    WorkingTimeType normal = h2WorkingTimeTypeSupport.getWorkingTimeType(WorkingDefinition.Normal);
+    Person person = h2Examples.createPerson(office, "employee" + UUID.randomUUID());
+    h2Examples.buildContract(person, BEGIN, Optional.empty(), Optional.empty(), normal);
+    return person;
+  }
+
+  private void stamping(PersonDay personDay, int hour, WayType way) {
+    Stamping stamping = new Stamping(personDay, personDay.getDate().atTime(hour, 0));
+    stamping.setWay(way);
+    personDayDao.getEntityManager().persist(stamping);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.tests.recaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.google.common.hash.Hashing;
+import it.cnr.iit.epas.dao.PersonDayDao;
+import it.cnr.iit.epas.dao.wrapper.IWrapperFactory;
+import it.cnr.iit.epas.manager.services.absences.AbsenceService;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.Stamping.WayType;
+import it.cnr.iit.epas.models.absences.definitions.DefaultAbsenceType;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import it.cnr.iit.epas.tests.db.h2support.base.H2AbsenceSupport;
+import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Base64;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class MonthRecapControllerTest {
+
+  private static final String PASSWORD = "password";
+  private static final LocalDate BEGIN = LocalDate.of(2024, 1, 1);
+  private static final LocalDate END = LocalDate.of(2024, 3, 31);
+  private static final YearMonth MARCH = YearMonth.of(2024, 3);
+
+  @Inject
+  private MockMvc mockMvc;
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private H2AbsenceSupport h2AbsenceSupport;
+  @Inject
+  private AbsenceService absenceService;
+  @Inject
+  private PersonDayDao personDayDao;
+  @Inject
+  private IWrapperFactory wrapperFactory;
+
+  /**
+   * Per i mesi in cui la persona non ha un contratto attivo il riepilogo non esiste.
+   */
+  @Test
+  void monthWithoutContractIsNotFound() throws Exception {
+    val person = employee();
+
+    mockMvc.perform(monthRecap(person, MARCH))
+        .andExpect(status().isOk());
+    mockMvc.perform(monthRecap(person, YearMonth.of(2024, 5)))
+        .andExpect(status().isNotFound());
+    mockMvc.perform(monthRecap(person, YearMonth.of(2023, 12)))
+        .andExpect(status().isNotFound());
+
+    val wrPerson = wrapperFactory.create(person);
+    assertFalse(wrPerson.isActiveInMonth(YearMonth.of(2024, 4)));
+    assertEquals(YearMonth.of(2024, 3), wrPerson.getLastActiveMonth());
+  }
+
+  /**
+   * Il riepilogo di un mese non modificato non è ricostruito.
+   */
+  @Test
+  void unchangedMonthIsNotModified() throws Exception {
+    val person = employee();
+    val etag = etag(person, MARCH);
+
+    mockMvc.perform(monthRecap(person, MARCH).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, etag));
+  }
+
+  /**
+   * Una timbratura modifica l'ETag del proprio mese ma non quello degli altri mesi.
+   */
+  @Test
+  void stampingChangesTheMonthEtag() throws Exception {
+    val person = employee();
+    val etag = etag(person, MARCH);
+    val februaryEtag = etag(person, MARCH.minusMonths(1));
+
+    stamping(person, LocalDate.of(2024, 3, 4).atTime(9, 0));
+
+    val changed = mockMvc.perform(monthRecap(person, MARCH)
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertNotNull(changed);
+    assertNotEquals(etag, changed);
+    mockMvc.perform(monthRecap(person, MARCH.minusMonths(1))
+            .header(HttpHeaders.IF_NONE_MATCH, februaryEtag))
+        .andExpect(status().isNotModified());
+  }
+
+  /**
+   * Un'assenza modifica l'ETag del proprio mese.
+   */
+  @Test
+  void absenceChangesTheMonthEtag() throws Exception {
+    absenceService.enumInitializator();
+    val person = employee();
+    val etag = etag(person, MARCH);
+
+    h2AbsenceSupport.absence(DefaultAbsenceType.A_31, LocalDate.of(2024, 3, 5),
+        Optional.empty(), 0, person);
+
+    mockMvc.perform(monthRecap(person, MARCH).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk());
+  }
+
+  private String etag(Person person, YearMonth yearMonth) throws Exception {
+    val etag = mockMvc.perform(monthRecap(person, yearMonth))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertNotNull(etag);
+    return etag;
+  }
+
+  private void stamping(Person person, LocalDateTime time) {
+    PersonDay personDay = h2AbsenceSupport.getPersonDay(person, time.toLocalDate());
+    Stamping stamping = new Stamping(personDay, time);
+    stamping.setWay(WayType.in);
+    personDayDao.getEntityManager().persist(stamping);
+  }
+
+  private Person employee() {
+    val person = h2Examples.normalEmployee(BEGIN, Optional.of(END));
+    person.setBeginDate(BEGIN);
+    person.getUser().setPassword(
+        Hashing.md5().hashString(PASSWORD, StandardCharsets.UTF_8).toString());
+    return person;
+  }
+
+  private MockHttpServletRequestBuilder monthRecap(Person person, YearMonth yearMonth) {
+    val credentials = person.getUser().getUsername() + ":" + PASSWORD;
+    return get("/rest/v4/monthrecaps")
+        .param("personId", person.getId().toString())
+        .param("year", String.valueOf(yearMonth.getYear()))
+        .param("month", String.valueOf(yearMonth.getMonthValue()))
+        .header(HttpHeaders.AUTHORIZATION, "Basic "
+            + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.tests.recaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import it.cnr.iit.epas.dao.PersonStampingRecapSnapshotDao;
+import it.cnr.iit.epas.manager.recaps.RecapVersions;
+import it.cnr.iit.epas.manager.recaps.personstamping.PersonStampingRecapSnapshotManager;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.PersonStampingRecapSnapshot;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.Stamping.WayType;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import it.cnr.iit.epas.tests.db.h2support.base.H2AbsenceSupport;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest(properties = "epas.stamping-recap-snapshot.enabled=true")
+class PersonStampingRecapSnapshotTest {
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private PersonStampingRecapSnapshotManager snapshotManager;
+  @Inject
+  private PersonStampingRecapSnapshotDao snapshotDao;
+  @Inject
+  private RecapVersions recapVersions;
+  @Inject
+  private H2AbsenceSupport h2AbsenceSupport;
+
+  @Test
+  void onlyMonthsBeforeTheOpenOnesAreClosed() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    val now = YearMonth.now();
+
+    assertFalse(snapshotManager.isClosed(person, now));
+    assertFalse(snapshotManager.isClosed(person, now.minusMonths(1)));
+    assertTrue(snapshotManager.isClosed(person, now.minusMonths(2)));
+  }
+
+  @Test
+  void deleteFromRemovesTheMonthAndTheFollowingOnes() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    snapshot(person, YearMonth.of(2023, 11));
+    snapshot(person, YearMonth.of(2023, 12));
+    snapshot(person, YearMonth.of(2024, 1));
+    snapshot(person, YearMonth.of(2024, 2));
+
+    assertEquals(3, snapshotDao.deleteFrom(person.getId(), YearMonth.of(2023, 12)));
+    assertTrue(snapshotDao.byPersonAndMonth(person, YearMonth.of(2023, 11)).isPresent());
+    assertFalse(snapshotDao.byPersonAndMonth(person, YearMonth.of(2023, 12)).isPresent());
+    assertFalse(snapshotDao.byPersonAndMonth(person, YearMonth.of(2024, 2)).isPresent());
+  }
+
+  @Test
+  void theMostRecentSnapshotIsRead() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    snapshot(person, YearMonth.of(2023, 5));
+    val newer = snapshot(person, YearMonth.of(2023, 5));
+
+    assertEquals(newer.getId(),
+        snapshotDao.byPersonAndMonth(person, YearMonth.of(2023, 5)).get().getId());
+  }
+
+  /**
+   * Un riepilogo salvato con una versione diversa da quella corrente dei dati del mese è
+   * ricalcolato e sostituito.
+   */
+  @Test
+  void snapshotOfAnotherVersionIsReplaced() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    val month = YearMonth.of(2023, 5);
+    val stale = snapshot(person, month);
+    stale.setRecapVersion("stale");
+    stale.setContent("{\"stale\":true}");
+
+    assertFalse(snapshotManager.recap(person, month).has("stale"));
+    val stored = snapshotDao.byPersonAndMonth(person, month).get();
+    assertNotEquals(stale.getId(), stored.getId());
+    assertEquals(recapVersions.monthVersion(person, month), stored.getRecapVersion());
+
+    snapshotManager.recap(person, month);
+    assertEquals(stored.getId(), snapshotDao.byPersonAndMonth(person, month).get().getId());
+
+    PersonDay personDay = h2AbsenceSupport.getPersonDay(person, month.atDay(2));
+    Stamping stamping = new Stamping(personDay, month.atDay(2).atTime(9, 0));
+    stamping.setWay(WayType.in);
+    snapshotDao.getEntityManager().persist(stamping);
+
+    snapshotManager.recap(person, month);
+    val replaced = snapshotDao.byPersonAndMonth(person, month).get();
+    assertNotEquals(stored.getId(), replaced.getId());
+    assertNotEquals(stored.getRecapVersion(), replaced.getRecapVersion());
+    assertEquals(1, snapshotDao.deleteMonth(person.getId(), month));
+  }
+
+  private PersonStampingRecapSnapshot snapshot(Person person, YearMonth yearMonth) {
+    val snapshot = new PersonStampingRecapSnapshot();
+    snapshot.setPerson(person);
+    snapshot.setYear(yearMonth.getYear());
+    snapshot.setMonth(yearMonth.getMonthValue());
+    snapshot.setContent("{}");
+    snapshot.setRecapVersion("0.0");
+    snapshot.setCreatedAt(LocalDateTime.now());
+    snapshotDao.persist(snapshot);
+    return snapshot;
+  }
+}
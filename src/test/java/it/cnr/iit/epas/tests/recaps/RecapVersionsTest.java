@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.recaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import it.cnr.iit.epas.dao.RecapVersionDao;
+import it.cnr.iit.epas.manager.configurations.EpasParam;
+import it.cnr.iit.epas.manager.recaps.RecapVersions;
+import it.cnr.iit.epas.models.CompetenceCode;
+import it.cnr.iit.epas.models.Configuration;
+import it.cnr.iit.epas.models.PersonCompetenceCodes;
+import it.cnr.iit.epas.models.enumerate.LimitType;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class RecapVersionsTest {
+
+  private static final YearMonth MONTH = YearMonth.of(2023, 5);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private RecapVersions recapVersions;
+  @Inject
+  private RecapVersionDao recapVersionDao;
+
+  /**
+   * L'abilitazione di una competenza alla persona cambia l'ETag dei suoi riepiloghi mensili.
+   */
+  @Test
+  void personCompetenceCodesChangeTheMonthEtag() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    val before = recapVersions.monthEtag(person, MONTH);
+    assertEquals(before, recapVersions.monthEtag(person, MONTH));
+
+    val competenceCode = new CompetenceCode();
+    competenceCode.setCode("S1test");
+    competenceCode.setDescription("S1test");
+    competenceCode.setLimitType(LimitType.monthly);
+    recapVersionDao.getEntityManager().persist(competenceCode);
+    val personCompetenceCodes = new PersonCompetenceCodes();
+    personCompetenceCodes.setPerson(person);
+    personCompetenceCodes.setCompetenceCode(competenceCode);
+    personCompetenceCodes.setBeginDate(LocalDate.of(2020, 1, 1));
+    recapVersionDao.getEntityManager().persist(personCompetenceCodes);
+    recapVersionDao.getEntityManager().flush();
+
+    assertNotEquals(before, recapVersions.monthEtag(person, MONTH));
+  }
+
+  /**
+   * La modifica di una configurazione dell'ufficio cambia l'ETag dei riepiloghi mensili delle
+   * sue persone.
+   */
+  @Test
+  void officeConfigurationChangesTheMonthEtag() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    val before = recapVersions.monthEtag(person, MONTH);
+
+    Configuration configuration = person.getOffice().getConfigurations().stream()
+        .filter(c -> c.epasParam == EpasParam.LUNCH_INTERVAL).findFirst().get();
+    configuration.setBeginDate(configuration.getBeginDate().plusDays(1));
+    recapVersionDao.getEntityManager().flush();
+
+    assertNotEquals(before, recapVersions.monthEtag(person, MONTH));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.recomputations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.Lists;
+import it.cnr.iit.epas.manager.ConsistencyManager;
+import it.cnr.iit.epas.manager.StampingManager;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.WorkingTimeType;
+import it.cnr.iit.epas.models.exports.StampingFromClient;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import it.cnr.iit.epas.tests.db.h2support.base.H2WorkingTimeTypeSupport;
+import it.cnr.iit.epas.tests.db.h2support.base.WorkingTimeTypeDefinitions.WorkingDefinition;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import javax.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Verifica che l'inserimento massivo delle timbrature dai client richieda un solo ricalcolo
+ * per persona.
+ */
+@Transactional
+@SpringBootTest
+class BulkStampingsRecomputeTest {
+
+  private static final LocalDate BEGIN = LocalDate.of(2014, 3, 17);
+  private static final LocalDate FIRST_DAY = LocalDate.of(2016, 1, 7);
+  private static final LocalDate LAST_DAY = LocalDate.of(2016, 1, 12);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private H2WorkingTimeTypeSupport h2WorkingTimeTypeSupport;
+  @Inject
+  private StampingManager stampingManager;
+
+  @MockitoBean
+  private ConsistencyManager consistencyManager;
+
+  /**
+   * Le timbrature di più giorni e più persone, ricevute non in ordine e con un duplicato,
+   * producono per ogni persona un'unica richiesta di ricalcolo dal giorno della timbratura
+   * più vecchia a quello della più recente.
+   */
+  @Test
+  void batchRecomputesOncePerPerson() {
+    Person first = h2Examples.normalEmployee(BEGIN, Optional.empty());
+    Person second = employee(first.getOffice());
+
+    List<StampingFromClient> batch = Lists.newArrayList(
+        stamping(first, LAST_DAY.atTime(8, 0), 0),
+        stamping(second, FIRST_DAY.plusDays(1).atTime(8, 0), 0),
+        stamping(first, FIRST_DAY.atTime(8, 0), 0),
+        stamping(first, FIRST_DAY.atTime(14, 0), 1),
+        stamping(second, FIRST_DAY.plusDays(1).atTime(14, 0), 1),
+        stamping(first, FIRST_DAY.plusDays(1).atTime(8, 0), 0),
+        stamping(first, FIRST_DAY.atTime(8, 0), 0));
+
+    List<Optional<Stamping>> inserted = stampingManager.createStampingsFromClient(batch);
+
+    assertEquals(batch.size(), inserted.size());
+    assertTrue(inserted.get(2).isPresent());
+    assertFalse("La timbratura ripetuta non deve essere inserita",
+        inserted.get(6).isPresent());
+
+    stampingManager.updatePersonSituations(
+        inserted.stream().flatMap(Optional::stream).toList());
+
+    verify(consistencyManager, times(2))
+        .requestPersonSituationUpdate(anyLong(), any(LocalDate.class), any(LocalDate.class));
+    verify(consistencyManager)
+        .requestPersonSituationUpdate(eq(first.getId()), eq(FIRST_DAY), eq(LAST_DAY));
+    verify(consistencyManager).requestPersonSituationUpdate(
+        eq(second.getId()), eq(FIRST_DAY.plusDays(1)), eq(FIRST_DAY.plusDays(1)));
+    verify(consistencyManager, never())
+        .requestPersonSituationUpdate(anyLong(), any(LocalDate.class));
+  }
+
+  private Person employee(Office office) {
+    WorkingTimeType normal = h2WorkingTimeTypeSupport.getWorkingTimeType(WorkingDefinition.Normal);
+    Person person = h2Examples.createPerson(office, "employee" + UUID.randomUUID());
+    h2Examples.buildContract(person, BEGIN, Optional.empty(), Optional.empty(), normal);
+    return person;
+  }
+
+  private StampingFromClient stamping(Person person, LocalDateTime dateTime, int inOut) {
+    return StampingFromClient.builder()
+        .person(person)
+        .dateTime(dateTime)
+        .inOut(inOut)
+        .build();
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.recomputations;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.Lists;
+import it.cnr.iit.epas.dao.ContractDao;
+import it.cnr.iit.epas.dao.PersonDayDao;
+import it.cnr.iit.epas.dao.wrapper.IWrapperFactory;
+import it.cnr.iit.epas.manager.ConsistencyManager;
+import it.cnr.iit.epas.manager.services.absences.AbsenceService;
+import it.cnr.iit.epas.models.ContractMonthRecap;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.Stamping.WayType;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import it.cnr.iit.epas.tests.db.h2support.base.H2AbsenceSupport;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import javax.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class PersonSituationRecomputeTest {
+
+  private static final LocalDate BEGIN = LocalDate.of(2024, 1, 1);
+  private static final LocalDate END = LocalDate.of(2024, 3, 31);
+  private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private H2AbsenceSupport h2AbsenceSupport;
+  @Inject
+  private AbsenceService absenceService;
+  @Inject
+  private ConsistencyManager consistencyManager;
+  @Inject
+  private PersonDayDao personDayDao;
+  @Inject
+  private ContractDao contractDao;
+  @Inject
+  private IWrapperFactory wrapperFactory;
+
+  /**
+   * Il ricalcolo della situazione calcola tempo a lavoro, differenza e progressivo dei giorni
+   * a partire dalle timbrature.
+   */
+  @Test
+  void personDaysAreComputedFromStampings() {
+    absenceService.enumInitializator();
+    Person person = employee();
+    stampings(person, MONDAY, 9, 13);
+    clear();
+
+    consistencyManager.updatePersonSituation(person.getId(), MONDAY);
+    clear();
+
+    PersonDay monday = personDayDao.getPersonDay(person, MONDAY).get();
+    assertEquals(240, monday.getTimeAtWork().intValue());
+    assertEquals(240 - 432, monday.getDifference().intValue());
+    assertEquals(240 - 432, monday.getProgressive().intValue());
+
+    PersonDay tuesday = personDayDao.getPersonDay(person, MONDAY.plusDays(1)).get();
+    assertEquals(0, tuesday.getTimeAtWork().intValue());
+    assertEquals(monday.getProgressive() + tuesday.getDifference(),
+        tuesday.getProgressive().intValue());
+  }
+
+  /**
+   * Il ricalcolo incrementale dopo la modifica di un giorno produce gli stessi giorni e gli
+   * stessi residui del ricalcolo completo dello stesso periodo.
+   */
+  @Test
+  void incrementalRecomputeMatchesFullRecompute() {
+    absenceService.enumInitializator();
+    Person person = employee();
+    stampings(person, MONDAY, 9, 13);
+    stampings(person, MONDAY.plusDays(1), 8, 16);
+    stampings(person, MONDAY.plusDays(9), 9, 17);
+    clear();
+    consistencyManager.updatePersonSituation(person.getId(), MONDAY);
+    clear();
+
+    final LocalDate modified = MONDAY.plusDays(8);
+    stampings(person, modified, 8, 15);
+    clear();
+
+    consistencyManager.requestPersonSituationUpdate(person.getId(), modified, modified);
+    clear();
+    final List<String> incremental = situation(person);
+
+    consistencyManager.updatePersonSituation(person.getId(), modified);
+    clear();
+    final List<String> full = situation(person);
+
+    assertEquals(full, incremental);
+  }
+
+  /**
+   * Se l'uscita inserita chiude l'entrata rimasta aperta nel giorno precedente il ricalcolo
+   * incrementale non è applicabile: il giorno precedente è ricalcolato con le timbrature
+   * automatiche di mezzanotte ed il risultato coincide con il ricalcolo completo.
+   */
+  @Test
+  void nightStampingFallsBackToFullRecompute() {
+    absenceService.enumInitializator();
+    Person person = employee();
+    final LocalDate evening = MONDAY.plusDays(7);
+    stamping(h2AbsenceSupport.getPersonDay(person, evening), 20, WayType.in);
+    clear();
+    consistencyManager.updatePersonSituation(person.getId(), MONDAY);
+    clear();
+
+    final LocalDate modified = evening.plusDays(1);
+    stamping(h2AbsenceSupport.getPersonDay(person, modified), 2, WayType.out);
+    clear();
+
+    consistencyManager.requestPersonSituationUpdate(person.getId(), modified, modified);
+    clear();
+    final List<String> incremental = situation(person);
+    assertEquals(2, personDayDao.getPersonDay(person, evening).get().getStampings().size());
+
+    consistencyManager.updatePersonSituation(person.getId(), evening);
+    clear();
+    final List<String> full = situation(person);
+
+    assertEquals(full, incremental);
+  }
+
+  /**
+   * I valori calcolati dei giorni e il riepilogo mensile del mese modificato.
+   */
+  private List<String> situation(Person person) {
+    final List<String> situation = Lists.newArrayList();
+    for (PersonDay personDay : personDayDao.getPersonDayInPeriod(person,
+        MONDAY.withDayOfMonth(1), Optional.of(END))) {
+      situation.add(String.format("%s %d %d %d %s", personDay.getDate(),
+          personDay.getTimeAtWork(), personDay.getDifference(), personDay.getProgressive(),
+          personDay.isTicketAvailable()));
+    }
+    ContractMonthRecap recap = wrapperFactory.create(contractDao.getContract(END, person))
+        .getContractMonthRecap(YearMonth.from(END)).get();
+    situation.add(String.format("%d %d %d", recap.getProgressivoFinaleMese(),
+        recap.getRemainingMinutesCurrentYear(), recap.getRemainingMealTickets()));
+    return situation;
+  }
+
+  private Person employee() {
+    Person person = h2Examples.normalEmployee(BEGIN, Optional.of(END));
+    person.setBeginDate(BEGIN);
+    return person;
+  }
+
+  private void stampings(Person person, LocalDate date, int in, int out) {
+    PersonDay personDay = h2AbsenceSupport.getPersonDay(person, date);
+    stamping(personDay, in, WayType.in);
+    stamping(personDay, out, WayType.out);
+  }
+
+  private void stamping(PersonDay personDay, int hour, WayType way) {
+    Stamping stamping = new Stamping(personDay, personDay.getDate().atTime(hour, 0));
+    stamping.setWay(way);
+    personDayDao.getEntityManager().persist(stamping);
+  }
+
+  private void clear() {
+    EntityManager em = personDayDao.getEntityManager();
+    em.flush();
+    em.clear();
+  }
+}
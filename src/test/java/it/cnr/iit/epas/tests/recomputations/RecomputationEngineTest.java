@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.recomputations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+import com.google.common.collect.Lists;
+import it.cnr.iit.epas.manager.ConsistencyManagerAsync;
+import it.cnr.iit.epas.manager.RecomputationEngine;
+import it.cnr.iit.epas.manager.recaps.recomputation.RecomputationProgress;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.Person;
+import jakarta.persistence.OptimisticLockException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@SpringBootTest(properties = {
+    "epas.recomputation.workers=2",
+    "epas.recomputation.queueCapacity=1",
+    "epas.recomputation.batchSize=2",
+    "epas.recomputation.retryBackoff=1ms"})
+class RecomputationEngineTest {
+
+  private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+
+  @MockitoBean
+  private ConsistencyManagerAsync consistencyManagerAsync;
+  @Inject
+  private RecomputationEngine recomputationEngine;
+
+  /**
+   * Le persone sono elaborate per ufficio in lotti di dimensione massima configurata, con al
+   * più tanti ricalcoli contemporanei quanti sono i worker.
+   */
+  @Test
+  void workIsPartitionedAndBoundedByOffice() throws Exception {
+    final Office first = office(1L);
+    final Office second = office(2L);
+    // l'ordine in ingresso non conta: i lotti sono costruiti per ufficio e per id
+    final List<Person> people = Lists.newArrayList(person(5L, second), person(1L, first),
+        person(4L, second), person(2L, first), person(3L, first));
+
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final List<String> events = Collections.synchronizedList(Lists.newArrayList());
+    doAnswer(invocation -> {
+      Long personId = invocation.getArgument(0);
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      events.add("start " + personId);
+      Thread.sleep(50);
+      events.add("end " + personId);
+      running.decrementAndGet();
+      return null;
+    }).when(consistencyManagerAsync)
+        .recomputePerson(anyLong(), any(LocalDate.class), anyBoolean(), any(Optional.class));
+
+    RecomputationProgress progress = recomputationEngine.recompute(people, FROM, false);
+
+    assertEquals(5, progress.getDone());
+    assertEquals(0, progress.getFailed());
+    assertTrue(progress.isCompleted());
+    assertTrue(maxRunning.get() <= 2);
+
+    // lotti: [1, 2] e [3] del primo ufficio, [4, 5] del secondo, uno dopo l'altro
+    assertTrue(events.indexOf("start 3") > Math.max(events.indexOf("end 1"),
+        events.indexOf("end 2")));
+    assertTrue(events.indexOf("start 4") > events.indexOf("end 3"));
+    assertTrue(events.indexOf("start 5") > events.indexOf("end 3"));
+  }
+
+  /**
+   * Un conflitto di lock ottimistico non fa fallire il ricalcolo della persona, che viene
+   * ritentato.
+   */
+  @Test
+  void optimisticLockFailuresAreRetried() throws Exception {
+    final AtomicInteger attempts = new AtomicInteger();
+    doAnswer(invocation -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new OptimisticLockException();
+      }
+      return null;
+    }).when(consistencyManagerAsync)
+        .recomputePerson(anyLong(), any(LocalDate.class), anyBoolean(), any(Optional.class));
+
+    RecomputationProgress progress =
+        recomputationEngine.recompute(List.of(person(1L, office(1L))), FROM, false);
+
+    assertEquals(1, progress.getDone());
+    assertEquals(1, progress.getRetries());
+    assertEquals(2, attempts.get());
+  }
+
+  private Office office(Long id) {
+    Office office = new Office();
+    office.setId(id);
+    return office;
+  }
+
+  private Person person(Long id, Office office) {
+    Person person = new Person();
+    person.setId(id);
+    person.setOffice(office);
+    return person;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.tests.recomputations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import it.cnr.iit.epas.dao.RecomputeRequestDao;
+import it.cnr.iit.epas.manager.RecomputeQueue;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class RecomputeQueueTest {
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private RecomputeQueue recomputeQueue;
+  @Inject
+  private RecomputeRequestDao recomputeRequestDao;
+
+  @Test
+  void requestsAreCoalescedToTheMinimumDate() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    assertFalse(recomputeQueue.pending(person.getId()).isPresent());
+
+    recomputeQueue.enqueue(person.getId(), LocalDate.of(2024, 3, 10));
+    recomputeQueue.enqueue(person.getId(), LocalDate.of(2024, 3, 5));
+    recomputeQueue.enqueue(person.getId(), LocalDate.of(2024, 3, 20));
+    recomputeRequestDao.getEntityManager().flush();
+    recomputeRequestDao.getEntityManager().clear();
+
+    val pending = recomputeQueue.pending(person.getId());
+    assertTrue(pending.isPresent());
+    assertEquals(LocalDate.of(2024, 3, 5), pending.get().getFromDate());
+    assertEquals(0, pending.get().getAttempts());
+  }
+
+  @Test
+  void modifiedRangesAreMerged() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+
+    recomputeQueue.enqueue(person.getId(), LocalDate.of(2024, 3, 10),
+        Optional.of(LocalDate.of(2024, 3, 10)));
+    recomputeQueue.enqueue(person.getId(), LocalDate.of(2024, 3, 5),
+        Optional.of(LocalDate.of(2024, 3, 6)));
+    recomputeRequestDao.getEntityManager().flush();
+    recomputeRequestDao.getEntityManager().clear();
+
+    val pending = recomputeQueue.pending(person.getId()).get();
+    assertEquals(LocalDate.of(2024, 3, 5), pending.getFromDate());
+    assertEquals(LocalDate.of(2024, 3, 10), pending.getToDate());
+
+    // una richiesta di ricalcolo completo prevale
+    recomputeQueue.enqueue(person.getId(), LocalDate.of(2024, 3, 20));
+    recomputeRequestDao.getEntityManager().clear();
+    assertNull(recomputeQueue.pending(person.getId()).get().getToDate());
+  }
+
+  @Test
+  void onlyUnchangedRequestsAreRemoved() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    recomputeQueue.enqueue(person.getId(), LocalDate.of(2024, 3, 10));
+    recomputeRequestDao.getEntityManager().flush();
+    recomputeRequestDao.getEntityManager().clear();
+
+    val read = recomputeRequestDao.due(LocalDateTime.now(), LocalDateTime.now(), 5, 10).stream()
+        .filter(r -> r.getPerson().getId().equals(person.getId())).findFirst().get();
+
+    // nuova richiesta durante il ricalcolo
+    recomputeQueue.enqueue(person.getId(), LocalDate.of(2024, 3, 12));
+    assertFalse(recomputeRequestDao.deleteIfUnchanged(read.getId(), read.getVersion()));
+    recomputeRequestDao.getEntityManager().clear();
+
+    val current = recomputeQueue.pending(person.getId()).get();
+    assertTrue(recomputeRequestDao.deleteIfUnchanged(current.getId(), current.getVersion()));
+    assertFalse(recomputeQueue.pending(person.getId()).isPresent());
+  }
+
+  @Test
+  void claimedRequestsAreNotDue() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    recomputeQueue.enqueue(person.getId(), LocalDate.of(2024, 3, 10));
+    recomputeRequestDao.getEntityManager().flush();
+    recomputeRequestDao.getEntityManager().clear();
+
+    val now = LocalDateTime.now();
+    val read = recomputeQueue.pending(person.getId()).get();
+    assertTrue(recomputeRequestDao.claim(read.getId(), read.getVersion(), now,
+        now.plusMinutes(10)));
+    // un'altra istanza non può prendere in carico la stessa richiesta
+    assertFalse(recomputeRequestDao.claim(read.getId(), read.getVersion(), now,
+        now.plusMinutes(10)));
+    assertFalse(recomputeRequestDao.due(now, now, 5, 10).stream()
+        .anyMatch(r -> r.getPerson().getId().equals(person.getId())));
+    // trascorso il lease la richiesta torna disponibile
+    assertTrue(recomputeRequestDao.due(now, now.plusMinutes(11), 5, 10).stream()
+        .anyMatch(r -> r.getPerson().getId().equals(person.getId())));
+
+    recomputeRequestDao.release(read.getId());
+    assertTrue(recomputeRequestDao.due(now, now, 5, 10).stream()
+        .anyMatch(r -> r.getPerson().getId().equals(person.getId())));
+  }
+}
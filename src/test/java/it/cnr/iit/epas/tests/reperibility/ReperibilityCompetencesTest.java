@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.reperibility;
+
+import static org.junit.Assert.assertEquals;
+
+import it.cnr.iit.epas.dao.PersonReperibilityDayDao;
+import it.cnr.iit.epas.manager.PersonDayManager;
+import it.cnr.iit.epas.manager.ReperibilityManager2;
+import it.cnr.iit.epas.models.CompetenceCode;
+import it.cnr.iit.epas.models.MonthlyCompetenceType;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonReperibility;
+import it.cnr.iit.epas.models.PersonReperibilityDay;
+import it.cnr.iit.epas.models.PersonReperibilityType;
+import it.cnr.iit.epas.models.enumerate.LimitType;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class ReperibilityCompetencesTest {
+
+  private static final LocalDate BEGIN = LocalDate.of(2024, 4, 1);
+  private static final LocalDate END = LocalDate.of(2024, 4, 30);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private ReperibilityManager2 reperibilityManager2;
+  @Inject
+  private PersonDayManager personDayManager;
+  @Inject
+  private PersonReperibilityDayDao personReperibilityDayDao;
+
+  /**
+   * Il calendario dei giorni festivi risolto sull'intero periodo coincide con isHoliday
+   * giorno per giorno, anche oltre la fine del contratto.
+   */
+  @Test
+  void holidaysInPeriodMatchesIsHoliday() {
+    val person = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1),
+        Optional.of(LocalDate.of(2024, 4, 15)));
+
+    for (boolean saturdayHoliday : new boolean[] {true, false}) {
+      val holidays = personDayManager.holidaysInPeriod(person, BEGIN, END, saturdayHoliday);
+      for (LocalDate date = BEGIN; !date.isAfter(END); date = date.plusDays(1)) {
+        assertEquals(date + " " + saturdayHoliday,
+            personDayManager.isHoliday(person, date, saturdayHoliday), holidays.contains(date));
+      }
+    }
+  }
+
+  /**
+   * Il calcolo in un'unica passata dei giorni di reperibilità feriali e festivi coincide con il
+   * calcolo per persona.
+   */
+  @Test
+  void singlePassMatchesPerPersonCalculation() {
+    val first = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    val second = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1),
+        Optional.of(LocalDate.of(2024, 4, 15)));
+
+    val type = new PersonReperibilityType();
+    type.setDescription("Reperibilità");
+    type.setOffice(first.getOffice());
+    type.setSupervisor(first);
+    type.setMonthlyCompetenceType(monthlyCompetenceType());
+    persist(type);
+
+    val firstReperibility = personReperibility(first, type);
+    val secondReperibility = personReperibility(second, type);
+    // feriali, fine settimana, il lunedì di Pasqua e il 25 aprile
+    for (int day : new int[] {1, 2, 3, 6, 7, 12, 25, 26, 27}) {
+      reperibilityDay(firstReperibility, type, LocalDate.of(2024, 4, day));
+    }
+    // anche oltre la fine del contratto
+    for (int day : new int[] {13, 14, 15, 16, 20}) {
+      reperibilityDay(secondReperibility, type, LocalDate.of(2024, 4, day));
+    }
+    personReperibilityDayDao.getEntityManager().flush();
+
+    val competences = reperibilityManager2.calculateReperibilityCompetences(type, BEGIN, END);
+    assertEquals(2, competences.size());
+    val codes = type.getMonthlyCompetenceType();
+    for (val dto : competences) {
+      Person person = dto.person;
+      assertEquals(reperibilityManager2.calculatePersonReperibilityCompetencesInPeriod(
+          type, person, BEGIN, END, codes.workdaysCode),
+          dto.workdays.workdaysReperibility);
+      assertEquals(reperibilityManager2.calculatePersonReperibilityCompetencesInPeriod(
+          type, person, BEGIN, END, codes.holidaysCode),
+          dto.holidays.holidaysReperibility);
+      assertEquals(reperibilityManager2.getReperibilityPeriod(person, BEGIN, END, type, false),
+          dto.workdays.workdaysPeriods);
+      assertEquals(reperibilityManager2.getReperibilityPeriod(person, BEGIN, END, type, true),
+          dto.holidays.holidaysPeriods);
+      if (person.equals(first)) {
+        assertEquals(4, dto.workdays.workdaysReperibility);
+        assertEquals(5, dto.holidays.holidaysReperibility);
+      }
+    }
+  }
+
+  private void persist(Object entity) {
+    personReperibilityDayDao.getEntityManager().persist(entity);
+  }
+
+  private MonthlyCompetenceType monthlyCompetenceType() {
+    val type = new MonthlyCompetenceType();
+    type.name = "Reperibilità";
+    type.workdaysCode = competenceCode("207test");
+    type.holidaysCode = competenceCode("208test");
+    persist(type);
+    return type;
+  }
+
+  private CompetenceCode competenceCode(String code) {
+    val competenceCode = new CompetenceCode();
+    competenceCode.setCode(code);
+    competenceCode.setDescription(code);
+    competenceCode.setLimitType(LimitType.monthly);
+    persist(competenceCode);
+    return competenceCode;
+  }
+
+  private PersonReperibility personReperibility(Person person, PersonReperibilityType type) {
+    val personReperibility = new PersonReperibility();
+    personReperibility.setPerson(person);
+    personReperibility.setPersonReperibilityType(type);
+    personReperibility.setStartDate(LocalDate.of(2020, 1, 1));
+    persist(personReperibility);
+    return personReperibility;
+  }
+
+  private void reperibilityDay(PersonReperibility personReperibility,
+      PersonReperibilityType type, LocalDate date) {
+    val day = new PersonReperibilityDay();
+    day.setPersonReperibility(personReperibility);
+    day.setReperibilityType(type);
+    day.setDate(date);
+    persist(day);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.security;
+
+import static org.junit.Assert.assertEquals;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.cnr.iit.epas.dao.OfficeDao;
+import it.cnr.iit.epas.dao.UserDao;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.models.User;
+import it.cnr.iit.epas.security.SecurityRules;
+import javax.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * La rimozione dalla cache dei permessi al commit si osserva solo con transazioni reali, per
+ * cui le modifiche all'utente sono committate e poi ripristinate.
+ */
+@SpringBootTest
+class PermissionDecisionCacheTest {
+
+  private static final String EVALUATION_TIMER = "epas.security.rules.evaluation";
+  private static final String USERNAME = "cristian.lucchesi";
+  private static final String PERMISSION = "/rest/v4/offices/show";
+  private static final long OFFICE_ID = 2L;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Inject
+  private TransactionTemplate transactionTemplate;
+  @Inject
+  private SecurityRules rules;
+  @Inject
+  private UserDao userDao;
+  @Inject
+  private OfficeDao officeDao;
+
+  @BeforeEach
+  void authenticate() {
+    Metrics.globalRegistry.add(registry);
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(USERNAME, null));
+  }
+
+  @AfterEach
+  void clear() {
+    SecurityContextHolder.clearContext();
+    Metrics.globalRegistry.remove(registry);
+  }
+
+  /**
+   * L'esito calcolato nella transazione che modifica l'utente, sui dati non ancora committati,
+   * è riutilizzato fino al commit e scartato dopo il commit.
+   */
+  @Test
+  void decisionsAreEvictedAfterCommit() {
+    final String password = transactionTemplate.execute(
+        status -> userDao.byUsername(USERNAME).getPassword());
+    final long before = evaluations();
+
+    transactionTemplate.executeWithoutResult(status -> {
+      User user = userDao.byUsername(USERNAME);
+      user.setPassword(password + "-changed");
+      userDao.getEntityManager().flush();
+
+      rules.check("GET", PERMISSION, office());
+      assertEquals(before + 1, evaluations());
+      // stessa richiesta prima del commit: esito dalla cache
+      rules.check("GET", PERMISSION, office());
+      assertEquals(before + 1, evaluations());
+    });
+
+    // dopo il commit le regole sono nuovamente valutate
+    transactionTemplate.executeWithoutResult(status -> rules.check("GET", PERMISSION, office()));
+    assertEquals(before + 2, evaluations());
+
+    transactionTemplate.executeWithoutResult(
+        status -> userDao.byUsername(USERNAME).setPassword(password));
+  }
+
+  private Office office() {
+    return officeDao.byId(OFFICE_ID).get();
+  }
+
+  private long evaluations() {
+    return Metrics.globalRegistry.find(EVALUATION_TIMER).timers().stream()
+        .mapToLong(Timer::count).sum();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package it.cnr.iit.epas.tests.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import it.cnr.iit.epas.dao.UserDao;
+import it.cnr.iit.epas.models.User;
+import it.cnr.iit.epas.security.PrincipalCache;
+import it.cnr.iit.epas.security.SecureUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.util.Optional;
+import javax.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@Transactional
+@SpringBootTest
+class SecureUtilsTest {
+
+  private static final String USERNAME = "cristian.lucchesi";
+
+  @Inject
+  private SecureUtils secureUtils;
+  @Inject
+  private PrincipalCache principalCache;
+  @Inject
+  private UserDao userDao;
+
+  @BeforeEach
+  void authenticate() {
+    principalCache.evictAll();
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(USERNAME, null));
+  }
+
+  @AfterEach
+  void clear() {
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+    principalCache.evictAll();
+  }
+
+  /**
+   * Nella stessa richiesta l'utente corrente è individuato una sola volta, le chiamate
+   * successive lo prelevano dal contesto di persistenza senza interrogare il db.
+   */
+  @Test
+  void currentUserIsResolvedOncePerRequest() {
+    final Optional<User> user = secureUtils.getCurrentUser();
+    assertTrue(user.isPresent());
+    assertEquals(USERNAME, user.get().getUsername());
+
+    final Statistics statistics = userDao.getEntityManager().getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    statistics.setStatisticsEnabled(true);
+    try {
+      assertSame(user.get(), secureUtils.getCurrentUser().get());
+      assertEquals(0, statistics.getPrepareStatementCount());
+    } finally {
+      statistics.setStatisticsEnabled(false);
+    }
+  }
+
+  /**
+   * La modifica dell'utente rimuove dalla cache l'associazione con il vecchio username, che
+   * in una nuova richiesta non individua più alcun utente.
+   */
+  @Test
+  void changedUserIsEvictedFromThePrincipalCache() {
+    final User user = secureUtils.getCurrentUser().get();
+    user.setUsername(USERNAME + ".changed");
+    final EntityManager em = userDao.getEntityManager();
+    em.flush();
+
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(USERNAME, null));
+    assertFalse(secureUtils.getCurrentUser().isPresent());
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.shifts;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.Lists;
+import it.cnr.iit.epas.dao.PersonShiftDayDao;
+import it.cnr.iit.epas.manager.PersonDayManager;
+import it.cnr.iit.epas.manager.ShiftManager2;
+import it.cnr.iit.epas.models.OrganizationShiftSlot;
+import it.cnr.iit.epas.models.OrganizationShiftTimeTable;
+import it.cnr.iit.epas.models.Person;
+import it.cnr.iit.epas.models.PersonDay;
+import it.cnr.iit.epas.models.PersonShift;
+import it.cnr.iit.epas.models.PersonShiftDay;
+import it.cnr.iit.epas.models.ShiftCategories;
+import it.cnr.iit.epas.models.ShiftTimeTable;
+import it.cnr.iit.epas.models.ShiftType;
+import it.cnr.iit.epas.models.ShiftType.ShiftPeriod;
+import it.cnr.iit.epas.models.Stamping;
+import it.cnr.iit.epas.models.Stamping.WayType;
+import it.cnr.iit.epas.models.enumerate.CalculationType;
+import it.cnr.iit.epas.models.enumerate.PaymentType;
+import it.cnr.iit.epas.models.enumerate.ShiftSlot;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import javax.inject.Inject;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class ShiftCompetencesTest {
+
+  private static final LocalDate BEGIN = LocalDate.of(2024, 4, 1);
+  private static final LocalDate END = LocalDate.of(2024, 4, 30);
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private ShiftManager2 shiftManager2;
+  @Inject
+  private PersonShiftDayDao personShiftDayDao;
+  @Inject
+  private PersonDayManager personDayManager;
+
+  /**
+   * Il calcolo in un'unica passata delle competenze deve coincidere, per ogni persona e tipo di
+   * periodo, con la somma sulle attività del calcolo per persona.
+   */
+  @Test
+  void singlePassMatchesPerPersonCalculation() {
+    val first = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    val second = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+    val nobody = h2Examples.normalEmployee(LocalDate.of(2020, 1, 1), Optional.empty());
+
+    val categories = new ShiftCategories();
+    categories.setDescription("Servizio di turno");
+    categories.setOffice(first.getOffice());
+    categories.setSupervisor(first);
+    persist(categories);
+
+    // attività con il vecchio orario di turno (minuti pagati mattina/pomeriggio)
+    val timeTable = new ShiftTimeTable();
+    timeTable.setPaidMinutesMorning(300);
+    timeTable.setPaidMinutesAfternoon(420);
+    timeTable.setCalculationType(CalculationType.standard_CNR);
+    persist(timeTable);
+    val legacy = shiftType("A", categories);
+    legacy.setShiftTimeTable(timeTable);
+
+    // attività con gli slot dell'orario di turno dell'organizzazione
+    val standard = organizationSlot("standard", CalculationType.standard_CNR,
+        PaymentType.T1, LocalTime.of(7, 0), LocalTime.of(13, 0));
+    val split = organizationSlot("split", CalculationType.standard_CNR,
+        PaymentType.SPLIT_CALCULATION, LocalTime.of(14, 0), LocalTime.of(22, 0));
+    val percentage = organizationSlot("percentage", CalculationType.percentage,
+        PaymentType.T1, LocalTime.of(14, 0), LocalTime.of(22, 0));
+    val organization = shiftType("B", categories);
+    organization.setOrganizaionShiftTimeTable(standard.getShiftTimeTable());
+
+    val firstShift = personShift(first);
+    val secondShift = personShift(second);
+
+    // giorni feriali
+    shift(firstShift, legacy, LocalDate.of(2024, 4, 2), ShiftSlot.MORNING, null, 0);
+    shift(firstShift, legacy, LocalDate.of(2024, 4, 3), ShiftSlot.AFTERNOON, null, 1);
+    shift(firstShift, organization, LocalDate.of(2024, 4, 4), null, standard, 0);
+    shift(firstShift, organization, LocalDate.of(2024, 4, 5), null, split, 0);
+    shift(secondShift, organization, LocalDate.of(2024, 4, 8), null, percentage, 1);
+    shift(secondShift, organization, LocalDate.of(2024, 4, 9), null, standard, 2);
+    shift(secondShift, legacy, LocalDate.of(2024, 4, 10), ShiftSlot.MORNING, null, 0);
+    // sabato e domenica
+    shift(firstShift, legacy, LocalDate.of(2024, 4, 6), ShiftSlot.MORNING, null, 0);
+    shift(secondShift, organization, LocalDate.of(2024, 4, 7), null, standard, 0);
+    shift(secondShift, organization, LocalDate.of(2024, 4, 13), null, percentage, 0);
+    // fuori dal periodo
+    shift(firstShift, legacy, LocalDate.of(2024, 5, 2), ShiftSlot.MORNING, null, 0);
+
+    stampings(first, LocalDate.of(2024, 4, 5), LocalTime.of(13, 30), LocalTime.of(20, 15));
+    stampings(second, LocalDate.of(2024, 4, 8), LocalTime.of(14, 10), LocalTime.of(21, 0));
+    stampings(second, LocalDate.of(2024, 4, 13), LocalTime.of(15, 0), LocalTime.of(22, 30));
+    personShiftDayDao.getEntityManager().flush();
+
+    final List<ShiftType> activities = Lists.newArrayList(legacy, organization);
+    final List<Person> people = Lists.newArrayList(first, second, nobody);
+    val competences =
+        shiftManager2.calculateShiftCompetencesInPeriod(activities, people, BEGIN, END);
+
+    assertEquals(people.size() * ShiftPeriod.values().length, competences.size());
+    for (Person person : people) {
+      for (ShiftPeriod type : ShiftPeriod.values()) {
+        int expected = 0;
+        for (ShiftType activity : activities) {
+          expected += shiftManager2
+              .calculatePersonShiftCompetencesInPeriod(activity, person, BEGIN, END, type);
+        }
+        assertEquals(person.getName() + " " + type,
+            expected, (int) competences.get(person, type));
+      }
+    }
+    // il turno del sabato sull'attività con il vecchio orario
+    assertEquals(300, (int) competences.get(first, ShiftPeriod.holiday));
+    assertEquals(0, (int) competences.get(nobody, ShiftPeriod.daily));
+  }
+
+  private void persist(Object entity) {
+    personShiftDayDao.getEntityManager().persist(entity);
+  }
+
+  private ShiftType shiftType(String type, ShiftCategories categories) {
+    val shiftType = new ShiftType();
+    shiftType.setType(type);
+    shiftType.setDescription(type);
+    shiftType.setShiftCategories(categories);
+    persist(shiftType);
+    return shiftType;
+  }
+
+  private OrganizationShiftSlot organizationSlot(String name, CalculationType calculationType,
+      PaymentType paymentType, LocalTime begin, LocalTime end) {
+    val timeTable = new OrganizationShiftTimeTable();
+    timeTable.setName(name);
+    timeTable.setCalculationType(calculationType);
+    persist(timeTable);
+    val slot = new OrganizationShiftSlot();
+    slot.setName(name);
+    slot.setBeginSlot(begin);
+    slot.setEndSlot(end);
+    slot.setPaymentType(paymentType);
+    slot.setMinutesPaid(360);
+    slot.setShiftTimeTable(timeTable);
+    persist(slot);
+    return slot;
+  }
+
+  private PersonShift personShift(Person person) {
+    val personShift = new PersonShift();
+    personShift.setPerson(person);
+    personShift.setDescription(person.getName());
+    personShift.setBeginDate(LocalDate.of(2020, 1, 1));
+    persist(personShift);
+    return personShift;
+  }
+
+  private void shift(PersonShift personShift, ShiftType shiftType, LocalDate date,
+      ShiftSlot shiftSlot, OrganizationShiftSlot organizationShiftSlot, int exceededThresholds) {
+    val shift = new PersonShiftDay();
+    shift.setPersonShift(personShift);
+    shift.setShiftType(shiftType);
+    shift.setDate(date);
+    shift.setShiftSlot(shiftSlot);
+    shift.setOrganizationShiftSlot(organizationShiftSlot);
+    shift.setExceededThresholds(exceededThresholds);
+    personShiftDayDao.persist(shift);
+  }
+
+  private void stampings(Person person, LocalDate date, LocalTime in, LocalTime out) {
+    PersonDay personDay = personDayManager.getOrCreateAndPersistPersonDay(person, date);
+    val entrance = new Stamping(personDay, LocalDateTime.of(date, in));
+    entrance.setWay(WayType.in);
+    persist(entrance);
+    val exit = new Stamping(personDay, LocalDateTime.of(date, out));
+    exit.setWay(WayType.out);
+    persist(exit);
+  }
+}
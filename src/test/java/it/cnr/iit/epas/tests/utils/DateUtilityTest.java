@@ -22,9 +22,12 @@ import static org.junit.Assert.assertEquals;
 import com.google.common.base.Preconditions;
 import it.cnr.iit.epas.utils.DateInterval;
 import it.cnr.iit.epas.utils.DateUtility;
+import it.cnr.iit.epas.utils.NationalHolidays;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.MonthDay;
+import java.util.Optional;
 import org.joda.time.Days;
 import org.junit.jupiter.api.Test;
 
@@ -74,4 +77,28 @@ class DateUtilityTest {
     LocalTime exampleTime = LocalTime.of(9, 30, 0);
     assertEquals(DateUtility.toMinute(exampleTime), 9 * 60 + 30);
   }
-}
\ No newline at end of file
+
+  @Test
+  void nationalHolidaysMatchLegacyCheck() {
+    for (LocalDate date = LocalDate.of(1990, 1, 1); date.getYear() < 2100;
+        date = date.plusDays(1)) {
+      assertEquals(date.toString(),
+          LegacyHolidays.isGeneralHoliday(null, date),
+          DateUtility.isGeneralHoliday(Optional.empty(), date));
+      assertEquals(date.toString(),
+          LegacyHolidays.isGeneralHoliday(MonthDay.of(6, 24), date),
+          DateUtility.isGeneralHoliday(Optional.of(MonthDay.of(6, 24)), date));
+    }
+  }
+
+  @Test
+  void countGeneralWorkingDays() {
+    LocalDate begin = LocalDate.of(2010, 12, 20);
+    LocalDate end = LocalDate.of(2012, 1, 10);
+    assertEquals(DateUtility.getGeneralWorkingDays(begin, end).size(),
+        DateUtility.countGeneralWorkingDays(begin, end));
+    assertEquals(2, NationalHolidays.countHolidays(
+        LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 1)));
+    assertEquals(0, DateUtility.countGeneralWorkingDays(end, begin));
+  }
+}
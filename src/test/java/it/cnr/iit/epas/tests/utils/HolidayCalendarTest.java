@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import it.cnr.iit.epas.manager.HolidayCalendar;
+import it.cnr.iit.epas.manager.configurations.ConfigurationManager;
+import it.cnr.iit.epas.manager.configurations.EpasParam;
+import it.cnr.iit.epas.models.Office;
+import it.cnr.iit.epas.tests.db.h2support.H2Examples;
+import it.cnr.iit.epas.utils.NationalHolidays;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import javax.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Transactional
+@SpringBootTest
+class HolidayCalendarTest {
+
+  @Inject
+  private H2Examples h2Examples;
+  @Inject
+  private ConfigurationManager configurationManager;
+  @Inject
+  private HolidayCalendar holidayCalendar;
+
+  /**
+   * Il patrono precalcolato per anno segue i periodi del parametro DAY_OF_PATRON, anche
+   * quando cambia nel corso dell'anno o dopo che il calendario dell'anno è stato calcolato.
+   */
+  @Test
+  void patronFollowsTheConfigurationPeriods() {
+    String name = "office" + UUID.randomUUID();
+    Office office = h2Examples.buildOffice(LocalDate.of(2020, 1, 1), name, name, name);
+    patron(office, 24, 6, LocalDate.of(2024, 1, 1));
+
+    assertTrue(holidayCalendar.isHoliday(office, LocalDate.of(2024, 6, 24)));
+    assertFalse(holidayCalendar.isHoliday(office, LocalDate.of(2023, 6, 24)));
+    // 2 e 24 giugno
+    assertEquals(2, holidayCalendar.countHolidays(office,
+        LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30)));
+    assertEquals(28, holidayCalendar.countWorkingDays(office,
+        LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30)));
+
+    // patrono cambiato a metà 2026: festivi sia il vecchio che il nuovo nei rispettivi periodi
+    patron(office, 4, 10, LocalDate.of(2026, 7, 1));
+    assertTrue(holidayCalendar.isHoliday(office, LocalDate.of(2026, 6, 24)));
+    assertTrue(holidayCalendar.isHoliday(office, LocalDate.of(2026, 10, 4)));
+    assertFalse(holidayCalendar.isHoliday(office, LocalDate.of(2025, 10, 4)));
+    assertEquals(NationalHolidays.countHolidays(LocalDate.of(2026, 1, 1),
+        LocalDate.of(2026, 12, 31)) + 2, holidayCalendar.countHolidays(office,
+        LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31)));
+    assertEquals(0, holidayCalendar.countHolidays(office,
+        LocalDate.of(2026, 1, 2), LocalDate.of(2025, 1, 1)));
+  }
+
+  private void patron(Office office, int day, int month, LocalDate from) {
+    configurationManager.updateDayMonth(EpasParam.DAY_OF_PATRON, office, day, month,
+        Optional.of(from), Optional.empty(), true);
+  }
+}
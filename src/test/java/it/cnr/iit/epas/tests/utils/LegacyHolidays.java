@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2025  Consiglio Nazionale delle Ricerche
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Affero General Public License as
+ *     published by the Free Software Foundation, either version 3 of the
+ *     License, or (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Affero General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Affero General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package it.cnr.iit.epas.tests.utils;
+
+import it.cnr.iit.epas.utils.DateUtility;
+import java.time.LocalDate;
+import java.time.MonthDay;
+
+/**
+ * Il controllo delle festività come implementato prima del calendario precalcolato, usato
+ * come riferimento nei test e nei benchmark.
+ */
+public final class LegacyHolidays {
+
+  private LegacyHolidays() {
+  }
+
+  /**
+   * Se la data è festiva secondo il controllo storico (Pasqua calcolata ad ogni chiamata e
+   * confronto con le festività fisse e il patrono).
+   */
+  public static boolean isGeneralHoliday(MonthDay officePatron, LocalDate date) {
+    LocalDate easter = DateUtility.findEaster(date.getYear());
+    LocalDate easterMonday = easter.plusDays(1);
+    if (date.getDayOfMonth() == easter.getDayOfMonth()
+        && date.getMonthValue() == easter.getMonthValue()) {
+      return true;
+    }
+    if (date.getDayOfMonth() == easterMonday.getDayOfMonth()
+        && date.getMonthValue() == easterMonday.getMonthValue()) {
+      return true;
+    }
+    int[][] fixed = {
+        {12, 25}, {12, 26}, {12, 8}, {6, 2}, {4, 25}, {5, 1}, {8, 15}, {1, 1}, {1, 6}, {11, 1}};
+    for (int[] day : fixed) {
+      if (date.getMonthValue() == day[0] && date.getDayOfMonth() == day[1]) {
+        return true;
+      }
+    }
+    if (officePatron != null) {
+      return date.getMonthValue() == officePatron.getMonthValue()
+          && date.getDayOfMonth() == officePatron.getDayOfMonth();
+    }
+    return date.isEqual(LocalDate.of(2011, 3, 17));
+  }
+}